@@ -174,6 +174,12 @@ public class XmlClientConfigBuilder extends AbstractXmlConfigHelper {
                 nearCacheConfig.setInvalidateOnChange(Boolean.parseBoolean(getTextContent(child)));
             } else if ("cache-local-entries".equals(nodeName)) {
                 nearCacheConfig.setCacheLocalEntries(Boolean.parseBoolean(getTextContent(child)));
+            } else if ("preloader-enabled".equals(nodeName)) {
+                nearCacheConfig.setPreloaderEnabled(Boolean.parseBoolean(getTextContent(child)));
+            } else if ("preloader-directory".equals(nodeName)) {
+                nearCacheConfig.setPreloaderDirectory(getTextContent(child));
+            } else if ("preloader-store-interval-seconds".equals(nodeName)) {
+                nearCacheConfig.setPreloaderStoreIntervalSeconds(Integer.parseInt(getTextContent(child)));
             }
         }
         clientConfig.addNearCacheConfig(name, nearCacheConfig);
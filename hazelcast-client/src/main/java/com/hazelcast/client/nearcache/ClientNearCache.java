@@ -32,8 +32,10 @@ import com.hazelcast.util.Clock;
 import com.hazelcast.util.ExceptionUtil;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -295,6 +297,13 @@ public class ClientNearCache<K> {
         cache.clear();
     }
 
+    /**
+     * @return a read-only view of the cached keys.
+     */
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(cache.keySet());
+    }
+
     class CacheRecord<K> {
         final K key;
         final Object value;
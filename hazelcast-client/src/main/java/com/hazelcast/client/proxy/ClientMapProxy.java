@@ -18,6 +18,8 @@ package com.hazelcast.client.proxy;
 
 import com.hazelcast.client.nearcache.ClientNearCache;
 import com.hazelcast.client.nearcache.ClientNearCacheType;
+import com.hazelcast.client.spi.ClientInvocationService;
+import com.hazelcast.client.spi.ClientPartitionService;
 import com.hazelcast.client.spi.ClientProxy;
 import com.hazelcast.client.spi.EventHandler;
 import com.hazelcast.client.spi.impl.ClientCallFuture;
@@ -32,11 +34,17 @@ import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.MapEvent;
 import com.hazelcast.core.Member;
+import com.hazelcast.core.QueryCache;
+import com.hazelcast.map.AggregatingQueryReducer;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.map.MapEntrySet;
+import com.hazelcast.map.MapFetchIterator;
 import com.hazelcast.map.MapInterceptor;
 import com.hazelcast.map.MapKeySet;
 import com.hazelcast.map.MapValueCollection;
+import com.hazelcast.map.NearCachePreloader;
+import com.hazelcast.map.ProjectingQueryReducer;
+import com.hazelcast.map.ReducedQueryResult;
 import com.hazelcast.map.SimpleEntryView;
 import com.hazelcast.map.client.MapAddEntryListenerRequest;
 import com.hazelcast.map.client.MapAddIndexRequest;
@@ -52,6 +60,7 @@ import com.hazelcast.map.client.MapExecuteOnAllKeysRequest;
 import com.hazelcast.map.client.MapExecuteOnKeyRequest;
 import com.hazelcast.map.client.MapExecuteOnKeysRequest;
 import com.hazelcast.map.client.MapExecuteWithPredicateRequest;
+import com.hazelcast.map.client.MapFetchRequest;
 import com.hazelcast.map.client.MapFlushRequest;
 import com.hazelcast.map.client.MapGetAllRequest;
 import com.hazelcast.map.client.MapGetEntryViewRequest;
@@ -66,6 +75,7 @@ import com.hazelcast.map.client.MapPutAllRequest;
 import com.hazelcast.map.client.MapPutIfAbsentRequest;
 import com.hazelcast.map.client.MapPutRequest;
 import com.hazelcast.map.client.MapPutTransientRequest;
+import com.hazelcast.map.client.MapQueryReduceRequest;
 import com.hazelcast.map.client.MapQueryRequest;
 import com.hazelcast.map.client.MapRemoveEntryListenerRequest;
 import com.hazelcast.map.client.MapRemoveIfSameRequest;
@@ -92,9 +102,9 @@ import com.hazelcast.mapreduce.aggregation.Aggregation;
 import com.hazelcast.mapreduce.aggregation.Supplier;
 import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.monitor.impl.LocalMapStatsImpl;
+import com.hazelcast.nio.Address;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.PagingPredicate;
-import com.hazelcast.query.PagingPredicateAccessor;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.spi.impl.PortableEntryEvent;
 import com.hazelcast.util.ExceptionUtil;
@@ -111,7 +121,6 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -119,6 +128,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -130,6 +140,8 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
     private final String name;
     private volatile ClientNearCache<Data> nearCache;
     private final AtomicBoolean nearCacheInitialized = new AtomicBoolean();
+    private volatile NearCachePreloader nearCachePreloader;
+    private volatile ScheduledFuture<?> preloaderStoreTask;
 
     public ClientMapProxy(String instanceName, String serviceName, String name) {
         super(instanceName, serviceName, name);
@@ -583,6 +595,40 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         return keySet;
     }
 
+    @Override
+    public Iterator<K> keyIterator(int fetchSize) {
+        return fetchIterator(fetchSize, false);
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> entryIterator(int fetchSize) {
+        return fetchIterator(fetchSize, true);
+    }
+
+    private <T> Iterator<T> fetchIterator(int fetchSize, boolean withValues) {
+        final ClientPartitionService partitionService = getContext().getPartitionService();
+        return new MapFetchIterator<T>(partitionService.getPartitionCount(), fetchSize, withValues) {
+            @Override
+            protected Future<?> fetch(int partitionId, long cursor, int fetchSize, boolean withValues) {
+                final MapFetchRequest request = new MapFetchRequest(name, partitionId, cursor, fetchSize, withValues);
+                final Address owner = partitionService.getPartitionOwner(partitionId);
+                try {
+                    final ClientInvocationService invocationService = getContext().getInvocationService();
+                    // a member which does not own the partition any more forwards the request to the owner.
+                    return owner != null ? invocationService.invokeOnTarget(request, owner)
+                            : invocationService.invokeOnRandomTarget(request);
+                } catch (Exception e) {
+                    throw ExceptionUtil.rethrow(e);
+                }
+            }
+
+            @Override
+            protected <R> R toObject(Object object) {
+                return ClientMapProxy.this.toObject(object);
+            }
+        };
+    }
+
     @Override
     public Map<K, V> getAll(Set<K> keys) {
         initNearCache();
@@ -654,12 +700,6 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         if (predicate instanceof PagingPredicate) {
             pagingPredicate = (PagingPredicate) predicate;
             pagingPredicate.setIterationType(IterationType.KEY);
-
-            if (pagingPredicate.getPage() > 0 && pagingPredicate.getAnchor() == null) {
-                pagingPredicate.previousPage();
-                keySet(pagingPredicate);
-                pagingPredicate.nextPage();
-            }
         }
         MapQueryRequest request = new MapQueryRequest(name, predicate, IterationType.KEY);
         QueryResultSet result = invoke(request);
@@ -672,22 +712,9 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
             return keySet;
         }
 
-
-        final Comparator<Entry> comparator = SortingUtil.newComparator(pagingPredicate.getComparator(), IterationType.KEY);
-        final SortedQueryResultSet sortedResult = new SortedQueryResultSet(comparator, IterationType.KEY,
-                pagingPredicate.getPageSize());
-
-
-        final Iterator<Entry> iterator = result.rawIterator();
-        while (iterator.hasNext()) {
-            final Entry entry = iterator.next();
-            final K key = toObject(entry.getKey());
-            final V value = toObject(entry.getValue());
-            sortedResult.add(new AbstractMap.SimpleImmutableEntry<K, V>(key, value));
-        }
-
-        PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, sortedResult.last());
-
+        final SortedQueryResultSet sortedResult = new SortedQueryResultSet(pagingPredicate.getComparator(),
+                IterationType.KEY, pagingPredicate.getPageSize());
+        sortedResult.addAll(getSortedPage(result, pagingPredicate));
         return (Set<K>) sortedResult;
     }
 
@@ -697,32 +724,23 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         if (predicate instanceof PagingPredicate) {
             pagingPredicate = (PagingPredicate) predicate;
             pagingPredicate.setIterationType(IterationType.ENTRY);
-
-            if (pagingPredicate.getPage() > 0 && pagingPredicate.getAnchor() == null) {
-                pagingPredicate.previousPage();
-                entrySet(pagingPredicate);
-                pagingPredicate.nextPage();
-            }
         }
 
         MapQueryRequest request = new MapQueryRequest(name, predicate, IterationType.ENTRY);
         QueryResultSet result = invoke(request);
-        Set entrySet;
-        if (pagingPredicate == null) {
-            entrySet = new HashSet<Entry<K, V>>(result.size());
-        } else {
-            entrySet = new SortedQueryResultSet(pagingPredicate.getComparator(), IterationType.ENTRY,
-                    pagingPredicate.getPageSize());
+        if (pagingPredicate != null) {
+            final SortedQueryResultSet sortedResult = new SortedQueryResultSet(pagingPredicate.getComparator(),
+                    IterationType.ENTRY, pagingPredicate.getPageSize());
+            sortedResult.addAll(getSortedPage(result, pagingPredicate));
+            return (Set) sortedResult;
         }
+        Set<Entry<K, V>> entrySet = new HashSet<Entry<K, V>>(result.size());
         for (Object data : result) {
             AbstractMap.SimpleImmutableEntry<Data, Data> dataEntry = (AbstractMap.SimpleImmutableEntry<Data, Data>) data;
             K key = toObject(dataEntry.getKey());
             V value = toObject(dataEntry.getValue());
             entrySet.add(new AbstractMap.SimpleEntry<K, V>(key, value));
         }
-        if (pagingPredicate != null) {
-            PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, ((SortedQueryResultSet) entrySet).last());
-        }
         return entrySet;
     }
 
@@ -732,12 +750,6 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         if (predicate instanceof PagingPredicate) {
             pagingPredicate = (PagingPredicate) predicate;
             pagingPredicate.setIterationType(IterationType.VALUE);
-
-            if (pagingPredicate.getPage() > 0 && pagingPredicate.getAnchor() == null) {
-                pagingPredicate.previousPage();
-                values(pagingPredicate);
-                pagingPredicate.nextPage();
-            }
         }
         MapQueryRequest request = new MapQueryRequest(name, predicate, IterationType.VALUE);
         QueryResultSet result = invoke(request);
@@ -751,30 +763,28 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
             return values;
         }
 
-        List<Entry<Object, V>> valueEntryList = new ArrayList<Entry<Object, V>>(result.size());
+        final List<Entry> page = getSortedPage(result, pagingPredicate);
+        final ArrayList<V> values = new ArrayList<V>(page.size());
+        for (Entry entry : page) {
+            values.add((V) entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * The members return the sorted entries following the nearest anchor of the paging predicate up to its
+     * current page, merges them and returns the current page.
+     */
+    private List<Entry> getSortedPage(QueryResultSet result, PagingPredicate pagingPredicate) {
+        final List<Entry> entries = new ArrayList<Entry>(result.size());
         final Iterator<Entry> iterator = result.rawIterator();
         while (iterator.hasNext()) {
             final Entry entry = iterator.next();
-            K key = toObject(entry.getKey());
-            V value = toObject(entry.getValue());
-            valueEntryList.add(new AbstractMap.SimpleImmutableEntry<Object, V>(key, value));
-        }
-
-        Collections.sort(valueEntryList, SortingUtil.newComparator(pagingPredicate.getComparator(), IterationType.VALUE));
-        if (valueEntryList.size() > pagingPredicate.getPageSize()) {
-            valueEntryList = valueEntryList.subList(0, pagingPredicate.getPageSize());
-        }
-        Entry anchor = null;
-        if (valueEntryList.size() != 0) {
-            anchor = valueEntryList.get(valueEntryList.size() - 1);
-        }
-        PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, anchor);
-
-        final ArrayList<V> values = new ArrayList<V>(valueEntryList.size());
-        for (Entry<Object, V> objectVEntry : valueEntryList) {
-            values.add(objectVEntry.getValue());
+            final K key = toObject(entry.getKey());
+            final V value = toObject(entry.getValue());
+            entries.add(new AbstractMap.SimpleImmutableEntry<K, V>(key, value));
         }
-        return values;
+        return SortingUtil.getSortedPage(entries, pagingPredicate);
     }
 
     @Override
@@ -787,6 +797,11 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         throw new UnsupportedOperationException("Locality is ambiguous for client!!!");
     }
 
+    @Override
+    public String explain(Predicate predicate) {
+        throw new UnsupportedOperationException("Locality is ambiguous for client!!!");
+    }
+
     @Override
     public void addIndex(String attribute, boolean ordered) {
         MapAddIndexRequest request = new MapAddIndexRequest(name, attribute, ordered);
@@ -901,6 +916,43 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         }
     }
 
+    @Override
+    public <SuppliedValue, Result> Result aggregate(Predicate predicate, Supplier<K, V, SuppliedValue> supplier,
+                                                    Aggregation<K, SuppliedValue, Result> aggregation) {
+        checkPredicateForReduce(predicate);
+        ValidationUtil.isNotNull(supplier, "supplier");
+        ValidationUtil.isNotNull(aggregation, "aggregation");
+        final AggregatingQueryReducer reducer = new AggregatingQueryReducer(supplier, aggregation);
+        ReducedQueryResult result = invoke(new MapQueryReduceRequest(name, predicate, reducer));
+        return AggregatingQueryReducer.collate(aggregation, result.getValues());
+    }
+
+    @Override
+    public <ProjectedType> Collection<ProjectedType> project(Predicate predicate, Supplier<K, V, ProjectedType> projection) {
+        checkPredicateForReduce(predicate);
+        ValidationUtil.isNotNull(projection, "projection");
+        final ProjectingQueryReducer reducer = new ProjectingQueryReducer(projection);
+        ReducedQueryResult result = invoke(new MapQueryReduceRequest(name, predicate, reducer));
+        return (Collection<ProjectedType>) result.getValues();
+    }
+
+    @Override
+    public QueryCache<K, V> getQueryCache(Predicate predicate) {
+        checkPredicateForReduce(predicate);
+        final ClientQueryCache<K, V> queryCache = new ClientQueryCache<K, V>(name, predicate, getContext());
+        queryCache.init();
+        return queryCache;
+    }
+
+    private void checkPredicateForReduce(Predicate predicate) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        if (predicate instanceof PagingPredicate) {
+            throw new IllegalArgumentException("Predicate should not be a type of paging predicate");
+        }
+    }
+
     @Override
     public Map<K, Object> executeOnKeys(Set<K> keys, EntryProcessor entryProcessor) {
         Set<Data> dataKeys = new HashSet<Data>(keys.size());
@@ -959,12 +1011,27 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
         invoke(request);
     }
 
+    @Override
+    protected void onInitialize() {
+        final NearCacheConfig nearCacheConfig = getContext().getClientConfig().getNearCacheConfig(name);
+        if (nearCacheConfig != null && nearCacheConfig.isPreloaderEnabled()) {
+            // start preloading right away instead of on first use.
+            initNearCache();
+        }
+    }
+
     @Override
     protected void onDestroy() {
         destroyNearCache();
+        if (nearCachePreloader != null) {
+            nearCachePreloader.destroy();
+        }
     }
 
     private void destroyNearCache() {
+        if (preloaderStoreTask != null) {
+            preloaderStoreTask.cancel(false);
+        }
         if (nearCache != null) {
             nearCache.destroy();
         }
@@ -972,6 +1039,9 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
 
     @Override
     protected void onShutdown() {
+        if (nearCachePreloader != null && nearCache != null) {
+            nearCachePreloader.storeKeys(nearCache.keySet());
+        }
         destroyNearCache();
     }
 
@@ -1063,9 +1133,37 @@ public final class ClientMapProxy<K, V> extends ClientProxy implements IMap<K, V
             ClientNearCache<Data> nearCacheInternal = new ClientNearCache<Data>(
                     name, ClientNearCacheType.Map, getContext(), nearCacheConfig);
             nearCache = nearCacheInternal;
+            if (nearCacheConfig.isPreloaderEnabled()) {
+                startNearCachePreloader(nearCacheInternal, nearCacheConfig);
+            }
         }
     }
 
+    private void startNearCachePreloader(final ClientNearCache<Data> cache, NearCacheConfig nearCacheConfig) {
+        final String preloaderName = "client-" + getContext().getClientConfig().getGroupConfig().getName() + "-" + name;
+        final NearCachePreloader preloader = new NearCachePreloader(preloaderName, nearCacheConfig,
+                getContext().getSerializationService());
+        nearCachePreloader = preloader;
+        final long interval = nearCacheConfig.getPreloaderStoreIntervalSeconds();
+        preloaderStoreTask = getContext().getExecutionService().scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                preloader.storeKeys(cache.keySet());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+        getContext().getExecutionService().execute(new Runnable() {
+            public void run() {
+                preloader.loadKeys(new NearCachePreloader.KeyLoader() {
+                    public void load(Set<Data> keys) {
+                        MapEntrySet mapEntrySet = invoke(new MapGetAllRequest(name, keys));
+                        for (Entry<Data, Data> entry : mapEntrySet.getEntrySet()) {
+                            cache.put(entry.getKey(), toObject(entry.getValue()));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
     @Override
     public String toString() {
         return "IMap{" + "name='" + getName() + '\'' + '}';
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.proxy;
+
+import com.hazelcast.client.impl.client.ClientRequest;
+import com.hazelcast.client.spi.ClientContext;
+import com.hazelcast.client.spi.EventHandler;
+import com.hazelcast.map.AbstractQueryCache;
+import com.hazelcast.map.QueryCacheEventBatch;
+import com.hazelcast.map.QueryCacheSnapshot;
+import com.hazelcast.map.client.MapAddQueryCacheListenerRequest;
+import com.hazelcast.map.client.MapQueryCachePartitionSnapshotRequest;
+import com.hazelcast.map.client.MapQueryCacheSnapshotRequest;
+import com.hazelcast.map.client.MapRemoveEntryListenerRequest;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.impl.SerializableCollection;
+import com.hazelcast.util.ExceptionUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link com.hazelcast.core.QueryCache} of a client map proxy. The listener is registered on one member, which
+ * forwards the batches of all members.
+ */
+final class ClientQueryCache<K, V> extends AbstractQueryCache<K, V> {
+
+    private final ClientContext context;
+    private final AtomicBoolean registered = new AtomicBoolean();
+    private volatile String registrationId;
+
+    ClientQueryCache(String name, Predicate predicate, ClientContext context) {
+        super(name, predicate, context.getSerializationService(), context.getPartitionService().getPartitionCount());
+        this.context = context;
+    }
+
+    /**
+     * Registers the listener and fills the view, the changes arriving meanwhile are applied afterwards.
+     */
+    void init() {
+        final MapAddQueryCacheListenerRequest request = new MapAddQueryCacheListenerRequest(name, getCacheId(), predicate);
+        registrationId = context.getListenerService().listen(request, null, new Handler());
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    @Override
+    protected QueryCacheSnapshot snapshot(int partitionId) {
+        final MapQueryCachePartitionSnapshotRequest request
+                = new MapQueryCachePartitionSnapshotRequest(name, getCacheId(), predicate, partitionId);
+        return (QueryCacheSnapshot) invoke(request);
+    }
+
+    @Override
+    protected Collection<QueryCacheSnapshot> snapshotAll() {
+        final MapQueryCacheSnapshotRequest request = new MapQueryCacheSnapshotRequest(name, getCacheId(), predicate);
+        final SerializableCollection results = (SerializableCollection) invoke(request);
+        final List<QueryCacheSnapshot> snapshots = new ArrayList<QueryCacheSnapshot>(results.size());
+        for (Data result : results.getCollection()) {
+            snapshots.add((QueryCacheSnapshot) serializationService.toObject(result));
+        }
+        return snapshots;
+    }
+
+    @Override
+    protected void removeListener() {
+        final String id = registrationId;
+        if (id != null) {
+            context.getListenerService().stopListening(new MapRemoveEntryListenerRequest(name, id), id);
+        }
+    }
+
+    private Object invoke(ClientRequest request) {
+        try {
+            final Future future = context.getInvocationService().invokeOnRandomTarget(request);
+            return serializationService.toObject(future.get());
+        } catch (Exception e) {
+            throw ExceptionUtil.rethrow(e);
+        }
+    }
+
+    @Override
+    protected void execute(Runnable task) {
+        context.getExecutionService().execute(task);
+    }
+
+    /**
+     * Applies the batches on the event thread of the listener. The view is queried again on another thread when
+     * the map is cleared or evicted, and after the listener is registered again with another member, which loses
+     * the batches sent meanwhile.
+     */
+    private class Handler implements EventHandler<Object> {
+
+        @Override
+        public void handle(Object event) {
+            if (event instanceof QueryCacheEventBatch) {
+                applyBatch((QueryCacheEventBatch) event);
+            } else {
+                refreshLater();
+            }
+        }
+
+        @Override
+        public void onListenerRegister() {
+            if (registered.compareAndSet(false, true)) {
+                return;
+            }
+            // called on the thread reading the responses, which the snapshot requests wait for.
+            refreshLater();
+        }
+    }
+}
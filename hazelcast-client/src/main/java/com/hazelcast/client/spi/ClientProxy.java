@@ -100,6 +100,12 @@ public abstract class ClientProxy implements DistributedObject {
         }
     }
 
+    /**
+     * Called once the proxy has its context.
+     */
+    protected void onInitialize() {
+    }
+
     protected void onDestroy() {
     }
 
@@ -16,6 +16,7 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.SerializationService;
 import com.hazelcast.util.ExceptionUtil;
 import com.hazelcast.util.executor.StripedExecutor;
+import com.hazelcast.util.executor.StripedRunnable;
 
 import java.util.Collections;
 import java.util.Iterator;
@@ -116,7 +117,9 @@ public final class ClientListenerServiceImpl implements ClientListenerService {
 
     public void handleEventPacket(Packet packet) {
         try {
-            eventExecutor.execute(new ClientEventProcessor(packet));
+            // the response wrapper is read here for its call id, the event itself is deserialized by the event thread.
+            final ClientResponse clientResponse = serializationService.toObject(packet.getData());
+            eventExecutor.execute(new ClientEventProcessor(clientResponse, (ClientConnection) packet.getConn()));
         } catch (RejectedExecutionException e) {
             logger.log(Level.WARNING, " event packet could not be handled ", e);
         }
@@ -126,20 +129,26 @@ public final class ClientListenerServiceImpl implements ClientListenerService {
         eventExecutor.shutdown();
     }
 
-    private final class ClientEventProcessor implements Runnable {
-        final Packet packet;
+    /**
+     * Handles the events of a listener on one event thread, in the order they were received.
+     */
+    private final class ClientEventProcessor implements StripedRunnable {
+        final ClientResponse clientResponse;
+        final ClientConnection conn;
 
-        private ClientEventProcessor(Packet packet) {
-            this.packet = packet;
+        private ClientEventProcessor(ClientResponse clientResponse, ClientConnection conn) {
+            this.clientResponse = clientResponse;
+            this.conn = conn;
+        }
+
+        @Override
+        public int getKey() {
+            return clientResponse.getCallId();
         }
 
         @Override
         public void run() {
-            final ClientConnection conn = (ClientConnection) packet.getConn();
-            final ClientResponse clientResponse = serializationService.toObject(packet.getData());
-            final int callId = clientResponse.getCallId();
-            final Data response = clientResponse.getResponse();
-            handleEvent(response, callId, conn);
+            handleEvent(clientResponse.getResponse(), clientResponse.getCallId(), conn);
         }
 
         private void handleEvent(Data event, int callId, ClientConnection conn) {
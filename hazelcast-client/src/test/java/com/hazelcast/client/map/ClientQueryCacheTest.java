@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.QueryCache;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class ClientQueryCacheTest extends HazelcastTestSupport {
+
+    @After
+    @Before
+    public void cleanup() throws Exception {
+        HazelcastClient.shutdownAll();
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testQueryCache_containsMatchingEntries() {
+        Hazelcast.newHazelcastInstance();
+        HazelcastInstance client = HazelcastClient.newHazelcastClient();
+        IMap<Integer, Integer> map = newMap(client, 100);
+
+        QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        assertEquals(50, cache.size());
+        assertEquals(10, (int) cache.get(10));
+        assertNull(cache.get(60));
+    }
+
+    @Test
+    public void testQueryCache_followsChanges() {
+        Hazelcast.newHazelcastInstance();
+        Hazelcast.newHazelcastInstance();
+        HazelcastInstance client = HazelcastClient.newHazelcastClient();
+        IMap<Integer, Integer> map = newMap(client, 100);
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        map.put(100, 1);
+        map.put(10, 60);
+        map.remove(20);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(49, cache.size());
+                assertEquals(Integer.valueOf(1), cache.get(100));
+                assertFalse(cache.containsKey(10));
+                assertFalse(cache.containsKey(20));
+            }
+        });
+    }
+
+    @Test
+    public void testQueryCache_mapCleared() {
+        Hazelcast.newHazelcastInstance();
+        HazelcastInstance client = HazelcastClient.newHazelcastClient();
+        IMap<Integer, Integer> map = newMap(client, 100);
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        map.clear();
+        map.put(1, 1);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(1, cache.size());
+                assertEquals(Integer.valueOf(1), cache.get(1));
+            }
+        });
+    }
+
+    @Test
+    public void testQueryCache_followsChanges_afterReconnect() {
+        HazelcastInstance server1 = Hazelcast.newHazelcastInstance();
+        Hazelcast.newHazelcastInstance();
+        HazelcastInstance client = HazelcastClient.newHazelcastClient();
+        IMap<Integer, Integer> map = newMap(client, 100);
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        // the client is connected to the first member, its listener is registered again with the second one.
+        server1.shutdown();
+        map.put(100, 1);
+        map.remove(20);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(50, cache.size());
+                assertEquals(Integer.valueOf(1), cache.get(100));
+                assertFalse(cache.containsKey(20));
+            }
+        });
+    }
+
+    private IMap<Integer, Integer> newMap(HazelcastInstance client, int numberOfEntries) {
+        IMap<Integer, Integer> map = client.getMap(randomMapName());
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, i);
+        }
+        return map;
+    }
+}
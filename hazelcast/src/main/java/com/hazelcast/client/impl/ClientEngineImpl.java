@@ -365,7 +365,9 @@ public class ClientEngineImpl implements ClientEngine, CoreService, PostJoinAwar
 
         private ClientRequest loadRequest() {
             Data data = packet.getData();
-            return serializationService.toObject(data);
+            ClientRequest request = serializationService.toObject(data);
+            packet.release();
+            return request;
         }
 
         private void handleEndpointNotCreatedConnectionNotAlive() {
@@ -306,12 +306,16 @@ public class ConfigXmlGenerator {
             xml.append("<eviction-percentage>").append(m.getEvictionPercentage()).append("</eviction-percentage>");
             xml.append("<min-eviction-check-millis>")
                     .append(m.getMinEvictionCheckMillis()).append("</min-eviction-check-millis>");
+            xml.append("<eviction-sample-count>")
+                    .append(m.getEvictionSampleCount()).append("</eviction-sample-count>");
             xml.append("<merge-policy>").append(m.getMergePolicy())
                     .append("</merge-policy>");
             xml.append("<read-backup-data>").append(m.isReadBackupData())
                     .append("</read-backup-data>");
             xml.append("<statistics-enabled>").append(m.isStatisticsEnabled())
                     .append("</statistics-enabled>");
+            xml.append("<compact-record-layout>").append(m.isCompactRecordLayout())
+                    .append("</compact-record-layout>");
 
             mapStoreConfigXmlGenerator(xml, m);
 
@@ -408,6 +412,10 @@ public class ConfigXmlGenerator {
             xml.append("<eviction-policy>").append(n.getEvictionPolicy()).append("</eviction-policy>");
             xml.append("<invalidate-on-change>").append(n.isInvalidateOnChange()).append("</invalidate-on-change>");
             xml.append("<in-memory-format>").append(n.getInMemoryFormat()).append("</in-memory-format>");
+            xml.append("<preloader-enabled>").append(n.isPreloaderEnabled()).append("</preloader-enabled>");
+            xml.append("<preloader-directory>").append(n.getPreloaderDirectory()).append("</preloader-directory>");
+            xml.append("<preloader-store-interval-seconds>").append(n.getPreloaderStoreIntervalSeconds())
+                    .append("</preloader-store-interval-seconds>");
             xml.append("</near-cache>");
         }
     }
@@ -60,6 +60,11 @@ public class MapConfig {
      */
     public static final long DEFAULT_MIN_EVICTION_CHECK_MILLIS = 100L;
 
+    /**
+     * Default number of records sampled per eviction step, 0 means all records are sorted.
+     */
+    public static final int DEFAULT_EVICTION_SAMPLE_COUNT = 0;
+
     /**
      * The number of default Time to Live seconds
      */
@@ -96,6 +101,8 @@ public class MapConfig {
 
     private long minEvictionCheckMillis = DEFAULT_MIN_EVICTION_CHECK_MILLIS;
 
+    private int evictionSampleCount = DEFAULT_EVICTION_SAMPLE_COUNT;
+
     private int timeToLiveSeconds = DEFAULT_TTL_SECONDS;
 
     private int maxIdleSeconds = DEFAULT_MAX_IDLE_SECONDS;
@@ -124,6 +131,8 @@ public class MapConfig {
 
     private boolean statisticsEnabled = true;
 
+    private boolean compactRecordLayout;
+
     private PartitioningStrategyConfig partitioningStrategyConfig;
 
     private MapConfigReadOnly readOnly;
@@ -159,6 +168,7 @@ public class MapConfig {
         this.asyncBackupCount = config.asyncBackupCount;
         this.evictionPercentage = config.evictionPercentage;
         this.minEvictionCheckMillis = config.minEvictionCheckMillis;
+        this.evictionSampleCount = config.evictionSampleCount;
         this.timeToLiveSeconds = config.timeToLiveSeconds;
         this.maxIdleSeconds = config.maxIdleSeconds;
         this.maxSizeConfig = config.maxSizeConfig != null ? new MaxSizeConfig(config.maxSizeConfig) : null;
@@ -169,6 +179,7 @@ public class MapConfig {
         this.readBackupData = config.readBackupData;
         this.optimizeQueries = config.optimizeQueries;
         this.statisticsEnabled = config.statisticsEnabled;
+        this.compactRecordLayout = config.compactRecordLayout;
         this.mergePolicy = config.mergePolicy;
         this.wanReplicationRef = config.wanReplicationRef != null ? new WanReplicationRef(config.wanReplicationRef) : null;
         this.listenerConfigs = new ArrayList<EntryListenerConfig>(config.getEntryListenerConfigs());
@@ -336,6 +347,39 @@ public class MapConfig {
         return this;
     }
 
+    /**
+     * Returns the number of records sampled per eviction step.
+     * <p/>
+     * Default value is {@value #DEFAULT_EVICTION_SAMPLE_COUNT}.
+     *
+     * @return number of sampled records, 0 if all records are sorted to find the eviction candidates.
+     * @since 3.3
+     */
+    public int getEvictionSampleCount() {
+        return evictionSampleCount;
+    }
+
+    /**
+     * Sets the number of records sampled per eviction step.
+     * <p/>
+     * When it is 0, the eviction criteria of all records of a partition are sorted to find the records to evict.
+     * Otherwise, eviction is approximate: every step samples that many records and evicts the best candidate of
+     * a small pool kept across eviction rounds. This avoids the sort and its latency on large partitions.
+     * Higher values give more accurate LRU/LFU eviction, 5 to 10 is a good trade-off.
+     * <p/>
+     * Default value is {@value #DEFAULT_EVICTION_SAMPLE_COUNT}.
+     *
+     * @param evictionSampleCount number of sampled records, 0 to sort all records.
+     * @since 3.3
+     */
+    public MapConfig setEvictionSampleCount(int evictionSampleCount) {
+        if (evictionSampleCount < 0) {
+            throw new IllegalArgumentException("Parameter evictionSampleCount can not get a negative value");
+        }
+        this.evictionSampleCount = evictionSampleCount;
+        return this;
+    }
+
     /**
      * @return the timeToLiveSeconds
      */
@@ -449,6 +493,23 @@ public class MapConfig {
         return this;
     }
 
+    public boolean isCompactRecordLayout() {
+        return compactRecordLayout;
+    }
+
+    /**
+     * Keeps the per-entry metadata of the map in int fields of the record instead of long fields and
+     * a separate statistics object. This shrinks the heap footprint of every entry at the cost of second
+     * precision for the entry timestamps (creation, last access, last update, last stored and expiration).
+     *
+     * @param compactRecordLayout true to use the compact record layout.
+     * @return the updated map config.
+     */
+    public MapConfig setCompactRecordLayout(boolean compactRecordLayout) {
+        this.compactRecordLayout = compactRecordLayout;
+        return this;
+    }
+
     public boolean isReadBackupData() {
         return readBackupData;
     }
@@ -616,8 +677,10 @@ public class MapConfig {
         sb.append(", evictionPolicy='").append(evictionPolicy).append('\'');
         sb.append(", evictionPercentage=").append(evictionPercentage);
         sb.append(", minEvictionCheckMillis=").append(minEvictionCheckMillis);
+        sb.append(", evictionSampleCount=").append(evictionSampleCount);
         sb.append(", maxSizeConfig=").append(maxSizeConfig);
         sb.append(", readBackupData=").append(readBackupData);
+        sb.append(", compactRecordLayout=").append(compactRecordLayout);
         sb.append(", nearCacheConfig=").append(nearCacheConfig);
         sb.append(", mapStoreConfig=").append(mapStoreConfig);
         sb.append(", mergePolicyConfig='").append(mergePolicy).append('\'');
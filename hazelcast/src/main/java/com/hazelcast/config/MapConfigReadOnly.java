@@ -112,6 +112,10 @@ public class MapConfigReadOnly extends MapConfig {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
     }
 
+    public MapConfig setEvictionSampleCount(int evictionSampleCount) {
+        throw new UnsupportedOperationException("This config is read-only map: " + getName());
+    }
+
     public MapConfig setTimeToLiveSeconds(int timeToLiveSeconds) {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
     }
@@ -144,6 +148,10 @@ public class MapConfigReadOnly extends MapConfig {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
     }
 
+    public MapConfig setCompactRecordLayout(boolean compactRecordLayout) {
+        throw new UnsupportedOperationException("This config is read-only map: " + getName());
+    }
+
     public MapConfig setReadBackupData(boolean readBackupData) {
         throw new UnsupportedOperationException("This config is read-only map: " + getName());
     }
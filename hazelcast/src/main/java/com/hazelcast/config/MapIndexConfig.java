@@ -71,7 +71,8 @@ public class MapIndexConfig {
     }
 
     /**
-     * Sets the attribute that is going to be indexed.
+     * Sets the attribute that is going to be indexed, several comma separated attributes for a composite index,
+     * see {@link com.hazelcast.core.IMap#addIndex(String, boolean)}.
      *
      * @param attribute the attribute that is going to be indexed.
      * @return the updated MapIndexConfig.
@@ -40,6 +40,10 @@ public class NearCacheConfig {
      * Default memory format
      */
     public static final InMemoryFormat DEFAULT_MEMORY_FORMAT = InMemoryFormat.BINARY;
+    /**
+     * Default interval of storing the keys of a near cache with preloading enabled.
+     */
+    public static final int DEFAULT_PRELOADER_STORE_INTERVAL_SECONDS = 600;
 
     private int timeToLiveSeconds = DEFAULT_TTL_SECONDS;
 
@@ -59,6 +63,12 @@ public class NearCacheConfig {
 
     private boolean cacheLocalEntries;
 
+    private boolean preloaderEnabled;
+
+    private String preloaderDirectory = "";
+
+    private int preloaderStoreIntervalSeconds = DEFAULT_PRELOADER_STORE_INTERVAL_SECONDS;
+
     public NearCacheConfig() {
     }
 
@@ -81,6 +91,9 @@ public class NearCacheConfig {
         maxSize = config.getMaxSize();
         timeToLiveSeconds = config.getTimeToLiveSeconds();
         cacheLocalEntries = config.isCacheLocalEntries();
+        preloaderEnabled = config.isPreloaderEnabled();
+        preloaderDirectory = config.getPreloaderDirectory();
+        preloaderStoreIntervalSeconds = config.getPreloaderStoreIntervalSeconds();
     }
 
     public NearCacheConfigReadOnly getAsReadOnly() {
@@ -161,6 +174,55 @@ public class NearCacheConfig {
         return this;
     }
 
+    public boolean isPreloaderEnabled() {
+        return preloaderEnabled;
+    }
+
+    /**
+     * Enables preloading: the keys of the near cache are periodically stored in a local file, and a restarted
+     * member or client fetches the values of the stored keys in bulk to start with a warm near cache.
+     *
+     * @param preloaderEnabled true to store and preload the keys of the near cache.
+     * @return this near cache config.
+     */
+    public NearCacheConfig setPreloaderEnabled(boolean preloaderEnabled) {
+        this.preloaderEnabled = preloaderEnabled;
+        return this;
+    }
+
+    public String getPreloaderDirectory() {
+        return preloaderDirectory;
+    }
+
+    /**
+     * Sets the directory of the files keeping the keys of near caches, empty for the working directory.
+     *
+     * @param preloaderDirectory directory of the key files.
+     * @return this near cache config.
+     */
+    public NearCacheConfig setPreloaderDirectory(String preloaderDirectory) {
+        this.preloaderDirectory = preloaderDirectory == null ? "" : preloaderDirectory;
+        return this;
+    }
+
+    public int getPreloaderStoreIntervalSeconds() {
+        return preloaderStoreIntervalSeconds;
+    }
+
+    /**
+     * Sets the interval of storing the keys of the near cache. Keys are also stored on graceful shutdown.
+     *
+     * @param preloaderStoreIntervalSeconds interval in seconds.
+     * @return this near cache config.
+     */
+    public NearCacheConfig setPreloaderStoreIntervalSeconds(int preloaderStoreIntervalSeconds) {
+        if (preloaderStoreIntervalSeconds <= 0) {
+            throw new IllegalArgumentException("Preloader store interval must be positive: " + preloaderStoreIntervalSeconds);
+        }
+        this.preloaderStoreIntervalSeconds = preloaderStoreIntervalSeconds;
+        return this;
+    }
+
     // this setter is for reflection based configuration building
     public NearCacheConfig setInMemoryFormat(String inMemoryFormat) {
         this.inMemoryFormat = InMemoryFormat.valueOf(inMemoryFormat);
@@ -177,6 +239,9 @@ public class NearCacheConfig {
         sb.append(", invalidateOnChange=").append(invalidateOnChange);
         sb.append(", inMemoryFormat=").append(inMemoryFormat);
         sb.append(", cacheLocalEntries=").append(cacheLocalEntries);
+        sb.append(", preloaderEnabled=").append(preloaderEnabled);
+        sb.append(", preloaderDirectory='").append(preloaderDirectory).append('\'');
+        sb.append(", preloaderStoreIntervalSeconds=").append(preloaderStoreIntervalSeconds);
         sb.append('}');
         return sb.toString();
     }
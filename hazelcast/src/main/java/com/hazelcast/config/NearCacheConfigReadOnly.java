@@ -59,4 +59,16 @@ public class NearCacheConfigReadOnly extends NearCacheConfig {
     public NearCacheConfig setCacheLocalEntries(boolean cacheLocalEntries) {
         throw new UnsupportedOperationException("This config is read-only");
     }
+
+    public NearCacheConfig setPreloaderEnabled(boolean preloaderEnabled) {
+        throw new UnsupportedOperationException("This config is read-only");
+    }
+
+    public NearCacheConfig setPreloaderDirectory(String preloaderDirectory) {
+        throw new UnsupportedOperationException("This config is read-only");
+    }
+
+    public NearCacheConfig setPreloaderStoreIntervalSeconds(int preloaderStoreIntervalSeconds) {
+        throw new UnsupportedOperationException("This config is read-only");
+    }
 }
@@ -840,6 +840,9 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
             } else if ("min-eviction-check-millis".equals(nodeName)) {
                 mapConfig.setMinEvictionCheckMillis(getLongValue("min-eviction-check-millis", value,
                         MapConfig.DEFAULT_MIN_EVICTION_CHECK_MILLIS));
+            } else if ("eviction-sample-count".equals(nodeName)) {
+                mapConfig.setEvictionSampleCount(getIntegerValue("eviction-sample-count", value,
+                        MapConfig.DEFAULT_EVICTION_SAMPLE_COUNT));
             } else if ("time-to-live-seconds".equals(nodeName)) {
                 mapConfig.setTimeToLiveSeconds(getIntegerValue("time-to-live-seconds", value,
                         MapConfig.DEFAULT_TTL_SECONDS));
@@ -857,6 +860,8 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
                 mapConfig.setReadBackupData(checkTrue(value));
             } else if ("statistics-enabled".equals(nodeName)) {
                 mapConfig.setStatisticsEnabled(checkTrue(value));
+            } else if ("compact-record-layout".equals(nodeName)) {
+                mapConfig.setCompactRecordLayout(checkTrue(value));
             } else if ("wan-replication-ref".equals(nodeName)) {
                 mapWanReplicationRefHandle(n, mapConfig);
             } else if ("indexes".equals(nodeName)) {
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.core;
+
+/**
+ * Thrown when an invocation is rejected because too much is already queued for the member it is sent to.
+ *
+ * @see com.hazelcast.instance.GroupProperties#PROP_SOCKET_SEND_QUEUE_CAPACITY
+ * @see com.hazelcast.instance.GroupProperties#PROP_BACKPRESSURE_POLICY
+ */
+public class HazelcastOverloadException extends HazelcastException {
+
+    public HazelcastOverloadException(String message) {
+        super(message);
+    }
+}
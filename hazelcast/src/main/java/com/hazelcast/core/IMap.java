@@ -25,6 +25,7 @@ import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.query.Predicate;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -949,6 +950,36 @@ public interface IMap<K, V>
      */
     Set<Map.Entry<K, V>> entrySet();
 
+    /**
+     * Returns an iterator over the keys of this map which fetches the keys in pages of the given size,
+     * one partition after the other. Unlike {@link #keySet()} it holds at most two pages of keys at a time,
+     * so it is suitable for maps too large to fit into the memory of the caller.
+     * <p/>
+     * The iterator is not backed by a snapshot: a key which is in the map during the whole iteration is
+     * returned exactly once, a key put or removed during the iteration may or may not be returned.
+     * The iterator does not support {@link Iterator#remove()}.
+     *
+     * @param fetchSize number of keys fetched at once.
+     * @return an iterator over the keys of this map
+     * @throws IllegalArgumentException if fetchSize is not positive
+     * @since 3.3
+     */
+    Iterator<K> keyIterator(int fetchSize);
+
+    /**
+     * Returns an iterator over the entries of this map which fetches the entries in pages of the given size,
+     * one partition after the other. Unlike {@link #entrySet()} it holds at most two pages of entries at a time.
+     * <p/>
+     * The same guarantees as for {@link #keyIterator(int)} apply. The entries are snapshots, changing their
+     * value does not change the map.
+     *
+     * @param fetchSize number of entries fetched at once.
+     * @return an iterator over the entries of this map
+     * @throws IllegalArgumentException if fetchSize is not positive
+     * @since 3.3
+     */
+    Iterator<Map.Entry<K, V>> entryIterator(int fetchSize);
+
     /**
      * Queries the map based on the specified predicate and
      * returns the keys of matching entries.
@@ -1062,6 +1093,12 @@ public interface IMap<K, V>
      * You should also make sure to add the indexes before adding
      * entries to this map.
      * <p/>
+     * <h3>Composite Indexes</h3>
+     * Several attributes separated by commas are indexed together, e.g. <tt>imap.addIndex("tenant, status", true)</tt>.
+     * Such an index is used for the AND of equalities of its first attributes, e.g. <tt>tenant = X AND status = Y</tt>
+     * or just <tt>tenant = X</tt>. If it is ordered, a range of the attribute following these equalities can be looked
+     * up too, e.g. <tt>tenant = X AND status = Y AND age &gt; 30</tt>.
+     * <p/>
      * <h3>Time to Index</h3>
      * Indexing time is executed in parallel on each partition by operation threads. The Map
      * is not blocked during this operation.
@@ -1078,6 +1115,27 @@ public interface IMap<K, V>
      */
     void addIndex(String attribute, boolean ordered);
 
+    /**
+     * Describes how this member evaluates the given predicate with its indexes, e.g.
+     * <pre>
+     * AND, estimated 12 entries
+     *   INDEX name=joe, estimated 12 entries
+     *   INTERSECT age&gt;30, estimated 40 entries
+     *   FILTER active=true
+     * </pre>
+     * The entries of the <tt>INDEX</tt> lookup are iterated, intersected with the entries of <tt>INTERSECT</tt>
+     * lookups and filtered by the <tt>FILTER</tt> predicates. <tt>SCAN</tt> means that no index can be used and
+     * all entries are evaluated. Estimates are taken from the local indexes, other members may choose differently.
+     * <p/>
+     * <p><b>Warning:</b></p>
+     * This method is not supported by the client.
+     *
+     * @param predicate the predicate to explain.
+     * @return the plan of the query on this member.
+     * @throws NullPointerException if the predicate is null.
+     */
+    String explain(Predicate predicate);
+
     /**
      * Returns LocalMapStats for this map.
      * LocalMapStats is the statistics for the local portion of this
@@ -1178,4 +1236,55 @@ public interface IMap<K, V>
     <SuppliedValue, Result> Result aggregate(Supplier<K, V, SuppliedValue> supplier,
                                              Aggregation<K, SuppliedValue, Result> aggregation,
                                              JobTracker jobTracker);
+
+    /**
+     * Executes a predefined aggregation on the entries matching the predicate without a map reduce job, e.g.
+     * <pre>
+     *   map.aggregate(new SqlPredicate("region = 'EU'"), Supplier.all(new AmountExtractor()), Aggregations.longSum());
+     * </pre>
+     * The predicate is evaluated like in {@link #values(com.hazelcast.query.Predicate)}, using indexes if possible.
+     * The supplied values are folded per partition by the combiner of the aggregation and per member by its reducer,
+     * only the reduced value of each member is sent back and collated. The mapper of the aggregation is not used.
+     *
+     * @param predicate       selects the entries to aggregate, paging predicates are not supported
+     * @param supplier        the supplier to select and / or extract a (sub-)value from the matching entries
+     * @param aggregation     the aggregation that is being executed against the matching entries
+     * @param <SuppliedValue> the final type emitted from the supplier
+     * @param <Result>        the resulting aggregation value type
+     * @return Returns the aggregated value
+     * @throws NullPointerException     if the predicate is null
+     * @throws IllegalArgumentException if the predicate is a {@link com.hazelcast.query.PagingPredicate}
+     */
+    <SuppliedValue, Result> Result aggregate(Predicate predicate, Supplier<K, V, SuppliedValue> supplier,
+                                             Aggregation<K, SuppliedValue, Result> aggregation);
+
+    /**
+     * Returns the values supplied by the projection for the entries matching the predicate, e.g. a single attribute
+     * of the map values. Only the projected values are sent back by the members, null values are skipped.
+     * <p/>
+     * The returned collection is <b>NOT</b> backed by the map and its order is undefined.
+     *
+     * @param predicate      selects the entries to project, paging predicates are not supported
+     * @param projection     the supplier extracting the value returned for a matching entry
+     * @param <ProjectedType> the projected value type
+     * @return the projected values of the matching entries
+     * @throws NullPointerException     if the predicate is null
+     * @throws IllegalArgumentException if the predicate is a {@link com.hazelcast.query.PagingPredicate}
+     */
+    <ProjectedType> Collection<ProjectedType> project(Predicate predicate, Supplier<K, V, ProjectedType> projection);
+
+    /**
+     * Creates a {@link QueryCache}, a local view of the entries matching the predicate which is kept up to date
+     * with the changes of the map. Reading and querying the view does not contact the cluster, which makes it an
+     * alternative to an entry listener with a predicate feeding a hand-written local map.
+     * <p/>
+     * Each call creates a new view and registers a listener for it, {@link QueryCache#destroy()} it when it is
+     * no longer used.
+     *
+     * @param predicate selects the entries of the view, paging predicates are not supported
+     * @return the view, filled with the entries matching the predicate
+     * @throws NullPointerException     if the predicate is null
+     * @throws IllegalArgumentException if the predicate is a {@link com.hazelcast.query.PagingPredicate}
+     */
+    QueryCache<K, V> getQueryCache(Predicate predicate);
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.core;
+
+import com.hazelcast.query.Predicate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A local, continuously updated view of the entries of an {@link IMap} which match a predicate, created by
+ * {@link IMap#getQueryCache(com.hazelcast.query.Predicate)}.
+ * <p/>
+ * The view starts from a snapshot of the matching entries of each partition. The partition owners then send the
+ * changes of the matching entries in batches, numbered per partition. If a change is lost, e.g. because the owner
+ * of the partition changed, the view queries the entries of that partition again. Reads are served locally and
+ * never leave the member or client holding the view. The view may lag behind the map by about the batch frequency,
+ * see {@link com.hazelcast.instance.GroupProperties#PROP_MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS}.
+ * <p/>
+ * Keys and values are deserialized on each read, changing a returned object does not change the view.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public interface QueryCache<K, V> {
+
+    /**
+     * @return name of the map this view is built from.
+     */
+    String getName();
+
+    /**
+     * @return the predicate selecting the entries of this view.
+     */
+    Predicate getPredicate();
+
+    V get(Object key);
+
+    boolean containsKey(Object key);
+
+    boolean containsValue(Object value);
+
+    int size();
+
+    boolean isEmpty();
+
+    Set<K> keySet();
+
+    Collection<V> values();
+
+    Set<Map.Entry<K, V>> entrySet();
+
+    /**
+     * Queries the entries of this view, using its indexes if possible, see {@link #addIndex(String, boolean)}.
+     * Paging predicates are not supported.
+     */
+    Set<K> keySet(Predicate predicate);
+
+    /**
+     * @see #keySet(com.hazelcast.query.Predicate)
+     */
+    Collection<V> values(Predicate predicate);
+
+    /**
+     * @see #keySet(com.hazelcast.query.Predicate)
+     */
+    Set<Map.Entry<K, V>> entrySet(Predicate predicate);
+
+    /**
+     * Adds an index to this view only, the indexes of the map are not used by the view.
+     *
+     * @param attribute attribute of the value to index, see {@link IMap#addIndex(String, boolean)}.
+     * @param ordered   true if the index should be ordered for range queries.
+     */
+    void addIndex(String attribute, boolean ordered);
+
+    /**
+     * Stops receiving the changes of the map and releases the entries of this view.
+     */
+    void destroy();
+}
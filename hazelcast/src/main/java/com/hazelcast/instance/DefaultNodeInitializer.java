@@ -28,18 +28,24 @@ import com.hazelcast.nio.tcp.SocketChannelWrapperFactory;
 import com.hazelcast.nio.tcp.TcpIpConnection;
 import com.hazelcast.security.SecurityContext;
 import com.hazelcast.storage.DataRef;
+import com.hazelcast.storage.OffHeapStorage;
 import com.hazelcast.storage.Storage;
 import com.hazelcast.wan.WanReplicationService;
 import com.hazelcast.wan.impl.WanReplicationServiceImpl;
 
 public class DefaultNodeInitializer implements NodeInitializer {
 
+    private static final int KILOBYTE = 1024;
+
     protected ILogger logger;
     protected ILogger systemLogger;
     protected Node node;
     protected String version;
     protected String build;
 
+    private final Object offHeapStorageMutex = new Object();
+    private volatile OffHeapStorage offHeapStorage;
+
     @Override
     public void beforeInitialize(Node node) {
         this.node = node;
@@ -72,7 +78,46 @@ public class DefaultNodeInitializer implements NodeInitializer {
 
     @Override
     public Storage<DataRef> getOffHeapStorage() {
-        throw new UnsupportedOperationException("Offheap feature is only available on Hazelcast Enterprise!");
+        OffHeapStorage storage = offHeapStorage;
+        if (storage != null) {
+            return storage;
+        }
+        final GroupProperties groupProperties = node.getGroupProperties();
+        if (!groupProperties.ELASTIC_MEMORY_ENABLED.getBoolean()) {
+            throw new UnsupportedOperationException("Offheap storage is not enabled! Set '"
+                    + GroupProperties.PROP_ELASTIC_MEMORY_ENABLED + "' to true.");
+        }
+        synchronized (offHeapStorageMutex) {
+            storage = offHeapStorage;
+            if (storage == null) {
+                final long capacity = parseMemorySize(groupProperties.ELASTIC_MEMORY_TOTAL_SIZE.getString());
+                final long slabSize = parseMemorySize(groupProperties.ELASTIC_MEMORY_SLAB_SIZE.getString());
+                final boolean useUnsafe = groupProperties.ELASTIC_MEMORY_UNSAFE_ENABLED.getBoolean();
+                storage = new OffHeapStorage(capacity, (int) slabSize, OffHeapStorage.DEFAULT_STRIPE_COUNT, useUnsafe);
+                offHeapStorage = storage;
+                logger.info("Created " + storage);
+            }
+        }
+        return storage;
+    }
+
+    /**
+     * Parses sizes like <tt>512K</tt>, <tt>128M</tt> or <tt>2G</tt> into bytes.
+     */
+    static long parseMemorySize(String value) {
+        final String size = value.trim();
+        final char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        final long multiplier;
+        if (unit == 'K') {
+            multiplier = KILOBYTE;
+        } else if (unit == 'M') {
+            multiplier = KILOBYTE * KILOBYTE;
+        } else if (unit == 'G') {
+            multiplier = (long) KILOBYTE * KILOBYTE * KILOBYTE;
+        } else {
+            return Long.parseLong(size);
+        }
+        return Long.parseLong(size.substring(0, size.length() - 1).trim()) * multiplier;
     }
 
     @Override
@@ -104,5 +149,10 @@ public class DefaultNodeInitializer implements NodeInitializer {
     @Override
     public void destroy() {
         logger.info("Destroying node initializer.");
+        final OffHeapStorage storage = offHeapStorage;
+        if (storage != null) {
+            offHeapStorage = null;
+            storage.destroy();
+        }
     }
 }
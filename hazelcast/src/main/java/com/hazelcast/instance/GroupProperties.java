@@ -62,6 +62,59 @@ public class GroupProperties {
     public static final String PROP_SOCKET_LINGER_SECONDS = "hazelcast.socket.linger.seconds";
     public static final String PROP_SOCKET_KEEP_ALIVE = "hazelcast.socket.keep.alive";
     public static final String PROP_SOCKET_NO_DELAY = "hazelcast.socket.no.delay";
+    /**
+     * Whether member connections, and the reading side of client connections, use direct buffers instead of heap
+     * buffers.
+     */
+    public static final String PROP_SOCKET_DIRECT_BUFFER = "hazelcast.socket.direct.buffer";
+    /**
+     * Packet payloads of at least this many bytes are not copied into the send buffer of a member connection but
+     * handed to the socket next to it in a single gathering write.
+     */
+    public static final String PROP_SOCKET_GATHERING_WRITE_THRESHOLD = "hazelcast.socket.gathering.write.threshold";
+    /**
+     * The number of kilobytes a member keeps for recycling the arrays of packets read from member and client
+     * connections. 0 disables recycling.
+     */
+    public static final String PROP_SOCKET_READ_BUFFER_POOL_SIZE = "hazelcast.socket.read.buffer.pool.size";
+    /**
+     * The number of kilobytes of packet values that may be queued for sending on a member connection before
+     * {@link #PROP_BACKPRESSURE_POLICY} applies to invocations and async backups sent over it. 0 means unbounded.
+     */
+    public static final String PROP_SOCKET_SEND_QUEUE_CAPACITY = "hazelcast.socket.send.queue.capacity";
+    /**
+     * Whether member connections compress packet values; only used on connections to members that enable it too.
+     */
+    public static final String PROP_SOCKET_COMPRESSION_ENABLED = "hazelcast.socket.compression.enabled";
+    /**
+     * Packet values smaller than this many bytes are sent uncompressed, see {@link #PROP_SOCKET_COMPRESSION_ENABLED}.
+     */
+    public static final String PROP_SOCKET_COMPRESSION_THRESHOLD = "hazelcast.socket.compression.threshold";
+    /**
+     * What happens to invocations and async backups for a member whose connection queues more than
+     * {@link #PROP_SOCKET_SEND_QUEUE_CAPACITY}: BLOCK, SYNC or REJECT, see {@link com.hazelcast.spi.impl.BackpressurePolicy}.
+     */
+    public static final String PROP_BACKPRESSURE_POLICY = "hazelcast.backpressure.policy";
+    /**
+     * The maximum time a caller is blocked by {@link #PROP_BACKPRESSURE_POLICY}. Operation threads are never blocked.
+     */
+    public static final String PROP_BACKPRESSURE_MAX_WAIT_MILLIS = "hazelcast.backpressure.max.wait.millis";
+    /**
+     * Whether partition operations and responses sent to the same member at about the same time are sent in a
+     * single packet.
+     */
+    public static final String PROP_OPERATION_BATCH_ENABLED = "hazelcast.operation.batch.enabled";
+    /**
+     * The number of microseconds the batch sender thread waits after the first operation of a batch for others to
+     * join it, see {@link #PROP_OPERATION_BATCH_ENABLED}. The calling threads do not wait. With 0 a batch only holds
+     * what is queued while the previous one is sent. The actual wait is rounded up by the OS timer resolution,
+     * often to 50 microseconds or more.
+     */
+    public static final String PROP_OPERATION_BATCH_WINDOW_MICROS = "hazelcast.operation.batch.window.micros";
+    /**
+     * The maximum number of operations or responses in a batch, see {@link #PROP_OPERATION_BATCH_ENABLED}.
+     */
+    public static final String PROP_OPERATION_BATCH_MAX_SIZE = "hazelcast.operation.batch.max.size";
     public static final String PROP_SHUTDOWNHOOK_ENABLED = "hazelcast.shutdownhook.enabled";
     public static final String PROP_WAIT_SECONDS_BEFORE_JOIN = "hazelcast.wait.seconds.before.join";
     public static final String PROP_MAX_WAIT_SECONDS_BEFORE_JOIN = "hazelcast.max.wait.seconds.before.join";
@@ -92,6 +145,16 @@ public class GroupProperties {
     public static final String PROP_PARTITION_MIGRATION_INTERVAL = "hazelcast.partition.migration.interval";
     public static final String PROP_PARTITION_MIGRATION_TIMEOUT = "hazelcast.partition.migration.timeout";
     public static final String PROP_PARTITION_MIGRATION_ZIP_ENABLED = "hazelcast.partition.migration.zip.enabled";
+    /**
+     * Copies the data of a migrating partition in chunks while the partition is still writable, only the changes
+     * made meanwhile are sent once the partition is blocked for the migration. Disabled by default. Maps backed by
+     * the off-heap record table are still copied in full once the partition is blocked.
+     */
+    public static final String PROP_PARTITION_MIGRATION_CHUNKED_ENABLED = "hazelcast.partition.migration.chunked.enabled";
+    /**
+     * Approximate maximum number of bytes of data in a chunk of a migrating partition.
+     */
+    public static final String PROP_PARTITION_MIGRATION_CHUNK_SIZE = "hazelcast.partition.migration.chunk.size";
     public static final String PROP_PARTITION_TABLE_SEND_INTERVAL = "hazelcast.partition.table.send.interval";
     public static final String PROP_PARTITION_BACKUP_SYNC_INTERVAL = "hazelcast.partition.backup.sync.interval";
     public static final String PROP_PARTITIONING_STRATEGY_CLASS = "hazelcast.partitioning.strategy.class";
@@ -100,10 +163,68 @@ public class GroupProperties {
     public static final String PROP_ELASTIC_MEMORY_ENABLED = "hazelcast.elastic.memory.enabled";
     public static final String PROP_ELASTIC_MEMORY_TOTAL_SIZE = "hazelcast.elastic.memory.total.size";
     public static final String PROP_ELASTIC_MEMORY_CHUNK_SIZE = "hazelcast.elastic.memory.chunk.size";
+    /**
+     * Number of bytes the off-heap storage reserves at once for values of the same size class.
+     */
+    public static final String PROP_ELASTIC_MEMORY_SLAB_SIZE = "hazelcast.elastic.memory.slab.size";
     public static final String PROP_ELASTIC_MEMORY_SHARED_STORAGE = "hazelcast.elastic.memory.shared.storage";
     public static final String PROP_ELASTIC_MEMORY_UNSAFE_ENABLED = "hazelcast.elastic.memory.unsafe.enabled";
+    /**
+     * Keeps keys, values and record metadata of {@link com.hazelcast.config.InMemoryFormat#OFFHEAP} maps
+     * in a native memory table per partition instead of heap records. The tables are allocated from the
+     * elastic memory storage, so {@link #PROP_ELASTIC_MEMORY_ENABLED} is required and
+     * {@link #PROP_ELASTIC_MEMORY_TOTAL_SIZE} bounds them.
+     */
+    public static final String PROP_ELASTIC_MEMORY_RECORD_TABLE_ENABLED = "hazelcast.elastic.memory.record.table.enabled";
     public static final String PROP_ENTERPRISE_LICENSE_KEY = "hazelcast.enterprise.license.key";
     public static final String PROP_MAP_WRITE_BEHIND_QUEUE_CAPACITY = "hazelcast.map.write.behind.queue.capacity";
+    /**
+     * Sends near cache invalidations of a partition in batches carrying a sequence number, instead of one
+     * operation per invalidation. Disabled by default.
+     */
+    public static final String PROP_MAP_INVALIDATION_BATCH_ENABLED = "hazelcast.map.invalidation.batch.enabled";
+    /**
+     * Number of pending invalidations of a partition which triggers sending the batch.
+     */
+    public static final String PROP_MAP_INVALIDATION_BATCH_SIZE = "hazelcast.map.invalidation.batch.size";
+    /**
+     * Maximum time in milliseconds an invalidation waits in a batch before it is sent.
+     */
+    public static final String PROP_MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS = "hazelcast.map.invalidation.batchfrequency.millis";
+    /**
+     * Number of pending changes of a {@link com.hazelcast.core.QueryCache} which triggers sending them.
+     */
+    public static final String PROP_MAP_QUERY_CACHE_BATCH_SIZE = "hazelcast.map.query.cache.batch.size";
+    /**
+     * Maximum time in milliseconds a change waits before it is sent to a {@link com.hazelcast.core.QueryCache}.
+     */
+    public static final String PROP_MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS = "hazelcast.map.query.cache.batchfrequency.millis";
+    /**
+     * Scans the local partitions of a query which cannot use an index on the partition threads, one operation per
+     * partition, instead of on the query executor. The scans then never run concurrently with updates of the
+     * partition.
+     */
+    public static final String PROP_QUERY_PARTITION_THREADS_ENABLED = "hazelcast.query.partition.threads.enabled";
+    /**
+     * Compiles the predicate of a query into an evaluator before scanning a partition, see
+     * {@link com.hazelcast.query.PredicateCompiler}.
+     */
+    public static final String PROP_QUERY_PREDICATE_COMPILE_ENABLED = "hazelcast.query.predicate.compile.enabled";
+    /**
+     * Keeps the sorted entries a member prefetched for the next pages of a {@link com.hazelcast.query.PagingPredicate}
+     * between page requests.
+     */
+    public static final String PROP_QUERY_PAGING_CURSOR_ENABLED = "hazelcast.query.paging.cursor.enabled";
+    /**
+     * Seconds a member keeps the sorted entries it prefetched for the next pages of a
+     * {@link com.hazelcast.query.PagingPredicate} after the last page request, 0 disables the paging cursors.
+     */
+    public static final String PROP_QUERY_PAGING_CURSOR_TIMEOUT_SECONDS = "hazelcast.query.paging.cursor.timeout.seconds";
+    /**
+     * Maximum number of entries the paging cursors of a map keep on a member, the least recently used cursors
+     * are dropped to make room for a new one.
+     */
+    public static final String PROP_QUERY_PAGING_CURSOR_MAX_ENTRIES = "hazelcast.query.paging.cursor.max.entries";
     public static final String PROP_ENTERPRISE_WAN_REP_QUEUESIZE = "hazelcast.enterprise.wanrep.queuesize";
     public static final String PROP_CLIENT_MAX_NO_HEARTBEAT_SECONDS = "hazelcast.client.max.no.heartbeat.seconds";
 
@@ -161,6 +282,32 @@ public class GroupProperties {
 
     public final GroupProperty SOCKET_NO_DELAY;
 
+    public final GroupProperty SOCKET_DIRECT_BUFFER;
+
+    // number of bytes
+    public final GroupProperty SOCKET_GATHERING_WRITE_THRESHOLD;
+
+    // number of kilobytes
+    public final GroupProperty SOCKET_READ_BUFFER_POOL_SIZE;
+
+    // number of kilobytes
+    public final GroupProperty SOCKET_SEND_QUEUE_CAPACITY;
+
+    public final GroupProperty SOCKET_COMPRESSION_ENABLED;
+
+    // number of bytes
+    public final GroupProperty SOCKET_COMPRESSION_THRESHOLD;
+
+    public final GroupProperty BACKPRESSURE_POLICY;
+
+    public final GroupProperty BACKPRESSURE_MAX_WAIT_MILLIS;
+
+    public final GroupProperty OPERATION_BATCH_ENABLED;
+
+    public final GroupProperty OPERATION_BATCH_WINDOW_MICROS;
+
+    public final GroupProperty OPERATION_BATCH_MAX_SIZE;
+
     public final GroupProperty SHUTDOWNHOOK_ENABLED;
 
     public final GroupProperty WAIT_SECONDS_BEFORE_JOIN;
@@ -215,6 +362,10 @@ public class GroupProperties {
 
     public final GroupProperty PARTITION_MIGRATION_ZIP_ENABLED;
 
+    public final GroupProperty PARTITION_MIGRATION_CHUNKED_ENABLED;
+
+    public final GroupProperty PARTITION_MIGRATION_CHUNK_SIZE;
+
     public final GroupProperty PARTITION_TABLE_SEND_INTERVAL;
 
     public final GroupProperty PARTITION_BACKUP_SYNC_INTERVAL;
@@ -231,14 +382,38 @@ public class GroupProperties {
 
     public final GroupProperty ELASTIC_MEMORY_CHUNK_SIZE;
 
+    public final GroupProperty ELASTIC_MEMORY_SLAB_SIZE;
+
     public final GroupProperty ELASTIC_MEMORY_SHARED_STORAGE;
 
     public final GroupProperty ELASTIC_MEMORY_UNSAFE_ENABLED;
 
+    public final GroupProperty ELASTIC_MEMORY_RECORD_TABLE_ENABLED;
+
     public final GroupProperty ENTERPRISE_LICENSE_KEY;
 
     public final GroupProperty MAP_WRITE_BEHIND_QUEUE_CAPACITY;
 
+    public final GroupProperty MAP_INVALIDATION_BATCH_ENABLED;
+
+    public final GroupProperty MAP_INVALIDATION_BATCH_SIZE;
+
+    public final GroupProperty MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS;
+
+    public final GroupProperty MAP_QUERY_CACHE_BATCH_SIZE;
+
+    public final GroupProperty MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS;
+
+    public final GroupProperty QUERY_PARTITION_THREADS_ENABLED;
+
+    public final GroupProperty QUERY_PREDICATE_COMPILE_ENABLED;
+
+    public final GroupProperty QUERY_PAGING_CURSOR_ENABLED;
+
+    public final GroupProperty QUERY_PAGING_CURSOR_TIMEOUT_SECONDS;
+
+    public final GroupProperty QUERY_PAGING_CURSOR_MAX_ENTRIES;
+
     public final GroupProperty ENTERPRISE_WAN_REP_QUEUESIZE;
 
     public final GroupProperty CLIENT_HEARTBEAT_TIMEOUT_SECONDS;
@@ -277,6 +452,17 @@ public class GroupProperties {
         SOCKET_LINGER_SECONDS = new GroupProperty(config, PROP_SOCKET_LINGER_SECONDS, "0");
         SOCKET_KEEP_ALIVE = new GroupProperty(config, PROP_SOCKET_KEEP_ALIVE, "true");
         SOCKET_NO_DELAY = new GroupProperty(config, PROP_SOCKET_NO_DELAY, "true");
+        SOCKET_DIRECT_BUFFER = new GroupProperty(config, PROP_SOCKET_DIRECT_BUFFER, "true");
+        SOCKET_GATHERING_WRITE_THRESHOLD = new GroupProperty(config, PROP_SOCKET_GATHERING_WRITE_THRESHOLD, "4096");
+        SOCKET_READ_BUFFER_POOL_SIZE = new GroupProperty(config, PROP_SOCKET_READ_BUFFER_POOL_SIZE, "2048");
+        SOCKET_SEND_QUEUE_CAPACITY = new GroupProperty(config, PROP_SOCKET_SEND_QUEUE_CAPACITY, "65536");
+        SOCKET_COMPRESSION_ENABLED = new GroupProperty(config, PROP_SOCKET_COMPRESSION_ENABLED, "false");
+        SOCKET_COMPRESSION_THRESHOLD = new GroupProperty(config, PROP_SOCKET_COMPRESSION_THRESHOLD, "1024");
+        BACKPRESSURE_POLICY = new GroupProperty(config, PROP_BACKPRESSURE_POLICY, "BLOCK");
+        BACKPRESSURE_MAX_WAIT_MILLIS = new GroupProperty(config, PROP_BACKPRESSURE_MAX_WAIT_MILLIS, "5000");
+        OPERATION_BATCH_ENABLED = new GroupProperty(config, PROP_OPERATION_BATCH_ENABLED, "false");
+        OPERATION_BATCH_WINDOW_MICROS = new GroupProperty(config, PROP_OPERATION_BATCH_WINDOW_MICROS, "20");
+        OPERATION_BATCH_MAX_SIZE = new GroupProperty(config, PROP_OPERATION_BATCH_MAX_SIZE, "64");
         SHUTDOWNHOOK_ENABLED = new GroupProperty(config, PROP_SHUTDOWNHOOK_ENABLED, "true");
         WAIT_SECONDS_BEFORE_JOIN = new GroupProperty(config, PROP_WAIT_SECONDS_BEFORE_JOIN, "5");
         MAX_WAIT_SECONDS_BEFORE_JOIN = new GroupProperty(config, PROP_MAX_WAIT_SECONDS_BEFORE_JOIN, "20");
@@ -307,6 +493,8 @@ public class GroupProperties {
         PARTITION_MIGRATION_INTERVAL = new GroupProperty(config, PROP_PARTITION_MIGRATION_INTERVAL, "0");
         PARTITION_MIGRATION_TIMEOUT = new GroupProperty(config, PROP_PARTITION_MIGRATION_TIMEOUT, "300");
         PARTITION_MIGRATION_ZIP_ENABLED = new GroupProperty(config, PROP_PARTITION_MIGRATION_ZIP_ENABLED, "true");
+        PARTITION_MIGRATION_CHUNKED_ENABLED = new GroupProperty(config, PROP_PARTITION_MIGRATION_CHUNKED_ENABLED, "false");
+        PARTITION_MIGRATION_CHUNK_SIZE = new GroupProperty(config, PROP_PARTITION_MIGRATION_CHUNK_SIZE, "1048576");
         PARTITION_TABLE_SEND_INTERVAL = new GroupProperty(config, PROP_PARTITION_TABLE_SEND_INTERVAL, "15");
         PARTITION_BACKUP_SYNC_INTERVAL = new GroupProperty(config, PROP_PARTITION_BACKUP_SYNC_INTERVAL, "30");
         PARTITIONING_STRATEGY_CLASS = new GroupProperty(config, PROP_PARTITIONING_STRATEGY_CLASS, "");
@@ -315,11 +503,25 @@ public class GroupProperties {
         ELASTIC_MEMORY_ENABLED = new GroupProperty(config, PROP_ELASTIC_MEMORY_ENABLED, "false");
         ELASTIC_MEMORY_TOTAL_SIZE = new GroupProperty(config, PROP_ELASTIC_MEMORY_TOTAL_SIZE, "128M");
         ELASTIC_MEMORY_CHUNK_SIZE = new GroupProperty(config, PROP_ELASTIC_MEMORY_CHUNK_SIZE, "1K");
+        ELASTIC_MEMORY_SLAB_SIZE = new GroupProperty(config, PROP_ELASTIC_MEMORY_SLAB_SIZE, "1M");
         ELASTIC_MEMORY_SHARED_STORAGE = new GroupProperty(config, PROP_ELASTIC_MEMORY_SHARED_STORAGE, "false");
         ELASTIC_MEMORY_UNSAFE_ENABLED = new GroupProperty(config, PROP_ELASTIC_MEMORY_UNSAFE_ENABLED, "false");
+        ELASTIC_MEMORY_RECORD_TABLE_ENABLED = new GroupProperty(config, PROP_ELASTIC_MEMORY_RECORD_TABLE_ENABLED, "false");
         ENTERPRISE_LICENSE_KEY = new GroupProperty(config, PROP_ENTERPRISE_LICENSE_KEY);
         MAP_WRITE_BEHIND_QUEUE_CAPACITY
                 = new GroupProperty(config, PROP_MAP_WRITE_BEHIND_QUEUE_CAPACITY, "50000");
+        MAP_INVALIDATION_BATCH_ENABLED = new GroupProperty(config, PROP_MAP_INVALIDATION_BATCH_ENABLED, "false");
+        MAP_INVALIDATION_BATCH_SIZE = new GroupProperty(config, PROP_MAP_INVALIDATION_BATCH_SIZE, "100");
+        MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS
+                = new GroupProperty(config, PROP_MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS, "100");
+        MAP_QUERY_CACHE_BATCH_SIZE = new GroupProperty(config, PROP_MAP_QUERY_CACHE_BATCH_SIZE, "100");
+        MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS
+                = new GroupProperty(config, PROP_MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS, "100");
+        QUERY_PARTITION_THREADS_ENABLED = new GroupProperty(config, PROP_QUERY_PARTITION_THREADS_ENABLED, "true");
+        QUERY_PREDICATE_COMPILE_ENABLED = new GroupProperty(config, PROP_QUERY_PREDICATE_COMPILE_ENABLED, "true");
+        QUERY_PAGING_CURSOR_ENABLED = new GroupProperty(config, PROP_QUERY_PAGING_CURSOR_ENABLED, "true");
+        QUERY_PAGING_CURSOR_TIMEOUT_SECONDS = new GroupProperty(config, PROP_QUERY_PAGING_CURSOR_TIMEOUT_SECONDS, "60");
+        QUERY_PAGING_CURSOR_MAX_ENTRIES = new GroupProperty(config, PROP_QUERY_PAGING_CURSOR_MAX_ENTRIES, "100000");
         ENTERPRISE_WAN_REP_QUEUESIZE = new GroupProperty(config, PROP_ENTERPRISE_WAN_REP_QUEUESIZE, "100000");
         CLIENT_HEARTBEAT_TIMEOUT_SECONDS = new GroupProperty(config, PROP_CLIENT_MAX_NO_HEARTBEAT_SECONDS, "60");
     }
@@ -2,11 +2,15 @@ package com.hazelcast.map;
 
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.map.eviction.EvictionHelper;
+import com.hazelcast.map.eviction.EvictionPool;
+import com.hazelcast.map.eviction.ExpirationWheel;
 import com.hazelcast.map.record.Record;
 import com.hazelcast.nio.serialization.Data;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 
@@ -31,10 +35,9 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
     protected volatile boolean expirable;
 
     /**
-     * Iterates over a pre-set entry count/percentage in one round.
-     * Used in expiration logic for traversing entries. Initializes lazily.
+     * Keys of the records which have a ttl or max idle, indexed by their expiration deadline.
      */
-    protected Iterator<Record> expirationIterator;
+    protected final ExpirationWheel expirationWheel;
 
     /**
      * If there is no clean-up caused by puts after some time,
@@ -56,6 +59,11 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
 
     private final long minEvictionCheckMillis;
 
+    /**
+     * Candidates of sampling eviction, null if eviction sorts all records.
+     */
+    private final EvictionPool evictionPool;
+
     protected AbstractEvictableRecordStore(MapContainer mapContainer, int partitionId) {
         super(mapContainer, partitionId);
         final MapConfig mapConfig = mapContainer.getMapConfig();
@@ -63,6 +71,9 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
         this.evictionEnabled
                 = !MapConfig.EvictionPolicy.NONE.equals(mapConfig.getEvictionPolicy());
         this.expirable = isRecordStoreExpirable();
+        this.expirationWheel = new ExpirationWheel(getNow());
+        final int evictionSampleCount = mapConfig.getEvictionSampleCount();
+        this.evictionPool = evictionEnabled && evictionSampleCount > 0 ? new EvictionPool(evictionSampleCount) : null;
     }
 
     private boolean isRecordStoreExpirable() {
@@ -70,24 +81,37 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
                 || mapContainer.getMapConfig().getTimeToLiveSeconds() > 0;
     }
 
+    /**
+     * Evicts the records whose deadline passed according to the {@link #expirationWheel}. Due records which
+     * were accessed in the meantime are rescheduled, so the cost is proportional to the number of due records.
+     */
     @Override
-    public void evictExpiredEntries(int percentage, boolean ownerPartition) {
+    public void evictExpiredEntries(boolean ownerPartition) {
         final long now = getNow();
-        final int size = size();
-        final int maxIterationCount = getMaxIterationCount(size, percentage);
-        final int maxRetry = 3;
-        int loop = 0;
-        int evictedEntryCount = 0;
-        while (true) {
-            evictedEntryCount += evictExpiredEntriesInternal(maxIterationCount, now, ownerPartition);
-            if (evictedEntryCount >= maxIterationCount) {
-                break;
+        final List<Data> dueKeys = expirationWheel.advance(now);
+        for (Data key : dueKeys) {
+            final Record record = records.get(key);
+            if (record == null) {
+                continue;
             }
-            loop++;
-            if (loop > maxRetry) {
-                break;
+            final long deadline = getExpirationDeadline(record);
+            if (deadline == Long.MAX_VALUE) {
+                continue;
+            }
+            if (deadline > now || isLocked(key)) {
+                // a locked record is retried with the next tick.
+                expirationWheel.schedule(key, Math.max(deadline, now));
+                continue;
+            }
+            //!!! get entry value here because evictInternal(key) nulls the record value.
+            final Object value = record.getValue();
+            evictInternal(key);
+            // do post eviction operations if this partition is an owner partition.
+            if (ownerPartition) {
+                doPostEvictionOperations(key, value);
             }
         }
+        expirable = !expirationWheel.isEmpty();
     }
 
     @Override
@@ -96,64 +120,46 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
     }
 
     /**
-     * Intended to put an upper bound to iterations. Used in evictions.
+     * Schedules the expiration of the record if it has a ttl or max idle. A later deadline, e.g. because of
+     * an access, does not need to be scheduled: it is found when the earlier deadline is due.
      *
-     * @param size       of iterate-able.
-     * @param percentage percentage of size.
-     * @return 100 If calculated iteration count is less than 100, otherwise returns calculated iteration count.
+     * @param record the record to schedule.
      */
-    private int getMaxIterationCount(int size, int percentage) {
-        final int defaultMaxIterationCount = 100;
-        final float oneHundred = 100F;
-        float maxIterationCount = size * (percentage / oneHundred);
-        if (maxIterationCount <= defaultMaxIterationCount) {
-            return defaultMaxIterationCount;
+    protected void scheduleExpiration(Record record) {
+        final long deadline = getExpirationDeadline(record);
+        if (deadline != Long.MAX_VALUE) {
+            expirationWheel.scheduleIfEarlier(record.getKey(), deadline);
+            expirable = true;
         }
-        return Math.round(maxIterationCount);
     }
 
-    private int evictExpiredEntriesInternal(int maxIterationCount, long now, boolean ownerPartition) {
-        int evictedCount = 0;
-        int checkedEntryCount = 0;
-        initExpirationIterator();
-        while (expirationIterator.hasNext()) {
-            if (checkedEntryCount >= maxIterationCount) {
-                break;
-            }
-            checkedEntryCount++;
-            final Record record = expirationIterator.next();
-            final Data key = record.getKey();
-            if (isLocked(key)) {
-                continue;
-            }
-            if (isReachable(record, now)) {
-                continue;
-            }
-            //!!! get entry value here because evictInternal(key) nulls the record value.
-            final Object value = record.getValue();
-            evictInternal(key);
-            evictedCount++;
-            initExpirationIterator();
-
-            // do post eviction operations if this partition is an owner partition.
-            if (ownerPartition) {
-                doPostEvictionOperations(key, value);
-            }
-            if (!expirationIterator.hasNext()) {
-                break;
-            }
+    /**
+     * @return the time the record expires because of its ttl or max idle,
+     * <code>Long.MAX_VALUE</code> if it never expires.
+     */
+    private long getExpirationDeadline(Record record) {
+        long deadline = Long.MAX_VALUE;
+        final long ttl = record.getTtl();
+        if (ttl > 0L) {
+            deadline = addCapped(record.getCreationTime(), ttl);
         }
-        return evictedCount;
+        final long idleTime = getIdleTime();
+        if (idleTime != Long.MAX_VALUE) {
+            deadline = Math.min(deadline, addCapped(record.getLastAccessTime(), idleTime));
+        }
+        return deadline;
     }
 
-    private void initExpirationIterator() {
-        if (expirationIterator == null || !expirationIterator.hasNext()) {
-            expirationIterator = records.values().iterator();
-        }
+    private static long addCapped(long time, long duration) {
+        final long sum = time + duration;
+        return sum < time ? Long.MAX_VALUE : sum;
     }
 
     protected void resetAccessSequenceNumber() {
         lruAccessSequenceNumber = 0L;
+        if (evictionPool != null) {
+            evictionPool.reset();
+        }
     }
 
     /**
@@ -203,7 +209,11 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
             return;
         }
         final MapConfig mapConfig = mapContainer.getMapConfig();
-        removeEvictableRecords(this, evictableSize, mapConfig, mapServiceContext);
+        if (evictionPool != null) {
+            evictionPool.removeEvictableRecords(this, evictableSize, mapConfig, mapServiceContext);
+        } else {
+            removeEvictableRecords(this, evictableSize, mapConfig, mapServiceContext);
+        }
     }
 
     private int getEvictableSize() {
@@ -239,6 +249,13 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
         return evictIfNotReachable(record);
     }
 
+    /**
+     * Same as {@link #nullIfExpired(Record)} but does not evict the record.
+     */
+    protected boolean isExpired(Record record, long now) {
+        return !isReachable(record, now) && !isLocked(record.getKey());
+    }
+
     protected void markRecordStoreExpirable(long ttl) {
         if (ttl > 0L) {
             expirable = true;
@@ -366,6 +383,37 @@ abstract class AbstractEvictableRecordStore extends AbstractRecordStore {
         }
     }
 
+    /**
+     * New records get an eviction criteria too, otherwise all records which were never read
+     * would look the same to LRU eviction.
+     */
+    @Override
+    protected Record createRecord(Data key, Object value, long ttl, long now) {
+        final Record record = super.createRecord(key, value, ttl, now);
+        if (evictionEnabled) {
+            increaseRecordEvictionCriteriaNumber(record, mapContainer.getMapConfig().getEvictionPolicy());
+        }
+        scheduleExpiration(record);
+        return record;
+    }
+
+    @Override
+    protected void updateTtl(Record record, long ttl) {
+        super.updateTtl(record, ttl);
+        scheduleExpiration(record);
+    }
+
+    @Override
+    protected void clearRecordsMap(Map<Data, Record> excludeRecords) {
+        super.clearRecordsMap(excludeRecords);
+        expirationWheel.clear();
+        if (excludeRecords != null) {
+            for (Record record : excludeRecords.values()) {
+                scheduleExpiration(record);
+            }
+        }
+    }
+
     @Override
     protected void accessRecord(Record record, long now) {
         super.accessRecord(record, now);
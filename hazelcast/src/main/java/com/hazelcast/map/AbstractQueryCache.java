@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.core.QueryCache;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.Index;
+import com.hazelcast.query.impl.IndexService;
+import com.hazelcast.query.impl.QueryEntry;
+import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.util.UuidUtil;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Entries and indexes of a {@link QueryCache}, shared by the member and the client side view.
+ * <p/>
+ * Each partition is filled from a {@link QueryCacheSnapshot} and then follows the {@link QueryCacheEventBatch}es
+ * of its owner. A change is applied if it is the next one of the member the partition was taken from, changes
+ * already contained in the snapshot are skipped. Any other change, e.g. after a lost batch or from a new owner,
+ * queues the changes of the partition and takes a new snapshot of it. Reads do not lock, all changes are applied
+ * under a single lock.
+ * <p/>
+ * Snapshots are never taken on the thread delivering the batches, repairs and the refresh after a map event are
+ * handed to {@link #execute(Runnable)}.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public abstract class AbstractQueryCache<K, V> implements QueryCache<K, V> {
+
+    private static final int MAX_REPAIR_ATTEMPTS = 3;
+
+    protected final String name;
+    protected final Predicate predicate;
+    protected final SerializationService serializationService;
+
+    private final String cacheId = UuidUtil.buildRandomUuidString();
+    private final ConcurrentMap<Data, QueryEntry> entries = new ConcurrentHashMap<Data, QueryEntry>();
+    private final IndexService indexService = new IndexService();
+    private final PartitionState[] partitions;
+    private final Object mutex = new Object();
+    private final ILogger logger = Logger.getLogger(getClass());
+    private volatile boolean destroyed;
+
+    protected AbstractQueryCache(String name, Predicate predicate, SerializationService serializationService,
+                                 int partitionCount) {
+        this.name = name;
+        this.predicate = predicate;
+        this.serializationService = serializationService;
+        this.partitions = new PartitionState[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new PartitionState();
+        }
+    }
+
+    /**
+     * @return snapshot of the given partition, taken on its owner.
+     */
+    protected abstract QueryCacheSnapshot snapshot(int partitionId);
+
+    /**
+     * @return snapshots of all partitions.
+     */
+    protected abstract Collection<QueryCacheSnapshot> snapshotAll();
+
+    /**
+     * Removes the listener feeding this view.
+     */
+    protected abstract void removeListener();
+
+    /**
+     * Runs a task taking snapshots off the event thread, which may have to deliver the responses they wait for.
+     */
+    protected abstract void execute(Runnable task);
+
+    /**
+     * @return the id the members number the changes sent to this view by, see {@link QueryCacheEventFilter}.
+     */
+    public String getCacheId() {
+        return cacheId;
+    }
+
+    /**
+     * Applies a batch of changes, partitions missing a change are taken again from their owners asynchronously.
+     * Their changes are queued meanwhile.
+     */
+    public void applyBatch(QueryCacheEventBatch batch) {
+        List<Integer> repairs = null;
+        synchronized (mutex) {
+            if (destroyed) {
+                return;
+            }
+            for (QueryCacheEventBatch.Event event : batch.getEvents()) {
+                if (!apply(batch.getSource(), event)) {
+                    if (repairs == null) {
+                        repairs = new ArrayList<Integer>();
+                    }
+                    repairs.add(event.getPartitionId());
+                }
+            }
+        }
+        if (repairs != null) {
+            scheduleRepair(repairs);
+        }
+    }
+
+    /**
+     * Calls {@link #refresh()} asynchronously, e.g. on a map event or after the listener was registered again.
+     */
+    public void refreshLater() {
+        execute(new Runnable() {
+            public void run() {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    logger.warning("Could not refresh the query cache of map " + name, e);
+                }
+            }
+        });
+    }
+
+    private void scheduleRepair(final List<Integer> partitionIds) {
+        try {
+            execute(new Runnable() {
+                public void run() {
+                    for (Integer partitionId : partitionIds) {
+                        repair(partitionId);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.finest("Could not repair partitions " + partitionIds + " of map " + name, e);
+            synchronized (mutex) {
+                // the next change of a partition tries again.
+                for (Integer partitionId : partitionIds) {
+                    partitions[partitionId].pending = null;
+                    partitions[partitionId].source = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the entries of all partitions with a new snapshot, e.g. after the map was cleared or the listener
+     * was registered again. The changes arriving meanwhile are applied afterwards.
+     */
+    public void refresh() {
+        synchronized (mutex) {
+            for (PartitionState partition : partitions) {
+                if (partition.pending == null) {
+                    partition.pending = new ArrayList<PendingEvent>();
+                }
+            }
+        }
+        final Collection<QueryCacheSnapshot> snapshots;
+        try {
+            snapshots = snapshotAll();
+        } catch (RuntimeException e) {
+            synchronized (mutex) {
+                for (PartitionState partition : partitions) {
+                    if (partition.pending != null) {
+                        partition.pending = null;
+                        partition.source = null;
+                    }
+                }
+            }
+            throw e;
+        }
+        final boolean[] installed = new boolean[partitions.length];
+        for (QueryCacheSnapshot snapshot : snapshots) {
+            synchronized (mutex) {
+                if (destroyed) {
+                    return;
+                }
+                installed[snapshot.getPartitionId()] = install(snapshot);
+            }
+        }
+        for (int partitionId = 0; partitionId < installed.length; partitionId++) {
+            if (!installed[partitionId]) {
+                repair(partitionId);
+            }
+        }
+    }
+
+    /**
+     * @return false if the change is not the next one of the partition, the partition has to be repaired then.
+     */
+    private boolean apply(String source, QueryCacheEventBatch.Event event) {
+        final PartitionState partition = partitions[event.getPartitionId()];
+        if (partition.pending != null) {
+            partition.pending.add(new PendingEvent(source, event));
+            return true;
+        }
+        if (source.equals(partition.source)) {
+            final long sequence = event.getSequence();
+            if (sequence <= partition.sequence) {
+                return true;
+            }
+            if (sequence == partition.sequence + 1) {
+                partition.sequence = sequence;
+                update(partition, event.getKey(), event.getValue());
+                return true;
+            }
+        }
+        partition.pending = new ArrayList<PendingEvent>();
+        partition.pending.add(new PendingEvent(source, event));
+        return false;
+    }
+
+    private void repair(int partitionId) {
+        for (int attempt = 0; attempt < MAX_REPAIR_ATTEMPTS; attempt++) {
+            final QueryCacheSnapshot snapshot;
+            try {
+                snapshot = snapshot(partitionId);
+            } catch (RuntimeException e) {
+                logger.warning("Could not query partition " + partitionId + " of map " + name, e);
+                break;
+            }
+            synchronized (mutex) {
+                if (destroyed || install(snapshot)) {
+                    return;
+                }
+            }
+        }
+        synchronized (mutex) {
+            // the next change of the partition takes a new snapshot.
+            final PartitionState partition = partitions[partitionId];
+            partition.pending = null;
+            partition.source = null;
+        }
+    }
+
+    /**
+     * @return false if the queued changes of the partition are incomplete.
+     */
+    private boolean install(QueryCacheSnapshot snapshot) {
+        final PartitionState partition = partitions[snapshot.getPartitionId()];
+        for (Data key : partition.keys) {
+            removeEntry(key);
+        }
+        partition.keys.clear();
+        final List<Data> keys = snapshot.getKeys();
+        final List<Data> values = snapshot.getValues();
+        for (int i = 0; i < keys.size(); i++) {
+            update(partition, keys.get(i), values.get(i));
+        }
+        partition.source = snapshot.getSource();
+        partition.sequence = snapshot.getSequence();
+        final List<PendingEvent> pending = partition.pending;
+        partition.pending = null;
+        if (pending != null) {
+            for (PendingEvent pendingEvent : pending) {
+                apply(pendingEvent.source, pendingEvent.event);
+            }
+        }
+        return partition.pending == null;
+    }
+
+    private void update(PartitionState partition, Data key, Data value) {
+        if (value == null) {
+            if (partition.keys.remove(key)) {
+                removeEntry(key);
+            }
+            return;
+        }
+        final QueryEntry entry = new QueryEntry(serializationService, key, key, value);
+        partition.keys.add(key);
+        entries.put(key, entry);
+        if (indexService.hasIndex()) {
+            indexService.saveEntryIndex(entry);
+        }
+    }
+
+    private void removeEntry(Data key) {
+        entries.remove(key);
+        if (indexService.hasIndex()) {
+            indexService.removeEntryIndex(key);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Predicate getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public V get(Object key) {
+        final QueryEntry entry = entries.get(toData(key));
+        return entry == null ? null : (V) serializationService.toObject(entry.getValueData());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(toData(key));
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("Null value is not allowed");
+        }
+        final Data valueData = serializationService.toData(value);
+        for (QueryEntry entry : entries.values()) {
+            if (valueData.equals(entry.getValueData())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return keySet(entries.values());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return values(entries.values());
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entrySet(entries.values());
+    }
+
+    @Override
+    public Set<K> keySet(Predicate predicate) {
+        return keySet(query(predicate));
+    }
+
+    @Override
+    public Collection<V> values(Predicate predicate) {
+        return values(query(predicate));
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet(Predicate predicate) {
+        return entrySet(query(predicate));
+    }
+
+    @Override
+    public void addIndex(String attribute, boolean ordered) {
+        synchronized (mutex) {
+            final Index index = indexService.addOrGetIndex(attribute, ordered);
+            for (QueryEntry entry : entries.values()) {
+                index.saveEntryIndex(entry);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (mutex) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+        }
+        removeListener();
+        synchronized (mutex) {
+            for (PartitionState partition : partitions) {
+                partition.keys.clear();
+                partition.pending = null;
+            }
+            entries.clear();
+            final Index[] indexes = indexService.getIndexes();
+            if (indexes != null) {
+                for (Index index : indexes) {
+                    index.clear();
+                }
+            }
+        }
+    }
+
+    private Collection<? extends QueryableEntry> query(Predicate predicate) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        if (predicate instanceof PagingPredicate) {
+            throw new IllegalArgumentException("Paging predicates are not supported by a query cache");
+        }
+        final Set<QueryableEntry> indexed = indexService.query(predicate);
+        if (indexed != null) {
+            return indexed;
+        }
+        final List<QueryableEntry> result = new ArrayList<QueryableEntry>();
+        for (QueryEntry entry : entries.values()) {
+            if (predicate.apply(entry)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private Set<K> keySet(Collection<? extends QueryableEntry> matches) {
+        final Set<K> keys = new HashSet<K>(matches.size());
+        for (QueryableEntry entry : matches) {
+            keys.add((K) serializationService.toObject(entry.getKeyData()));
+        }
+        return keys;
+    }
+
+    private Collection<V> values(Collection<? extends QueryableEntry> matches) {
+        final List<V> values = new ArrayList<V>(matches.size());
+        for (QueryableEntry entry : matches) {
+            values.add((V) serializationService.toObject(entry.getValueData()));
+        }
+        return values;
+    }
+
+    private Set<Map.Entry<K, V>> entrySet(Collection<? extends QueryableEntry> matches) {
+        final Set<Map.Entry<K, V>> entrySet = new HashSet<Map.Entry<K, V>>(matches.size());
+        for (QueryableEntry entry : matches) {
+            final K key = (K) serializationService.toObject(entry.getKeyData());
+            final V value = (V) serializationService.toObject(entry.getValueData());
+            entrySet.add(new AbstractMap.SimpleImmutableEntry<K, V>(key, value));
+        }
+        return entrySet;
+    }
+
+    private Data toData(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Null key is not allowed");
+        }
+        return serializationService.toData(key);
+    }
+
+    /**
+     * Where a partition was taken from and its queued changes while it is taken again, guarded by the lock of
+     * the view.
+     */
+    private static final class PartitionState {
+
+        final Set<Data> keys = new HashSet<Data>();
+        String source;
+        long sequence;
+        /**
+         * changes received while a snapshot of the partition is taken, null if there is none in progress.
+         */
+        List<PendingEvent> pending = new ArrayList<PendingEvent>();
+    }
+
+    /**
+     * A queued change and the member it came from.
+     */
+    private static final class PendingEvent {
+
+        final String source;
+        final QueryCacheEventBatch.Event event;
+
+        PendingEvent(String source, QueryCacheEventBatch.Event event) {
+            this.source = source;
+            this.event = event;
+        }
+    }
+}
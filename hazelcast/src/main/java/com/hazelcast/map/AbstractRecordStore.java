@@ -15,11 +15,12 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.Clock;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains record store common parts.
@@ -27,7 +28,7 @@ import java.util.concurrent.ConcurrentMap;
 abstract class AbstractRecordStore implements RecordStore {
 
     protected static final long DEFAULT_TTL = -1L;
-    protected final ConcurrentMap<Data, Record> records = new ConcurrentHashMap<Data, Record>(1000);
+    protected final ConcurrentMap<Data, Record> records;
     protected final RecordFactory recordFactory;
     protected final String name;
     protected final MapContainer mapContainer;
@@ -35,6 +36,14 @@ abstract class AbstractRecordStore implements RecordStore {
     protected final SerializationService serializationService;
     protected final int partitionId;
     private final SizeEstimator sizeEstimator;
+    private final boolean recordTableEnabled;
+    /**
+     * Keys changed since {@link #startTrackingChanges()}, null while changes are not tracked.
+     * Only accessed by the partition thread.
+     */
+    private Set<Data> changedKeys;
+    private boolean clearedWhileTracking;
+    private final AtomicLong modificationCount = new AtomicLong();
 
     protected AbstractRecordStore(MapContainer mapContainer, int partitionId) {
         this.mapContainer = mapContainer;
@@ -43,6 +52,8 @@ abstract class AbstractRecordStore implements RecordStore {
         this.serializationService = mapServiceContext.getNodeEngine().getSerializationService();
         this.name = mapContainer.getName();
         this.recordFactory = mapContainer.getRecordFactory();
+        this.records = mapContainer.createRecordMap();
+        this.recordTableEnabled = mapContainer.isRecordTableEnabled();
         this.sizeEstimator = SizeEstimators.createMapSizeEstimator();
     }
 
@@ -71,7 +82,7 @@ abstract class AbstractRecordStore implements RecordStore {
     }
 
     protected Record createRecord(Data key, Object value, long now) {
-        return mapContainer.createRecord(key, value, DEFAULT_TTL, now);
+        return createRecord(key, value, DEFAULT_TTL, now);
     }
 
     protected void accessRecord(Record record, long now) {
@@ -89,6 +100,10 @@ abstract class AbstractRecordStore implements RecordStore {
     }
 
     protected long calculateRecordHeapCost(Record record) {
+        if (recordTableEnabled) {
+            // records are copied to native memory, nothing stays on heap per entry.
+            return 0L;
+        }
         return sizeEstimator.getCost(record);
     }
 
@@ -115,6 +130,36 @@ abstract class AbstractRecordStore implements RecordStore {
         record.setLastUpdateTime(now);
         record.onUpdate();
         recordFactory.setValue(record, value);
+        markChanged(record.getKey());
+    }
+
+    @Override
+    public void startTrackingChanges() {
+        changedKeys = new HashSet<Data>();
+        clearedWhileTracking = false;
+    }
+
+    @Override
+    public Set<Data> stopTrackingChanges() {
+        final Set<Data> keys = clearedWhileTracking ? null : changedKeys;
+        changedKeys = null;
+        clearedWhileTracking = false;
+        return keys;
+    }
+
+    /**
+     * Has to be called for every record which is added, updated or removed.
+     */
+    protected void markChanged(Data key) {
+        modificationCount.incrementAndGet();
+        if (changedKeys != null) {
+            changedKeys.add(key);
+        }
+    }
+
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
     }
 
     @Override
@@ -138,6 +183,7 @@ abstract class AbstractRecordStore implements RecordStore {
             return;
         }
         record.setTtl(ttl);
+        markChanged(record.getKey());
         if (record.getStatistics() != null) {
             final long expirationTime = mapServiceContext.getExpirationTime(ttl, getNow());
             record.getStatistics().setExpirationTime(expirationTime);
@@ -182,6 +228,10 @@ abstract class AbstractRecordStore implements RecordStore {
     }
 
     protected void clearRecordsMap(Map<Data, Record> excludeRecords) {
+        modificationCount.incrementAndGet();
+        if (changedKeys != null) {
+            clearedWhileTracking = true;
+        }
         InMemoryFormat inMemoryFormat = recordFactory.getStorageFormat();
         switch (inMemoryFormat) {
             case BINARY:
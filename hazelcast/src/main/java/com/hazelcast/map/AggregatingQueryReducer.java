@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.map;
+
+import com.hazelcast.mapreduce.Collator;
+import com.hazelcast.mapreduce.Combiner;
+import com.hazelcast.mapreduce.CombinerFactory;
+import com.hazelcast.mapreduce.Reducer;
+import com.hazelcast.mapreduce.ReducerFactory;
+import com.hazelcast.mapreduce.aggregation.Aggregation;
+import com.hazelcast.mapreduce.aggregation.Supplier;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs an {@link Aggregation} over the entries matching a query without a map reduce job.
+ * <p/>
+ * The supplied values of a partition are combined by a combiner of the aggregation, the chunks of the
+ * partitions of a member are reduced by a single reducer and the caller collates the results of the members.
+ * Combiners and reducers are created with a null key, the mapper of the aggregation is not used. Without a
+ * combiner factory the supplied values are reduced directly.
+ */
+public class AggregatingQueryReducer implements QueryReducer {
+
+    private Supplier supplier;
+    private CombinerFactory combinerFactory;
+    private ReducerFactory reducerFactory;
+
+    public AggregatingQueryReducer() {
+    }
+
+    public AggregatingQueryReducer(Supplier supplier, Aggregation aggregation) {
+        this.supplier = supplier;
+        this.combinerFactory = aggregation.getCombinerFactory();
+        this.reducerFactory = aggregation.getReducerFactory();
+    }
+
+    /**
+     * Collates the results of the members on the caller.
+     *
+     * @param aggregation   aggregation given to the constructor.
+     * @param memberResults results of {@link #reduce(java.util.List)} on all members.
+     * @return the aggregated value.
+     */
+    public static <Result> Result collate(Aggregation<?, ?, Result> aggregation, List<Object> memberResults) {
+        final List<Map.Entry> entries = new ArrayList<Map.Entry>(memberResults.size());
+        for (int i = 0; i < memberResults.size(); i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Object>(i, memberResults.get(i)));
+        }
+        final Collator<Map.Entry, Result> collator = aggregation.getCollator();
+        return collator.collate(entries);
+    }
+
+    @Override
+    public Object reducePartition(Collection<QueryableEntry> entries) {
+        if (combinerFactory == null) {
+            final List<Object> values = new ArrayList<Object>(entries.size());
+            for (QueryableEntry entry : entries) {
+                final Object value = supplier.apply(entry);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values;
+        }
+        final Combiner combiner = combinerFactory.newCombiner(null);
+        combiner.beginCombine();
+        for (QueryableEntry entry : entries) {
+            final Object value = supplier.apply(entry);
+            if (value != null) {
+                combiner.combine(value);
+            }
+        }
+        final Object chunk = combiner.finalizeChunk();
+        combiner.finalizeCombine();
+        return chunk;
+    }
+
+    @Override
+    public List<Object> reduce(List<Object> partitionResults) {
+        final Reducer reducer = reducerFactory.newReducer(null);
+        reducer.beginReduce();
+        for (Object partitionResult : partitionResults) {
+            if (combinerFactory == null) {
+                for (Object value : (List) partitionResult) {
+                    reducer.reduce(value);
+                }
+            } else {
+                reducer.reduce(partitionResult);
+            }
+        }
+        return Collections.singletonList(reducer.finalizeReduce());
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(supplier);
+        out.writeObject(combinerFactory);
+        out.writeObject(reducerFactory);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        supplier = in.readObject();
+        combinerFactory = in.readObject();
+        reducerFactory = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.AGGREGATING_QUERY_REDUCER;
+    }
+}
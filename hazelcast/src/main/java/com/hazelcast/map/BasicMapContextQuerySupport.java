@@ -7,8 +7,8 @@ import com.hazelcast.map.record.Record;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.SerializationService;
 import com.hazelcast.query.PagingPredicate;
-import com.hazelcast.query.PagingPredicateAccessor;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.query.PredicateCompiler;
 import com.hazelcast.query.impl.QueryEntry;
 import com.hazelcast.query.impl.QueryResultEntry;
 import com.hazelcast.query.impl.QueryableEntry;
@@ -19,15 +19,14 @@ import com.hazelcast.util.IterationType;
 import com.hazelcast.util.QueryResultSet;
 import com.hazelcast.util.SortedQueryResultSet;
 import com.hazelcast.util.SortingUtil;
+import com.hazelcast.util.TopEntryCollector;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,19 +42,30 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
 
     private final MapServiceContext mapServiceContext;
     private final NodeEngine nodeEngine;
+    private final boolean compilePredicates;
 
     public BasicMapContextQuerySupport(MapServiceContext mapServiceContext) {
         this.mapServiceContext = mapServiceContext;
         this.nodeEngine = mapServiceContext.getNodeEngine();
+        this.compilePredicates = nodeEngine.getGroupProperties().QUERY_PREDICATE_COMPILE_ENABLED.getBoolean();
     }
 
     @Override
     public Collection<QueryableEntry> queryOnPartition(String mapName, Predicate predicate, int partitionId) {
+        final int limit = predicate instanceof PagingPredicate
+                ? SortingUtil.getFetchSize((PagingPredicate) predicate) : Integer.MAX_VALUE;
+        return queryOnPartition(mapName, predicate, partitionId, limit);
+    }
+
+    @Override
+    public Collection<QueryableEntry> queryOnPartition(String mapName, Predicate predicate, int partitionId, int limit) {
         final PartitionContainer container = mapServiceContext.getPartitionContainer(partitionId);
         final RecordStore recordStore = container.getRecordStore(mapName);
         final SerializationService serializationService = nodeEngine.getSerializationService();
-        final PagingPredicate pagingPredicate = predicate instanceof PagingPredicate ? (PagingPredicate) predicate : null;
-        List<QueryEntry> list = new LinkedList<QueryEntry>();
+        final TopEntryCollector<QueryableEntry> collector = predicate instanceof PagingPredicate
+                ? new TopEntryCollector<QueryableEntry>((PagingPredicate) predicate, limit) : null;
+        final Predicate filter = compilePredicates ? PredicateCompiler.compile(predicate) : predicate;
+        List<QueryableEntry> list = new ArrayList<QueryableEntry>();
         final Iterator<Record> iterator = recordStore.loadAwareIterator();
         while (iterator.hasNext()) {
             final Record record = iterator.next();
@@ -65,19 +75,15 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
                 continue;
             }
             QueryEntry queryEntry = new QueryEntry(serializationService, key, key, value);
-            if (predicate.apply(queryEntry)) {
-                if (pagingPredicate != null) {
-                    Map.Entry anchor = pagingPredicate.getAnchor();
-                    if (anchor != null
-                            && SortingUtil.compare(pagingPredicate.getComparator(),
-                            pagingPredicate.getIterationType(), anchor, queryEntry) >= 0) {
-                        continue;
-                    }
+            if (filter.apply(queryEntry)) {
+                if (collector != null) {
+                    collector.add(queryEntry);
+                } else {
+                    list.add(queryEntry);
                 }
-                list.add(queryEntry);
             }
         }
-        return getPage(list, pagingPredicate);
+        return collector != null ? collector.toSortedList() : list;
     }
 
     private Object getValueOrCachedValue(Record record) {
@@ -144,17 +150,13 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         final NodeEngine nodeEngine = this.nodeEngine;
         final List<Integer> partitionIds = getLocalPartitionIds(nodeEngine);
         pagingPredicate.setIterationType(iterationType);
-        setPreviousPagesAnchorsOnLocalMember(mapName, pagingPredicate, iterationType);
-        final Set result = new SortedQueryResultSet(pagingPredicate.getComparator(),
-                iterationType, pagingPredicate.getPageSize());
+        final List<Map.Entry> result = new ArrayList<Map.Entry>();
         try {
             final Future future = queryOnLocalMember(mapName, pagingPredicate, nodeEngine);
             final List<Future> futures = Collections.singletonList(future);
             addResultsOfPagingPredicate(futures, result, partitionIds);
             if (partitionIds.isEmpty()) {
-                PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate,
-                        ((SortedQueryResultSet) result).last());
-                return result;
+                return getPage(result, pagingPredicate);
             }
         } catch (Throwable t) {
             nodeEngine.getLogger(getClass()).warning("Could not get results", t);
@@ -166,11 +168,13 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         } catch (Throwable t) {
             throw ExceptionUtil.rethrow(t);
         }
-        return result;
+        return getPage(result, pagingPredicate);
     }
 
     /**
-     * Used for paging predicate queries on all members.
+     * Used for paging predicate queries on all members. The members return the sorted entries following the
+     * nearest anchor of the paging predicate up to its current page, so a page is fetched with a single query
+     * even if the pages before it were never queried.
      *
      * @param pagingPredicate to queryOnMembers.
      * @param iterationType   type of {@link IterationType}
@@ -181,15 +185,12 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         final NodeEngine nodeEngine = this.nodeEngine;
         final Set<Integer> partitionIds = getAllPartitionIds(nodeEngine);
         pagingPredicate.setIterationType(iterationType);
-        setPreviousPagesAnchors(mapName, pagingPredicate, iterationType);
-        final Set result = new SortedQueryResultSet(pagingPredicate.getComparator(),
-                iterationType, pagingPredicate.getPageSize());
+        final List<Map.Entry> result = new ArrayList<Map.Entry>();
         try {
             List<Future> futures = queryOnMembers(mapName, pagingPredicate, nodeEngine);
             addResultsOfPagingPredicate(futures, result, partitionIds);
             if (partitionIds.isEmpty()) {
-                PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, ((SortedQueryResultSet) result).last());
-                return result;
+                return getPage(result, pagingPredicate);
             }
         } catch (Throwable t) {
             nodeEngine.getLogger(getClass()).warning("Could not get results", t);
@@ -201,8 +202,7 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         } catch (Throwable t) {
             throw ExceptionUtil.rethrow(t);
         }
-        PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, ((SortedQueryResultSet) result).last());
-        return result;
+        return getPage(result, pagingPredicate);
     }
 
     /**
@@ -241,6 +241,31 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         return result;
     }
 
+    @Override
+    public List<Object> queryAndReduce(String mapName, Predicate predicate, QueryReducer reducer) {
+        checkIfNotPagingPredicate(predicate);
+        final NodeEngine nodeEngine = this.nodeEngine;
+        final Set<Integer> partitionIds = getAllPartitionIds(nodeEngine);
+        final List<Object> result = new ArrayList<Object>();
+        try {
+            List<Future> futures = queryOnMembers(mapName, predicate, reducer, nodeEngine);
+            addReducedResults(futures, result, partitionIds);
+            if (partitionIds.isEmpty()) {
+                return result;
+            }
+        } catch (Throwable t) {
+            nodeEngine.getLogger(getClass()).warning("Could not get results", t);
+        }
+
+        try {
+            List<Future> futures = queryOnPartitions(mapName, predicate, reducer, partitionIds, nodeEngine);
+            addReducedResults(futures, result, partitionIds);
+        } catch (Throwable t) {
+            throw ExceptionUtil.rethrow(t);
+        }
+        return result;
+    }
+
     private Future queryOnLocalMember(String mapName, Predicate predicate, NodeEngine nodeEngine) {
         final OperationService operationService = nodeEngine.getOperationService();
         return operationService
@@ -250,12 +275,16 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
     }
 
     private List<Future> queryOnMembers(String mapName, Predicate predicate, NodeEngine nodeEngine) {
+        return queryOnMembers(mapName, predicate, null, nodeEngine);
+    }
+
+    private List<Future> queryOnMembers(String mapName, Predicate predicate, QueryReducer reducer, NodeEngine nodeEngine) {
         final Collection<MemberImpl> members = nodeEngine.getClusterService().getMemberList();
         final List<Future> futures = new ArrayList<Future>(members.size());
         final OperationService operationService = nodeEngine.getOperationService();
         for (MemberImpl member : members) {
             Future future = operationService
-                    .invokeOnTarget(SERVICE_NAME, new QueryOperation(mapName, predicate), member.getAddress());
+                    .invokeOnTarget(SERVICE_NAME, new QueryOperation(mapName, predicate, reducer), member.getAddress());
             futures.add(future);
         }
         return futures;
@@ -263,13 +292,18 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
 
     private List<Future> queryOnPartitions(String mapName, Predicate predicate, Collection<Integer> partitionIds,
                                            NodeEngine nodeEngine) {
+        return queryOnPartitions(mapName, predicate, null, partitionIds, nodeEngine);
+    }
+
+    private List<Future> queryOnPartitions(String mapName, Predicate predicate, QueryReducer reducer,
+                                           Collection<Integer> partitionIds, NodeEngine nodeEngine) {
         if (partitionIds == null || partitionIds.isEmpty()) {
             return Collections.emptyList();
         }
         final OperationService operationService = nodeEngine.getOperationService();
         final List<Future> futures = new ArrayList<Future>(partitionIds.size());
         for (Integer partitionId : partitionIds) {
-            QueryPartitionOperation queryPartitionOperation = new QueryPartitionOperation(mapName, predicate);
+            QueryPartitionOperation queryPartitionOperation = new QueryPartitionOperation(mapName, predicate, reducer);
             queryPartitionOperation.setPartitionId(partitionId);
             try {
                 Future f =
@@ -287,7 +321,8 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
      * For paging predicates.
      * Adds results to result set and removes queried partition ids.
      */
-    private void addResultsOfPagingPredicate(List<Future> futures, Set result, Collection<Integer> partitionIds)
+    private void addResultsOfPagingPredicate(List<Future> futures, List<Map.Entry> result,
+                                             Collection<Integer> partitionIds)
             throws ExecutionException, InterruptedException {
         for (Future future : futures) {
             final QueryResult queryResult = getQueryResult(future);
@@ -325,6 +360,26 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         }
     }
 
+    /**
+     * For predicates folded by a {@link QueryReducer}.
+     * Adds results to result list and removes queried partition ids.
+     */
+    private void addReducedResults(List<Future> futures, List<Object> result, Collection<Integer> partitionIds)
+            throws ExecutionException, InterruptedException {
+        for (Future future : futures) {
+            final ReducedQueryResult reducedResult = (ReducedQueryResult) future.get();
+            if (reducedResult == null) {
+                continue;
+            }
+            final List<Integer> queriedPartitionIds = reducedResult.getPartitionIds();
+            // a partition folded twice, e.g. reported by its old and new owner, would be counted twice.
+            if (queriedPartitionIds != null && partitionIds.containsAll(queriedPartitionIds)) {
+                partitionIds.removeAll(queriedPartitionIds);
+                result.addAll(reducedResult.getValues());
+            }
+        }
+    }
+
     private QueryResult getQueryResult(Future future) throws ExecutionException, InterruptedException {
         return (QueryResult) future.get();
     }
@@ -350,16 +405,11 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         return partitionIds;
     }
 
-    private List getPage(List<QueryEntry> list, PagingPredicate pagingPredicate) {
-        if (pagingPredicate == null) {
-            return list;
-        }
-        final Comparator<Map.Entry> wrapperComparator = SortingUtil.newComparator(pagingPredicate);
-        Collections.sort(list, wrapperComparator);
-        if (list.size() > pagingPredicate.getPageSize()) {
-            list = list.subList(0, pagingPredicate.getPageSize());
-        }
-        return list;
+    private Set getPage(List<Map.Entry> result, PagingPredicate pagingPredicate) {
+        final SortedQueryResultSet page = new SortedQueryResultSet(pagingPredicate.getComparator(),
+                pagingPredicate.getIterationType(), pagingPredicate.getPageSize());
+        page.addAll(SortingUtil.getSortedPage(result, pagingPredicate));
+        return page;
     }
 
     private void checkIfNotPagingPredicate(Predicate predicate) {
@@ -368,21 +418,4 @@ class BasicMapContextQuerySupport implements MapContextQuerySupport {
         }
     }
 
-    private void setPreviousPagesAnchorsOnLocalMember(String mapName,
-                                                      PagingPredicate pagingPredicate, IterationType iterationType) {
-        if (pagingPredicate.getPage() > 0 && pagingPredicate.getAnchor() == null) {
-            pagingPredicate.previousPage();
-            queryLocalMemberWithPagingPredicate(mapName, pagingPredicate, iterationType);
-            pagingPredicate.nextPage();
-        }
-    }
-
-    private void setPreviousPagesAnchors(String mapName, PagingPredicate pagingPredicate, IterationType iterationType) {
-        if (pagingPredicate.getPage() > 0 && pagingPredicate.getAnchor() == null) {
-            pagingPredicate.previousPage();
-            queryWithPagingPredicate(mapName, pagingPredicate, iterationType);
-            pagingPredicate.nextPage();
-        }
-    }
-
 }
@@ -38,6 +38,7 @@ public class DefaultMapServiceContext extends AbstractMapServiceContextSupport i
     private final AtomicInteger writeBehindQueueItemCounter = new AtomicInteger(0);
     private final ExpirationManager expirationManager;
     private final NearCacheProvider nearCacheProvider;
+    private final QueryCacheEventBatcher queryCacheEventBatcher;
     private final LocalMapStatsProvider localMapStatsProvider;
     private final MergePolicyProvider mergePolicyProvider;
     private final MapEventPublisher mapEventPublisher;
@@ -53,6 +54,7 @@ public class DefaultMapServiceContext extends AbstractMapServiceContextSupport i
         this.ownedPartitions = new AtomicReference<List<Integer>>();
         this.expirationManager = new ExpirationManager(this, nodeEngine);
         this.nearCacheProvider = new NearCacheProvider(this, nodeEngine);
+        this.queryCacheEventBatcher = new QueryCacheEventBatcher(nodeEngine);
         this.localMapStatsProvider = new LocalMapStatsProvider(this, nodeEngine);
         this.mergePolicyProvider = new MergePolicyProvider(nodeEngine);
         this.mapEventPublisher = new MapEventPublisherSupport(this);
@@ -91,6 +93,7 @@ public class DefaultMapServiceContext extends AbstractMapServiceContextSupport i
                 mapPartition.clearPartition();
             }
             container.getMaps().clear();
+            container.discardStagedRecords();
         }
     }
 
@@ -155,6 +158,11 @@ public class DefaultMapServiceContext extends AbstractMapServiceContextSupport i
         return nearCacheProvider;
     }
 
+    @Override
+    public QueryCacheEventBatcher getQueryCacheEventBatcher() {
+        return queryCacheEventBatcher;
+    }
+
     @Override
     public RecordStore getRecordStore(int partitionId, String mapName) {
         return getPartitionContainer(partitionId).getRecordStore(mapName);
@@ -31,23 +31,39 @@ import com.hazelcast.util.ExceptionUtil;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Default implementation of record-store.
  */
 public class DefaultRecordStore extends AbstractEvictableRecordStore implements RecordStore {
 
+    /**
+     * Time the key snapshot of the fetch walks is kept after the last page request.
+     */
+    private static final long FETCH_KEYS_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * The key snapshot is dropped once the records were modified more often than its length divided by this.
+     */
+    private static final int FETCH_KEYS_MAX_MODIFICATION_RATIO = 4;
+
     private final LockStore lockStore;
     private final MapDataStore<Data, Object> mapDataStore;
     private final RecordStoreLoader recordStoreLoader;
+    // keys sorted by hash code for the ongoing fetch walks, only accessed by the partition thread.
+    private Data[] fetchKeys;
+    private long fetchKeysModificationCount;
+    private long fetchKeysAccessTime;
 
     public DefaultRecordStore(MapContainer mapContainer, int partitionId) {
         super(mapContainer, partitionId);
@@ -102,6 +118,11 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
     @Override
     public void putRecord(Data key, Record record) {
         final Record existingRecord = records.put(key, record);
+        markChanged(key);
+        if (existingRecord != null && existingRecord != record) {
+            existingRecord.invalidate();
+        }
+        scheduleExpiration(record);
         updateSizeEstimator(-calculateRecordHeapCost(existingRecord));
         updateSizeEstimator(calculateRecordHeapCost(record));
     }
@@ -127,6 +148,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
         if (record == null) {
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         } else {
             updateSizeEstimator(-calculateRecordHeapCost(record));
@@ -141,7 +163,9 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
     public void deleteRecord(Data key) {
         Record record = records.remove(key);
         if (record != null) {
+            markChanged(key);
             record.invalidate();
+            expirationWheel.unschedule(key);
         }
     }
 
@@ -308,6 +332,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
         if (value != null) {
             record = createRecord(key, value, getNow());
             records.put(key, record);
+            markChanged(key);
             if (enableIndex) {
                 saveIndex(record);
             }
@@ -316,6 +341,104 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
         return record;
     }
 
+    @Override
+    public MapFetchResult fetch(long cursor, int size, boolean withValues) {
+        checkIfLoaded();
+        final long now = getNow();
+        if (fetchKeys == null || cursor == MapFetchResult.FIRST_CURSOR
+                || now - fetchKeysAccessTime > FETCH_KEYS_TIMEOUT_MILLIS) {
+            createFetchKeys();
+        }
+        fetchKeysAccessTime = now;
+        final Data[] snapshot = fetchKeys;
+        int index = indexOfFetchHash(snapshot, cursor);
+        final int capacity = Math.min(size, snapshot.length - index);
+        final List<Data> keys = new ArrayList<Data>(capacity);
+        final List<Data> values = withValues ? new ArrayList<Data>(capacity) : null;
+        int hashCount = 0;
+        int lastHash = 0;
+        for (; index < snapshot.length; index++) {
+            final int hash = snapshot[index].hashCode();
+            if (hashCount == size && hash != lastHash) {
+                break;
+            }
+            // keys removed since the snapshot are skipped.
+            final Record record = records.get(snapshot[index]);
+            if (record == null || isExpired(record, now)) {
+                continue;
+            }
+            if (hashCount == 0 || hash != lastHash) {
+                hashCount++;
+                lastHash = hash;
+            }
+            keys.add(record.getKey());
+            if (withValues) {
+                values.add(mapServiceContext.toData(record.getValue()));
+            }
+        }
+        if (index == snapshot.length) {
+            fetchKeys = null;
+            return new MapFetchResult(keys, values, MapFetchResult.LAST_CURSOR);
+        }
+        return new MapFetchResult(keys, values, lastHash + 1L);
+    }
+
+    /**
+     * Takes a snapshot of the keys sorted by hash code, so the pages of a walk are found by a binary search
+     * instead of a scan over all records. Walks starting later take a new snapshot; since the cursor is a
+     * hash code, a walk resumes on it all the same. Keys added after the snapshot may be left out.
+     * <p/>
+     * The snapshot of an abandoned walk is not kept forever: it is taken again if no page was requested for
+     * {@link #FETCH_KEYS_TIMEOUT_MILLIS}, and dropped once the records were modified often enough that it
+     * would mostly hold removed keys, see {@link #markChanged(Data)}.
+     */
+    private void createFetchKeys() {
+        final Data[] keys = records.keySet().toArray(new Data[0]);
+        Arrays.sort(keys, new Comparator<Data>() {
+            @Override
+            public int compare(Data key1, Data key2) {
+                final int hash1 = key1.hashCode();
+                final int hash2 = key2.hashCode();
+                return hash1 < hash2 ? -1 : (hash1 == hash2 ? 0 : 1);
+            }
+        });
+        fetchKeys = keys;
+        fetchKeysModificationCount = getModificationCount();
+    }
+
+    @Override
+    protected void markChanged(Data key) {
+        super.markChanged(key);
+        final Data[] snapshot = fetchKeys;
+        if (snapshot != null && (getModificationCount() - fetchKeysModificationCount) * FETCH_KEYS_MAX_MODIFICATION_RATIO
+                > snapshot.length) {
+            fetchKeys = null;
+        }
+    }
+
+    /**
+     * @return index of the first key in the snapshot whose hash code is not smaller than the cursor.
+     */
+    private static int indexOfFetchHash(Data[] snapshot, long cursor) {
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (snapshot[middle].hashCode() < cursor) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    protected void clearRecordsMap(Map<Data, Record> excludeRecords) {
+        super.clearRecordsMap(excludeRecords);
+        fetchKeys = null;
+    }
+
     @Override
     public Set<Data> keySet() {
         checkIfLoaded();
@@ -358,7 +481,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
                 updateSizeEstimator(calculateRecordHeapCost(record));
             }
         }
-        Set<Data> keysToDelete = records.keySet();
+        Set<Data> keysToDelete = new HashSet<Data>(records.keySet());
         keysToDelete.removeAll(lockedRecords.keySet());
 
         mapDataStore.removeAll(keysToDelete);
@@ -461,7 +584,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
      * @param keysToPreserve should not be removed from index.
      */
     private void removeIndexByPreservingKeys(Set<Data> keysToPreserve) {
-        final Set<Data> currentKeySet = records.keySet();
+        final Set<Data> currentKeySet = new HashSet<Data>(records.keySet());
         currentKeySet.removeAll(keysToPreserve);
 
         removeIndex(currentKeySet);
@@ -583,6 +706,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             if (value != null) {
                 record = createRecord(key, value, now);
                 records.put(key, record);
+                markChanged(key);
                 saveIndex(record);
                 updateSizeEstimator(calculateRecordHeapCost(record));
             }
@@ -648,6 +772,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             if (value != null) {
                 record = createRecord(key, value, now);
                 records.put(key, record);
+                markChanged(key);
                 updateSizeEstimator(calculateRecordHeapCost(record));
             }
         }
@@ -673,6 +798,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapDataStore.add(key, value, now);
             record = createRecord(key, value, now);
             records.put(key, record);
+            markChanged(key);
             // increase size.
             updateSizeEstimator(calculateRecordHeapCost(record));
             saveIndex(record);
@@ -705,6 +831,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapDataStore.add(key, value, now);
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
             saveIndex(record);
         } else {
@@ -738,6 +865,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapDataStore.add(key, value, now);
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
             newRecord = true;
         } else {
@@ -773,6 +901,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             newValue = mapDataStore.add(key, newValue, now);
             record = createRecord(key, newValue, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         } else {
             Object oldValue = record.getValue();
@@ -798,6 +927,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             onStore(record);
             updateSizeEstimator(-calculateRecordHeapCost(record));
             recordFactory.setValue(record, newValue);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         }
         saveIndex(record);
@@ -866,6 +996,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapServiceContext.interceptPut(name, null, value);
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         } else {
             value = mapServiceContext.interceptPut(name, record.getValue(), value);
@@ -895,6 +1026,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapServiceContext.interceptPut(name, null, value);
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         } else {
             oldValue = record.getValue();
@@ -922,6 +1054,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapDataStore.add(key, value, now);
             record = createRecord(key, value, ttl, now);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
         } else {
             value = mapServiceContext.interceptPut(name, record.getValue(), value);
@@ -952,6 +1085,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             if (oldValue != null) {
                 record = createRecord(key, oldValue, now);
                 records.put(key, record);
+                markChanged(key);
                 updateSizeEstimator(calculateRecordHeapCost(record));
             }
         } else {
@@ -963,9 +1097,10 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore implements
             value = mapDataStore.add(key, value, now);
             onStore(record);
             record = createRecord(key, value, ttl, now);
+            updateTtl(record, ttl);
             records.put(key, record);
+            markChanged(key);
             updateSizeEstimator(calculateRecordHeapCost(record));
-            updateTtl(record, ttl);
         }
         saveIndex(record);
 
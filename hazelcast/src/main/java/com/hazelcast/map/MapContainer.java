@@ -16,6 +16,7 @@
 
 package com.hazelcast.map;
 
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MapStoreConfig;
 import com.hazelcast.config.PartitioningStrategyConfig;
@@ -23,18 +24,24 @@ import com.hazelcast.config.WanReplicationRef;
 import com.hazelcast.core.MapLoaderLifecycleSupport;
 import com.hazelcast.core.MapStoreFactory;
 import com.hazelcast.core.PartitioningStrategy;
+import com.hazelcast.instance.GroupProperties;
 import com.hazelcast.map.mapstore.MapStoreManager;
 import com.hazelcast.map.merge.MapMergePolicy;
 import com.hazelcast.map.record.DataRecordFactory;
 import com.hazelcast.map.record.ObjectRecordFactory;
 import com.hazelcast.map.record.OffHeapRecordFactory;
+import com.hazelcast.map.record.OffHeapRecordTable;
 import com.hazelcast.map.record.Record;
 import com.hazelcast.map.record.RecordFactory;
 import com.hazelcast.map.record.RecordStatistics;
 import com.hazelcast.nio.ClassLoaderUtil;
+import com.hazelcast.nio.UnsafeHelper;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.impl.IndexService;
 import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.storage.DataRef;
+import com.hazelcast.storage.OffHeapStorage;
+import com.hazelcast.storage.Storage;
 import com.hazelcast.util.ExceptionUtil;
 import com.hazelcast.util.UuidUtil;
 import com.hazelcast.wan.WanReplicationPublisher;
@@ -44,6 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
@@ -68,6 +76,8 @@ public class MapContainer extends MapContainerSupport {
     private final boolean nearCacheEnabled;
     private final SizeEstimator nearCacheSizeEstimator;
     private final PartitioningStrategy partitioningStrategy;
+    private final boolean recordTableEnabled;
+    private final PagingCursorStore pagingCursorStore;
     private WanReplicationPublisher wanReplicationPublisher;
     private MapMergePolicy wanMergePolicy;
     private final Map<Data, Object> initialKeys = new ConcurrentHashMap<Data, Object>();
@@ -80,7 +90,9 @@ public class MapContainer extends MapContainerSupport {
         this.mapServiceContext = mapServiceContext;
         this.partitioningStrategy = createPartitioningStrategy();
         final NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+        recordTableEnabled = isRecordTableEnabled(nodeEngine);
         recordFactory = createRecordFactory(nodeEngine);
+        pagingCursorStore = createPagingCursorStore(nodeEngine.getGroupProperties());
         initMapStoreOperations(nodeEngine);
         initWanReplication(nodeEngine);
         interceptors = new CopyOnWriteArrayList<MapInterceptor>();
@@ -126,8 +138,13 @@ public class MapContainer extends MapContainerSupport {
                 recordFactory = new ObjectRecordFactory(mapConfig, nodeEngine.getSerializationService());
                 break;
             case OFFHEAP:
-                recordFactory = new OffHeapRecordFactory(mapConfig, nodeEngine.getOffHeapStorage(),
-                        nodeEngine.getSerializationService(), partitioningStrategy);
+                if (recordTableEnabled) {
+                    recordFactory = new OffHeapRecordFactory(mapConfig, nodeEngine.getSerializationService(),
+                            partitioningStrategy);
+                } else {
+                    recordFactory = new OffHeapRecordFactory(mapConfig, nodeEngine.getOffHeapStorage(),
+                            nodeEngine.getSerializationService(), partitioningStrategy);
+                }
                 break;
             default:
                 throw new IllegalArgumentException("Invalid storage format: " + mapConfig.getInMemoryFormat());
@@ -135,6 +152,40 @@ public class MapContainer extends MapContainerSupport {
         return recordFactory;
     }
 
+    private PagingCursorStore createPagingCursorStore(GroupProperties groupProperties) {
+        final long timeoutMillis = groupProperties.QUERY_PAGING_CURSOR_ENABLED.getBoolean()
+                ? TimeUnit.SECONDS.toMillis(groupProperties.QUERY_PAGING_CURSOR_TIMEOUT_SECONDS.getLong()) : 0;
+        return new PagingCursorStore(timeoutMillis, groupProperties.QUERY_PAGING_CURSOR_MAX_ENTRIES.getLong());
+    }
+
+    private boolean isRecordTableEnabled(NodeEngine nodeEngine) {
+        return mapConfig.getInMemoryFormat() == InMemoryFormat.OFFHEAP
+                && nodeEngine.getGroupProperties().ELASTIC_MEMORY_RECORD_TABLE_ENABLED.getBoolean()
+                && UnsafeHelper.UNSAFE_AVAILABLE;
+    }
+
+    /**
+     * Creates the map holding the records of one partition.
+     *
+     * @see com.hazelcast.map.record.OffHeapRecordTable
+     */
+    public ConcurrentMap<Data, Record> createRecordMap() {
+        if (recordTableEnabled) {
+            final NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+            final Storage<DataRef> storage = nodeEngine.getOffHeapStorage();
+            if (!(storage instanceof OffHeapStorage)) {
+                throw new IllegalStateException("Off-heap record table needs an OffHeapStorage, found: " + storage);
+            }
+            return new OffHeapRecordTable(nodeEngine.getSerializationService().getPortableContext(),
+                    (OffHeapStorage) storage, mapConfig.isStatisticsEnabled());
+        }
+        return new ConcurrentHashMap<Data, Record>(1000);
+    }
+
+    public boolean isRecordTableEnabled() {
+        return recordTableEnabled;
+    }
+
     private MapStoreWrapper createMapStoreWrapper(MapStoreConfig mapStoreConfig, NodeEngine nodeEngine) {
         Object store;
         MapStoreWrapper storeWrapper;
@@ -224,6 +275,10 @@ public class MapContainer extends MapContainerSupport {
         return indexService;
     }
 
+    public PagingCursorStore getPagingCursorStore() {
+        return pagingCursorStore;
+    }
+
     public WanReplicationPublisher getWanReplicationPublisher() {
         return wanReplicationPublisher;
     }
@@ -259,9 +314,10 @@ public class MapContainer extends MapContainerSupport {
 
     public Record createRecord(Data key, Object value, long ttl, long now) {
         Record record = getRecordFactory().newRecord(key, value);
+        // first, compact records store the other timestamps relative to it
+        record.setCreationTime(now);
         record.setLastAccessTime(now);
         record.setLastUpdateTime(now);
-        record.setCreationTime(now);
         final long configTTLSeconds = mapConfig.getTimeToLiveSeconds();
         final long configTTLMillis
                 = mapServiceContext.convertTime(configTTLSeconds, TimeUnit.SECONDS);
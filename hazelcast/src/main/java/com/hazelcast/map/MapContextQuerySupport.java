@@ -6,6 +6,7 @@ import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.util.IterationType;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -23,6 +24,18 @@ public interface MapContextQuerySupport {
      */
     Collection<QueryableEntry> queryOnPartition(String mapName, Predicate predicate, int partitionId);
 
+    /**
+     * Query a specific partition, for a paging predicate at most the given number of entries following its
+     * nearest anchor are returned, sorted.
+     *
+     * @param mapName     map name.
+     * @param predicate   any predicate.
+     * @param partitionId partition id.
+     * @param limit       maximum number of entries returned for a paging predicate.
+     * @return result of query
+     */
+    Collection<QueryableEntry> queryOnPartition(String mapName, Predicate predicate, int partitionId, int limit);
+
     /**
      * Used for predicates which queries on node local entries, except paging predicate.
      *
@@ -69,4 +82,15 @@ public interface MapContextQuerySupport {
      */
     Set query(String mapName, Predicate predicate,
               IterationType iterationType, boolean dataResult);
+
+    /**
+     * Queries all members and folds the matching entries on the members with the given reducer,
+     * except paging predicate.
+     *
+     * @param mapName   map name.
+     * @param predicate except paging predicate.
+     * @param reducer   folds the matching entries of each partition and member.
+     * @return results of {@link QueryReducer#reduce(java.util.List)} on each member or partition.
+     */
+    List<Object> queryAndReduce(String mapName, Predicate predicate, QueryReducer reducer);
 }
@@ -50,8 +50,14 @@ public final class MapDataSerializerHook implements DataSerializerHook {
     public static final int MAP_STATS = 12;
     public static final int QUERY_RESULT_ENTRY = 13;
     public static final int QUERY_RESULT_SET = 14;
+    public static final int FETCH_RESULT = 15;
+    public static final int AGGREGATING_QUERY_REDUCER = 16;
+    public static final int PROJECTING_QUERY_REDUCER = 17;
+    public static final int REDUCED_QUERY_RESULT = 18;
+    public static final int QUERY_CACHE_EVENT_BATCH = 19;
+    public static final int QUERY_CACHE_SNAPSHOT = 20;
 
-    private static final int LEN = QUERY_RESULT_SET + 1;
+    private static final int LEN = QUERY_CACHE_SNAPSHOT + 1;
 
     public int getFactoryId() {
         return F_ID;
@@ -121,6 +127,36 @@ public final class MapDataSerializerHook implements DataSerializerHook {
                 return new QueryResultSet();
             }
         };
+        constructors[FETCH_RESULT] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new MapFetchResult();
+            }
+        };
+        constructors[AGGREGATING_QUERY_REDUCER] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new AggregatingQueryReducer();
+            }
+        };
+        constructors[PROJECTING_QUERY_REDUCER] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new ProjectingQueryReducer();
+            }
+        };
+        constructors[REDUCED_QUERY_RESULT] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new ReducedQueryResult();
+            }
+        };
+        constructors[QUERY_CACHE_EVENT_BATCH] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new QueryCacheEventBatch();
+            }
+        };
+        constructors[QUERY_CACHE_SNAPSHOT] = new ConstructorFunction<Integer, IdentifiedDataSerializable>() {
+            public IdentifiedDataSerializable createNew(Integer arg) {
+                return new QueryCacheSnapshot();
+            }
+        };
 
         return new ArrayDataSerializableFactory(constructors);
     }
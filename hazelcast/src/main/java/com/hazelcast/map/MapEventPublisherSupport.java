@@ -7,6 +7,7 @@ import com.hazelcast.map.wan.MapReplicationUpdate;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.query.Predicate;
 import com.hazelcast.query.impl.QueryEntry;
 import com.hazelcast.spi.EventFilter;
 import com.hazelcast.spi.EventRegistration;
@@ -65,7 +66,10 @@ class MapEventPublisherSupport implements MapEventPublisher {
         for (final EventRegistration candidate : candidates) {
             Result result = Result.NONE;
             final EventFilter filter = candidate.getFilter();
-            if (emptyFilter(filter)) {
+            if (filter instanceof QueryCacheEventFilter) {
+                addQueryCacheEvent(candidate, mapName, eventType, dataKey, dataOldValue, dataValue);
+                continue;
+            } else if (emptyFilter(filter)) {
                 result = processEmptyFilter();
             } else if (queryEventFilter(filter)) {
                 result = processQueryEventFilter(filter, eventType, dataKey, dataOldValue, dataValue);
@@ -157,6 +161,35 @@ class MapEventPublisherSupport implements MapEventPublisher {
         return Result.NONE;
     }
 
+    /**
+     * Passes the change to the batcher if the entry matches the predicate of the cache now, or matched it before
+     * and has to leave the cache. An update without the old value always lets the entry leave, the cache ignores
+     * keys it does not hold.
+     */
+    private void addQueryCacheEvent(EventRegistration registration, String mapName, EntryEventType eventType,
+                                    Data dataKey, Data dataOldValue, Data dataValue) {
+        final NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+        final SerializationService serializationService = nodeEngine.getSerializationService();
+        final Predicate predicate = ((QueryCacheEventFilter) registration.getFilter()).getPredicate();
+        final boolean removed = eventType == EntryEventType.REMOVED || eventType == EntryEventType.EVICTED;
+        final Object key = serializationService.toObject(dataKey);
+        Data value = null;
+        if (!removed && dataValue != null && matches(predicate, dataKey, key, dataValue)) {
+            value = dataValue;
+        } else if (eventType == EntryEventType.ADDED) {
+            return;
+        } else if (dataOldValue != null && !matches(predicate, dataKey, key, dataOldValue)) {
+            return;
+        }
+        final int partitionId = nodeEngine.getPartitionService().getPartitionId(dataKey);
+        mapServiceContext.getQueryCacheEventBatcher().add(registration, mapName, partitionId, dataKey, value);
+    }
+
+    private boolean matches(Predicate predicate, Data dataKey, Object key, Data dataValue) {
+        final SerializationService serializationService = mapServiceContext.getNodeEngine().getSerializationService();
+        return predicate.apply(new QueryEntry(serializationService, dataKey, key, serializationService.toObject(dataValue)));
+    }
+
     private Result processEntryEventFilter(EventFilter filter) {
         EntryEventFilter eventFilter = (EntryEventFilter) filter;
         if (eventFilter.isIncludeValue()) {
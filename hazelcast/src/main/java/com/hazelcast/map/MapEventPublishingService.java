@@ -35,7 +35,9 @@ class MapEventPublishingService implements EventPublishingService<EventData, Ent
 
     @Override
     public void dispatchEvent(EventData eventData, EntryListener listener) {
-        if (eventData instanceof EntryEventData) {
+        if (eventData instanceof QueryCacheEventBatch) {
+            ((QueryCacheEventListener) listener).onBatch((QueryCacheEventBatch) eventData);
+        } else if (eventData instanceof EntryEventData) {
             dispatchEntryEventData(eventData, listener);
         } else if (eventData instanceof MapEventData) {
             dispatchMapEventData(eventData, listener);
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.ExceptionUtil;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over the keys or the entries of a map one partition after the other, in pages fetched by
+ * {@link com.hazelcast.map.operation.MapFetchOperation}. The next page is fetched while the current one is
+ * iterated, so at most two pages are held at a time and the members only ever build one page per request.
+ * <p/>
+ * Within a partition the keys are iterated in the order of their hash codes, see
+ * {@link RecordStore#fetch(long, int, boolean)}. A key which is in the map during the whole iteration is
+ * returned exactly once, even if its partition migrates meanwhile; a key put or removed during the iteration
+ * may or may not be returned. Entries are snapshots, changing their value does not change the map.
+ *
+ * @param <T> the key type, or {@link java.util.Map.Entry} if the values are fetched.
+ */
+public abstract class MapFetchIterator<T> implements Iterator<T> {
+
+    private final int partitionCount;
+    private final int fetchSize;
+    private final boolean withValues;
+    private MapFetchResult page;
+    private int index;
+    /**
+     * Fetch of the page following the current one and its partition, null if there is none.
+     */
+    private Future<?> nextPage;
+    private int nextPartitionId;
+    private boolean started;
+
+    /**
+     * @param withValues true to iterate over the entries, false to iterate over the keys.
+     */
+    protected MapFetchIterator(int partitionCount, int fetchSize, boolean withValues) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size should be positive!");
+        }
+        this.partitionCount = partitionCount;
+        this.fetchSize = fetchSize;
+        this.withValues = withValues;
+    }
+
+    /**
+     * Starts fetching a page, see {@link com.hazelcast.map.operation.MapFetchOperation}.
+     *
+     * @return future of the {@link MapFetchResult}, serialized or not.
+     */
+    protected abstract Future<?> fetch(int partitionId, long cursor, int fetchSize, boolean withValues);
+
+    protected abstract <R> R toObject(Object object);
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            nextPage = fetch(0, MapFetchResult.FIRST_CURSOR, fetchSize, withValues);
+        }
+        while (page == null || index == page.getKeys().size()) {
+            if (nextPage == null) {
+                page = null;
+                return false;
+            }
+            page = awaitNextPage();
+            index = 0;
+            prefetch(page.getNextCursor());
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Data key = page.getKeys().get(index);
+        final Object result;
+        if (withValues) {
+            result = new AbstractMap.SimpleImmutableEntry<Object, Object>(toObject(key),
+                    toObject(page.getValues().get(index)));
+        } else {
+            result = toObject(key);
+        }
+        index++;
+        return (T) result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Removing is not supported while fetching in pages!");
+    }
+
+    private MapFetchResult awaitNextPage() {
+        try {
+            return toObject(nextPage.get());
+        } catch (Throwable t) {
+            throw ExceptionUtil.rethrow(t);
+        }
+    }
+
+    private void prefetch(long cursor) {
+        if (cursor != MapFetchResult.LAST_CURSOR) {
+            nextPage = fetch(nextPartitionId, cursor, fetchSize, withValues);
+        } else if (nextPartitionId + 1 < partitionCount) {
+            nextPartitionId++;
+            nextPage = fetch(nextPartitionId, MapFetchResult.FIRST_CURSOR, fetchSize, withValues);
+        } else {
+            nextPage = null;
+        }
+    }
+}
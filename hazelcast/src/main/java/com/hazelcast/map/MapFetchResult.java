@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the records of a partition, see {@link RecordStore#fetch(long, int, boolean)}.
+ */
+public class MapFetchResult implements IdentifiedDataSerializable {
+
+    /**
+     * Cursor of the first page of a partition.
+     */
+    public static final long FIRST_CURSOR = Integer.MIN_VALUE;
+
+    /**
+     * Cursor following the last page of a partition.
+     */
+    public static final long LAST_CURSOR = Integer.MAX_VALUE + 1L;
+
+    private List<Data> keys;
+    private List<Data> values;
+    private long nextCursor;
+
+    public MapFetchResult() {
+    }
+
+    /**
+     * @param values values of the keys in the same order, null if values were not fetched.
+     */
+    public MapFetchResult(List<Data> keys, List<Data> values, long nextCursor) {
+        this.keys = keys;
+        this.values = values;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Data> getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return values of the keys in the same order, null if values were not fetched.
+     */
+    public List<Data> getValues() {
+        return values;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(nextCursor);
+        out.writeBoolean(values != null);
+        out.writeInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            keys.get(i).writeData(out);
+            if (values != null) {
+                values.get(i).writeData(out);
+            }
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        nextCursor = in.readLong();
+        final boolean withValues = in.readBoolean();
+        final int size = in.readInt();
+        keys = new ArrayList<Data>(size);
+        values = withValues ? new ArrayList<Data>(size) : null;
+        for (int i = 0; i < size; i++) {
+            final Data key = new Data();
+            key.readData(in);
+            keys.add(key);
+            if (withValues) {
+                final Data value = new Data();
+                value.readData(in);
+                values.add(value);
+            }
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.FETCH_RESULT;
+    }
+}
@@ -44,6 +44,8 @@ class MapManagedService implements ManagedService {
                     });
         }
         mapServiceContext.getExpirationManager().start();
+        mapServiceContext.getNearCacheProvider().start();
+        mapServiceContext.getQueryCacheEventBatcher().start();
     }
 
     @Override
@@ -55,6 +57,9 @@ class MapManagedService implements ManagedService {
     public void shutdown(boolean terminate) {
         if (!terminate) {
             final MapServiceContext mapServiceContext = this.mapServiceContext;
+            mapServiceContext.getNearCacheProvider().flushInvalidations();
+            mapServiceContext.getQueryCacheEventBatcher().flush();
+            mapServiceContext.getNearCacheProvider().storeNearCacheKeys();
             mapServiceContext.flushMaps();
             mapServiceContext.destroyMapStores();
             mapServiceContext.clearPartitions();
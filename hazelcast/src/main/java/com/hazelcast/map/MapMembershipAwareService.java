@@ -0,0 +1,40 @@
+package com.hazelcast.map;
+
+import com.hazelcast.map.operation.DiscardStagedRecordsOperation;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.MemberAttributeServiceEvent;
+import com.hazelcast.spi.MembershipAwareService;
+import com.hazelcast.spi.MembershipServiceEvent;
+
+/**
+ * Discards the records a left member has staged on this member by a chunked migration.
+ * The migration of such a partition is not finished, so they would never be committed.
+ */
+class MapMembershipAwareService implements MembershipAwareService {
+
+    private MapServiceContext mapServiceContext;
+
+    public MapMembershipAwareService(MapServiceContext mapServiceContext) {
+        this.mapServiceContext = mapServiceContext;
+    }
+
+    @Override
+    public void memberAdded(MembershipServiceEvent event) {
+    }
+
+    @Override
+    public void memberRemoved(MembershipServiceEvent event) {
+        final Address address = event.getMember().getAddress();
+        final int partitionCount = mapServiceContext.getNodeEngine().getPartitionService().getPartitionCount();
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            final PartitionContainer container = mapServiceContext.getPartitionContainer(partitionId);
+            if (address.equals(container.getStagingSource())) {
+                DiscardStagedRecordsOperation.executeForLeftMember(mapServiceContext.getService(), partitionId, address);
+            }
+        }
+    }
+
+    @Override
+    public void memberAttributeChanged(MemberAttributeServiceEvent event) {
+    }
+}
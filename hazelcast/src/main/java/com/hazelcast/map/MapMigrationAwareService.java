@@ -1,32 +1,43 @@
 package com.hazelcast.map;
 
+import com.hazelcast.map.operation.MapMigrationChunkOperation;
 import com.hazelcast.map.operation.MapReplicationOperation;
+import com.hazelcast.logging.ILogger;
 import com.hazelcast.map.record.Record;
 import com.hazelcast.nio.serialization.SerializationService;
 import com.hazelcast.partition.MigrationEndpoint;
 import com.hazelcast.query.impl.IndexService;
 import com.hazelcast.query.impl.QueryEntry;
-import com.hazelcast.spi.MigrationAwareService;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
+import com.hazelcast.spi.PreCopyMigrationAwareService;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Defines migration behavior of map service.
  *
  * @see com.hazelcast.map.MapService
  */
-class MapMigrationAwareService implements MigrationAwareService {
+class MapMigrationAwareService implements PreCopyMigrationAwareService {
 
     private MapServiceContext mapServiceContext;
     private SerializationService serializationService;
+    private ILogger logger;
+    /**
+     * Names of the record table backed maps already reported to be copied in full, see {@link #beginPreCopy}.
+     */
+    private final Set<String> fullyCopiedMaps = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public MapMigrationAwareService(MapServiceContext mapServiceContext) {
         this.mapServiceContext = mapServiceContext;
         this.serializationService = mapServiceContext.getNodeEngine().getSerializationService();
+        this.logger = mapServiceContext.getNodeEngine().getLogger(getClass());
     }
 
     @Override
@@ -44,9 +55,56 @@ class MapMigrationAwareService implements MigrationAwareService {
         return operation.isEmpty() ? null : operation;
     }
 
+    @Override
+    public void beginPreCopy(PartitionMigrationEvent event) {
+        cancelPreCopy(event);
+        final PartitionContainer container = mapServiceContext.getPartitionContainer(event.getPartitionId());
+        container.setPreCopy(new PartitionPreCopy(container));
+        for (RecordStore recordStore : container.getMaps().values()) {
+            final String mapName = recordStore.getName();
+            if (recordStore.getMapContainer().isRecordTableEnabled() && fullyCopiedMaps.add(mapName)) {
+                logger.info("Map '" + mapName + "' is backed by the record table and can not be copied in chunks, "
+                        + "its partitions are replicated in full once they are blocked for migration");
+            }
+        }
+    }
+
+    @Override
+    public Operation preparePreCopyChunk(PartitionMigrationEvent event, int maxChunkSize) {
+        final PartitionPreCopy preCopy = mapServiceContext.getPartitionContainer(event.getPartitionId()).getPreCopy();
+        return preCopy == null ? null : preCopy.nextChunk(maxChunkSize);
+    }
+
+    @Override
+    public Operation finishPreCopy(PartitionReplicationEvent event) {
+        final PartitionContainer container = mapServiceContext.getPartitionContainer(event.getPartitionId());
+        final PartitionPreCopy preCopy = container.getPreCopy();
+        if (preCopy == null) {
+            return prepareReplicationOperation(event);
+        }
+        container.setPreCopy(null);
+        // sent even if empty, the destination discards the records it staged for destroyed maps.
+        final MapReplicationOperation operation = preCopy.finish();
+        operation.setService(mapServiceContext.getService());
+        return operation;
+    }
+
+    @Override
+    public Operation cancelPreCopy(PartitionMigrationEvent event) {
+        final PartitionContainer container = mapServiceContext.getPartitionContainer(event.getPartitionId());
+        final PartitionPreCopy preCopy = container.getPreCopy();
+        if (preCopy == null) {
+            return null;
+        }
+        container.setPreCopy(null);
+        preCopy.stopTracking();
+        return new MapMigrationChunkOperation(event.getPartitionId(), true);
+    }
+
     @Override
     public void commitMigration(PartitionMigrationEvent event) {
         migrateIndex(event);
+        mapServiceContext.getQueryCacheEventBatcher().onOwnershipChanged(event.getPartitionId());
         if (event.getMigrationEndpoint() == MigrationEndpoint.SOURCE) {
             mapServiceContext.clearPartitionData(event.getPartitionId());
         }
@@ -20,6 +20,7 @@ import com.hazelcast.map.client.MapAddEntryListenerRequest;
 import com.hazelcast.map.client.MapAddEntryListenerSqlRequest;
 import com.hazelcast.map.client.MapAddIndexRequest;
 import com.hazelcast.map.client.MapAddInterceptorRequest;
+import com.hazelcast.map.client.MapAddQueryCacheListenerRequest;
 import com.hazelcast.map.client.MapClearRequest;
 import com.hazelcast.map.client.MapContainsKeyRequest;
 import com.hazelcast.map.client.MapContainsValueRequest;
@@ -31,6 +32,7 @@ import com.hazelcast.map.client.MapExecuteOnAllKeysRequest;
 import com.hazelcast.map.client.MapExecuteOnKeyRequest;
 import com.hazelcast.map.client.MapExecuteOnKeysRequest;
 import com.hazelcast.map.client.MapExecuteWithPredicateRequest;
+import com.hazelcast.map.client.MapFetchRequest;
 import com.hazelcast.map.client.MapFlushRequest;
 import com.hazelcast.map.client.MapGetAllRequest;
 import com.hazelcast.map.client.MapGetEntryViewRequest;
@@ -45,6 +47,9 @@ import com.hazelcast.map.client.MapPutAllRequest;
 import com.hazelcast.map.client.MapPutIfAbsentRequest;
 import com.hazelcast.map.client.MapPutRequest;
 import com.hazelcast.map.client.MapPutTransientRequest;
+import com.hazelcast.map.client.MapQueryCachePartitionSnapshotRequest;
+import com.hazelcast.map.client.MapQueryCacheSnapshotRequest;
+import com.hazelcast.map.client.MapQueryReduceRequest;
 import com.hazelcast.map.client.MapQueryRequest;
 import com.hazelcast.map.client.MapRemoveEntryListenerRequest;
 import com.hazelcast.map.client.MapRemoveIfSameRequest;
@@ -121,6 +126,11 @@ public class MapPortableHook implements PortableHook {
     public static final int LOAD_ALL_GIVEN_KEYS = 47;
     public static final int LOAD_ALL_KEYS = 48;
     public static final int IS_EMPTY = 49;
+    public static final int FETCH = 50;
+    public static final int QUERY_REDUCE = 51;
+    public static final int ADD_QUERY_CACHE_LISTENER = 52;
+    public static final int QUERY_CACHE_SNAPSHOT = 53;
+    public static final int QUERY_CACHE_PARTITION_SNAPSHOT = 54;
 
     public int getFactoryId() {
         return F_ID;
@@ -128,7 +138,8 @@ public class MapPortableHook implements PortableHook {
 
     public PortableFactory createFactory() {
         return new PortableFactory() {
-            final ConstructorFunction<Integer, Portable>[] constructors = new ConstructorFunction[IS_EMPTY + 1];
+            final ConstructorFunction<Integer, Portable>[] constructors
+                    = new ConstructorFunction[QUERY_CACHE_PARTITION_SNAPSHOT + 1];
 
             {
                 constructors[GET] = new ConstructorFunction<Integer, Portable>() {
@@ -399,6 +410,36 @@ public class MapPortableHook implements PortableHook {
                         return new MapIsEmptyRequest();
                     }
                 };
+
+                constructors[FETCH] = new ConstructorFunction<Integer, Portable>() {
+                    public Portable createNew(Integer arg) {
+                        return new MapFetchRequest();
+                    }
+                };
+
+                constructors[QUERY_REDUCE] = new ConstructorFunction<Integer, Portable>() {
+                    public Portable createNew(Integer arg) {
+                        return new MapQueryReduceRequest();
+                    }
+                };
+
+                constructors[ADD_QUERY_CACHE_LISTENER] = new ConstructorFunction<Integer, Portable>() {
+                    public Portable createNew(Integer arg) {
+                        return new MapAddQueryCacheListenerRequest();
+                    }
+                };
+
+                constructors[QUERY_CACHE_SNAPSHOT] = new ConstructorFunction<Integer, Portable>() {
+                    public Portable createNew(Integer arg) {
+                        return new MapQueryCacheSnapshotRequest();
+                    }
+                };
+
+                constructors[QUERY_CACHE_PARTITION_SNAPSHOT] = new ConstructorFunction<Integer, Portable>() {
+                    public Portable createNew(Integer arg) {
+                        return new MapQueryCachePartitionSnapshotRequest();
+                    }
+                };
             }
 
             public Portable create(int classId) {
@@ -20,12 +20,15 @@ import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.EntryListener;
 import com.hazelcast.spi.EventPublishingService;
 import com.hazelcast.spi.ManagedService;
-import com.hazelcast.spi.MigrationAwareService;
+import com.hazelcast.spi.MemberAttributeServiceEvent;
+import com.hazelcast.spi.MembershipAwareService;
+import com.hazelcast.spi.MembershipServiceEvent;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
 import com.hazelcast.spi.PostJoinAwareService;
+import com.hazelcast.spi.PreCopyMigrationAwareService;
 import com.hazelcast.spi.RemoteService;
 import com.hazelcast.spi.ReplicationSupportingService;
 import com.hazelcast.spi.SplitBrainHandlerService;
@@ -45,12 +48,13 @@ import java.util.Properties;
  * @see com.hazelcast.map.MapRemoteService
  * @see com.hazelcast.map.MapEventPublishingService
  * @see com.hazelcast.map.MapPostJoinAwareService
+ * @see com.hazelcast.map.MapMembershipAwareService
  * @see com.hazelcast.map.MapSplitBrainHandler
  * @see com.hazelcast.map.MapReplicationSupportingService
  */
-public final class MapService implements ManagedService, MigrationAwareService,
+public final class MapService implements ManagedService, PreCopyMigrationAwareService,
         TransactionalService, RemoteService, EventPublishingService<EventData, EntryListener>,
-        PostJoinAwareService, SplitBrainHandlerService, ReplicationSupportingService {
+        PostJoinAwareService, MembershipAwareService, SplitBrainHandlerService, ReplicationSupportingService {
 
     /**
      * Service name of map service used
@@ -59,11 +63,12 @@ public final class MapService implements ManagedService, MigrationAwareService,
     public static final String SERVICE_NAME = "hz:impl:mapService";
 
     private ManagedService managedService;
-    private MigrationAwareService migrationAwareService;
+    private PreCopyMigrationAwareService migrationAwareService;
     private TransactionalService transactionalService;
     private RemoteService remoteService;
     private EventPublishingService eventPublishingService;
     private PostJoinAwareService postJoinAwareService;
+    private MembershipAwareService membershipAwareService;
     private SplitBrainHandlerService splitBrainHandlerService;
     private ReplicationSupportingService replicationSupportingService;
     private MapServiceContext mapServiceContext;
@@ -101,6 +106,26 @@ public final class MapService implements ManagedService, MigrationAwareService,
         migrationAwareService.beforeMigration(event);
     }
 
+    @Override
+    public void beginPreCopy(PartitionMigrationEvent event) {
+        migrationAwareService.beginPreCopy(event);
+    }
+
+    @Override
+    public Operation preparePreCopyChunk(PartitionMigrationEvent event, int maxChunkSize) {
+        return migrationAwareService.preparePreCopyChunk(event, maxChunkSize);
+    }
+
+    @Override
+    public Operation finishPreCopy(PartitionReplicationEvent event) {
+        return migrationAwareService.finishPreCopy(event);
+    }
+
+    @Override
+    public Operation cancelPreCopy(PartitionMigrationEvent event) {
+        return migrationAwareService.cancelPreCopy(event);
+    }
+
     @Override
     public void commitMigration(PartitionMigrationEvent event) {
         migrationAwareService.commitMigration(event);
@@ -121,6 +146,21 @@ public final class MapService implements ManagedService, MigrationAwareService,
         return postJoinAwareService.getPostJoinOperation();
     }
 
+    @Override
+    public void memberAdded(MembershipServiceEvent event) {
+        membershipAwareService.memberAdded(event);
+    }
+
+    @Override
+    public void memberRemoved(MembershipServiceEvent event) {
+        membershipAwareService.memberRemoved(event);
+    }
+
+    @Override
+    public void memberAttributeChanged(MemberAttributeServiceEvent event) {
+        membershipAwareService.memberAttributeChanged(event);
+    }
+
     @Override
     public DistributedObject createDistributedObject(String objectName) {
         return remoteService.createDistributedObject(objectName);
@@ -168,11 +208,12 @@ public final class MapService implements ManagedService, MigrationAwareService,
     public static MapService create(NodeEngine nodeEngine) {
         final MapServiceContext mapServiceContext = new DefaultMapServiceContext(nodeEngine);
         final ManagedService managedService = new MapManagedService(mapServiceContext);
-        final MigrationAwareService migrationAwareService = new MapMigrationAwareService(mapServiceContext);
+        final PreCopyMigrationAwareService migrationAwareService = new MapMigrationAwareService(mapServiceContext);
         final TransactionalService transactionalService = new MapTransactionalService(mapServiceContext);
         final RemoteService remoteService = new MapRemoteService(mapServiceContext);
         final EventPublishingService eventPublisher = new MapEventPublishingService(mapServiceContext);
         final PostJoinAwareService postJoinAwareService = new MapPostJoinAwareService(mapServiceContext);
+        final MembershipAwareService membershipAwareService = new MapMembershipAwareService(mapServiceContext);
         final SplitBrainHandlerService splitBrainHandler = new MapSplitBrainHandler(mapServiceContext);
         final ReplicationSupportingService replicationSupportingService
                 = new MapReplicationSupportingService(mapServiceContext, nodeEngine);
@@ -184,6 +225,7 @@ public final class MapService implements ManagedService, MigrationAwareService,
         mapService.setRemoteService(remoteService);
         mapService.setEventPublishingService(eventPublisher);
         mapService.setPostJoinAwareService(postJoinAwareService);
+        mapService.setMembershipAwareService(membershipAwareService);
         mapService.setSplitBrainHandlerService(splitBrainHandler);
         mapService.setReplicationSupportingService(replicationSupportingService);
         mapService.setMapServiceContext(mapServiceContext);
@@ -197,7 +239,7 @@ public final class MapService implements ManagedService, MigrationAwareService,
         this.managedService = managedService;
     }
 
-    void setMigrationAwareService(MigrationAwareService migrationAwareService) {
+    void setMigrationAwareService(PreCopyMigrationAwareService migrationAwareService) {
         this.migrationAwareService = migrationAwareService;
     }
 
@@ -217,6 +259,10 @@ public final class MapService implements ManagedService, MigrationAwareService,
         this.postJoinAwareService = postJoinAwareService;
     }
 
+    void setMembershipAwareService(MembershipAwareService membershipAwareService) {
+        this.membershipAwareService = membershipAwareService;
+    }
+
     void setSplitBrainHandlerService(SplitBrainHandlerService splitBrainHandlerService) {
         this.splitBrainHandlerService = splitBrainHandlerService;
     }
@@ -53,6 +53,8 @@ public interface MapServiceContext extends MapServiceContextSupport,
 
     NearCacheProvider getNearCacheProvider();
 
+    QueryCacheEventBatcher getQueryCacheEventBatcher();
+
     RecordStore getRecordStore(int partitionId, String mapName);
 
     RecordStore getExistingRecordStore(int partitionId, String mapName);
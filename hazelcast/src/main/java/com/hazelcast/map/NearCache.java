@@ -22,44 +22,89 @@ import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.monitor.impl.NearCacheStatsImpl;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.partition.InternalPartitionService;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.Clock;
-import com.hazelcast.util.ExceptionUtil;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * NearCache.
+ * <p/>
+ * Eviction follows the CLOCK algorithm: the records of the cache form the clock face and a hand sweeps over
+ * them in iteration order. A read only sets the clock value of the record, a sweeping hand decrements it and
+ * evicts the first record found with a clock value of zero. With LRU the clock value is a reference bit,
+ * with LFU it is a small frequency counter. Each put evicts at most the records exceeding the max size,
+ * so there is no sort and no eviction burst. Expired records are removed when they are read, passed by
+ * the hand, or by a few expiration steps taken on every put.
+ * <p/>
+ * Reads are lock-free. A put of a new key reserves a slot on the size counter with a CAS, so concurrent puts
+ * never exceed the max size. If the cache is full, the put moves the eviction hand under the eviction lock
+ * until its reservation succeeds.
+ * <p/>
+ * Invalidations sent by partition owners in batches are numbered per partition. When a batch is missed, only
+ * the records of that partition are dropped, see {@link #invalidate(int, String, long, List)}. Each record
+ * remembers the epoch of its partition when it was cached, a repair just increments the epoch. Records of
+ * an older epoch are treated as expired.
  */
 public class NearCache {
     /**
      * Used when caching nonexistent values.
      */
     public static final Object NULL_OBJECT = new Object();
-    private static final int HUNDRED_PERCENT = 100;
-    private static final int EVICTION_PERCENTAGE = 20;
-    private static final int CLEANUP_INTERVAL = 5000;
+    /**
+     * Highest clock value of a record with LFU, an access counts once more until it is reached.
+     */
+    private static final int LFU_CLOCK_LIMIT = 7;
+    /**
+     * Number of records checked for expiration on each put.
+     */
+    private static final int EXPIRATION_STEPS_PER_PUT = 2;
     private final int maxSize;
-    private volatile long lastCleanup;
     private final long maxIdleMillis;
     private final long timeToLiveMillis;
     private final EvictionPolicy evictionPolicy;
+    private final int clockLimit;
     private final InMemoryFormat inMemoryFormat;
-    private final NodeEngine nodeEngine;
-    private final AtomicBoolean canCleanUp;
-    private final AtomicBoolean canEvict;
     private final ConcurrentMap<Data, CacheRecord> cache;
+    /**
+     * Number of records in the cache plus the slots reserved by ongoing puts.
+     */
+    private final AtomicInteger reservedSize = new AtomicInteger();
     private final NearCacheStatsImpl nearCacheStats;
     private final SerializationService serializationService;
+    private final InternalPartitionService partitionService;
+    /**
+     * Per partition, uuid of the member which numbered the last applied invalidation batch and the sequence
+     * number of its last key. The slot of a partition is only accessed by the thread of that partition.
+     */
+    private final String[] invalidationSources;
+    private final long[] invalidationSequences;
+    /**
+     * Per partition, incremented when the records of the partition are dropped by a repair.
+     */
+    private final AtomicIntegerArray partitionEpochs;
+    /**
+     * True once a partition was repaired, stale records are removed by the expiration steps from then on.
+     */
+    private volatile boolean repaired;
+    /**
+     * Guards the hands.
+     */
+    private final Lock evictionLock = new ReentrantLock();
+    private Iterator<CacheRecord> evictionHand;
+    private Iterator<CacheRecord> expirationHand;
     private SizeEstimator nearCacheSizeEstimator;
 
     /**
@@ -67,7 +112,6 @@ public class NearCache {
      * @param nodeEngine node engine.
      */
     public NearCache(String mapName, NodeEngine nodeEngine) {
-        this.nodeEngine = nodeEngine;
         Config config = nodeEngine.getConfig();
         NearCacheConfig nearCacheConfig = config.findMapConfig(mapName).getNearCacheConfig();
         maxSize = nearCacheConfig.getMaxSize() <= 0 ? Integer.MAX_VALUE : nearCacheConfig.getMaxSize();
@@ -75,12 +119,14 @@ public class NearCache {
         inMemoryFormat = nearCacheConfig.getInMemoryFormat();
         timeToLiveMillis = TimeUnit.SECONDS.toMillis(nearCacheConfig.getTimeToLiveSeconds());
         evictionPolicy = EvictionPolicy.valueOf(nearCacheConfig.getEvictionPolicy());
+        clockLimit = evictionPolicy == EvictionPolicy.LFU ? LFU_CLOCK_LIMIT : 1;
         cache = new ConcurrentHashMap<Data, CacheRecord>();
-        canCleanUp = new AtomicBoolean(true);
-        canEvict = new AtomicBoolean(true);
         nearCacheStats = new NearCacheStatsImpl();
-        lastCleanup = Clock.currentTimeMillis();
         serializationService = nodeEngine.getSerializationService();
+        partitionService = nodeEngine.getPartitionService();
+        invalidationSources = new String[partitionService.getPartitionCount()];
+        invalidationSequences = new long[partitionService.getPartitionCount()];
+        partitionEpochs = new AtomicIntegerArray(partitionService.getPartitionCount());
     }
 
     /**
@@ -92,8 +138,8 @@ public class NearCache {
 
     // this operation returns the given value in near-cache memory format (data or object)
     public Object put(Data key, Data data) {
-        fireTtlCleanup();
-        if (evictionPolicy == EvictionPolicy.NONE && cache.size() >= maxSize) {
+        expireSome();
+        if (!reserveSlot()) {
             // no more space in near-cache -> return given value in near-cache format
             if (data == null) {
                 return null;
@@ -101,9 +147,6 @@ public class NearCache {
                 return inMemoryFormat.equals(InMemoryFormat.OBJECT) ? serializationService.toObject(data) : data;
             }
         }
-        if (evictionPolicy != EvictionPolicy.NONE && cache.size() >= maxSize) {
-            fireEvictCache();
-        }
         final Object value;
         if (data == null) {
             value = NULL_OBJECT;
@@ -111,7 +154,12 @@ public class NearCache {
             value = inMemoryFormat.equals(InMemoryFormat.OBJECT) ? serializationService.toObject(data) : data;
         }
         final CacheRecord record = new CacheRecord(key, value);
-        cache.put(key, record);
+        final CacheRecord previous = cache.put(key, record);
+        if (previous != null) {
+            // the record was replaced, its slot was reserved before.
+            reservedSize.decrementAndGet();
+            updateSizeEstimator(-calculateCost(previous));
+        }
         updateSizeEstimator(calculateCost(record));
         if (NULL_OBJECT.equals(value)) {
             return null;
@@ -136,76 +184,95 @@ public class NearCache {
         return nearCacheStats;
     }
 
-    private void fireEvictCache() {
-        if (canEvict.compareAndSet(true, false)) {
+    /**
+     * Reserves a slot for a record, evicting records if the cache is full.
+     *
+     * @return false if the cache is full and its eviction policy is NONE.
+     */
+    private boolean reserveSlot() {
+        while (true) {
+            final int size = reservedSize.get();
+            if (size < maxSize) {
+                if (reservedSize.compareAndSet(size, size + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (evictionPolicy == EvictionPolicy.NONE) {
+                return false;
+            }
+            evictionLock.lock();
             try {
-                nodeEngine.getExecutionService().execute("hz:near-cache", new Runnable() {
-                    public void run() {
-                        try {
-                            TreeSet<CacheRecord> records = new TreeSet<CacheRecord>(cache.values());
-                            int evictSize = cache.size() * EVICTION_PERCENTAGE / HUNDRED_PERCENT;
-                            int i = 0;
-                            for (CacheRecord record : records) {
-                                cache.remove(record.key);
-                                updateSizeEstimator(-calculateCost(record));
-                                if (++i > evictSize) {
-                                    break;
-                                }
-                            }
-                        } finally {
-                            canEvict.set(true);
-                        }
-                    }
-                });
-            } catch (RejectedExecutionException e) {
-                canEvict.set(true);
-            } catch (Exception e) {
-                throw ExceptionUtil.rethrow(e);
+                if (reservedSize.get() >= maxSize) {
+                    evictOne();
+                }
+            } finally {
+                evictionLock.unlock();
             }
         }
     }
 
-    private void fireTtlCleanup() {
-        if (Clock.currentTimeMillis() < (lastCleanup + CLEANUP_INTERVAL)) {
-            return;
+    /**
+     * Sweeps the eviction hand until a record is evicted. Must be called with the eviction lock held.
+     */
+    private void evictOne() {
+        // bound the sweep in case concurrent reads keep setting clock values, the last record passed is evicted then.
+        final int maxSteps = (clockLimit + 1) * cache.size() + 1;
+        for (int steps = 0; steps < maxSteps; steps++) {
+            if (evictionHand == null || !evictionHand.hasNext()) {
+                evictionHand = cache.values().iterator();
+                if (!evictionHand.hasNext()) {
+                    return;
+                }
+            }
+            final CacheRecord record = evictionHand.next();
+            final int clock = record.clock;
+            if (clock <= 0 || record.invalid() || steps == maxSteps - 1) {
+                remove(record);
+                return;
+            }
+            record.clock = clock - 1;
         }
+    }
 
-        if (canCleanUp.compareAndSet(true, false)) {
-            try {
-                nodeEngine.getExecutionService().execute("hz:near-cache", new Runnable() {
-                    public void run() {
-                        try {
-                            lastCleanup = Clock.currentTimeMillis();
-                            for (Map.Entry<Data, CacheRecord> entry : cache.entrySet()) {
-                                if (entry.getValue().expired()) {
-                                    final Data key = entry.getKey();
-                                    final CacheRecord record = cache.remove(key);
-                                    //if a mapping exists.
-                                    if (record != null) {
-                                        updateSizeEstimator(-calculateCost(record));
-                                    }
-                                }
-                            }
-                        } finally {
-                            canCleanUp.set(true);
-                        }
+    /**
+     * Checks a few records for expiration.
+     */
+    private void expireSome() {
+        if ((maxIdleMillis <= 0 && timeToLiveMillis <= 0 && !repaired) || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < EXPIRATION_STEPS_PER_PUT; i++) {
+                if (expirationHand == null || !expirationHand.hasNext()) {
+                    expirationHand = cache.values().iterator();
+                    if (!expirationHand.hasNext()) {
+                        return;
                     }
-                });
-            } catch (RejectedExecutionException e) {
-                canCleanUp.set(true);
-            } catch (Exception e) {
-                throw ExceptionUtil.rethrow(e);
+                }
+                final CacheRecord record = expirationHand.next();
+                if (record.invalid()) {
+                    remove(record);
+                }
             }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(CacheRecord record) {
+        // a newer record of the same key stays.
+        if (cache.remove(record.key, record)) {
+            reservedSize.decrementAndGet();
+            updateSizeEstimator(-calculateCost(record));
         }
     }
 
     public Object get(Data key) {
-        fireTtlCleanup();
         CacheRecord record = cache.get(key);
         if (record != null) {
-            if (record.expired()) {
-                cache.remove(key);
-                updateSizeEstimator(-calculateCost(record));
+            if (record.invalid()) {
+                remove(record);
                 nearCacheStats.incrementMisses();
                 return null;
             }
@@ -221,6 +288,7 @@ public class NearCache {
         final CacheRecord record = cache.remove(key);
         // if a mapping exists for the key.
         if (record != null) {
+            reservedSize.decrementAndGet();
             updateSizeEstimator(-calculateCost(record));
         }
     }
@@ -234,12 +302,41 @@ public class NearCache {
         }
     }
 
+    /**
+     * Applies invalidations of a partition, numbered consecutively by the partition owner starting at
+     * the given sequence. If the sequence does not follow the last applied one, or the partition has
+     * a new owner, invalidations may have been missed and all records of the partition are removed.
+     *
+     * @param partitionId   partition of the keys.
+     * @param source        uuid of the member numbering the invalidations.
+     * @param firstSequence sequence number of the first key.
+     * @param keys          invalidated keys.
+     */
+    public void invalidate(int partitionId, String source, long firstSequence, List<Data> keys) {
+        invalidate(keys);
+        final String lastSource = invalidationSources[partitionId];
+        if ((lastSource != null && !lastSource.equals(source))
+                || firstSequence != invalidationSequences[partitionId] + 1) {
+            repair(partitionId);
+        }
+        invalidationSources[partitionId] = source;
+        invalidationSequences[partitionId] = firstSequence + keys.size() - 1;
+    }
+
+    private void repair(int partitionId) {
+        partitionEpochs.incrementAndGet(partitionId);
+        repaired = true;
+    }
+
     public int size() {
         return cache.size();
     }
 
     public void clear() {
-        cache.clear();
+        // removed one by one, so the reserved size stays in sync with concurrent puts.
+        for (Data key : cache.keySet()) {
+            invalidate(key);
+        }
         resetSizeEstimator();
     }
 
@@ -250,12 +347,17 @@ public class NearCache {
     /**
      * CacheRecord.
      */
-    public class CacheRecord implements Comparable<CacheRecord> {
+    public class CacheRecord {
         final Data key;
         final Object value;
         final long creationTime;
-        final AtomicInteger hit;
+        final int partitionId;
+        final int partitionEpoch;
         volatile long lastAccessTime;
+        /**
+         * Clock value, set by reads and decremented by the eviction hand. Updates may race, it is a hint.
+         */
+        volatile int clock;
 
         CacheRecord(Data key, Object value) {
             this.key = key;
@@ -263,45 +365,38 @@ public class NearCache {
             long time = Clock.currentTimeMillis();
             this.lastAccessTime = time;
             this.creationTime = time;
-            this.hit = new AtomicInteger(0);
+            this.partitionId = partitionService.getPartitionId(key);
+            this.partitionEpoch = partitionEpochs.get(partitionId);
         }
 
         void access() {
-            hit.incrementAndGet();
             nearCacheStats.incrementHits();
-            lastAccessTime = Clock.currentTimeMillis();
+            if (maxIdleMillis > 0) {
+                lastAccessTime = Clock.currentTimeMillis();
+            }
+            // avoid writing the shared field on hot reads.
+            final int current = clock;
+            if (current < clockLimit) {
+                clock = current + 1;
+            }
+        }
+
+        /**
+         * @return true if the record expired or its partition was repaired since it was cached.
+         */
+        boolean invalid() {
+            return partitionEpoch != partitionEpochs.get(partitionId) || expired();
         }
 
         boolean expired() {
+            if (maxIdleMillis <= 0 && timeToLiveMillis <= 0) {
+                return false;
+            }
             long time = Clock.currentTimeMillis();
             return (maxIdleMillis > 0 && time > lastAccessTime + maxIdleMillis)
                     || (timeToLiveMillis > 0 && time > creationTime + timeToLiveMillis);
         }
 
-        public int compareTo(CacheRecord o) {
-            if (EvictionPolicy.LRU.equals(evictionPolicy)) {
-                return ((Long) this.lastAccessTime).compareTo((o.lastAccessTime));
-            } else if (EvictionPolicy.LFU.equals(evictionPolicy)) {
-                return ((Integer) this.hit.get()).compareTo((o.hit.get()));
-            }
-            return 0;
-        }
-
-        public boolean equals(Object o) {
-            if (o != null && o instanceof CacheRecord) {
-                return this.compareTo((CacheRecord) o) == 0;
-            }
-            return false;
-        }
-
-        // If you don't think instances of this class will ever be inserted into a HashMap/HashTable,
-        // the recommended hashCode implementation to use is:
-        public int hashCode() {
-            assert false : "hashCode not designed";
-            // any arbitrary constant will do.
-            return 42;
-        }
-
         public long getCost() {
             // todo find object size  if not a Data instance.
             if (!(value instanceof Data)) {
@@ -309,14 +404,14 @@ public class NearCache {
             }
             final int numberOfLongs = 2;
             final int numberOfIntegers = 3;
+            final int numberOfReferences = 2;
             // value is Data
             return key.getHeapCost()
                     + ((Data) value).getHeapCost()
                     + numberOfLongs * (Long.SIZE / Byte.SIZE)
-                    // sizeof atomic integer
-                    + (Integer.SIZE / Byte.SIZE)
-                    // object references (key, value, hit)
-                    + numberOfIntegers * (Integer.SIZE / Byte.SIZE);
+                    + numberOfIntegers * (Integer.SIZE / Byte.SIZE)
+                    // object references (key, value)
+                    + numberOfReferences * (Integer.SIZE / Byte.SIZE);
         }
 
         public Data getKey() {
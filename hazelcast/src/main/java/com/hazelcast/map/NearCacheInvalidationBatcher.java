@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.instance.GroupProperties;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.map.operation.NearCacheBatchInvalidationOperation;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.OperationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the near cache invalidations caused on this member and sends them to the other members in
+ * batches, one batch per partition. A batch is sent when it holds
+ * {@link GroupProperties#PROP_MAP_INVALIDATION_BATCH_SIZE} keys, otherwise by a task running every
+ * {@link GroupProperties#PROP_MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS}.
+ * <p/>
+ * Invalidations of a map in a partition are numbered consecutively, this lets a receiving near cache detect
+ * a lost batch, see {@link NearCache#invalidate(int, String, long, List)}. A batch is sent while its lock is
+ * held, so the batches of a partition leave in sequence order.
+ */
+final class NearCacheInvalidationBatcher {
+
+    private final NodeEngine nodeEngine;
+    private final int batchSize;
+    private final long frequencyMillis;
+    private final PartitionBatch[] batches;
+
+    NearCacheInvalidationBatcher(NodeEngine nodeEngine) {
+        this.nodeEngine = nodeEngine;
+        final GroupProperties groupProperties = nodeEngine.getGroupProperties();
+        this.batchSize = Math.max(groupProperties.MAP_INVALIDATION_BATCH_SIZE.getInteger(), 1);
+        this.frequencyMillis = Math.max(groupProperties.MAP_INVALIDATION_BATCH_FREQUENCY_MILLIS.getLong(), 1L);
+        final int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+        this.batches = new PartitionBatch[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            batches[i] = new PartitionBatch(i);
+        }
+    }
+
+    void start() {
+        nodeEngine.getExecutionService().scheduleWithFixedDelay(new FlushTask(),
+                frequencyMillis, frequencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void add(String mapName, Data key) {
+        final PartitionBatch batch = batches[nodeEngine.getPartitionService().getPartitionId(key)];
+        synchronized (batch) {
+            batch.add(mapName, key);
+            if (batch.size >= batchSize) {
+                send(batch);
+            }
+        }
+    }
+
+    void add(String mapName, Collection<Data> keys) {
+        for (Data key : keys) {
+            add(mapName, key);
+        }
+    }
+
+    /**
+     * Sends all pending batches.
+     */
+    void flush() {
+        for (PartitionBatch batch : batches) {
+            synchronized (batch) {
+                if (batch.size > 0) {
+                    send(batch);
+                }
+            }
+        }
+    }
+
+    private void send(PartitionBatch batch) {
+        final Operation operation = batch.drain(nodeEngine.getLocalMember().getUuid());
+        final OperationService operationService = nodeEngine.getOperationService();
+        final Collection<MemberImpl> members = nodeEngine.getClusterService().getMemberList();
+        for (MemberImpl member : members) {
+            if (member.localMember()) {
+                continue;
+            }
+            try {
+                // a batch which is not sent shows up as a gap in the sequence of the receiver.
+                operationService.send(operation, member.getAddress());
+            } catch (Throwable throwable) {
+                nodeEngine.getLogger(getClass()).warning(throwable);
+            }
+        }
+    }
+
+    /**
+     * Pending invalidations of a partition and the last sequence number given per map.
+     * Guarded by its own monitor.
+     */
+    private static final class PartitionBatch {
+
+        final int partitionId;
+        final Map<String, MapBatch> maps = new HashMap<String, MapBatch>();
+        int size;
+
+        PartitionBatch(int partitionId) {
+            this.partitionId = partitionId;
+        }
+
+        void add(String mapName, Data key) {
+            MapBatch mapBatch = maps.get(mapName);
+            if (mapBatch == null) {
+                mapBatch = new MapBatch();
+                maps.put(mapName, mapBatch);
+            }
+            mapBatch.sequence++;
+            mapBatch.keys.add(key);
+            size++;
+        }
+
+        Operation drain(String source) {
+            final NearCacheBatchInvalidationOperation operation = new NearCacheBatchInvalidationOperation(source, maps.size());
+            for (Map.Entry<String, MapBatch> entry : maps.entrySet()) {
+                final MapBatch mapBatch = entry.getValue();
+                final List<Data> keys = mapBatch.keys;
+                if (keys.isEmpty()) {
+                    continue;
+                }
+                operation.add(entry.getKey(), mapBatch.sequence - keys.size() + 1, keys);
+                mapBatch.keys = new ArrayList<Data>();
+            }
+            size = 0;
+            operation.setPartitionId(partitionId).setServiceName(MapService.SERVICE_NAME);
+            return operation;
+        }
+    }
+
+    /**
+     * Invalidations of a map in a partition.
+     */
+    private static final class MapBatch {
+
+        long sequence;
+        List<Data> keys = new ArrayList<Data>();
+    }
+
+    /**
+     * Sends the batches which did not fill up in time.
+     */
+    private class FlushTask implements Runnable {
+
+        public void run() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the keys of a near cache in a local file, so that a restarted member or client can fetch the values
+ * of the keys it had cached before and start with a warm near cache,
+ * see {@link NearCacheConfig#setPreloaderEnabled(boolean)}.
+ * <p/>
+ * The file holds a header and the serialized keys, each preceded by a marker. Keys are written to a temporary
+ * file which then replaces the previous one, so a crash while storing keeps the previous keys.
+ * Keys are loaded only once, in batches handed to a {@link KeyLoader}.
+ */
+public class NearCachePreloader {
+
+    /**
+     * Number of keys fetched at once while preloading.
+     */
+    public static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final int FILE_HEADER = 0x4E435031;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String FILE_PREFIX = "nearcache-";
+    private static final String FILE_SUFFIX = ".store";
+
+    private final File file;
+    private final SerializationService serializationService;
+    private final ILogger logger = Logger.getLogger(NearCachePreloader.class);
+    private final AtomicBoolean loaded = new AtomicBoolean();
+
+    /**
+     * @param name                 unique name of the near cache within the preloader directory.
+     * @param nearCacheConfig      config of the near cache.
+     * @param serializationService serialization service of the keys.
+     */
+    public NearCachePreloader(String name, NearCacheConfig nearCacheConfig, SerializationService serializationService) {
+        final String directory = nearCacheConfig.getPreloaderDirectory();
+        final String fileName = FILE_PREFIX + name.replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX;
+        this.file = new File(directory == null || directory.length() == 0 ? null : directory, fileName);
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Fetches values of keys stored in a previous run.
+     */
+    public interface KeyLoader {
+
+        /**
+         * Fetches the values of the given keys into the near cache.
+         *
+         * @param keys a batch of at most {@link #LOAD_BATCH_SIZE} keys.
+         */
+        void load(Set<Data> keys);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Replaces the stored keys with the given ones, keys which are not {@link Data} are skipped.
+     *
+     * @param keys current keys of the near cache.
+     * @return number of stored keys.
+     */
+    public synchronized int storeKeys(Collection<?> keys) {
+        File tmpFile = null;
+        OutputStream os = null;
+        int count = 0;
+        try {
+            final File directory = file.getAbsoluteFile().getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+            tmpFile = File.createTempFile(file.getName(), ".tmp", directory);
+            os = new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE);
+            final ObjectDataOutput out = serializationService.createObjectDataOutputStream(os);
+            out.writeInt(FILE_HEADER);
+            for (Object key : keys) {
+                if (key instanceof Data) {
+                    out.writeBoolean(true);
+                    ((Data) key).writeData(out);
+                    count++;
+                }
+            }
+            out.writeBoolean(false);
+            os.close();
+            os = null;
+            replace(tmpFile);
+            tmpFile = null;
+        } catch (IOException e) {
+            logger.warning("Could not store near cache keys to " + file, e);
+        } finally {
+            IOUtil.closeResource(os);
+            if (tmpFile != null && !tmpFile.delete()) {
+                logger.finest("Could not delete " + tmpFile);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Loads the stored keys in batches, only the first call loads.
+     *
+     * @param loader fetches the values of the keys.
+     * @return number of loaded keys.
+     */
+    public int loadKeys(KeyLoader loader) {
+        if (!loaded.compareAndSet(false, true) || !file.exists()) {
+            return 0;
+        }
+        InputStream is = null;
+        int count = 0;
+        try {
+            is = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+            final ObjectDataInput in = serializationService.createObjectDataInputStream(is);
+            if (in.readInt() != FILE_HEADER) {
+                throw new IOException("Not a near cache key file");
+            }
+            Set<Data> batch = new HashSet<Data>();
+            while (in.readBoolean()) {
+                final Data key = new Data();
+                key.readData(in);
+                batch.add(key);
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    count += batch.size();
+                    loader.load(batch);
+                    batch = new HashSet<Data>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += batch.size();
+                loader.load(batch);
+            }
+        } catch (IOException e) {
+            logger.warning("Could not load near cache keys from " + file, e);
+        } finally {
+            IOUtil.closeResource(is);
+        }
+        return count;
+    }
+
+    /**
+     * Deletes the stored keys.
+     */
+    public synchronized void destroy() {
+        if (file.exists() && !file.delete()) {
+            logger.warning("Could not delete " + file);
+        }
+    }
+
+    private void replace(File tmpFile) throws IOException {
+        // rename does not replace an existing file on all platforms.
+        if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+            throw new IOException("Could not rename " + tmpFile + " to " + file);
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.hazelcast.map;
 
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.HazelcastException;
 import com.hazelcast.instance.MemberImpl;
 import com.hazelcast.map.operation.InvalidateNearCacheOperation;
 import com.hazelcast.map.operation.NearCacheKeySetInvalidationOperation;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.util.ConcurrencyUtil;
 import com.hazelcast.util.ConstructorFunction;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides near cache specific functionality.
@@ -22,22 +27,52 @@ public class NearCacheProvider {
 
     private final ConcurrentMap<String, NearCache> nearCacheMap = new ConcurrentHashMap<String, NearCache>();
 
+    private final ConcurrentMap<String, NearCachePreloader> preloaders = new ConcurrentHashMap<String, NearCachePreloader>();
+
+    private final ConcurrentMap<String, ScheduledFuture<?>> preloaderStoreTasks
+            = new ConcurrentHashMap<String, ScheduledFuture<?>>();
+
     private final ConstructorFunction<String, NearCache> nearCacheConstructor = new ConstructorFunction<String, NearCache>() {
         public NearCache createNew(String mapName) {
             final MapContainer mapContainer = mapServiceContext.getMapContainer(mapName);
             final SizeEstimator nearCacheSizeEstimator = mapContainer.getNearCacheSizeEstimator();
             final NearCache nearCache = new NearCache(mapName, nodeEngine);
             nearCache.setNearCacheSizeEstimator(nearCacheSizeEstimator);
+            final NearCacheConfig nearCacheConfig = mapContainer.getMapConfig().getNearCacheConfig();
+            if (nearCacheConfig.isPreloaderEnabled()) {
+                startPreloader(mapName, nearCache, nearCacheConfig);
+            }
             return nearCache;
         }
     };
 
     private final MapServiceContext mapServiceContext;
     private final NodeEngine nodeEngine;
+    /**
+     * null if invalidations are sent one by one.
+     */
+    private final NearCacheInvalidationBatcher invalidationBatcher;
 
     public NearCacheProvider(MapServiceContext mapServiceContext, NodeEngine nodeEngine) {
         this.mapServiceContext = mapServiceContext;
         this.nodeEngine = nodeEngine;
+        final boolean batchEnabled = nodeEngine.getGroupProperties().MAP_INVALIDATION_BATCH_ENABLED.getBoolean();
+        this.invalidationBatcher = batchEnabled ? new NearCacheInvalidationBatcher(nodeEngine) : null;
+    }
+
+    public void start() {
+        if (invalidationBatcher != null) {
+            invalidationBatcher.start();
+        }
+    }
+
+    /**
+     * Sends the pending invalidation batches to the other members.
+     */
+    public void flushInvalidations() {
+        if (invalidationBatcher != null) {
+            invalidationBatcher.flush();
+        }
     }
 
     public NearCache getNearCache(String mapName) {
@@ -45,6 +80,11 @@ public class NearCacheProvider {
     }
 
     public void clear() {
+        for (ScheduledFuture<?> storeTask : preloaderStoreTasks.values()) {
+            storeTask.cancel(false);
+        }
+        preloaderStoreTasks.clear();
+        preloaders.clear();
         for (NearCache nearCache : nearCacheMap.values()) {
             nearCache.clear();
         }
@@ -52,12 +92,69 @@ public class NearCacheProvider {
     }
 
     public void remove(String mapName) {
+        final ScheduledFuture<?> storeTask = preloaderStoreTasks.remove(mapName);
+        if (storeTask != null) {
+            storeTask.cancel(false);
+        }
+        final NearCachePreloader preloader = preloaders.remove(mapName);
+        if (preloader != null) {
+            preloader.destroy();
+        }
         final NearCache nearCache = nearCacheMap.remove(mapName);
         if (nearCache != null) {
             nearCache.clear();
         }
     }
 
+    private void startPreloader(String mapName, final NearCache nearCache, NearCacheConfig nearCacheConfig) {
+        final String name = "member-" + nodeEngine.getConfig().getGroupConfig().getName() + "-" + mapName;
+        final NearCachePreloader preloader = new NearCachePreloader(name, nearCacheConfig,
+                nodeEngine.getSerializationService());
+        preloaders.put(mapName, preloader);
+        final long interval = nearCacheConfig.getPreloaderStoreIntervalSeconds();
+        final ScheduledFuture<?> storeTask = nodeEngine.getExecutionService().scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                preloader.storeKeys(nearCache.getReadonlyMap().keySet());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+        preloaderStoreTasks.put(mapName, storeTask);
+    }
+
+    /**
+     * Fetches the keys stored by the near cache of the map in a previous run, in the background.
+     * Does nothing if preloading is not enabled or the keys were already loaded.
+     *
+     * @param mapName name of the map.
+     * @param loader  fetches the values of the keys into the near cache.
+     */
+    public void preload(String mapName, final NearCachePreloader.KeyLoader loader) {
+        if (!isNearCacheEnabled(mapName)) {
+            return;
+        }
+        getNearCache(mapName);
+        final NearCachePreloader preloader = preloaders.get(mapName);
+        if (preloader == null) {
+            return;
+        }
+        nodeEngine.getExecutionService().execute(ExecutionService.ASYNC_EXECUTOR, new Runnable() {
+            public void run() {
+                preloader.loadKeys(loader);
+            }
+        });
+    }
+
+    /**
+     * Stores the keys of the near caches having preloading enabled.
+     */
+    public void storeNearCacheKeys() {
+        for (Map.Entry<String, NearCachePreloader> entry : preloaders.entrySet()) {
+            final NearCache nearCache = nearCacheMap.get(entry.getKey());
+            if (nearCache != null) {
+                entry.getValue().storeKeys(nearCache.getReadonlyMap().keySet());
+            }
+        }
+    }
+
     // this operation returns the given value in near-cache memory format (data or object)
     // if near-cache is not enabled, it returns null
     public Object putNearCache(String mapName, Data key, Data value) {
@@ -99,6 +196,13 @@ public class NearCacheProvider {
         if (!isNearCacheEnabled(mapName)) {
             return;
         }
+        if (invalidationBatcher != null) {
+            if (nodeEngine.getClusterService().getSize() > 1) {
+                invalidationBatcher.add(mapName, key);
+            }
+            invalidateNearCache(mapName, key);
+            return;
+        }
         Collection<MemberImpl> members = nodeEngine.getClusterService().getMemberList();
         for (MemberImpl member : members) {
             try {
@@ -134,6 +238,13 @@ public class NearCacheProvider {
         if (keys == null || keys.isEmpty()) {
             return;
         }
+        if (invalidationBatcher != null) {
+            if (nodeEngine.getClusterService().getSize() > 1) {
+                invalidationBatcher.add(mapName, keys);
+            }
+            invalidateNearCache(mapName, keys);
+            return;
+        }
         //send operation.
         Operation operation = new NearCacheKeySetInvalidationOperation(mapName, keys)
                 .setServiceName(MapService.SERVICE_NAME);
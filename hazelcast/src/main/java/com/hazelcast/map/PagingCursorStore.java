@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.PagingPredicateAccessor;
+import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.util.Clock;
+import com.hazelcast.util.IterationType;
+import com.hazelcast.util.SortingUtil;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the sorted entries a member queried for a {@link PagingPredicate} between page requests, so the
+ * next pages are served without scanning the partitions again. A cursor is dropped when it expires, when the
+ * owned partitions of the member change or when one of their records is modified.
+ * <p/>
+ * The cursors of a map keep at most a configured number of entries, see
+ * {@link com.hazelcast.instance.GroupProperties#PROP_QUERY_PAGING_CURSOR_MAX_ENTRIES}. The least recently used
+ * cursors are dropped to make room for a new one, a cursor exceeding the limit on its own is not kept.
+ */
+public class PagingCursorStore {
+
+    private static final int PREFETCH_PAGES = 4;
+
+    private final ConcurrentMap<String, PagingCursor> cursors = new ConcurrentHashMap<String, PagingCursor>();
+    private final long timeoutMillis;
+    private final long maxEntries;
+    /**
+     * Entries kept by the cursors, each cursor counts one more for itself. Concurrent puts may exceed
+     * the limit briefly.
+     */
+    private final AtomicLong entryCount = new AtomicLong();
+
+    /**
+     * @param timeoutMillis time a cursor is kept after its last use, 0 disables the store.
+     * @param maxEntries    maximum number of entries kept by all cursors, 0 disables the store.
+     */
+    public PagingCursorStore(long timeoutMillis, long maxEntries) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isEnabled() {
+        return timeoutMillis > 0 && maxEntries > 0;
+    }
+
+    /**
+     * @return number of entries kept by the cursors, each cursor counting one more for itself.
+     */
+    public long getEntryCount() {
+        return entryCount.get();
+    }
+
+    /**
+     * @param fetchSize entries needed for the current page, see {@link SortingUtil#getFetchSize(PagingPredicate)}.
+     * @return entries to query so the following pages can be served from the cursor.
+     */
+    public int getQueryLimit(int fetchSize, int pageSize) {
+        return isEnabled() ? fetchSize + PREFETCH_PAGES * pageSize : fetchSize;
+    }
+
+    /**
+     * @param partitionIds      owned partitions of this member.
+     * @param modificationStamp sum of the modification counts of the owned partitions.
+     * @return sorted entries following the nearest anchor of the paging predicate, at most fetchSize of them,
+     * null if there is no valid cursor holding them.
+     */
+    public List<QueryableEntry> fetch(PagingPredicate pagingPredicate, List<Integer> partitionIds,
+                                      long modificationStamp, int fetchSize) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final String cursorId = PagingPredicateAccessor.getCursorId(pagingPredicate);
+        final PagingCursor cursor = cursors.get(cursorId);
+        if (cursor == null) {
+            return null;
+        }
+        final long now = Clock.currentTimeMillis();
+        if (cursor.isExpired(now) || !cursor.isValid(pagingPredicate.getIterationType(), partitionIds, modificationStamp)) {
+            remove(cursorId, cursor);
+            return null;
+        }
+        final List<QueryableEntry> entries = cursor.fetch(pagingPredicate, fetchSize);
+        if (entries != null) {
+            cursor.lastAccessTime = now;
+        }
+        return entries;
+    }
+
+    /**
+     * Stores the entries queried for the paging predicate.
+     *
+     * @param entries  sorted entries following the nearest anchor of the paging predicate.
+     * @param complete true if there are no more matching entries than the given ones.
+     */
+    public void put(PagingPredicate pagingPredicate, List<Integer> partitionIds, long modificationStamp,
+                    List<QueryableEntry> entries, boolean complete) {
+        if (!isEnabled()) {
+            return;
+        }
+        final String cursorId = PagingPredicateAccessor.getCursorId(pagingPredicate);
+        final PagingCursor previous = cursors.get(cursorId);
+        if (previous != null) {
+            remove(cursorId, previous);
+        }
+        final long now = Clock.currentTimeMillis();
+        final long weight = entries.size() + 1L;
+        if (weight > maxEntries) {
+            return;
+        }
+        removeExpired(now);
+        boolean removed = true;
+        while (removed && entryCount.get() + weight > maxEntries) {
+            removed = removeLeastRecentlyUsed();
+        }
+        final Map.Entry anchor = PagingPredicateAccessor.getNearestAnchorEntry(pagingPredicate).getValue();
+        final PagingCursor cursor = new PagingCursor(pagingPredicate.getIterationType(), partitionIds,
+                modificationStamp, anchor, entries, complete, now);
+        entryCount.addAndGet(cursor.weight());
+        final PagingCursor replaced = cursors.put(cursorId, cursor);
+        if (replaced != null) {
+            entryCount.addAndGet(-replaced.weight());
+        }
+    }
+
+    private void removeExpired(long now) {
+        for (Map.Entry<String, PagingCursor> entry : cursors.entrySet()) {
+            if (entry.getValue().isExpired(now)) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return false if there is no cursor left.
+     */
+    private boolean removeLeastRecentlyUsed() {
+        Map.Entry<String, PagingCursor> oldest = null;
+        for (Map.Entry<String, PagingCursor> entry : cursors.entrySet()) {
+            if (oldest == null || entry.getValue().lastAccessTime < oldest.getValue().lastAccessTime) {
+                oldest = entry;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        remove(oldest.getKey(), oldest.getValue());
+        return true;
+    }
+
+    private void remove(String cursorId, PagingCursor cursor) {
+        if (cursors.remove(cursorId, cursor)) {
+            entryCount.addAndGet(-cursor.weight());
+        }
+    }
+
+    private final class PagingCursor {
+
+        private final IterationType iterationType;
+        private final List<Integer> partitionIds;
+        private final long modificationStamp;
+        private final Map.Entry anchor;
+        private final List<QueryableEntry> entries;
+        private final boolean complete;
+        private volatile long lastAccessTime;
+
+        private PagingCursor(IterationType iterationType, List<Integer> partitionIds, long modificationStamp,
+                             Map.Entry anchor, List<QueryableEntry> entries, boolean complete, long lastAccessTime) {
+            this.iterationType = iterationType;
+            this.partitionIds = partitionIds;
+            this.modificationStamp = modificationStamp;
+            this.anchor = anchor;
+            this.entries = entries;
+            this.complete = complete;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        private long weight() {
+            return entries.size() + 1L;
+        }
+
+        private boolean isExpired(long now) {
+            return now - lastAccessTime > timeoutMillis;
+        }
+
+        private boolean isValid(IterationType iterationType, List<Integer> partitionIds, long modificationStamp) {
+            return this.iterationType == iterationType && this.modificationStamp == modificationStamp
+                    && this.partitionIds.equals(partitionIds);
+        }
+
+        private List<QueryableEntry> fetch(PagingPredicate pagingPredicate, int fetchSize) {
+            final Comparator<Map.Entry> comparator = SortingUtil.newComparator(pagingPredicate);
+            final Map.Entry requestedAnchor = PagingPredicateAccessor.getNearestAnchorEntry(pagingPredicate).getValue();
+            if (anchor != null && (requestedAnchor == null || comparator.compare(anchor, requestedAnchor) > 0)) {
+                // the requested pages start before the entries of this cursor.
+                return null;
+            }
+            final int from = requestedAnchor == null ? 0 : indexAfter(requestedAnchor, comparator);
+            final int to = Math.min(from + fetchSize, entries.size());
+            if (to - from < fetchSize && !complete) {
+                return null;
+            }
+            return entries.subList(from, to);
+        }
+
+        /**
+         * Binary search for the first entry following the anchor.
+         */
+        private int indexAfter(Map.Entry requestedAnchor, Comparator<Map.Entry> comparator) {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (comparator.compare(requestedAnchor, entries.get(mid)) >= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
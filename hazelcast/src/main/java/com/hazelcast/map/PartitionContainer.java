@@ -17,11 +17,16 @@
 package com.hazelcast.map;
 
 import com.hazelcast.concurrent.lock.LockService;
+import com.hazelcast.map.record.Record;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.DefaultObjectNamespace;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.ConcurrencyUtil;
 import com.hazelcast.util.ConstructorFunction;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -48,6 +53,34 @@ public class PartitionContainer {
 
     private volatile long lastCleanupTime;
 
+    /**
+     * Copy of this partition to the destination of a migration, only accessed by the partition thread.
+     */
+    private PartitionPreCopy preCopy;
+
+    /**
+     * Records received from the source of a migration while the partition was still writable there, per map.
+     * They are put into the record stores once the migration blocks the partition. Only accessed by the
+     * partition thread.
+     */
+    private final Map<String, Map<Data, Record>> stagedRecords = new HashMap<String, Map<Data, Record>>();
+
+    /**
+     * Member the staged records were received from, null if there are none. Read by other threads when
+     * members leave.
+     */
+    private volatile Address stagingSource;
+
+    /**
+     * Number of chunks staged from {@link #stagingSource}.
+     */
+    private int stagedChunkCount;
+
+    /**
+     * Time the staged records are discarded at unless another chunk arrives before.
+     */
+    private long stagingDeadline;
+
     public PartitionContainer(final MapService mapService, final int partitionId) {
         this.mapService = mapService;
         this.partitionId = partitionId;
@@ -96,6 +129,67 @@ public class PartitionContainer {
             recordStore.clearPartition();
         }
         maps.clear();
+        discardStagedRecords();
+    }
+
+    /**
+     * Keeps a record received from the source of a migration until the migration blocks the partition.
+     */
+    public void stageRecord(String mapName, Record record) {
+        Map<Data, Record> records = stagedRecords.get(mapName);
+        if (records == null) {
+            records = new HashMap<Data, Record>();
+            stagedRecords.put(mapName, records);
+        }
+        final Record existingRecord = records.put(record.getKey(), record);
+        if (existingRecord != null) {
+            existingRecord.invalidate();
+        }
+    }
+
+    /**
+     * Removes the staged records of a map.
+     *
+     * @return the removed records, null if there are none.
+     */
+    public Map<Data, Record> removeStagedRecords(String mapName) {
+        return stagedRecords.remove(mapName);
+    }
+
+    public void discardStagedRecords() {
+        for (Map<Data, Record> records : stagedRecords.values()) {
+            for (Record record : records.values()) {
+                record.invalidate();
+            }
+        }
+        stagedRecords.clear();
+        stagingSource = null;
+        stagedChunkCount = 0;
+    }
+
+    /**
+     * Counts a staged chunk and keeps the staged records until the given deadline.
+     *
+     * @return true if this is the first chunk staged, the staged records have to be checked for expiry.
+     */
+    public boolean onChunkStaged(Address source, long deadline) {
+        final boolean first = stagingSource == null;
+        stagingSource = source;
+        stagedChunkCount++;
+        stagingDeadline = deadline;
+        return first;
+    }
+
+    public Address getStagingSource() {
+        return stagingSource;
+    }
+
+    public int getStagedChunkCount() {
+        return stagedChunkCount;
+    }
+
+    public long getStagingDeadline() {
+        return stagingDeadline;
     }
 
     public boolean hasRunningCleanup() {
@@ -106,6 +200,14 @@ public class PartitionContainer {
         this.hasRunningCleanup = hasRunningCleanup;
     }
 
+    PartitionPreCopy getPreCopy() {
+        return preCopy;
+    }
+
+    void setPreCopy(PartitionPreCopy preCopy) {
+        this.preCopy = preCopy;
+    }
+
     public long getLastCleanupTime() {
         return lastCleanupTime;
     }
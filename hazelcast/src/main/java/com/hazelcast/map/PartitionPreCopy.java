@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.map.operation.MapMigrationChunkOperation;
+import com.hazelcast.map.operation.MapReplicationOperation;
+import com.hazelcast.map.record.Record;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies the record stores of a migrating partition in chunks while the partition is still writable,
+ * see {@link com.hazelcast.spi.PreCopyMigrationAwareService}.
+ * <p/>
+ * The record stores existing when the copy begins track their changed keys from then on, the replication
+ * operation finishing the copy carries only the records of these keys. Record stores created or cleared
+ * meanwhile are replicated in full, as are the ones backed by an off-heap record table, whose iterator may
+ * skip records when other records are removed during the copy. Only accessed by the partition thread.
+ */
+final class PartitionPreCopy {
+
+    private final PartitionContainer container;
+    private final List<RecordStore> recordStores = new ArrayList<RecordStore>();
+    private int recordStoreIndex;
+    private Iterator<Record> iterator;
+    private boolean started;
+    private int chunkCount;
+
+    PartitionPreCopy(PartitionContainer container) {
+        this.container = container;
+        for (RecordStore recordStore : container.getMaps().values()) {
+            if (recordStore.getMapContainer().isRecordTableEnabled()) {
+                continue;
+            }
+            recordStore.startTrackingChanges();
+            recordStores.add(recordStore);
+        }
+    }
+
+    /**
+     * @return the next chunk, null if all records have been copied. The first chunk is returned even if
+     * it is empty, it discards what the destination staged for an earlier copy.
+     */
+    MapMigrationChunkOperation nextChunk(int maxChunkSize) {
+        final MapService mapService = container.getMapService();
+        MapMigrationChunkOperation chunk = null;
+        if (!started) {
+            started = true;
+            chunk = new MapMigrationChunkOperation(container.getPartitionId(), true);
+        }
+        while (recordStoreIndex < recordStores.size()) {
+            final RecordStore recordStore = recordStores.get(recordStoreIndex);
+            if (iterator == null) {
+                iterator = recordStore.iterator();
+            }
+            while (iterator.hasNext()) {
+                if (chunk == null) {
+                    chunk = new MapMigrationChunkOperation(container.getPartitionId(), false);
+                }
+                if (chunk.add(recordStore.getName(), iterator.next(), mapService) >= maxChunkSize) {
+                    chunkCount++;
+                    return chunk;
+                }
+            }
+            iterator = null;
+            recordStoreIndex++;
+        }
+        if (chunk != null && !chunk.isEmpty()) {
+            chunkCount++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Stops tracking changes.
+     *
+     * @return operation replicating the changes made since the copy began.
+     */
+    MapReplicationOperation finish() {
+        final Map<String, Set<Data>> changedKeys = stopTracking();
+        return new MapReplicationOperation(container.getMapService(), container, container.getPartitionId(), changedKeys,
+                chunkCount);
+    }
+
+    /**
+     * Stops tracking changes.
+     *
+     * @return keys changed since the copy began per copied map, null if the map has to be replicated in full.
+     */
+    Map<String, Set<Data>> stopTracking() {
+        final Map<String, Set<Data>> changedKeys = new HashMap<String, Set<Data>>(recordStores.size());
+        for (RecordStore recordStore : recordStores) {
+            final Set<Data> keys = recordStore.stopTrackingChanges();
+            final String name = recordStore.getName();
+            // a map destroyed and created again while it was copied has a new record store.
+            changedKeys.put(name, container.getExistingRecordStore(name) == recordStore ? keys : null);
+        }
+        recordStores.clear();
+        iterator = null;
+        return changedKeys;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.map;
+
+import com.hazelcast.mapreduce.aggregation.Supplier;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sends back the values supplied for the entries matching a query instead of the entries,
+ * skipping null values.
+ */
+public class ProjectingQueryReducer implements QueryReducer {
+
+    private Supplier projection;
+
+    public ProjectingQueryReducer() {
+    }
+
+    public ProjectingQueryReducer(Supplier projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public Object reducePartition(Collection<QueryableEntry> entries) {
+        final List<Object> values = new ArrayList<Object>(entries.size());
+        for (QueryableEntry entry : entries) {
+            final Object value = projection.apply(entry);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<Object> reduce(List<Object> partitionResults) {
+        if (partitionResults.size() == 1) {
+            return (List<Object>) partitionResults.get(0);
+        }
+        int size = 0;
+        for (Object partitionResult : partitionResults) {
+            size += ((List) partitionResult).size();
+        }
+        final List<Object> values = new ArrayList<Object>(size);
+        for (Object partitionResult : partitionResults) {
+            values.addAll((List) partitionResult);
+        }
+        return values;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(projection);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        projection = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.PROJECTING_QUERY_REDUCER;
+    }
+}
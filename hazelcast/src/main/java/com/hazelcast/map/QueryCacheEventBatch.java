@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.nio.IOUtil.readNullableData;
+import static com.hazelcast.nio.IOUtil.writeNullableData;
+
+/**
+ * Changes of the entries matching the predicate of a {@link com.hazelcast.core.QueryCache}, sent by the member
+ * owning their partitions. Each change carries the sequence number the member gave it within its partition.
+ */
+public class QueryCacheEventBatch implements EventData, IdentifiedDataSerializable {
+
+    private String source;
+    private String mapName;
+    private List<Event> events;
+
+    public QueryCacheEventBatch() {
+    }
+
+    public QueryCacheEventBatch(String source, String mapName, List<Event> events) {
+        this.source = source;
+        this.mapName = mapName;
+        this.events = events;
+    }
+
+    /**
+     * @return uuid of the member which numbered the changes.
+     */
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String getMapName() {
+        return mapName;
+    }
+
+    @Override
+    public Address getCaller() {
+        return null;
+    }
+
+    @Override
+    public int getEventType() {
+        return 0;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(source);
+        out.writeUTF(mapName);
+        out.writeInt(events.size());
+        for (Event event : events) {
+            out.writeInt(event.partitionId);
+            out.writeLong(event.sequence);
+            event.key.writeData(out);
+            writeNullableData(out, event.value);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        source = in.readUTF();
+        mapName = in.readUTF();
+        final int size = in.readInt();
+        events = new ArrayList<Event>(size);
+        for (int i = 0; i < size; i++) {
+            final int partitionId = in.readInt();
+            final long sequence = in.readLong();
+            final Data key = new Data();
+            key.readData(in);
+            events.add(new Event(partitionId, sequence, key, readNullableData(in)));
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.QUERY_CACHE_EVENT_BATCH;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheEventBatch{source='" + source + "', mapName='" + mapName + "', size=" + events.size() + '}';
+    }
+
+    /**
+     * An entry which entered or changed within the view, or left it if the value is null.
+     */
+    public static final class Event {
+
+        private final int partitionId;
+        private final long sequence;
+        private final Data key;
+        private final Data value;
+
+        public Event(int partitionId, long sequence, Data key, Data value) {
+            this.partitionId = partitionId;
+            this.sequence = sequence;
+            this.key = key;
+            this.value = value;
+        }
+
+        public int getPartitionId() {
+            return partitionId;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Data getKey() {
+            return key;
+        }
+
+        /**
+         * @return the new value, null if the entry was removed or no longer matches the predicate.
+         */
+        public Data getValue() {
+            return value;
+        }
+    }
+}
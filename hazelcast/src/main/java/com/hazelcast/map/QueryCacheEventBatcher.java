@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.instance.GroupProperties;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.EventFilter;
+import com.hazelcast.spi.EventRegistration;
+import com.hazelcast.spi.EventService;
+import com.hazelcast.spi.NodeEngine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Collects the changes of the entries matching the predicate of each {@link com.hazelcast.core.QueryCache} and
+ * sends them to the cache in batches. A batch is sent when it holds
+ * {@link GroupProperties#PROP_MAP_QUERY_CACHE_BATCH_SIZE} changes, otherwise by a task running every
+ * {@link GroupProperties#PROP_MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS}.
+ * <p/>
+ * The changes sent to a cache are numbered consecutively per partition, a snapshot of a partition carries the
+ * last number given, see {@link #getSequence(String, String, int)}. A batch is published while its lock is held, so the
+ * batches of a cache leave in sequence order.
+ * <p/>
+ * The high bits of a sequence number hold the ownership epoch of the partition, incremented each time the partition
+ * migrates to or from this member. A member owning a partition again continues with a gap, so a cache which missed
+ * the changes of the owners in between takes the partition again.
+ */
+public final class QueryCacheEventBatcher {
+
+    private static final int EPOCH_SHIFT = 32;
+
+    private final NodeEngine nodeEngine;
+    private final int batchSize;
+    private final long frequencyMillis;
+    private final ConcurrentMap<String, CacheBatch> batches = new ConcurrentHashMap<String, CacheBatch>();
+    private final AtomicIntegerArray ownershipEpochs;
+
+    QueryCacheEventBatcher(NodeEngine nodeEngine) {
+        this.nodeEngine = nodeEngine;
+        final GroupProperties groupProperties = nodeEngine.getGroupProperties();
+        this.batchSize = Math.max(groupProperties.MAP_QUERY_CACHE_BATCH_SIZE.getInteger(), 1);
+        this.frequencyMillis = Math.max(groupProperties.MAP_QUERY_CACHE_BATCH_FREQUENCY_MILLIS.getLong(), 1L);
+        this.ownershipEpochs = new AtomicIntegerArray(nodeEngine.getPartitionService().getPartitionCount());
+    }
+
+    void start() {
+        nodeEngine.getExecutionService().scheduleWithFixedDelay(new FlushTask(),
+                frequencyMillis, frequencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param registration registration of the cache, its filter is a {@link QueryCacheEventFilter}.
+     * @param value        the new value, null if the entry left the cache.
+     */
+    void add(EventRegistration registration, String mapName, int partitionId, Data key, Data value) {
+        final String cacheId = ((QueryCacheEventFilter) registration.getFilter()).getCacheId();
+        final CacheBatch batch = getBatch(cacheId, mapName);
+        synchronized (batch) {
+            // a client registering again after a reconnect gets a new registration for the same cache.
+            batch.registration = registration;
+            final long sequence = lastSequence(batch, partitionId) + 1;
+            batch.sequences[partitionId] = sequence;
+            batch.events.add(new QueryCacheEventBatch.Event(partitionId, sequence, key, value));
+            if (batch.events.size() >= batchSize) {
+                send(batch);
+            }
+        }
+    }
+
+    /**
+     * Called on the partition thread, the returned sequence is the last one given to a change of the partition
+     * which is already applied to the record store.
+     *
+     * @return sequence number of the last change of the partition sent to the cache.
+     */
+    public long getSequence(String cacheId, String mapName, int partitionId) {
+        final CacheBatch batch = getBatch(cacheId, mapName);
+        synchronized (batch) {
+            return lastSequence(batch, partitionId);
+        }
+    }
+
+    /**
+     * Called on the partition thread when the partition migrated to or from this member.
+     */
+    void onOwnershipChanged(int partitionId) {
+        ownershipEpochs.incrementAndGet(partitionId);
+    }
+
+    /**
+     * Must be called with the lock of the batch held.
+     *
+     * @return last sequence given, moved to the start of the current ownership epoch if it is from an older one.
+     */
+    private long lastSequence(CacheBatch batch, int partitionId) {
+        final long epochStart = (long) ownershipEpochs.get(partitionId) << EPOCH_SHIFT;
+        if (batch.sequences[partitionId] < epochStart) {
+            batch.sequences[partitionId] = epochStart;
+        }
+        return batch.sequences[partitionId];
+    }
+
+    /**
+     * Sends all pending batches and forgets the caches which are no longer registered.
+     */
+    void flush() {
+        final EventService eventService = nodeEngine.getEventService();
+        final Set<String> registeredCacheIds = new HashSet<String>();
+        final Set<String> mapNames = new HashSet<String>();
+        for (CacheBatch batch : batches.values()) {
+            if (mapNames.add(batch.mapName)) {
+                collectCacheIds(eventService.getRegistrations(MapService.SERVICE_NAME, batch.mapName), registeredCacheIds);
+            }
+        }
+        final Iterator<CacheBatch> iterator = batches.values().iterator();
+        while (iterator.hasNext()) {
+            final CacheBatch batch = iterator.next();
+            if (!registeredCacheIds.contains(batch.cacheId)) {
+                iterator.remove();
+                continue;
+            }
+            synchronized (batch) {
+                if (!batch.events.isEmpty()) {
+                    send(batch);
+                }
+            }
+        }
+    }
+
+    private static void collectCacheIds(Collection<EventRegistration> registrations, Set<String> cacheIds) {
+        for (EventRegistration registration : registrations) {
+            final EventFilter filter = registration.getFilter();
+            if (filter instanceof QueryCacheEventFilter) {
+                cacheIds.add(((QueryCacheEventFilter) filter).getCacheId());
+            }
+        }
+    }
+
+    private CacheBatch getBatch(String cacheId, String mapName) {
+        CacheBatch batch = batches.get(cacheId);
+        if (batch == null) {
+            final int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+            batch = new CacheBatch(cacheId, mapName, partitionCount);
+            final CacheBatch existing = batches.putIfAbsent(cacheId, batch);
+            if (existing != null) {
+                batch = existing;
+            }
+        }
+        return batch;
+    }
+
+    private void send(CacheBatch batch) {
+        final List<QueryCacheEventBatch.Event> events = batch.events;
+        batch.events = new ArrayList<QueryCacheEventBatch.Event>();
+        final EventRegistration registration = batch.registration;
+        if (registration == null) {
+            return;
+        }
+        final QueryCacheEventBatch eventBatch = new QueryCacheEventBatch(nodeEngine.getLocalMember().getUuid(),
+                batch.mapName, events);
+        try {
+            // a batch which is not delivered shows up as a gap in the sequence of the cache.
+            nodeEngine.getEventService().publishEvent(MapService.SERVICE_NAME, registration, eventBatch,
+                    batch.cacheId.hashCode());
+        } catch (Throwable throwable) {
+            nodeEngine.getLogger(getClass()).warning(throwable);
+        }
+    }
+
+    /**
+     * Pending changes of a cache and the last sequence number given per partition.
+     * Guarded by its own monitor.
+     */
+    private static final class CacheBatch {
+
+        final String cacheId;
+        final String mapName;
+        final long[] sequences;
+        EventRegistration registration;
+        List<QueryCacheEventBatch.Event> events = new ArrayList<QueryCacheEventBatch.Event>();
+
+        CacheBatch(String cacheId, String mapName, int partitionCount) {
+            this.cacheId = cacheId;
+            this.mapName = mapName;
+            this.sequences = new long[partitionCount];
+        }
+    }
+
+    /**
+     * Sends the batches which did not fill up in time.
+     */
+    private class FlushTask implements Runnable {
+
+        public void run() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.EventFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Filter of the listener feeding a {@link com.hazelcast.core.QueryCache}. The changes passing it are not
+ * published one by one but collected by the {@link QueryCacheEventBatcher} of the partition owner.
+ * <p/>
+ * The cache id stays the same when a client registers the listener again after a reconnect, the members number
+ * the changes sent to the cache by this id.
+ */
+public class QueryCacheEventFilter implements EventFilter, DataSerializable {
+
+    private String cacheId;
+    private Predicate predicate;
+
+    public QueryCacheEventFilter() {
+    }
+
+    public QueryCacheEventFilter(String cacheId, Predicate predicate) {
+        this.cacheId = cacheId;
+        this.predicate = predicate;
+    }
+
+    public String getCacheId() {
+        return cacheId;
+    }
+
+    public Predicate getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public boolean eval(Object arg) {
+        return predicate.apply((Map.Entry) arg);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(cacheId);
+        out.writeObject(predicate);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        cacheId = in.readUTF();
+        predicate = in.readObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return cacheId.equals(((QueryCacheEventFilter) o).cacheId);
+    }
+
+    @Override
+    public int hashCode() {
+        return cacheId.hashCode();
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.core.EntryAdapter;
+
+/**
+ * Listener registered with a {@link QueryCacheEventFilter}, it receives the changes of the matching entries in
+ * batches. Map wide events like {@link com.hazelcast.core.IMap#clear()} are passed to
+ * {@link #onMapEvent(com.hazelcast.core.MapEvent)}.
+ */
+public abstract class QueryCacheEventListener extends EntryAdapter {
+
+    public abstract void onBatch(QueryCacheEventBatch batch);
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entries of a partition matching the predicate of a {@link com.hazelcast.core.QueryCache}, together with the
+ * sequence number of the last change the partition owner sent to the cache. Changes up to this sequence are
+ * already contained in the snapshot.
+ */
+public class QueryCacheSnapshot implements IdentifiedDataSerializable {
+
+    private int partitionId;
+    private String source;
+    private long sequence;
+    private List<Data> keys;
+    private List<Data> values;
+
+    public QueryCacheSnapshot() {
+    }
+
+    public QueryCacheSnapshot(int partitionId, String source, long sequence, int size) {
+        this.partitionId = partitionId;
+        this.source = source;
+        this.sequence = sequence;
+        this.keys = new ArrayList<Data>(size);
+        this.values = new ArrayList<Data>(size);
+    }
+
+    public void add(Data key, Data value) {
+        keys.add(key);
+        values.add(value);
+    }
+
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    /**
+     * @return uuid of the member which owned the partition.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<Data> getKeys() {
+        return keys;
+    }
+
+    public List<Data> getValues() {
+        return values;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(partitionId);
+        out.writeUTF(source);
+        out.writeLong(sequence);
+        out.writeInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            keys.get(i).writeData(out);
+            values.get(i).writeData(out);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        partitionId = in.readInt();
+        source = in.readUTF();
+        sequence = in.readLong();
+        final int size = in.readInt();
+        keys = new ArrayList<Data>(size);
+        values = new ArrayList<Data>(size);
+        for (int i = 0; i < size; i++) {
+            final Data key = new Data();
+            key.readData(in);
+            final Data value = new Data();
+            value.readData(in);
+            add(key, value);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.QUERY_CACHE_SNAPSHOT;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.map;
+
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Folds the entries matching a query on the members owning them, so only the folded values are sent
+ * back to the caller, see {@link com.hazelcast.core.IMap#aggregate(com.hazelcast.query.Predicate,
+ * com.hazelcast.mapreduce.aggregation.Supplier, com.hazelcast.mapreduce.aggregation.Aggregation)}.
+ */
+public interface QueryReducer extends IdentifiedDataSerializable {
+
+    /**
+     * Folds the matching entries of a partition. Entries found by an index are folded at once for all
+     * partitions of a member.
+     *
+     * @param entries matching entries.
+     * @return the partial result, only passed to {@link #reduce(java.util.List)} on the same member.
+     */
+    Object reducePartition(Collection<QueryableEntry> entries);
+
+    /**
+     * Folds the partial results of the partitions of a member.
+     *
+     * @param partitionResults results of {@link #reducePartition(java.util.Collection)}.
+     * @return values sent back to the caller.
+     */
+    List<Object> reduce(List<Object> partitionResults);
+}
@@ -38,6 +38,14 @@ public class QueryResult implements DataSerializable {
         result = new LinkedHashSet<QueryResultEntry>();
     }
 
+    /**
+     * @param expectedSize number of entries which will be added.
+     */
+    public QueryResult(int expectedSize) {
+        // large enough to hold the entries without rehashing at the default load factor.
+        result = new LinkedHashSet<QueryResultEntry>(expectedSize + expectedSize / 3 + 1);
+    }
+
     public QueryResult(Collection<? extends QueryResultEntry> queryableEntries) {
         result = queryableEntries;
     }
@@ -136,6 +136,18 @@ public interface RecordStore {
 
     Set<Data> keySet();
 
+    /**
+     * Fetches a page of records in the order of the hash codes of their keys. The next page starts at the hash
+     * code following the one of the last fetched key, so a walk over the record store can be resumed after any
+     * change to it and never returns a key twice. Keys added during the walk may be left out.
+     *
+     * @param cursor     smallest hash code of the keys to fetch, {@link MapFetchResult#FIRST_CURSOR} for the first page.
+     * @param size       number of keys to fetch, keys sharing the hash code of the last one are fetched as well.
+     * @param withValues true if the values have to be fetched too.
+     * @return fetched keys and values, {@link MapFetchResult#LAST_CURSOR} as next cursor after the last page.
+     */
+    MapFetchResult fetch(long cursor, int size, boolean withValues);
+
     int size();
 
     boolean txnLock(Data key, String caller, long threadId, long ttl);
@@ -186,23 +198,44 @@ public interface RecordStore {
 
     long getHeapCost();
 
+    /**
+     * Increases with every record which is added, updated or removed, never decreases.
+     *
+     * @return number of modifications of this record store.
+     */
+    long getModificationCount();
+
     boolean isLoaded();
 
     void checkIfLoaded();
 
     void setLoaded(boolean loaded);
 
+    /**
+     * Starts recording the keys of changed records, used while a migrating partition is copied.
+     *
+     * @see com.hazelcast.map.PartitionPreCopy
+     */
+    void startTrackingChanges();
+
+    /**
+     * Stops recording the keys of changed records.
+     *
+     * @return keys changed since {@link #startTrackingChanges()}, null if changes were not tracked
+     * or all records were removed meanwhile.
+     */
+    Set<Data> stopTrackingChanges();
+
     int clear();
 
     boolean isEmpty();
 
     /**
-     * Do expiration operations.
+     * Evicts the entries whose ttl or max idle time passed.
      *
-     * @param percentage of max expirables according to the record store size.
-     * @param owner      <code>true</code> if an owner partition, otherwise <code>false</code>.
+     * @param owner <code>true</code> if an owner partition, otherwise <code>false</code>.
      */
-    void evictExpiredEntries(int percentage, boolean owner);
+    void evictExpiredEntries(boolean owner);
 
     /**
      * @return <code>true</code> if record store has at least one candidate entry
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.map;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a query folded by a {@link QueryReducer}, the counterpart of {@link QueryResult}.
+ */
+public class ReducedQueryResult implements IdentifiedDataSerializable {
+
+    private List<Integer> partitionIds;
+    private List<Object> values;
+
+    public ReducedQueryResult() {
+    }
+
+    public ReducedQueryResult(List<Object> values) {
+        this.values = values;
+    }
+
+    /**
+     * @return queried partitions, null if the result is incomplete and has to be ignored.
+     */
+    public List<Integer> getPartitionIds() {
+        return partitionIds;
+    }
+
+    public void setPartitionIds(List<Integer> partitionIds) {
+        this.partitionIds = partitionIds;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        final int psize = partitionIds == null ? -1 : partitionIds.size();
+        out.writeInt(psize);
+        for (int i = 0; i < psize; i++) {
+            out.writeInt(partitionIds.get(i));
+        }
+        out.writeInt(values.size());
+        for (Object value : values) {
+            out.writeObject(value);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        final int psize = in.readInt();
+        if (psize >= 0) {
+            partitionIds = new ArrayList<Integer>(psize);
+            for (int i = 0; i < psize; i++) {
+                partitionIds.add(in.readInt());
+            }
+        }
+        final int size = in.readInt();
+        values = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readObject());
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return MapDataSerializerHook.REDUCED_QUERY_RESULT;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.client;
+
+import com.hazelcast.client.ClientEndpoint;
+import com.hazelcast.client.impl.client.CallableClientRequest;
+import com.hazelcast.client.impl.client.RetryableRequest;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.MapPortableHook;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.QueryCacheEventBatch;
+import com.hazelcast.map.QueryCacheEventFilter;
+import com.hazelcast.map.QueryCacheEventListener;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.security.permission.ActionConstants;
+import com.hazelcast.security.permission.MapPermission;
+import com.hazelcast.spi.impl.PortableEntryEvent;
+
+import java.io.IOException;
+import java.security.Permission;
+
+/**
+ * Registers the listener feeding a {@link com.hazelcast.core.QueryCache} of a client. The batches of changes are
+ * forwarded to the client as they are, map wide events as {@link PortableEntryEvent}s.
+ */
+public class MapAddQueryCacheListenerRequest extends CallableClientRequest implements RetryableRequest {
+
+    private String name;
+    private String cacheId;
+    private Predicate predicate;
+
+    public MapAddQueryCacheListenerRequest() {
+    }
+
+    public MapAddQueryCacheListenerRequest(String name, String cacheId, Predicate predicate) {
+        this.name = name;
+        this.cacheId = cacheId;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public Object call() {
+        final ClientEndpoint endpoint = getEndpoint();
+        final MapService mapService = getService();
+
+        QueryCacheEventListener listener = new QueryCacheEventListener() {
+            @Override
+            public void onBatch(QueryCacheEventBatch batch) {
+                if (endpoint.live()) {
+                    endpoint.sendEvent(batch, getCallId());
+                }
+            }
+
+            @Override
+            public void onMapEvent(MapEvent event) {
+                if (endpoint.live()) {
+                    PortableEntryEvent portableEntryEvent = new PortableEntryEvent(event.getEventType(),
+                            event.getMember().getUuid(), event.getNumberOfEntriesAffected());
+                    endpoint.sendEvent(portableEntryEvent, getCallId());
+                }
+            }
+        };
+
+        String registrationId = mapService.getMapServiceContext()
+                .addEventListener(listener, new QueryCacheEventFilter(cacheId, predicate), name);
+        endpoint.setListenerRegistration(MapService.SERVICE_NAME, name, registrationId);
+        return registrationId;
+    }
+
+    @Override
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapPortableHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return MapPortableHook.ADD_QUERY_CACHE_LISTENER;
+    }
+
+    @Override
+    public void write(PortableWriter writer) throws IOException {
+        writer.writeUTF("n", name);
+        writer.writeUTF("c", cacheId);
+        final ObjectDataOutput out = writer.getRawDataOutput();
+        out.writeObject(predicate);
+    }
+
+    @Override
+    public void read(PortableReader reader) throws IOException {
+        name = reader.readUTF("n");
+        cacheId = reader.readUTF("c");
+        final ObjectDataInput in = reader.getRawDataInput();
+        predicate = in.readObject();
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return new MapPermission(name, ActionConstants.ACTION_LISTEN);
+    }
+
+    @Override
+    public String getDistributedObjectName() {
+        return name;
+    }
+
+    @Override
+    public String getMethodName() {
+        return "getQueryCache";
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return new Object[]{predicate};
+    }
+}
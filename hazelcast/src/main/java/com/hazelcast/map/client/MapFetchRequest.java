@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.client;
+
+import com.hazelcast.client.impl.client.PartitionClientRequest;
+import com.hazelcast.client.impl.client.RetryableRequest;
+import com.hazelcast.client.impl.client.SecureRequest;
+import com.hazelcast.map.MapPortableHook;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.operation.MapFetchOperation;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.security.permission.ActionConstants;
+import com.hazelcast.security.permission.MapPermission;
+import com.hazelcast.spi.Operation;
+import java.io.IOException;
+import java.security.Permission;
+
+public class MapFetchRequest extends PartitionClientRequest implements Portable, RetryableRequest, SecureRequest {
+
+    private String name;
+    private int partitionId;
+    private long cursor;
+    private int fetchSize;
+    private boolean withValues;
+
+    public MapFetchRequest() {
+    }
+
+    public MapFetchRequest(String name, int partitionId, long cursor, int fetchSize, boolean withValues) {
+        this.name = name;
+        this.partitionId = partitionId;
+        this.cursor = cursor;
+        this.fetchSize = fetchSize;
+        this.withValues = withValues;
+    }
+
+    @Override
+    protected Operation prepareOperation() {
+        return new MapFetchOperation(name, cursor, fetchSize, withValues);
+    }
+
+    @Override
+    protected int getPartition() {
+        return partitionId;
+    }
+
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapPortableHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return MapPortableHook.FETCH;
+    }
+
+    @Override
+    public void write(PortableWriter writer) throws IOException {
+        writer.writeUTF("n", name);
+        writer.writeInt("p", partitionId);
+        writer.writeLong("c", cursor);
+        writer.writeInt("f", fetchSize);
+        writer.writeBoolean("v", withValues);
+    }
+
+    @Override
+    public void read(PortableReader reader) throws IOException {
+        name = reader.readUTF("n");
+        partitionId = reader.readInt("p");
+        cursor = reader.readLong("c");
+        fetchSize = reader.readInt("f");
+        withValues = reader.readBoolean("v");
+    }
+
+    public Permission getRequiredPermission() {
+        return new MapPermission(name, ActionConstants.ACTION_READ);
+    }
+
+    @Override
+    public String getDistributedObjectName() {
+        return name;
+    }
+
+    @Override
+    public String getMethodName() {
+        return withValues ? "entryIterator" : "keyIterator";
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return new Object[]{fetchSize};
+    }
+}
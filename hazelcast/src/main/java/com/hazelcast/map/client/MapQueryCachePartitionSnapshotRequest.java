@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.client;
+
+import com.hazelcast.client.impl.client.PartitionClientRequest;
+import com.hazelcast.client.impl.client.RetryableRequest;
+import com.hazelcast.client.impl.client.SecureRequest;
+import com.hazelcast.map.MapPortableHook;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.operation.QueryCacheSnapshotOperation;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.security.permission.ActionConstants;
+import com.hazelcast.security.permission.MapPermission;
+import com.hazelcast.spi.Operation;
+
+import java.io.IOException;
+import java.security.Permission;
+
+/**
+ * Takes the {@link com.hazelcast.map.QueryCacheSnapshot} of a partition whose changes a client side
+ * {@link com.hazelcast.core.QueryCache} could not follow.
+ */
+public class MapQueryCachePartitionSnapshotRequest extends PartitionClientRequest
+        implements Portable, RetryableRequest, SecureRequest {
+
+    private String name;
+    private String cacheId;
+    private Predicate predicate;
+    private int partitionId;
+
+    public MapQueryCachePartitionSnapshotRequest() {
+    }
+
+    public MapQueryCachePartitionSnapshotRequest(String name, String cacheId, Predicate predicate, int partitionId) {
+        this.name = name;
+        this.cacheId = cacheId;
+        this.predicate = predicate;
+        this.partitionId = partitionId;
+    }
+
+    @Override
+    protected Operation prepareOperation() {
+        return new QueryCacheSnapshotOperation(name, cacheId, predicate);
+    }
+
+    @Override
+    protected int getPartition() {
+        return partitionId;
+    }
+
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapPortableHook.F_ID;
+    }
+
+    public int getClassId() {
+        return MapPortableHook.QUERY_CACHE_PARTITION_SNAPSHOT;
+    }
+
+    public void write(PortableWriter writer) throws IOException {
+        writer.writeUTF("n", name);
+        writer.writeUTF("c", cacheId);
+        writer.writeInt("p", partitionId);
+        final ObjectDataOutput out = writer.getRawDataOutput();
+        out.writeObject(predicate);
+    }
+
+    public void read(PortableReader reader) throws IOException {
+        name = reader.readUTF("n");
+        cacheId = reader.readUTF("c");
+        partitionId = reader.readInt("p");
+        final ObjectDataInput in = reader.getRawDataInput();
+        predicate = in.readObject();
+    }
+
+    public Permission getRequiredPermission() {
+        return new MapPermission(name, ActionConstants.ACTION_READ);
+    }
+
+    @Override
+    public String getDistributedObjectName() {
+        return name;
+    }
+
+    @Override
+    public String getMethodName() {
+        return "getQueryCache";
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return new Object[]{predicate};
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.client;
+
+import com.hazelcast.client.impl.client.AllPartitionsClientRequest;
+import com.hazelcast.client.impl.client.RetryableRequest;
+import com.hazelcast.client.impl.client.SecureRequest;
+import com.hazelcast.map.MapPortableHook;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.operation.QueryCacheSnapshotOperationFactory;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.security.permission.ActionConstants;
+import com.hazelcast.security.permission.MapPermission;
+import com.hazelcast.spi.OperationFactory;
+import com.hazelcast.spi.impl.SerializableCollection;
+
+import java.io.IOException;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes the {@link com.hazelcast.map.QueryCacheSnapshot}s of all partitions for a client side
+ * {@link com.hazelcast.core.QueryCache}.
+ */
+public class MapQueryCacheSnapshotRequest extends AllPartitionsClientRequest
+        implements Portable, RetryableRequest, SecureRequest {
+
+    private String name;
+    private String cacheId;
+    private Predicate predicate;
+
+    public MapQueryCacheSnapshotRequest() {
+    }
+
+    public MapQueryCacheSnapshotRequest(String name, String cacheId, Predicate predicate) {
+        this.name = name;
+        this.cacheId = cacheId;
+        this.predicate = predicate;
+    }
+
+    @Override
+    protected OperationFactory createOperationFactory() {
+        return new QueryCacheSnapshotOperationFactory(name, cacheId, predicate);
+    }
+
+    @Override
+    protected Object reduce(Map<Integer, Object> map) {
+        final List<Data> snapshots = new ArrayList<Data>(map.size());
+        for (Object result : map.values()) {
+            snapshots.add(serializationService.toData(result));
+        }
+        return new SerializableCollection(snapshots);
+    }
+
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return MapPortableHook.F_ID;
+    }
+
+    public int getClassId() {
+        return MapPortableHook.QUERY_CACHE_SNAPSHOT;
+    }
+
+    public void write(PortableWriter writer) throws IOException {
+        writer.writeUTF("n", name);
+        writer.writeUTF("c", cacheId);
+        final ObjectDataOutput out = writer.getRawDataOutput();
+        out.writeObject(predicate);
+    }
+
+    public void read(PortableReader reader) throws IOException {
+        name = reader.readUTF("n");
+        cacheId = reader.readUTF("c");
+        final ObjectDataInput in = reader.getRawDataInput();
+        predicate = in.readObject();
+    }
+
+    public Permission getRequiredPermission() {
+        return new MapPermission(name, ActionConstants.ACTION_READ);
+    }
+
+    @Override
+    public String getDistributedObjectName() {
+        return name;
+    }
+
+    @Override
+    public String getMethodName() {
+        return "getQueryCache";
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return new Object[]{predicate};
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.map.client;
+
+import com.hazelcast.client.impl.client.InvocationClientRequest;
+import com.hazelcast.client.impl.client.RetryableRequest;
+import com.hazelcast.client.impl.client.SecureRequest;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.map.AggregatingQueryReducer;
+import com.hazelcast.map.MapPortableHook;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.QueryReducer;
+import com.hazelcast.map.ReducedQueryResult;
+import com.hazelcast.map.operation.QueryOperation;
+import com.hazelcast.map.operation.QueryPartitionOperation;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.security.permission.ActionConstants;
+import com.hazelcast.security.permission.MapPermission;
+import com.hazelcast.util.ExceptionUtil;
+
+import java.io.IOException;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.map.MapService.SERVICE_NAME;
+
+/**
+ * Queries all members and folds the matching entries with a {@link QueryReducer}, the response is a
+ * {@link ReducedQueryResult} holding the results of all members.
+ */
+public class MapQueryReduceRequest extends InvocationClientRequest implements Portable, RetryableRequest, SecureRequest {
+
+    private String name;
+    private Predicate predicate;
+    private QueryReducer reducer;
+
+    public MapQueryReduceRequest() {
+    }
+
+    public MapQueryReduceRequest(String name, Predicate predicate, QueryReducer reducer) {
+        this.name = name;
+        this.predicate = predicate;
+        this.reducer = reducer;
+    }
+
+    @Override
+    protected void invoke() {
+        final Collection<MemberImpl> members = getClientEngine().getClusterService().getMemberList();
+        final int partitionCount = getClientEngine().getPartitionService().getPartitionCount();
+        final Set<Integer> partitionIds = new HashSet<Integer>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitionIds.add(i);
+        }
+        final List<Object> values = new ArrayList<Object>();
+        try {
+            final List<Future> futures = new ArrayList<Future>(members.size());
+            for (MemberImpl member : members) {
+                futures.add(createInvocationBuilder(SERVICE_NAME, new QueryOperation(name, predicate, reducer),
+                        member.getAddress()).invoke());
+            }
+            collectResults(futures, values, partitionIds);
+            if (!partitionIds.isEmpty()) {
+                final List<Future> missingFutures = new ArrayList<Future>(partitionIds.size());
+                for (Integer partitionId : partitionIds) {
+                    final QueryPartitionOperation op = new QueryPartitionOperation(name, predicate, reducer);
+                    op.setPartitionId(partitionId);
+                    missingFutures.add(createInvocationBuilder(SERVICE_NAME, op, partitionId).invoke());
+                }
+                collectResults(missingFutures, values, partitionIds);
+            }
+        } catch (Throwable t) {
+            throw ExceptionUtil.rethrow(t);
+        }
+        getEndpoint().sendResponse(new ReducedQueryResult(values), getCallId());
+    }
+
+    private void collectResults(List<Future> futures, List<Object> values, Set<Integer> partitionIds)
+            throws InterruptedException, ExecutionException {
+        for (Future future : futures) {
+            final ReducedQueryResult reducedResult = (ReducedQueryResult) future.get();
+            if (reducedResult == null) {
+                continue;
+            }
+            final List<Integer> queriedPartitionIds = reducedResult.getPartitionIds();
+            // a partition folded twice, e.g. reported by its old and new owner, would be counted twice.
+            if (queriedPartitionIds != null && partitionIds.containsAll(queriedPartitionIds)) {
+                partitionIds.removeAll(queriedPartitionIds);
+                values.addAll(reducedResult.getValues());
+            }
+        }
+    }
+
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    public int getFactoryId() {
+        return MapPortableHook.F_ID;
+    }
+
+    public int getClassId() {
+        return MapPortableHook.QUERY_REDUCE;
+    }
+
+    public void write(PortableWriter writer) throws IOException {
+        writer.writeUTF("n", name);
+        final ObjectDataOutput out = writer.getRawDataOutput();
+        out.writeObject(predicate);
+        out.writeObject(reducer);
+    }
+
+    public void read(PortableReader reader) throws IOException {
+        name = reader.readUTF("n");
+        final ObjectDataInput in = reader.getRawDataInput();
+        predicate = in.readObject();
+        reducer = in.readObject();
+    }
+
+    public Permission getRequiredPermission() {
+        return new MapPermission(name, ActionConstants.ACTION_READ);
+    }
+
+    @Override
+    public String getDistributedObjectName() {
+        return name;
+    }
+
+    @Override
+    public String getMethodName() {
+        return reducer instanceof AggregatingQueryReducer ? "aggregate" : "project";
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return new Object[]{predicate};
+    }
+}
@@ -144,7 +144,7 @@ public final class EvictionHelper {
         return index < 0 ? 0 : index;
     }
 
-    private static void interceptAndInvalidate(MapServiceContext mapServiceContext, long value, Data tmpKey, String mapName) {
+    static void interceptAndInvalidate(MapServiceContext mapServiceContext, long value, Data tmpKey, String mapName) {
         mapServiceContext.interceptAfterRemove(mapName, value);
         final NearCacheProvider nearCacheProvider = mapServiceContext.getNearCacheProvider();
         if (nearCacheProvider.isNearCacheAndInvalidationEnabled(mapName)) {
@@ -0,0 +1,182 @@
+/*
+* Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.hazelcast.map.eviction;
+
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.map.RecordStore;
+import com.hazelcast.map.record.Record;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.Iterator;
+
+import static com.hazelcast.map.eviction.EvictionHelper.evictIfNotLocked;
+import static com.hazelcast.map.eviction.EvictionHelper.fireEvent;
+
+/**
+ * Approximate LRU/LFU eviction by sampling.
+ * <p/>
+ * Instead of sorting the eviction criteria of all records of a partition, every eviction step samples
+ * a few records and merges them into a small pool of the best candidates seen so far. The best candidate
+ * of the pool is evicted. Candidates which are not evicted stay in the pool for the following steps and
+ * rounds, so the quality of the picks improves the longer the pool lives.
+ * <p/>
+ * Records are sampled with a cursor over the record store which is kept across rounds. Records are
+ * iterated in key hash order, so consecutive records are unrelated to their eviction criteria.
+ * <p/>
+ * Instances are owned by a single record store and only used from its partition thread.
+ */
+public final class EvictionPool {
+
+    /**
+     * Number of candidates kept between eviction steps.
+     */
+    static final int POOL_SIZE = 16;
+
+    private final int sampleCount;
+    private final Data[] keys = new Data[POOL_SIZE];
+    private final long[] criteria = new long[POOL_SIZE];
+    private int size;
+    private Iterator<Record> cursor;
+
+    public EvictionPool(int sampleCount) {
+        if (sampleCount < 1) {
+            throw new IllegalArgumentException("Sample count should be positive but found " + sampleCount);
+        }
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Evicts up to <code>evictableSize</code> records of the record store.
+     *
+     * @return number of evicted records.
+     */
+    public int removeEvictableRecords(RecordStore recordStore, int evictableSize, MapConfig mapConfig,
+                                      MapServiceContext mapServiceContext) {
+        final String mapName = mapConfig.getName();
+        // locked or vanished candidates do not count as evictions, bound the attempts anyway.
+        final int maxAttempts = 2 * evictableSize + POOL_SIZE;
+        int evictedRecordCounter = 0;
+        int attempts = 0;
+        while (evictedRecordCounter < evictableSize && attempts++ < maxAttempts) {
+            sample(recordStore);
+            if (size == 0) {
+                break;
+            }
+            final Data key = keys[0];
+            final long candidateCriteria = criteria[0];
+            removeFirst();
+            final Record record = recordStore.getRecord(key);
+            if (record == null) {
+                continue;
+            }
+            final long value = record.getEvictionCriteriaNumber();
+            if (value != candidateCriteria) {
+                // touched since it was sampled, let it compete again with its current criteria.
+                offer(key, value);
+                continue;
+            }
+            final Object tmpValue = record.getValue();
+            if (evictIfNotLocked(key, recordStore)) {
+                evictedRecordCounter++;
+                EvictionHelper.interceptAndInvalidate(mapServiceContext, value, key, mapName);
+                fireEvent(key, tmpValue, mapName, mapServiceContext);
+            }
+        }
+        return evictedRecordCounter;
+    }
+
+    /**
+     * Drops all candidates and the sampling cursor, e.g. when the record store is cleared.
+     */
+    public void reset() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        size = 0;
+        cursor = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void sample(RecordStore recordStore) {
+        final int recordCount = recordStore.size();
+        final int count = Math.min(sampleCount, recordCount);
+        boolean restarted = false;
+        int sampled = 0;
+        while (sampled < count) {
+            if (cursor == null || !cursor.hasNext()) {
+                if (restarted) {
+                    return;
+                }
+                cursor = recordStore.iterator();
+                restarted = true;
+                continue;
+            }
+            final Record record = cursor.next();
+            offer(record.getKey(), record.getEvictionCriteriaNumber());
+            sampled++;
+        }
+    }
+
+    /**
+     * Inserts the candidate keeping the pool sorted by ascending criteria,
+     * drops the worst candidate if the pool is full.
+     */
+    private void offer(Data key, long value) {
+        int existing = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                existing = i;
+                break;
+            }
+        }
+        if (existing != -1) {
+            remove(existing);
+        } else if (size == POOL_SIZE && value >= criteria[size - 1]) {
+            return;
+        }
+        if (size == POOL_SIZE) {
+            size--;
+        }
+        int index = size;
+        while (index > 0 && criteria[index - 1] > value) {
+            keys[index] = keys[index - 1];
+            criteria[index] = criteria[index - 1];
+            index--;
+        }
+        keys[index] = key;
+        criteria[index] = value;
+        size++;
+    }
+
+    private void removeFirst() {
+        remove(0);
+    }
+
+    private void remove(int index) {
+        final int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(criteria, index + 1, criteria, index, moved);
+        }
+        size--;
+        keys[size] = null;
+    }
+}
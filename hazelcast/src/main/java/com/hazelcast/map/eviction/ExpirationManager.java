@@ -10,10 +10,6 @@ import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.OperationService;
 import com.hazelcast.util.Clock;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
@@ -28,7 +24,11 @@ public class ExpirationManager {
 
     private static final long INITIAL_DELAY = 5;
 
-    private static final long PERIOD = 5;
+    /**
+     * Record stores index expirable records by deadline, a run only costs as much as there are
+     * expired records, so it can run often.
+     */
+    private static final long PERIOD = 1;
 
     private static final TimeUnit UNIT = TimeUnit.SECONDS;
 
@@ -49,77 +49,33 @@ public class ExpirationManager {
     /**
      * Periodically clears expired entries.(ttl & idle)
      * This task provides per partition expiration operation logic. (not per map, not per record store).
-     * Fires cleanup operations at most partition operation thread count or some factor of it in one round.
+     * Record stores only visit their due records, so every partition having expirable records
+     * gets a cleanup operation in each round.
      */
     private class ClearExpiredRecordsTask implements Runnable {
 
-        private static final int EXPIRATION_PERCENTAGE = 10;
-
         private static final long MIN_MILLIS_DIFF_BETWEEN_TWO_RUNS = 1000;
 
-        private final Comparator<PartitionContainer> partitionContainerComparator = new Comparator<PartitionContainer>() {
-            @Override
-            public int compare(PartitionContainer o1, PartitionContainer o2) {
-                final long s1 = o1.getLastCleanupTime();
-                final long s2 = o2.getLastCleanupTime();
-                return (s1 < s2) ? -1 : ((s1 == s2) ? 0 : 1);
-            }
-        };
-
         public void run() {
             final long now = Clock.currentTimeMillis();
             final NodeEngine nodeEngine = ExpirationManager.this.nodeEngine;
+            final OperationService operationService = nodeEngine.getOperationService();
             final int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
-            List<PartitionContainer> partitionContainers = Collections.emptyList();
-            boolean createLazy = true;
-            int currentlyRunningCleanupOperationsCount = 0;
             for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
                 InternalPartition partition = nodeEngine.getPartitionService().getPartition(partitionId, false);
                 if (partition.isOwnerOrBackup(nodeEngine.getThisAddress())) {
                     final PartitionContainer partitionContainer = mapServiceContext.getPartitionContainer(partitionId);
-                    if (isContainerEmpty(partitionContainer)) {
-                        continue;
-                    }
-                    if (hasRunningCleanup(partitionContainer)) {
-                        currentlyRunningCleanupOperationsCount++;
-                        continue;
-                    }
-                    if (currentlyRunningCleanupOperationsCount > getMaxCleanupOperationCountInOneRound()
+                    if (isContainerEmpty(partitionContainer)
+                            || hasRunningCleanup(partitionContainer)
                             || notInProcessableTimeWindow(partitionContainer, now)
                             || notAnyExpirableRecord(partitionContainer)) {
                         continue;
                     }
-
-                    if (createLazy) {
-                        partitionContainers = new ArrayList<PartitionContainer>();
-                        createLazy = false;
-                    }
-                    partitionContainers.add(partitionContainer);
+                    // mark partition container as has on going expiration operation.
+                    partitionContainer.setHasRunningCleanup(true);
+                    operationService.executeOperation(createExpirationOperation(partitionId));
                 }
             }
-            if (partitionContainers.isEmpty()) {
-                return;
-            }
-            Collections.sort(partitionContainers, partitionContainerComparator);
-            sendCleanupOperations(partitionContainers);
-        }
-
-
-        private void sendCleanupOperations(List<PartitionContainer> partitionContainers) {
-            final int maxCleanupOperationCountInOneRound = getMaxCleanupOperationCountInOneRound();
-            final int start = 0;
-            int end = maxCleanupOperationCountInOneRound;
-            if (end > partitionContainers.size()) {
-                end = partitionContainers.size();
-            }
-            final List<PartitionContainer> partitionIds = partitionContainers.subList(start, end);
-            for (PartitionContainer container : partitionIds) {
-                // mark partition container as has on going expiration operation.
-                container.setHasRunningCleanup(true);
-                OperationService operationService = ExpirationManager.this.nodeEngine.getOperationService();
-                operationService.executeOperation(createExpirationOperation(EXPIRATION_PERCENTAGE,
-                        container.getPartitionId()));
-            }
         }
 
         private boolean expirable(RecordStore recordStore) {
@@ -134,11 +90,6 @@ public class ExpirationManager {
             return now - partitionContainer.getLastCleanupTime() < MIN_MILLIS_DIFF_BETWEEN_TWO_RUNS;
         }
 
-        private int getMaxCleanupOperationCountInOneRound() {
-            final int times = 3;
-            return times * ExpirationManager.this.nodeEngine.getOperationService().getPartitionOperationThreadCount();
-        }
-
         private boolean isContainerEmpty(PartitionContainer container) {
             long size = 0L;
             final ConcurrentMap<String, RecordStore> maps = container.getMaps();
@@ -171,8 +122,8 @@ public class ExpirationManager {
         }
     }
 
-    private Operation createExpirationOperation(int expirationPercentage, int partitionId) {
-        final ClearExpiredOperation clearExpiredOperation = new ClearExpiredOperation(expirationPercentage);
+    private Operation createExpirationOperation(int partitionId) {
+        final ClearExpiredOperation clearExpiredOperation = new ClearExpiredOperation();
         clearExpiredOperation
                 .setNodeEngine(nodeEngine)
                 .setCallerUuid(nodeEngine.getLocalMember().getUuid())
@@ -0,0 +1,229 @@
+/*
+* Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.hazelcast.map.eviction;
+
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel indexing the keys of a record store by their expiration deadline.
+ * <p/>
+ * Time is divided into ticks of {@link #TICK_MILLIS}. The wheel has {@link #LEVEL_COUNT} levels of
+ * {@link #SLOT_COUNT} slots, a slot of level <tt>n</tt> spans <tt>SLOT_COUNT^n</tt> ticks. A key is filed
+ * into the lowest level whose range covers its deadline and moves down a level each time the wheel reaches
+ * the slot it is filed in, until it is due in level 0. Scheduling and unscheduling are O(1), advancing
+ * the wheel costs one step per elapsed tick plus the keys which are moved down or become due,
+ * independent of the number of keys in the wheel.
+ * <p/>
+ * Deadlines are only hints: a due key has to be checked against its record, which may have been
+ * accessed or removed in the meantime. Keys whose deadline is beyond the range of the top level are
+ * filed into its farthest slot again and again until their deadline is in range.
+ * <p/>
+ * Not thread safe, a wheel is owned by a record store and only used from its partition thread.
+ */
+public final class ExpirationWheel {
+
+    /**
+     * Duration of one tick in milliseconds.
+     */
+    static final long TICK_MILLIS = 1000L;
+
+    static final int SLOT_BITS = 6;
+    static final int SLOT_COUNT = 1 << SLOT_BITS;
+    static final int LEVEL_COUNT = 4;
+
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    private static final long MAX_TICK_DELTA = (1L << (SLOT_BITS * LEVEL_COUNT)) - 1;
+
+    private final Node[][] slots = new Node[LEVEL_COUNT][SLOT_COUNT];
+    private final Map<Data, Node> nodes = new HashMap<Data, Node>();
+    private long currentTick;
+
+    public ExpirationWheel(long now) {
+        this.currentTick = now / TICK_MILLIS;
+    }
+
+    /**
+     * Schedules the key to be due at the given deadline, replaces the previous deadline of the key.
+     *
+     * @param key      key to schedule.
+     * @param deadline time in milliseconds.
+     */
+    public void schedule(Data key, long deadline) {
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = new Node(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.tick = toTick(deadline);
+        link(node);
+    }
+
+    /**
+     * Schedules the key unless it is already scheduled to be due earlier.
+     *
+     * @param key      key to schedule.
+     * @param deadline time in milliseconds.
+     */
+    public void scheduleIfEarlier(Data key, long deadline) {
+        final Node node = nodes.get(key);
+        if (node == null || toTick(deadline) < node.tick) {
+            schedule(key, deadline);
+        }
+    }
+
+    /**
+     * Removes the key from the wheel, its record was removed.
+     *
+     * @param key key to unschedule.
+     */
+    public void unschedule(Data key) {
+        final Node node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Advances the wheel up to the given time and removes the keys which became due.
+     *
+     * @param now time in milliseconds.
+     * @return due keys, their deadline is at or before <code>now</code>.
+     */
+    public List<Data> advance(long now) {
+        final long targetTick = now / TICK_MILLIS;
+        List<Data> dueKeys = Collections.emptyList();
+        while (currentTick < targetTick && !nodes.isEmpty()) {
+            currentTick++;
+            cascade();
+            final int index = (int) (currentTick & SLOT_MASK);
+            Node node = slots[0][index];
+            slots[0][index] = null;
+            while (node != null) {
+                final Node next = node.next;
+                nodes.remove(node.key);
+                if (dueKeys.isEmpty()) {
+                    dueKeys = new ArrayList<Data>();
+                }
+                dueKeys.add(node.key);
+                node = next;
+            }
+        }
+        // nothing to fire in between, jump.
+        currentTick = Math.max(currentTick, targetTick);
+        return dueKeys;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public void clear() {
+        for (Node[] level : slots) {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                level[i] = null;
+            }
+        }
+        nodes.clear();
+    }
+
+    /**
+     * Moves the keys of the higher level slots which the wheel reached with the current tick down.
+     */
+    private void cascade() {
+        long tick = currentTick;
+        for (int level = 1; level < LEVEL_COUNT; level++) {
+            if ((tick & SLOT_MASK) != 0) {
+                return;
+            }
+            tick >>>= SLOT_BITS;
+            final int index = (int) (tick & SLOT_MASK);
+            Node node = slots[level][index];
+            slots[level][index] = null;
+            while (node != null) {
+                final Node next = node.next;
+                link(node);
+                node = next;
+            }
+        }
+    }
+
+    private long toTick(long deadline) {
+        // round up, a key must not be due before its deadline.
+        final long tick = deadline / TICK_MILLIS + (deadline % TICK_MILLIS == 0 ? 0 : 1);
+        return Math.max(tick, currentTick + 1);
+    }
+
+    private void link(Node node) {
+        final long delta = Math.min(node.tick - currentTick, MAX_TICK_DELTA);
+        final long tick = currentTick + delta;
+        int level = 0;
+        while (level < LEVEL_COUNT - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        final int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        node.level = level;
+        node.index = index;
+        node.prev = null;
+        node.next = slots[level][index];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        slots[level][index] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            slots[node.level][node.index] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * Entry of a slot list.
+     */
+    private static final class Node {
+
+        final Data key;
+        long tick;
+        int level;
+        int index;
+        Node prev;
+        Node next;
+
+        Node(Data key) {
+            this.key = key;
+        }
+    }
+}
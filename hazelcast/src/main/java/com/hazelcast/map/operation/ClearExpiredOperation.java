@@ -38,10 +38,7 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class ClearExpiredOperation extends AbstractOperation implements PartitionAwareOperation {
 
-    private int expirationPercentage;
-
-    public ClearExpiredOperation(int expirationPercentage) {
-        this.expirationPercentage = expirationPercentage;
+    public ClearExpiredOperation() {
     }
 
     @Override
@@ -53,7 +50,7 @@ public class ClearExpiredOperation extends AbstractOperation implements Partitio
         final boolean isOwnerPartition = isOwner();
         for (final RecordStore recordStore : recordStores.values()) {
             if (recordStore.size() > 0 && recordStore.isExpirable()) {
-                recordStore.evictExpiredEntries(expirationPercentage, isOwnerPartition);
+                recordStore.evictExpiredEntries(isOwnerPartition);
             }
             cleanupEvictionStagingArea(recordStore, now);
         }
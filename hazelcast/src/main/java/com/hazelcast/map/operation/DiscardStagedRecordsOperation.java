@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.operation;
+
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.PartitionContainer;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.AbstractOperation;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.spi.impl.ResponseHandlerFactory;
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discards the records staged by {@link MapMigrationChunkOperation}s once their migration can no longer finish:
+ * the member they were received from left the cluster, or no chunk arrived before the staging deadline, e.g.
+ * because the operation cancelling the copy was lost. Only executed locally.
+ */
+public final class DiscardStagedRecordsOperation extends AbstractOperation implements PartitionAwareOperation {
+
+    private final Address leftMember;
+
+    /**
+     * @param leftMember the member which left the cluster, null to discard the staged records if they expired.
+     */
+    private DiscardStagedRecordsOperation(int partitionId, Address leftMember) {
+        this.leftMember = leftMember;
+        setPartitionId(partitionId);
+        setValidateTarget(false);
+    }
+
+    /**
+     * Discards the records staged from the given member which left the cluster.
+     */
+    public static void executeForLeftMember(MapService mapService, int partitionId, Address leftMember) {
+        execute(mapService, new DiscardStagedRecordsOperation(partitionId, leftMember));
+    }
+
+    /**
+     * Checks the staged records for expiry after the given delay, and again until they are discarded or used.
+     */
+    public static void scheduleExpiry(final MapService mapService, final int partitionId, long delayMillis) {
+        final NodeEngine nodeEngine = mapService.getMapServiceContext().getNodeEngine();
+        nodeEngine.getExecutionService().schedule(new Runnable() {
+            @Override
+            public void run() {
+                execute(mapService, new DiscardStagedRecordsOperation(partitionId, null));
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void execute(MapService mapService, DiscardStagedRecordsOperation op) {
+        final NodeEngine nodeEngine = mapService.getMapServiceContext().getNodeEngine();
+        op.setNodeEngine(nodeEngine);
+        op.setServiceName(MapService.SERVICE_NAME);
+        op.setService(mapService);
+        op.setResponseHandler(ResponseHandlerFactory.createEmptyResponseHandler());
+        nodeEngine.getOperationService().executeOperation(op);
+    }
+
+    @Override
+    public void run() {
+        final MapService mapService = getService();
+        final PartitionContainer container = mapService.getMapServiceContext().getPartitionContainer(getPartitionId());
+        final Address stagingSource = container.getStagingSource();
+        if (stagingSource == null) {
+            return;
+        }
+        if (leftMember != null) {
+            if (leftMember.equals(stagingSource)) {
+                container.discardStagedRecords();
+            }
+            return;
+        }
+        final long remaining = container.getStagingDeadline() - Clock.currentTimeMillis();
+        if (remaining > 0L) {
+            scheduleExpiry(mapService, getPartitionId(), remaining);
+        } else {
+            getLogger().warning("Discarding records of partition " + getPartitionId() + " staged for a migration from "
+                    + stagingSource + ", no chunk has arrived since " + container.getStagedChunkCount() + " chunks");
+            container.discardStagedRecords();
+        }
+    }
+
+    @Override
+    public boolean returnsResponse() {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.operation;
+
+import com.hazelcast.map.MapFetchResult;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.RecordStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.spi.ReadonlyOperation;
+
+import java.io.IOException;
+
+/**
+ * Fetches a page of the keys, and optionally values, of a partition, see
+ * {@link RecordStore#fetch(long, int, boolean)}.
+ */
+public class MapFetchOperation extends AbstractMapOperation implements PartitionAwareOperation, ReadonlyOperation {
+
+    private long cursor;
+    private int fetchSize;
+    private boolean withValues;
+    private transient MapFetchResult result;
+
+    public MapFetchOperation() {
+    }
+
+    public MapFetchOperation(String name, long cursor, int fetchSize, boolean withValues) {
+        super(name);
+        this.cursor = cursor;
+        this.fetchSize = fetchSize;
+        this.withValues = withValues;
+    }
+
+    public void run() {
+        final RecordStore recordStore = mapService.getMapServiceContext().getRecordStore(getPartitionId(), name);
+        result = recordStore.fetch(cursor, fetchSize, withValues);
+        if (mapContainer.getMapConfig().isStatisticsEnabled()) {
+            mapService.getMapServiceContext().getLocalMapStatsProvider().getLocalMapStatsImpl(name).incrementOtherOperations();
+        }
+    }
+
+    @Override
+    public Object getResponse() {
+        return result;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeLong(cursor);
+        out.writeInt(fetchSize);
+        out.writeBoolean(withValues);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        cursor = in.readLong();
+        fetchSize = in.readInt();
+        withValues = in.readBoolean();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.operation;
+
+import com.hazelcast.map.MapContainer;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.map.PartitionContainer;
+import com.hazelcast.map.record.Record;
+import com.hazelcast.map.record.RecordReplicationInfo;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.AbstractOperation;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.map.record.Records.applyRecordInfo;
+
+/**
+ * A chunk of the records of a migrating partition, sent by the source while the partition is still writable.
+ * <p/>
+ * The destination stages the records, see {@link PartitionContainer#stageRecord(String, Record)}, and puts them
+ * into its record stores together with the records changed after they were copied, see
+ * {@link MapReplicationOperation#MapReplicationOperation(MapService, PartitionContainer, int, Map)}.
+ * The first chunk of a copy and a cancelled copy discard the records staged before. Staged records are
+ * discarded as well when their source leaves the cluster or when no chunk arrives for twice the migration
+ * timeout, see {@link DiscardStagedRecordsOperation}.
+ */
+public class MapMigrationChunkOperation extends AbstractOperation implements PartitionAwareOperation {
+
+    private Map<String, List<RecordReplicationInfo>> data;
+    private boolean discardStaged;
+    private transient int size;
+
+    public MapMigrationChunkOperation() {
+    }
+
+    /**
+     * @param discardStaged true if the records staged before have to be discarded.
+     */
+    public MapMigrationChunkOperation(int partitionId, boolean discardStaged) {
+        this.data = new LinkedHashMap<String, List<RecordReplicationInfo>>();
+        this.discardStaged = discardStaged;
+        setPartitionId(partitionId);
+        setValidateTarget(false);
+    }
+
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    /**
+     * @return approximate number of bytes of the added records.
+     */
+    public int add(String mapName, Record record, MapService mapService) {
+        List<RecordReplicationInfo> records = data.get(mapName);
+        if (records == null) {
+            records = new ArrayList<RecordReplicationInfo>();
+            data.put(mapName, records);
+        }
+        final RecordReplicationInfo recordReplicationInfo
+                = MapReplicationOperation.createRecordReplicationInfo(record, mapService);
+        records.add(recordReplicationInfo);
+        size += recordReplicationInfo.getKey().totalSize();
+        if (recordReplicationInfo.getValue() != null) {
+            size += recordReplicationInfo.getValue().totalSize();
+        }
+        return size;
+    }
+
+    public void run() {
+        final MapService mapService = getService();
+        final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        final PartitionContainer container = mapServiceContext.getPartitionContainer(getPartitionId());
+        if (discardStaged) {
+            container.discardStagedRecords();
+        }
+        final long now = Clock.currentTimeMillis();
+        for (Map.Entry<String, List<RecordReplicationInfo>> entry : data.entrySet()) {
+            final String mapName = entry.getKey();
+            final MapContainer mapContainer = mapServiceContext.getMapContainer(mapName);
+            for (RecordReplicationInfo recordReplicationInfo : entry.getValue()) {
+                final Record record = mapContainer.createRecord(recordReplicationInfo.getKey(),
+                        recordReplicationInfo.getValue(), -1L, now);
+                applyRecordInfo(record, recordReplicationInfo);
+                container.stageRecord(mapName, record);
+            }
+        }
+        if (!data.isEmpty()) {
+            final long stagingMillis = 2 * TimeUnit.SECONDS.toMillis(
+                    getNodeEngine().getGroupProperties().PARTITION_MIGRATION_TIMEOUT.getLong());
+            if (container.onChunkStaged(getCallerAddress(), now + stagingMillis)) {
+                DiscardStagedRecordsOperation.scheduleExpiry(mapService, getPartitionId(), stagingMillis);
+            }
+        }
+    }
+
+    @Override
+    public Object getResponse() {
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public String getServiceName() {
+        return MapService.SERVICE_NAME;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        out.writeBoolean(discardStaged);
+        out.writeInt(data.size());
+        for (Map.Entry<String, List<RecordReplicationInfo>> entry : data.entrySet()) {
+            out.writeUTF(entry.getKey());
+            final List<RecordReplicationInfo> records = entry.getValue();
+            out.writeInt(records.size());
+            for (RecordReplicationInfo recordReplicationInfo : records) {
+                out.writeObject(recordReplicationInfo);
+            }
+        }
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        discardStaged = in.readBoolean();
+        final int mapCount = in.readInt();
+        data = new LinkedHashMap<String, List<RecordReplicationInfo>>(mapCount);
+        for (int i = 0; i < mapCount; i++) {
+            final String mapName = in.readUTF();
+            final int recordCount = in.readInt();
+            final List<RecordReplicationInfo> records = new ArrayList<RecordReplicationInfo>(recordCount);
+            for (int j = 0; j < recordCount; j++) {
+                final RecordReplicationInfo recordReplicationInfo = in.readObject();
+                records.add(recordReplicationInfo);
+            }
+            data.put(mapName, records);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MapMigrationChunkOperation{partitionId=" + getPartitionId() + '}';
+    }
+}
@@ -17,6 +17,7 @@
 package com.hazelcast.map.operation;
 
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.HazelcastException;
 import com.hazelcast.map.MapContainer;
 import com.hazelcast.map.MapService;
 import com.hazelcast.map.MapServiceContext;
@@ -38,6 +39,7 @@ import com.hazelcast.util.Clock;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -55,6 +57,22 @@ public class MapReplicationOperation extends AbstractOperation {
 
     private Map<String, Set<RecordReplicationInfo>> data;
     private Map<String, List<DelayedEntry>> delayedEntries;
+    /**
+     * Keys removed since a pre-copy of the partition began, per map.
+     */
+    private Map<String, Set<Data>> removedKeys = Collections.emptyMap();
+    /**
+     * Maps whose records in {@link #data} replace all records of the destination.
+     */
+    private Set<String> replacedMaps = Collections.emptySet();
+    /**
+     * True if the destination puts the records staged by {@link MapMigrationChunkOperation}s first.
+     */
+    private boolean finishesPreCopy;
+    /**
+     * Number of non-empty chunks the destination has to have staged, see {@link #finishesPreCopy}.
+     */
+    private int stagedChunkCount;
 
     public MapReplicationOperation() {
     }
@@ -84,6 +102,54 @@ public class MapReplicationOperation extends AbstractOperation {
         readDelayedEntries(container);
     }
 
+    /**
+     * Replicates the changes made since a pre-copy of the partition began, the partition is migrated to
+     * the destination of the pre-copy.
+     *
+     * @param changedKeys      keys changed since the pre-copy began per copied map, null if all records of a map
+     *                         have to be replicated. Maps which were not copied are replicated in full, the records
+     *                         of maps destroyed meanwhile are discarded by the destination.
+     * @param stagedChunkCount number of non-empty chunks sent by the pre-copy. The operation fails if the
+     *                         destination has not staged as many, e.g. because it discarded them meanwhile.
+     */
+    public MapReplicationOperation(MapService mapService, PartitionContainer container, int partitionId,
+                                   Map<String, Set<Data>> changedKeys, int stagedChunkCount) {
+        this.setPartitionId(partitionId).setReplicaIndex(0);
+        finishesPreCopy = true;
+        this.stagedChunkCount = stagedChunkCount;
+        data = new HashMap<String, Set<RecordReplicationInfo>>(container.getMaps().size());
+        removedKeys = new HashMap<String, Set<Data>>();
+        replacedMaps = new HashSet<String>();
+        for (Entry<String, RecordStore> entry : container.getMaps().entrySet()) {
+            final String name = entry.getKey();
+            final RecordStore recordStore = entry.getValue();
+            final Set<Data> keys = changedKeys.get(name);
+            final Set<RecordReplicationInfo> recordSet;
+            if (keys == null) {
+                recordSet = new HashSet<RecordReplicationInfo>(recordStore.size());
+                final Iterator<Record> iterator = recordStore.iterator();
+                while (iterator.hasNext()) {
+                    recordSet.add(createRecordReplicationInfo(iterator.next(), mapService));
+                }
+                replacedMaps.add(name);
+            } else {
+                recordSet = new HashSet<RecordReplicationInfo>(keys.size());
+                final Set<Data> removed = new HashSet<Data>();
+                for (Data key : keys) {
+                    final Record record = recordStore.getRecord(key);
+                    if (record == null) {
+                        removed.add(key);
+                    } else {
+                        recordSet.add(createRecordReplicationInfo(record, mapService));
+                    }
+                }
+                removedKeys.put(name, removed);
+            }
+            data.put(name, recordSet);
+        }
+        readDelayedEntries(container);
+    }
+
     private void readDelayedEntries(PartitionContainer container) {
         delayedEntries = new HashMap<String, List<DelayedEntry>>(container.getMaps().size());
         for (Entry<String, RecordStore> entry : container.getMaps().entrySet()) {
@@ -105,23 +171,37 @@ public class MapReplicationOperation extends AbstractOperation {
     public void run() {
         MapService mapService = getService();
         final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        final PartitionContainer container = mapServiceContext.getPartitionContainer(getPartitionId());
+        if (finishesPreCopy && container.getStagedChunkCount() != stagedChunkCount) {
+            container.discardStagedRecords();
+            throw new HazelcastException("Expected " + stagedChunkCount + " staged chunks of partition " + getPartitionId()
+                    + " but found " + container.getStagedChunkCount() + ", the migration has to be repeated");
+        }
         if (data != null) {
             for (Entry<String, Set<RecordReplicationInfo>> dataEntry : data.entrySet()) {
                 Set<RecordReplicationInfo> recordReplicationInfos = dataEntry.getValue();
                 final String mapName = dataEntry.getKey();
                 RecordStore recordStore = mapServiceContext.getRecordStore(getPartitionId(), mapName);
+                putStagedRecords(container, recordStore);
+                if (replacedMaps.contains(mapName)) {
+                    removeRecordsNotIn(recordStore, recordReplicationInfos);
+                }
                 for (RecordReplicationInfo recordReplicationInfo : recordReplicationInfos) {
-                    Data key = recordReplicationInfo.getKey();
-                    final Data value = recordReplicationInfo.getValue();
-                    final MapContainer mapContainer = mapServiceContext.getMapContainer(mapName);
-                    Record newRecord = mapContainer.createRecord(key, value, -1L, Clock.currentTimeMillis());
-                    applyRecordInfo(newRecord, recordReplicationInfo);
-                    recordStore.putRecord(key, newRecord);
+                    putRecord(recordStore, recordReplicationInfo);
+                }
+                final Set<Data> removed = removedKeys.get(mapName);
+                if (removed != null) {
+                    for (Data key : removed) {
+                        recordStore.removeBackup(key);
+                    }
                 }
                 recordStore.setLoaded(true);
 
             }
         }
+        if (finishesPreCopy) {
+            container.discardStagedRecords();
+        }
         for (Entry<String, List<DelayedEntry>> entry : delayedEntries.entrySet()) {
             final RecordStore recordStore = mapServiceContext.getRecordStore(getPartitionId(), entry.getKey());
             final List<DelayedEntry> replicatedEntries = entry.getValue();
@@ -131,6 +211,45 @@ public class MapReplicationOperation extends AbstractOperation {
         }
     }
 
+    private void putStagedRecords(PartitionContainer container, RecordStore recordStore) {
+        if (!finishesPreCopy) {
+            return;
+        }
+        final Map<Data, Record> stagedRecords = container.removeStagedRecords(recordStore.getName());
+        if (stagedRecords == null) {
+            return;
+        }
+        if (replacedMaps.contains(recordStore.getName())) {
+            // all records of the map are part of this operation.
+            for (Record record : stagedRecords.values()) {
+                record.invalidate();
+            }
+            return;
+        }
+        for (Map.Entry<Data, Record> entry : stagedRecords.entrySet()) {
+            recordStore.putRecord(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void putRecord(RecordStore recordStore, RecordReplicationInfo recordReplicationInfo) {
+        final Data key = recordReplicationInfo.getKey();
+        final Data value = recordReplicationInfo.getValue();
+        final MapContainer mapContainer = recordStore.getMapContainer();
+        final Record newRecord = mapContainer.createRecord(key, value, -1L, Clock.currentTimeMillis());
+        applyRecordInfo(newRecord, recordReplicationInfo);
+        recordStore.putRecord(key, newRecord);
+    }
+
+    private void removeRecordsNotIn(RecordStore recordStore, Set<RecordReplicationInfo> recordReplicationInfos) {
+        final Set<Data> keys = new HashSet<Data>(recordStore.getRecordMap().keySet());
+        for (RecordReplicationInfo recordReplicationInfo : recordReplicationInfos) {
+            keys.remove(recordReplicationInfo.getKey());
+        }
+        for (Data key : keys) {
+            recordStore.removeBackup(key);
+        }
+    }
+
     public String getServiceName() {
         return MapService.SERVICE_NAME;
     }
@@ -165,6 +284,26 @@ public class MapReplicationOperation extends AbstractOperation {
             }
             delayedEntries.put(mapName, delayedEntriesList);
         }
+        size = in.readInt();
+        removedKeys = new HashMap<String, Set<Data>>(size);
+        for (int i = 0; i < size; i++) {
+            final String mapName = in.readUTF();
+            final int keyCount = in.readInt();
+            final Set<Data> keys = new HashSet<Data>(keyCount);
+            for (int j = 0; j < keyCount; j++) {
+                final Data key = new Data();
+                key.readData(in);
+                keys.add(key);
+            }
+            removedKeys.put(mapName, keys);
+        }
+        finishesPreCopy = in.readBoolean();
+        stagedChunkCount = in.readInt();
+        size = in.readInt();
+        replacedMaps = new HashSet<String>(size);
+        for (int i = 0; i < size; i++) {
+            replacedMaps.add(in.readUTF());
+        }
     }
 
     protected void writeInternal(final ObjectDataOutput out) throws IOException {
@@ -193,13 +332,27 @@ public class MapReplicationOperation extends AbstractOperation {
                 out.writeInt(e.getPartitionId());
             }
         }
+        out.writeInt(removedKeys.size());
+        for (Entry<String, Set<Data>> entry : removedKeys.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Data key : entry.getValue()) {
+                key.writeData(out);
+            }
+        }
+        out.writeBoolean(finishesPreCopy);
+        out.writeInt(stagedChunkCount);
+        out.writeInt(replacedMaps.size());
+        for (String mapName : replacedMaps) {
+            out.writeUTF(mapName);
+        }
     }
 
     public boolean isEmpty() {
         return data == null || data.isEmpty();
     }
 
-    private RecordReplicationInfo createRecordReplicationInfo(Record record, MapService mapService) {
+    static RecordReplicationInfo createRecordReplicationInfo(Record record, MapService mapService) {
         final RecordInfo info = Records.buildRecordInfo(record);
         return new RecordReplicationInfo(record.getKey(), mapService.getMapServiceContext().toData(record.getValue()), info);
     }
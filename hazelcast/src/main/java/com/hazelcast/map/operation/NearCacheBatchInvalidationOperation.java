@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.operation;
+
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.AbstractOperation;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.spi.ReadonlyOperation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Near cache invalidations of one partition, sent by the partition owner to the other members.
+ * <p/>
+ * For each map the batch carries the sequence number of its first key, the keys of a map in a partition
+ * are numbered consecutively by the owner. The operation runs on the partition thread of the receiver,
+ * so batches of a partition are applied in the order they were sent, the receiver does not have to own
+ * the partition.
+ */
+public class NearCacheBatchInvalidationOperation extends AbstractOperation
+        implements PartitionAwareOperation, ReadonlyOperation {
+
+    private String source;
+    private List<String> mapNames;
+    private List<Long> firstSequences;
+    private List<List<Data>> keys;
+
+    public NearCacheBatchInvalidationOperation() {
+    }
+
+    /**
+     * @param source uuid of the partition owner numbering the invalidations.
+     */
+    public NearCacheBatchInvalidationOperation(String source, int mapCount) {
+        this.source = source;
+        this.mapNames = new ArrayList<String>(mapCount);
+        this.firstSequences = new ArrayList<Long>(mapCount);
+        this.keys = new ArrayList<List<Data>>(mapCount);
+        setValidateTarget(false);
+    }
+
+    public void add(String mapName, long firstSequence, List<Data> mapKeys) {
+        mapNames.add(mapName);
+        firstSequences.add(firstSequence);
+        keys.add(mapKeys);
+    }
+
+    public void run() {
+        final MapService mapService = getService();
+        final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        for (int i = 0; i < mapNames.size(); i++) {
+            final String mapName = mapNames.get(i);
+            if (mapServiceContext.getMapContainer(mapName).isNearCacheEnabled()) {
+                mapServiceContext.getNearCacheProvider().getNearCache(mapName)
+                        .invalidate(getPartitionId(), source, firstSequences.get(i), keys.get(i));
+            } else {
+                getLogger().warning("Near cache invalidation batch has been accepted while near cache is not enabled for "
+                        + mapName + " map. Possible configuration conflict among nodes.");
+            }
+        }
+    }
+
+    @Override
+    public boolean returnsResponse() {
+        return false;
+    }
+
+    @Override
+    public void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(source);
+        out.writeInt(mapNames.size());
+        for (int i = 0; i < mapNames.size(); i++) {
+            out.writeUTF(mapNames.get(i));
+            out.writeLong(firstSequences.get(i));
+            final List<Data> mapKeys = keys.get(i);
+            out.writeInt(mapKeys.size());
+            for (Data key : mapKeys) {
+                key.writeData(out);
+            }
+        }
+    }
+
+    @Override
+    public void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        source = in.readUTF();
+        final int mapCount = in.readInt();
+        mapNames = new ArrayList<String>(mapCount);
+        firstSequences = new ArrayList<Long>(mapCount);
+        keys = new ArrayList<List<Data>>(mapCount);
+        for (int i = 0; i < mapCount; i++) {
+            mapNames.add(in.readUTF());
+            firstSequences.add(in.readLong());
+            final int size = in.readInt();
+            final List<Data> mapKeys = new ArrayList<Data>(size);
+            for (int j = 0; j < size; j++) {
+                final Data key = new Data();
+                key.readData(in);
+                mapKeys.add(key);
+            }
+            keys.add(mapKeys);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheBatchInvalidationOperation{}";
+    }
+}
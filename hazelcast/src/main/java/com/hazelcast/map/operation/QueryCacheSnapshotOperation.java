@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.operation;
+
+import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.map.QueryCacheSnapshot;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.spi.ReadonlyOperation;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Takes a {@link QueryCacheSnapshot} of a partition. It runs on the partition thread, so the snapshot contains
+ * exactly the changes numbered up to the sequence it carries.
+ */
+public class QueryCacheSnapshotOperation extends AbstractMapOperation
+        implements PartitionAwareOperation, ReadonlyOperation {
+
+    private String cacheId;
+    private Predicate predicate;
+    private QueryCacheSnapshot snapshot;
+
+    public QueryCacheSnapshotOperation() {
+    }
+
+    public QueryCacheSnapshotOperation(String name, String cacheId, Predicate predicate) {
+        super(name);
+        this.cacheId = cacheId;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void run() {
+        final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        final int partitionId = getPartitionId();
+        final Collection<QueryableEntry> entries = mapServiceContext.getMapContextQuerySupport()
+                .queryOnPartition(name, predicate, partitionId);
+        final long sequence = mapServiceContext.getQueryCacheEventBatcher().getSequence(cacheId, name, partitionId);
+        snapshot = new QueryCacheSnapshot(partitionId, getNodeEngine().getLocalMember().getUuid(), sequence,
+                entries.size());
+        for (QueryableEntry entry : entries) {
+            snapshot.add(entry.getKeyData(), entry.getValueData());
+        }
+    }
+
+    @Override
+    public Object getResponse() {
+        return snapshot;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(cacheId);
+        out.writeObject(predicate);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        cacheId = in.readUTF();
+        predicate = in.readObject();
+    }
+}
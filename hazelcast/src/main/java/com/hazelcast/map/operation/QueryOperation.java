@@ -20,7 +20,10 @@ import com.hazelcast.core.MemberLeftException;
 import com.hazelcast.map.MapContextQuerySupport;
 import com.hazelcast.map.MapService;
 import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.map.PagingCursorStore;
+import com.hazelcast.map.QueryReducer;
 import com.hazelcast.map.QueryResult;
+import com.hazelcast.map.ReducedQueryResult;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.query.PagingPredicate;
@@ -31,28 +34,35 @@ import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.spi.ExceptionAction;
 import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.OperationAccessor;
+import com.hazelcast.spi.PartitionAwareOperation;
+import com.hazelcast.spi.ReadonlyOperation;
+import com.hazelcast.spi.ResponseHandler;
 import com.hazelcast.spi.exception.TargetNotMemberException;
 import com.hazelcast.util.SortingUtil;
+import com.hazelcast.util.TopEntryCollector;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class QueryOperation extends AbstractMapOperation {
 
     Predicate predicate;
     QueryResult result;
     PagingPredicate pagingPredicate;
+    QueryReducer reducer;
+    ReducedQueryResult reducedResult;
 
     public QueryOperation(String mapName, Predicate predicate) {
         super(mapName);
@@ -62,6 +72,14 @@ public class QueryOperation extends AbstractMapOperation {
         }
     }
 
+    /**
+     * Folds the matching entries with the given reducer, the response is a {@link ReducedQueryResult}.
+     */
+    public QueryOperation(String mapName, Predicate predicate, QueryReducer reducer) {
+        this(mapName, predicate);
+        this.reducer = reducer;
+    }
+
     public QueryOperation() {
     }
 
@@ -69,26 +87,23 @@ public class QueryOperation extends AbstractMapOperation {
         List<Integer> initialPartitions = mapService.getMapServiceContext().getOwnedPartitions();
         IndexService indexService = mapService.getMapServiceContext().getMapContainer(name).getIndexService();
         Set<QueryableEntry> entries = null;
-        // TODO: fix
-        if (!getNodeEngine().getPartitionService().hasOnGoingMigration()) {
-            entries = indexService.query(predicate);
-        }
-        result = new QueryResult();
-        if (entries != null) {
-            for (QueryableEntry entry : entries) {
-                result.add(new QueryResultEntryImpl(entry.getKeyData(), entry.getKeyData(), entry.getValueData()));
-            }
+        boolean complete = true;
+        if (pagingPredicate != null && reducer == null) {
+            complete = queryPage(initialPartitions, indexService);
         } else {
-            // run in parallel
-            if (pagingPredicate != null) {
-                runParallelForPaging(initialPartitions);
-            } else {
-                runParallel(initialPartitions);
+            // TODO: fix
+            if (!getNodeEngine().getPartitionService().hasOnGoingMigration()) {
+                entries = indexService.query(predicate);
             }
+            complete = query(entries, initialPartitions);
         }
         List<Integer> finalPartitions = mapService.getMapServiceContext().getOwnedPartitions();
-        if (initialPartitions.equals(finalPartitions)) {
-            result.setPartitionIds(finalPartitions);
+        if (complete && initialPartitions.equals(finalPartitions)) {
+            if (reducedResult != null) {
+                reducedResult.setPartitionIds(finalPartitions);
+            } else {
+                result.setPartitionIds(finalPartitions);
+            }
         }
         if (mapContainer.getMapConfig().isStatisticsEnabled()) {
             final MapServiceContext mapServiceContext = ((MapService) getService())
@@ -98,48 +113,184 @@ public class QueryOperation extends AbstractMapOperation {
         }
     }
 
-    protected void runParallel(final List<Integer> initialPartitions) throws InterruptedException, ExecutionException {
+    /**
+     * @return false if a partition could not be queried on this member.
+     */
+    private boolean query(Set<QueryableEntry> entries, List<Integer> initialPartitions)
+            throws InterruptedException, ExecutionException {
+        boolean complete = true;
+        if (entries != null && reducer != null) {
+            final Object partitionResult = reducer.reducePartition(entries);
+            reducedResult = new ReducedQueryResult(reducer.reduce(Collections.singletonList(partitionResult)));
+        } else if (entries != null) {
+            result = new QueryResult(entries.size());
+            addEntries(entries);
+        } else {
+            final List<Object> partitionResults = queryPartitions(initialPartitions, Integer.MAX_VALUE);
+            complete = partitionResults != null;
+            if (reducer != null) {
+                reducedResult = new ReducedQueryResult(complete
+                        ? reducer.reduce(partitionResults) : Collections.emptyList());
+            } else if (!complete) {
+                result = new QueryResult();
+            } else {
+                addAll(partitionResults);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Queries the sorted entries following the nearest anchor of the paging predicate up to its current page,
+     * see {@link SortingUtil#getFetchSize(PagingPredicate)}. Some more pages are queried and kept in the
+     * {@link PagingCursorStore} of the map, the next page requests are served from there as long as the
+     * partitions of this member are not modified.
+     *
+     * @return false if a partition could not be queried on this member.
+     */
+    private boolean queryPage(List<Integer> initialPartitions, IndexService indexService)
+            throws InterruptedException, ExecutionException {
+        final PagingCursorStore cursorStore = mapContainer.getPagingCursorStore();
+        final int fetchSize = SortingUtil.getFetchSize(pagingPredicate);
+        final long modificationStamp = getModificationStamp(initialPartitions);
+        List<QueryableEntry> page = cursorStore.fetch(pagingPredicate, initialPartitions, modificationStamp, fetchSize);
+        if (page == null) {
+            final int limit = cursorStore.getQueryLimit(fetchSize, pagingPredicate.getPageSize());
+            final List<QueryableEntry> entries = queryPage(initialPartitions, indexService, limit);
+            if (entries == null) {
+                result = new QueryResult();
+                return false;
+            }
+            final boolean allEntries = entries.size() <= limit;
+            final List<QueryableEntry> sortedEntries = allEntries ? entries : entries.subList(0, limit);
+            cursorStore.put(pagingPredicate, initialPartitions, modificationStamp, sortedEntries, allEntries);
+            page = sortedEntries.subList(0, Math.min(fetchSize, sortedEntries.size()));
+        }
+        result = new QueryResult(page.size());
+        addEntries(page);
+        return true;
+    }
+
+    /**
+     * @return sorted entries following the nearest anchor, more than limit of them if some were left out,
+     * null if a partition could not be queried on this member.
+     */
+    private List<QueryableEntry> queryPage(List<Integer> initialPartitions, IndexService indexService, int limit)
+            throws InterruptedException, ExecutionException {
+        final Predicate innerPredicate = pagingPredicate.getPredicate();
+        Set<QueryableEntry> indexedEntries = null;
+        if (!getNodeEngine().getPartitionService().hasOnGoingMigration()) {
+            indexedEntries = indexService.query(innerPredicate);
+        }
+        if (indexedEntries != null) {
+            // one more entry tells that some were left out.
+            final TopEntryCollector<QueryableEntry> collector
+                    = new TopEntryCollector<QueryableEntry>(pagingPredicate, limit + 1);
+            for (QueryableEntry entry : indexedEntries) {
+                collector.add(entry);
+            }
+            return collector.toSortedList();
+        }
+        final List<Object> partitionResults = queryPartitions(initialPartitions, limit + 1);
+        if (partitionResults == null) {
+            return null;
+        }
+        // each partition result is a sorted run already, the merge sort takes them over as they are.
+        final List<QueryableEntry> merged = new ArrayList<QueryableEntry>();
+        for (Object collection : partitionResults) {
+            merged.addAll((Collection<QueryableEntry>) collection);
+        }
+        Collections.sort(merged, SortingUtil.newComparator(pagingPredicate));
+        return merged.size() > limit + 1 ? merged.subList(0, limit + 1) : merged;
+    }
+
+    private long getModificationStamp(List<Integer> partitionIds) {
+        final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        long modificationStamp = 0;
+        for (Integer partitionId : partitionIds) {
+            modificationStamp += mapServiceContext.getPartitionContainer(partitionId)
+                    .getRecordStore(name).getModificationCount();
+        }
+        return modificationStamp;
+    }
+
+    /**
+     * Queries the given partitions in parallel, on the partition threads or on the query executor,
+     * see {@link com.hazelcast.instance.GroupProperties#PROP_QUERY_PARTITION_THREADS_ENABLED}.
+     *
+     * @param limit maximum number of sorted entries per partition for a paging predicate.
+     * @return matching entries per partition, folded by the reducer if there is one, null if a partition
+     * could not be queried on this member within the call timeout.
+     */
+    private List<Object> queryPartitions(List<Integer> partitionIds, int limit)
+            throws InterruptedException, ExecutionException {
+        if (getNodeEngine().getGroupProperties().QUERY_PARTITION_THREADS_ENABLED.getBoolean()) {
+            return queryOnPartitionThreads(partitionIds, limit);
+        }
+        return queryOnQueryExecutor(partitionIds, limit);
+    }
+
+    private List<Object> queryOnPartitionThreads(List<Integer> partitionIds, int limit) throws InterruptedException {
         final NodeEngine nodeEngine = getNodeEngine();
-        final ExecutorService executor
-                = nodeEngine.getExecutionService().getExecutor(ExecutionService.QUERY_EXECUTOR);
-        final List<Future<Collection<QueryableEntry>>> lsFutures
-                = new ArrayList<Future<Collection<QueryableEntry>>>(initialPartitions.size());
-        for (Integer partitionId : initialPartitions) {
-            Future<Collection<QueryableEntry>> f = executor.submit(new PartitionCallable(partitionId));
-            lsFutures.add(f);
+        final Object[] responses = new Object[partitionIds.size()];
+        final CountDownLatch latch = new CountDownLatch(responses.length);
+        for (int i = 0; i < responses.length; i++) {
+            final Operation op = new LocalQueryPartitionOperation(name, predicate, reducer, limit);
+            op.setNodeEngine(nodeEngine)
+                    .setPartitionId(partitionIds.get(i))
+                    .setResponseHandler(new PartitionResponseHandler(responses, i, latch))
+                    .setServiceName(getServiceName())
+                    .setService(getService())
+                    .setCallerUuid(getCallerUuid());
+            OperationAccessor.setCallerAddress(op, getCallerAddress());
+            nodeEngine.getOperationService().executeOperation(op);
+        }
+        if (!latch.await(getCallTimeout(), TimeUnit.MILLISECONDS)) {
+            // a partition thread is stuck, the caller treats the result as incomplete like for a failed partition.
+            return null;
         }
-        for (Future<Collection<QueryableEntry>> future : lsFutures) {
-            final Collection<QueryableEntry> collection = future.get();
-            if (collection != null) {
-                for (QueryableEntry entry : collection) {
-                    result.add(new QueryResultEntryImpl(entry.getKeyData(), entry.getKeyData(), entry.getValueData()));
-                }
+        final List<Object> partitionResults = new ArrayList<Object>(responses.length);
+        for (Object response : responses) {
+            if (response instanceof Throwable) {
+                // e.g. the partition moved, the caller queries the partitions of this member once more.
+                return null;
             }
+            partitionResults.add(response);
         }
+        return partitionResults;
     }
 
-    protected void runParallelForPaging(List<Integer> initialPartitions) throws InterruptedException, ExecutionException {
+    private List<Object> queryOnQueryExecutor(List<Integer> partitionIds, int limit)
+            throws InterruptedException, ExecutionException {
         final NodeEngine nodeEngine = getNodeEngine();
         final ExecutorService executor
                 = nodeEngine.getExecutionService().getExecutor(ExecutionService.QUERY_EXECUTOR);
-        final List<Future<Collection<QueryableEntry>>> lsFutures
-                = new ArrayList<Future<Collection<QueryableEntry>>>(initialPartitions.size());
-
-        final Comparator<Map.Entry> wrapperComparator = SortingUtil.newComparator(pagingPredicate);
-        for (final Integer partitionId : initialPartitions) {
-            Future<Collection<QueryableEntry>> f = executor.submit(new PartitionCallable(partitionId));
+        final List<Future<Object>> lsFutures = new ArrayList<Future<Object>>(partitionIds.size());
+        for (Integer partitionId : partitionIds) {
+            Future<Object> f = executor.submit(new PartitionCallable(partitionId, limit));
             lsFutures.add(f);
         }
-        List<QueryableEntry> toMerge = new LinkedList<QueryableEntry>();
-        for (Future<Collection<QueryableEntry>> future : lsFutures) {
-            final Collection<QueryableEntry> collection = future.get();
-            toMerge.addAll(collection);
+        final List<Object> partitionResults = new ArrayList<Object>(lsFutures.size());
+        for (Future<Object> future : lsFutures) {
+            final Object partitionResult = future.get();
+            partitionResults.add(partitionResult != null ? partitionResult : Collections.<QueryableEntry>emptyList());
         }
-        Collections.sort(toMerge, wrapperComparator);
-        if (toMerge.size() > pagingPredicate.getPageSize()) {
-            toMerge = toMerge.subList(0, pagingPredicate.getPageSize());
+        return partitionResults;
+    }
+
+    private void addAll(List<Object> partitionResults) {
+        int size = 0;
+        for (Object collection : partitionResults) {
+            size += ((Collection<QueryableEntry>) collection).size();
+        }
+        result = new QueryResult(size);
+        for (Object collection : partitionResults) {
+            addEntries((Collection<QueryableEntry>) collection);
         }
-        for (QueryableEntry entry : toMerge) {
+    }
+
+    private void addEntries(Collection<QueryableEntry> entries) {
+        for (QueryableEntry entry : entries) {
             result.add(new QueryResultEntryImpl(entry.getKeyData(), entry.getKeyData(), entry.getValueData()));
         }
     }
@@ -155,37 +306,96 @@ public class QueryOperation extends AbstractMapOperation {
     }
 
     public Object getResponse() {
-        return result;
+        return reducer != null ? reducedResult : result;
     }
 
     protected void writeInternal(ObjectDataOutput out) throws IOException {
         super.writeInternal(out);
         out.writeUTF(name);
         out.writeObject(predicate);
+        out.writeObject(reducer);
     }
 
     protected void readInternal(ObjectDataInput in) throws IOException {
         super.readInternal(in);
         name = in.readUTF();
         predicate = in.readObject();
+        reducer = in.readObject();
         if (predicate instanceof PagingPredicate) {
             pagingPredicate = (PagingPredicate) predicate;
         }
     }
 
-    private final class PartitionCallable implements Callable<Collection<QueryableEntry>> {
+    private final class PartitionCallable implements Callable<Object> {
 
         final int partition;
+        final int limit;
 
-        private PartitionCallable(int partitionId) {
+        private PartitionCallable(int partitionId, int limit) {
             this.partition = partitionId;
+            this.limit = limit;
         }
 
-        public Collection<QueryableEntry> call() throws Exception {
+        public Object call() throws Exception {
             MapContextQuerySupport mapContextQuerySupport = mapService.getMapServiceContext()
                     .getMapContextQuerySupport();
-            return mapContextQuerySupport.queryOnPartition(name, predicate, partition);
+            final Collection<QueryableEntry> entries = mapContextQuerySupport
+                    .queryOnPartition(name, predicate, partition, limit);
+            return reducer != null ? reducer.reducePartition(entries) : entries;
         }
     }
 
+    /**
+     * Queries a partition of this member on its partition thread, only executed locally.
+     */
+    private static final class LocalQueryPartitionOperation extends AbstractMapOperation
+            implements PartitionAwareOperation, ReadonlyOperation {
+
+        private final Predicate predicate;
+        private final QueryReducer reducer;
+        private final int limit;
+        private Object partitionResult;
+
+        private LocalQueryPartitionOperation(String name, Predicate predicate, QueryReducer reducer, int limit) {
+            super(name);
+            this.predicate = predicate;
+            this.reducer = reducer;
+            this.limit = limit;
+        }
+
+        public void run() {
+            final Collection<QueryableEntry> entries = mapService.getMapServiceContext().getMapContextQuerySupport()
+                    .queryOnPartition(name, predicate, getPartitionId(), limit);
+            partitionResult = reducer != null ? reducer.reducePartition(entries) : entries;
+        }
+
+        @Override
+        public Object getResponse() {
+            return partitionResult;
+        }
+    }
+
+    private static final class PartitionResponseHandler implements ResponseHandler {
+
+        private final Object[] responses;
+        private final int index;
+        private final CountDownLatch latch;
+
+        private PartitionResponseHandler(Object[] responses, int index, CountDownLatch latch) {
+            this.responses = responses;
+            this.index = index;
+            this.latch = latch;
+        }
+
+        @Override
+        public void sendResponse(Object obj) {
+            responses[index] = obj;
+            latch.countDown();
+        }
+
+        @Override
+        public boolean isLocal() {
+            return true;
+        }
+    }
 }
@@ -16,7 +16,9 @@
 
 package com.hazelcast.map.operation;
 
+import com.hazelcast.map.QueryReducer;
 import com.hazelcast.map.QueryResult;
+import com.hazelcast.map.ReducedQueryResult;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.query.Predicate;
@@ -33,40 +35,58 @@ public class QueryPartitionOperation extends AbstractMapOperation implements Par
 
     private Predicate predicate;
     private QueryResult result;
+    private QueryReducer reducer;
+    private ReducedQueryResult reducedResult;
 
     public QueryPartitionOperation(String mapName, Predicate predicate) {
         super(mapName);
         this.predicate = predicate;
     }
 
+    /**
+     * Folds the matching entries with the given reducer, the response is a {@link ReducedQueryResult}.
+     */
+    public QueryPartitionOperation(String mapName, Predicate predicate, QueryReducer reducer) {
+        this(mapName, predicate);
+        this.reducer = reducer;
+    }
+
     public QueryPartitionOperation() {
     }
 
     public void run() {
         Collection<QueryableEntry> queryableEntries = mapService.getMapServiceContext().getMapContextQuerySupport()
                 .queryOnPartition(name, predicate, getPartitionId());
+        final List<Integer> partitions = Collections.singletonList(getPartitionId());
+        if (reducer != null) {
+            final Object partitionResult = reducer.reducePartition(queryableEntries);
+            reducedResult = new ReducedQueryResult(reducer.reduce(Collections.singletonList(partitionResult)));
+            reducedResult.setPartitionIds(partitions);
+            return;
+        }
         result = new QueryResult();
         for (QueryableEntry entry : queryableEntries) {
             result.add(new QueryResultEntryImpl(entry.getKeyData(), entry.getIndexKey(), entry.getValueData()));
         }
-        final List<Integer> partitions = Collections.singletonList(getPartitionId());
         result.setPartitionIds(partitions);
     }
 
     @Override
     public Object getResponse() {
-        return result;
+        return reducer != null ? reducedResult : result;
     }
 
     @Override
     protected void writeInternal(ObjectDataOutput out) throws IOException {
         super.writeInternal(out);
         out.writeObject(predicate);
+        out.writeObject(reducer);
     }
 
     @Override
     protected void readInternal(ObjectDataInput in) throws IOException {
         super.readInternal(in);
         predicate = in.readObject();
+        reducer = in.readObject();
     }
 }
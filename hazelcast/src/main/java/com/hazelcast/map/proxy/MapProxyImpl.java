@@ -25,9 +25,12 @@ import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.MapStore;
+import com.hazelcast.core.QueryCache;
+import com.hazelcast.map.AggregatingQueryReducer;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.map.MapInterceptor;
 import com.hazelcast.map.MapService;
+import com.hazelcast.map.ProjectingQueryReducer;
 import com.hazelcast.map.SimpleEntryView;
 import com.hazelcast.mapreduce.Collator;
 import com.hazelcast.mapreduce.CombinerFactory;
@@ -41,6 +44,7 @@ import com.hazelcast.mapreduce.ReducingSubmittableJob;
 import com.hazelcast.mapreduce.aggregation.Aggregation;
 import com.hazelcast.mapreduce.aggregation.Supplier;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.TruePredicate;
 import com.hazelcast.spi.InitializingObject;
@@ -54,6 +58,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -568,6 +573,16 @@ public class MapProxyImpl<K, V> extends MapProxySupport implements IMap<K, V>, I
         return entrySet(TruePredicate.INSTANCE);
     }
 
+    @Override
+    public Iterator<K> keyIterator(int fetchSize) {
+        return fetchIterator(fetchSize, false);
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> entryIterator(int fetchSize) {
+        return fetchIterator(fetchSize, true);
+    }
+
     @Override
     public Set<K> keySet(final Predicate predicate) {
         if (predicate == null) {
@@ -605,6 +620,14 @@ public class MapProxyImpl<K, V> extends MapProxySupport implements IMap<K, V>, I
         return queryLocal(predicate, IterationType.KEY, false);
     }
 
+    @Override
+    public String explain(Predicate predicate) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        return getService().getMapServiceContext().getMapContainer(name).getIndexService().explain(predicate);
+    }
+
     @Override
     public Object executeOnKey(K key, EntryProcessor entryProcessor) {
         if (key == null) {
@@ -686,6 +709,44 @@ public class MapProxyImpl<K, V> extends MapProxySupport implements IMap<K, V>, I
         }
     }
 
+    @Override
+    public <SuppliedValue, Result> Result aggregate(Predicate predicate, Supplier<K, V, SuppliedValue> supplier,
+                                                    Aggregation<K, SuppliedValue, Result> aggregation) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        ValidationUtil.isNotNull(supplier, "supplier");
+        ValidationUtil.isNotNull(aggregation, "aggregation");
+        final AggregatingQueryReducer reducer = new AggregatingQueryReducer(supplier, aggregation);
+        final List<Object> results = getMapQuerySupport().queryAndReduce(name, predicate, reducer);
+        return AggregatingQueryReducer.collate(aggregation, results);
+    }
+
+    @Override
+    public <ProjectedType> Collection<ProjectedType> project(Predicate predicate, Supplier<K, V, ProjectedType> projection) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        ValidationUtil.isNotNull(projection, "projection");
+        final ProjectingQueryReducer reducer = new ProjectingQueryReducer(projection);
+        final List<Object> results = getMapQuerySupport().queryAndReduce(name, predicate, reducer);
+        return (Collection<ProjectedType>) results;
+    }
+
+    @Override
+    public QueryCache<K, V> getQueryCache(Predicate predicate) {
+        if (predicate == null) {
+            throw new NullPointerException("Predicate should not be null!");
+        }
+        if (predicate instanceof PagingPredicate) {
+            throw new IllegalArgumentException("Paging predicates are not supported by a query cache");
+        }
+        final MemberQueryCache<K, V> queryCache = new MemberQueryCache<K, V>(name, predicate,
+                getService().getMapServiceContext());
+        queryCache.init();
+        return queryCache;
+    }
+
     protected Object invoke(Operation operation, int partitionId) throws Throwable {
         NodeEngine nodeEngine = getNodeEngine();
         Future f = nodeEngine.getOperationService().invokeOnPartition(SERVICE_NAME, operation, partitionId);
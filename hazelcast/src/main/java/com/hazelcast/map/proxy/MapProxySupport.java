@@ -38,10 +38,12 @@ import com.hazelcast.map.MapContainer;
 import com.hazelcast.map.MapContextQuerySupport;
 import com.hazelcast.map.MapEntrySet;
 import com.hazelcast.map.MapEventPublisher;
+import com.hazelcast.map.MapFetchIterator;
 import com.hazelcast.map.MapInterceptor;
 import com.hazelcast.map.MapService;
 import com.hazelcast.map.MapServiceContext;
 import com.hazelcast.map.NearCache;
+import com.hazelcast.map.NearCachePreloader;
 import com.hazelcast.map.NearCacheProvider;
 import com.hazelcast.map.QueryEventFilter;
 import com.hazelcast.map.operation.AddIndexOperation;
@@ -59,6 +61,7 @@ import com.hazelcast.map.operation.GetOperation;
 import com.hazelcast.map.operation.IsEmptyOperationFactory;
 import com.hazelcast.map.operation.KeyBasedMapOperation;
 import com.hazelcast.map.operation.LoadAllOperation;
+import com.hazelcast.map.operation.MapFetchOperation;
 import com.hazelcast.map.operation.MapFlushOperation;
 import com.hazelcast.map.operation.MapGetAllOperationFactory;
 import com.hazelcast.map.operation.MultipleEntryOperationFactory;
@@ -143,6 +146,19 @@ abstract class MapProxySupport extends AbstractDistributedObject<MapService> imp
         initializeListeners();
         initializeIndexes();
         initializeMapStoreLoad();
+        initializeNearCachePreload();
+    }
+
+    private void initializeNearCachePreload() {
+        final MapConfig mapConfig = getMapConfig();
+        if (!mapConfig.isNearCacheEnabled() || !mapConfig.getNearCacheConfig().isPreloaderEnabled()) {
+            return;
+        }
+        getService().getMapServiceContext().getNearCacheProvider().preload(name, new NearCachePreloader.KeyLoader() {
+            public void load(Set<Data> keys) {
+                loadNearCache(keys);
+            }
+        });
     }
 
     private void initializeMapStoreLoad() {
@@ -702,6 +718,32 @@ abstract class MapProxySupport extends AbstractDistributedObject<MapService> imp
         return result;
     }
 
+    /**
+     * Fetches the values of the given keys into the near cache. Keys and values stay serialized, a value is only
+     * deserialized by the near cache if its in-memory format is OBJECT.
+     */
+    private void loadNearCache(Set<Data> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        final MapServiceContext mapServiceContext = getService().getMapServiceContext();
+        final Collection<Integer> partitions = getPartitionsForKeys(keys);
+        try {
+            final Map<Integer, Object> responses = getNodeEngine().getOperationService()
+                    .invokeOnPartitions(SERVICE_NAME, new MapGetAllOperationFactory(name, keys), partitions);
+            for (Object response : responses.values()) {
+                final Set<Map.Entry<Data, Data>> entries = ((MapEntrySet) mapServiceContext.toObject(response)).getEntrySet();
+                for (Entry<Data, Data> entry : entries) {
+                    if (notOwnerPartitionForKey(entry.getKey()) || cacheKeyAnyway()) {
+                        putNearCache(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw ExceptionUtil.rethrow(e);
+        }
+    }
+
     private Collection<Integer> getPartitionsForKeys(Set<Data> keys) {
         InternalPartitionService partitionService = getNodeEngine().getPartitionService();
         int partitions = partitionService.getPartitionCount();
@@ -1042,6 +1084,26 @@ abstract class MapProxySupport extends AbstractDistributedObject<MapService> imp
         return getService().getMapServiceContext().toData(o, partitioningStrategy);
     }
 
+    /**
+     * @param withValues true to iterate over the entries, false to iterate over the keys.
+     */
+    protected <T> Iterator<T> fetchIterator(int fetchSize, boolean withValues) {
+        final NodeEngine nodeEngine = getNodeEngine();
+        final int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+        return new MapFetchIterator<T>(partitionCount, fetchSize, withValues) {
+            @Override
+            protected Future<?> fetch(int partitionId, long cursor, int fetchSize, boolean withValues) {
+                final MapFetchOperation operation = new MapFetchOperation(name, cursor, fetchSize, withValues);
+                return nodeEngine.getOperationService().invokeOnPartition(SERVICE_NAME, operation, partitionId);
+            }
+
+            @Override
+            protected <R> R toObject(Object object) {
+                return (R) MapProxySupport.this.toObject(object);
+            }
+        };
+    }
+
     protected Set queryLocal(final Predicate predicate, final IterationType iterationType, final boolean dataResult) {
         if (predicate instanceof PagingPredicate) {
             return getMapQuerySupport().queryLocalMemberWithPagingPredicate(name, (PagingPredicate) predicate, iterationType);
@@ -1120,7 +1182,7 @@ abstract class MapProxySupport extends AbstractDistributedObject<MapService> imp
         return timeInMillis;
     }
 
-    private MapContextQuerySupport getMapQuerySupport() {
+    protected MapContextQuerySupport getMapQuerySupport() {
         return getService().getMapServiceContext().getMapContextQuerySupport();
     }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.proxy;
+
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.AbstractQueryCache;
+import com.hazelcast.map.MapServiceContext;
+import com.hazelcast.map.QueryCacheEventBatch;
+import com.hazelcast.map.QueryCacheEventFilter;
+import com.hazelcast.map.QueryCacheEventListener;
+import com.hazelcast.map.QueryCacheSnapshot;
+import com.hazelcast.map.operation.QueryCacheSnapshotOperation;
+import com.hazelcast.map.operation.QueryCacheSnapshotOperationFactory;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.ExecutionService;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.OperationService;
+import com.hazelcast.util.ExceptionUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.map.MapService.SERVICE_NAME;
+
+/**
+ * {@link com.hazelcast.core.QueryCache} of a map proxy on a member.
+ */
+final class MemberQueryCache<K, V> extends AbstractQueryCache<K, V> {
+
+    private final NodeEngine nodeEngine;
+    private final MapServiceContext mapServiceContext;
+    private volatile String registrationId;
+
+    MemberQueryCache(String name, Predicate predicate, MapServiceContext mapServiceContext) {
+        super(name, predicate, mapServiceContext.getNodeEngine().getSerializationService(),
+                mapServiceContext.getNodeEngine().getPartitionService().getPartitionCount());
+        this.mapServiceContext = mapServiceContext;
+        this.nodeEngine = mapServiceContext.getNodeEngine();
+    }
+
+    /**
+     * Registers the listener and fills the view, the changes arriving meanwhile are applied afterwards.
+     */
+    void init() {
+        final QueryCacheEventFilter filter = new QueryCacheEventFilter(getCacheId(), predicate);
+        registrationId = mapServiceContext.addEventListener(new Listener(), filter, name);
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    @Override
+    protected QueryCacheSnapshot snapshot(int partitionId) {
+        final QueryCacheSnapshotOperation operation = new QueryCacheSnapshotOperation(name, getCacheId(), predicate);
+        try {
+            final Future future = nodeEngine.getOperationService().invokeOnPartition(SERVICE_NAME, operation, partitionId);
+            return (QueryCacheSnapshot) mapServiceContext.toObject(future.get());
+        } catch (Throwable t) {
+            throw ExceptionUtil.rethrow(t);
+        }
+    }
+
+    @Override
+    protected Collection<QueryCacheSnapshot> snapshotAll() {
+        final OperationService operationService = nodeEngine.getOperationService();
+        try {
+            final Map<Integer, Object> results = operationService.invokeOnAllPartitions(SERVICE_NAME,
+                    new QueryCacheSnapshotOperationFactory(name, getCacheId(), predicate));
+            final List<QueryCacheSnapshot> snapshots = new ArrayList<QueryCacheSnapshot>(results.size());
+            for (Object result : results.values()) {
+                snapshots.add((QueryCacheSnapshot) mapServiceContext.toObject(result));
+            }
+            return snapshots;
+        } catch (Throwable t) {
+            throw ExceptionUtil.rethrow(t);
+        }
+    }
+
+    @Override
+    protected void removeListener() {
+        final String id = registrationId;
+        if (id != null) {
+            mapServiceContext.removeEventListener(name, id);
+        }
+    }
+
+    @Override
+    protected void execute(Runnable task) {
+        nodeEngine.getExecutionService().execute(ExecutionService.ASYNC_EXECUTOR, task);
+    }
+
+    /**
+     * Applies the batches on the event thread, a cleared or evicted map is queried again on another thread.
+     */
+    private class Listener extends QueryCacheEventListener {
+
+        @Override
+        public void onBatch(QueryCacheEventBatch batch) {
+            applyBatch(batch);
+        }
+
+        @Override
+        public void onMapEvent(MapEvent event) {
+            refreshLater();
+        }
+    }
+}
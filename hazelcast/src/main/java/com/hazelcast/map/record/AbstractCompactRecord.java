@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+
+/**
+ * Base of the compact record family, see {@link com.hazelcast.config.MapConfig#setCompactRecordLayout(boolean)}.
+ * <p/>
+ * All metadata, including statistics, is kept in primitive fields of the record itself: the creation time is
+ * stored as a long, the other timestamps that deadlines are derived from are stored in ints as milliseconds from the
+ * creation time or, if they do not fit, as negated seconds rounded up, so expiration and idle deadlines never
+ * come early. The last stored time is stored as seconds since {@link #EPOCH}. The ttl is stored in an int as
+ * milliseconds or, if it does not fit, as negated seconds, and the version is an unsigned int. Statistics are
+ * exposed through a view created on first use instead of a {@link RecordStatistics} object per record.
+ *
+ * @param <V> type of the value.
+ */
+abstract class AbstractCompactRecord<V> implements Record<V> {
+
+    /**
+     * 2014-01-01T00:00:00Z, int seconds from there last until 2082.
+     */
+    static final long EPOCH = 1388534400000L;
+
+    private static final int UNSET = Integer.MIN_VALUE;
+    private static final int FOREVER = Integer.MAX_VALUE;
+    private static final int STATISTICS_DISABLED = -1;
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+    protected Data key;
+    protected long evictionCriteriaNumber;
+    private long creationTime;
+    private int version;
+    private int ttl;
+    private int lastAccessTime = UNSET;
+    private int lastUpdateTime = UNSET;
+    /**
+     * {@link #STATISTICS_DISABLED} if this record does not keep statistics.
+     */
+    private int hits;
+    private int lastStoredTime = UNSET;
+    private int expirationTime = UNSET;
+    private Statistics statistics;
+
+    protected AbstractCompactRecord(Data key, boolean statisticsEnabled) {
+        this.key = key;
+        this.hits = statisticsEnabled ? 0 : STATISTICS_DISABLED;
+    }
+
+    static int toSeconds(long millis) {
+        if (millis == 0L) {
+            return UNSET;
+        }
+        if (millis == Long.MAX_VALUE) {
+            return FOREVER;
+        }
+        final long seconds = (millis - EPOCH) / MILLIS_PER_SECOND;
+        return (int) Math.max(UNSET + 1, Math.min(FOREVER - 1, seconds));
+    }
+
+    static long toMillis(int seconds) {
+        if (seconds == UNSET) {
+            return 0L;
+        }
+        if (seconds == FOREVER) {
+            return Long.MAX_VALUE;
+        }
+        return EPOCH + seconds * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * @return milliseconds from the creation time, or negated seconds rounded up if they do not fit.
+     * Times before the creation time are taken as the creation time.
+     */
+    final int toOffset(long millis) {
+        if (millis == 0L) {
+            return UNSET;
+        }
+        if (millis == Long.MAX_VALUE) {
+            return FOREVER;
+        }
+        final long offset = Math.max(millis - offsetBase(), 0L);
+        if (offset < FOREVER) {
+            return (int) offset;
+        }
+        return (int) -Math.min((offset + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND, FOREVER - 1);
+    }
+
+    final long fromOffset(int offset) {
+        if (offset == UNSET) {
+            return 0L;
+        }
+        if (offset == FOREVER) {
+            return Long.MAX_VALUE;
+        }
+        return offsetBase() + (offset < 0 ? -offset * MILLIS_PER_SECOND : offset);
+    }
+
+    private long offsetBase() {
+        return creationTime == 0L ? EPOCH : creationTime;
+    }
+
+    @Override
+    public final Data getKey() {
+        return key;
+    }
+
+    @Override
+    public final RecordStatistics getStatistics() {
+        if (hits == STATISTICS_DISABLED) {
+            return null;
+        }
+        // the view has no state of its own, a racy initialization at worst creates it twice
+        Statistics statistics = this.statistics;
+        if (statistics == null) {
+            statistics = new Statistics();
+            this.statistics = statistics;
+        }
+        return statistics;
+    }
+
+    @Override
+    public final void setStatistics(RecordStatistics stats) {
+        if (stats == null || hits == STATISTICS_DISABLED) {
+            return;
+        }
+        hits = Math.max(stats.getHits(), 0);
+        lastStoredTime = toSeconds(stats.getLastStoredTime());
+        expirationTime = toOffset(stats.getExpirationTime());
+    }
+
+    @Override
+    public final void onAccess() {
+        if (hits != STATISTICS_DISABLED && hits < Integer.MAX_VALUE) {
+            hits++;
+        }
+    }
+
+    @Override
+    public final void onUpdate() {
+        version++;
+    }
+
+    @Override
+    public final void onStore() {
+        if (hits != STATISTICS_DISABLED) {
+            lastStoredTime = toSeconds(Clock.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public long getCost() {
+        final int numberOfInts = 7;
+        final int numberOfLongs = 2;
+        final int numberOfObjectReferences = 2;
+        final int objectReferenceInBytes = 4;
+        return numberOfInts * (Integer.SIZE / Byte.SIZE) + numberOfLongs * (Long.SIZE / Byte.SIZE)
+                + numberOfObjectReferences * objectReferenceInBytes + key.getHeapCost();
+    }
+
+    @Override
+    public final long getVersion() {
+        return version & UNSIGNED_INT_MASK;
+    }
+
+    @Override
+    public final void setVersion(long version) {
+        this.version = (int) version;
+    }
+
+    @Override
+    public final void setEvictionCriteriaNumber(long evictionCriteriaNumber) {
+        this.evictionCriteriaNumber = evictionCriteriaNumber;
+    }
+
+    @Override
+    public final long getEvictionCriteriaNumber() {
+        return evictionCriteriaNumber;
+    }
+
+    @Override
+    public Object getCachedValue() {
+        return Record.NOT_CACHED;
+    }
+
+    @Override
+    public void setCachedValue(Object cachedValue) {
+    }
+
+    @Override
+    public final long getTtl() {
+        return ttl < 0 ? -ttl * MILLIS_PER_SECOND : ttl;
+    }
+
+    @Override
+    public final void setTtl(long ttl) {
+        if (ttl <= Integer.MAX_VALUE) {
+            this.ttl = (int) ttl;
+        } else {
+            this.ttl = (int) -Math.min(ttl / MILLIS_PER_SECOND, Integer.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public final long getLastAccessTime() {
+        return fromOffset(lastAccessTime);
+    }
+
+    @Override
+    public final void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = toOffset(lastAccessTime);
+    }
+
+    @Override
+    public final long getLastUpdateTime() {
+        return fromOffset(lastUpdateTime);
+    }
+
+    @Override
+    public final void setLastUpdateTime(long lastUpdatedTime) {
+        this.lastUpdateTime = toOffset(lastUpdatedTime);
+    }
+
+    @Override
+    public final long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Re-encodes the timestamps stored relative to the creation time. Timestamps set before the creation time
+     * was set are only kept with a precision of one second, so it should be set first.
+     */
+    @Override
+    public final void setCreationTime(long creationTime) {
+        final long lastAccessTime = getLastAccessTime();
+        final long lastUpdateTime = getLastUpdateTime();
+        final long expirationTime = fromOffset(this.expirationTime);
+        this.creationTime = creationTime;
+        this.lastAccessTime = toOffset(lastAccessTime);
+        this.lastUpdateTime = toOffset(lastUpdateTime);
+        this.expirationTime = toOffset(expirationTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AbstractCompactRecord that = (AbstractCompactRecord) o;
+        return key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Record{" + "key=" + key + '}';
+    }
+
+    /**
+     * Statistics reading from and writing to the fields of the record.
+     */
+    private final class Statistics extends RecordStatistics {
+
+        @Override
+        public int getHits() {
+            return AbstractCompactRecord.this.hits;
+        }
+
+        @Override
+        public void setHits(int hits) {
+            AbstractCompactRecord.this.hits = Math.max(hits, 0);
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return fromOffset(AbstractCompactRecord.this.expirationTime);
+        }
+
+        @Override
+        public void setExpirationTime(long expirationTime) {
+            AbstractCompactRecord.this.expirationTime = toOffset(expirationTime);
+        }
+
+        @Override
+        public void access() {
+            onAccess();
+        }
+
+        @Override
+        public void store() {
+            onStore();
+        }
+
+        @Override
+        public long getLastStoredTime() {
+            return toMillis(AbstractCompactRecord.this.lastStoredTime);
+        }
+
+        @Override
+        public void setLastStoredTime(long lastStoredTime) {
+            AbstractCompactRecord.this.lastStoredTime = toSeconds(lastStoredTime);
+        }
+
+        @Override
+        public long size() {
+            return 0L;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeInt(getHits());
+            out.writeLong(getLastStoredTime());
+            out.writeLong(getExpirationTime());
+        }
+    }
+}
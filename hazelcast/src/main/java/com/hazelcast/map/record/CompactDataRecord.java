@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.nio.serialization.Data;
+
+/**
+ * Compact record keeping the value in binary form.
+ */
+class CompactDataRecord extends AbstractCompactRecord<Data> {
+
+    protected Data value;
+
+    CompactDataRecord(Data keyData, Data value, boolean statisticsEnabled) {
+        super(keyData, statisticsEnabled);
+        this.value = value;
+    }
+
+    @Override
+    public long getCost() {
+        long size = super.getCost();
+        final int objectReferenceInBytes = 4;
+        // add value size.
+        size += objectReferenceInBytes + (value == null ? 0 : value.getHeapCost());
+        return size;
+    }
+
+    public Data getValue() {
+        return value;
+    }
+
+    public void setValue(Data o) {
+        value = o;
+    }
+
+    public void invalidate() {
+        value = null;
+    }
+}
@@ -28,6 +28,7 @@ public class DataRecordFactory implements RecordFactory<Data> {
     private final PartitioningStrategy partitionStrategy;
     private final boolean optimizeQuery;
     private final boolean statisticsEnabled;
+    private final boolean compactRecordLayout;
 
     public DataRecordFactory(MapConfig config, SerializationService serializationService,
                              PartitioningStrategy partitionStrategy) {
@@ -35,6 +36,7 @@ public class DataRecordFactory implements RecordFactory<Data> {
         this.partitionStrategy = partitionStrategy;
         this.statisticsEnabled = config.isStatisticsEnabled();
         this.optimizeQuery = config.isOptimizeQueries();
+        this.compactRecordLayout = config.isCompactRecordLayout();
     }
 
     @Override
@@ -45,6 +47,10 @@ public class DataRecordFactory implements RecordFactory<Data> {
     @Override
     public Record<Data> newRecord(Data key, Object value) {
         final Data data = serializationService.toData(value, partitionStrategy);
+        if (compactRecordLayout) {
+            return optimizeQuery ? new CompactCachedDataRecord(key, data, statisticsEnabled)
+                    : new CompactDataRecord(key, data, statisticsEnabled);
+        }
         if (optimizeQuery) {
             return statisticsEnabled ? new CachedDataRecordWithStats(key, data)
                     : new CachedDataRecord(key, data);
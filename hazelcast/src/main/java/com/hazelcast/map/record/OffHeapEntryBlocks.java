@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.nio.serialization.ClassDefinition;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.PortableContext;
+import com.hazelcast.storage.OffHeapStorage;
+
+import static com.hazelcast.nio.UnsafeHelper.BYTE_ARRAY_BASE_OFFSET;
+import static com.hazelcast.nio.UnsafeHelper.UNSAFE;
+
+/**
+ * Allocates, reads and writes the native memory blocks of an {@link OffHeapRecordTable} entry.
+ * <p/>
+ * An entry block holds the record metadata and the key, the value lives in a block of its own
+ * so that it can be replaced without moving the entry:
+ * <pre>
+ * entry: | value-address | version | eviction-criteria | ttl | creation | last-access | last-update |
+ *        | last-stored | expiration | hits | key header | key bytes |
+ * value: | value header | value bytes |
+ * </pre>
+ * where a header is <tt>type, partition-hash, length, factory-id, class-id, version</tt>.
+ * Class definitions of portables are not copied, they are looked up from the {@link PortableContext}
+ * when the data is read back. Blocks are allocated from the {@link OffHeapStorage}, so they count against
+ * its capacity.
+ */
+final class OffHeapEntryBlocks {
+
+    static final int VALUE_ADDRESS_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int EVICTION_CRITERIA_OFFSET = 16;
+    static final int TTL_OFFSET = 24;
+    static final int CREATION_TIME_OFFSET = 32;
+    static final int LAST_ACCESS_TIME_OFFSET = 40;
+    static final int LAST_UPDATE_TIME_OFFSET = 48;
+    static final int LAST_STORED_TIME_OFFSET = 56;
+    static final int EXPIRATION_TIME_OFFSET = 64;
+    static final int HITS_OFFSET = 72;
+
+    private static final int KEY_HEADER_OFFSET = 80;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int PARTITION_HASH_OFFSET = 4;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int FACTORY_ID_OFFSET = 12;
+    private static final int CLASS_ID_OFFSET = 16;
+    private static final int CD_VERSION_OFFSET = 20;
+    private static final int DATA_HEADER_SIZE = 24;
+
+    private static final int ENTRY_HEADER_SIZE = KEY_HEADER_OFFSET + DATA_HEADER_SIZE;
+
+    private final PortableContext portableContext;
+    private final OffHeapStorage storage;
+
+    OffHeapEntryBlocks(PortableContext portableContext, OffHeapStorage storage) {
+        this.portableContext = portableContext;
+        this.storage = storage;
+    }
+
+    /**
+     * Allocates an entry block holding the given key, zeroed metadata and no value.
+     *
+     * @return address of the newly allocated block.
+     * @throws com.hazelcast.storage.OffHeapOutOfMemoryException if the storage capacity is exhausted.
+     */
+    long allocate(Data key) {
+        final long address = storage.allocate(ENTRY_HEADER_SIZE + key.bufferSize());
+        UNSAFE.setMemory(address, KEY_HEADER_OFFSET, (byte) 0);
+        writeHeader(address + KEY_HEADER_OFFSET, key);
+        copyIn(key, address + ENTRY_HEADER_SIZE);
+        return address;
+    }
+
+    /**
+     * Replaces the value of the entry, the block of the previous value is freed. When the new block cannot
+     * be allocated, the previous value is kept.
+     *
+     * @return difference in allocated bytes.
+     * @throws com.hazelcast.storage.OffHeapOutOfMemoryException if the storage capacity is exhausted.
+     */
+    long setValue(long address, Data value) {
+        if (value == null) {
+            return -freeValue(address);
+        }
+        final long valueAddress = storage.allocate(DATA_HEADER_SIZE + value.bufferSize());
+        writeHeader(valueAddress, value);
+        copyIn(value, valueAddress + DATA_HEADER_SIZE);
+        final long delta = -freeValue(address);
+        UNSAFE.putLong(address + VALUE_ADDRESS_OFFSET, valueAddress);
+        return delta + DATA_HEADER_SIZE + value.bufferSize();
+    }
+
+    /**
+     * Frees the entry and its value.
+     *
+     * @return number of freed bytes.
+     */
+    long free(long address) {
+        final long entrySize = entrySize(address);
+        final long freed = freeValue(address) + entrySize;
+        storage.free(address, entrySize);
+        return freed;
+    }
+
+    long entrySize(long address) {
+        return ENTRY_HEADER_SIZE + UNSAFE.getInt(address + KEY_HEADER_OFFSET + LENGTH_OFFSET);
+    }
+
+    Data readKey(long address) {
+        return read(address + KEY_HEADER_OFFSET, address + ENTRY_HEADER_SIZE);
+    }
+
+    Data readValue(long address) {
+        final long valueAddress = UNSAFE.getLong(address + VALUE_ADDRESS_OFFSET);
+        if (valueAddress == 0L) {
+            return null;
+        }
+        return read(valueAddress, valueAddress + DATA_HEADER_SIZE);
+    }
+
+    boolean keyEquals(long address, Data key) {
+        final long header = address + KEY_HEADER_OFFSET;
+        final int length = UNSAFE.getInt(header + LENGTH_OFFSET);
+        if (length != key.bufferSize() || UNSAFE.getInt(header + TYPE_OFFSET) != key.getType()) {
+            return false;
+        }
+        final byte[] bytes = key.getBuffer();
+        final long base = address + ENTRY_HEADER_SIZE;
+        for (int i = length - 1; i >= 0; i--) {
+            if (UNSAFE.getByte(base + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getLong(long address, int offset) {
+        return UNSAFE.getLong(address + offset);
+    }
+
+    void putLong(long address, int offset, long value) {
+        UNSAFE.putLong(address + offset, value);
+    }
+
+    int getInt(long address, int offset) {
+        return UNSAFE.getInt(address + offset);
+    }
+
+    void putInt(long address, int offset, int value) {
+        UNSAFE.putInt(address + offset, value);
+    }
+
+    private long freeValue(long address) {
+        final long valueAddress = UNSAFE.getLong(address + VALUE_ADDRESS_OFFSET);
+        if (valueAddress == 0L) {
+            return 0L;
+        }
+        final long size = DATA_HEADER_SIZE + UNSAFE.getInt(valueAddress + LENGTH_OFFSET);
+        storage.free(valueAddress, size);
+        UNSAFE.putLong(address + VALUE_ADDRESS_OFFSET, 0L);
+        return size;
+    }
+
+    private static void writeHeader(long header, Data data) {
+        UNSAFE.putInt(header + TYPE_OFFSET, data.getType());
+        UNSAFE.putInt(header + PARTITION_HASH_OFFSET, data.getPartitionHash());
+        UNSAFE.putInt(header + LENGTH_OFFSET, data.bufferSize());
+        final ClassDefinition cd = data.getClassDefinition();
+        UNSAFE.putInt(header + FACTORY_ID_OFFSET, cd == null ? 0 : cd.getFactoryId());
+        UNSAFE.putInt(header + CLASS_ID_OFFSET, cd == null ? Data.NO_CLASS_ID : cd.getClassId());
+        UNSAFE.putInt(header + CD_VERSION_OFFSET, cd == null ? 0 : cd.getVersion());
+    }
+
+    private static void copyIn(Data data, long address) {
+        if (data.bufferSize() > 0) {
+            final byte[] bytes = data.getBuffer();
+            UNSAFE.copyMemory(bytes, BYTE_ARRAY_BASE_OFFSET, null, address, bytes.length);
+        }
+    }
+
+    private Data read(long header, long address) {
+        final int length = UNSAFE.getInt(header + LENGTH_OFFSET);
+        byte[] bytes = null;
+        if (length > 0) {
+            bytes = new byte[length];
+            UNSAFE.copyMemory(null, address, bytes, BYTE_ARRAY_BASE_OFFSET, length);
+        }
+        final int classId = UNSAFE.getInt(header + CLASS_ID_OFFSET);
+        ClassDefinition cd = null;
+        if (classId != Data.NO_CLASS_ID) {
+            cd = portableContext.lookup(UNSAFE.getInt(header + FACTORY_ID_OFFSET), classId,
+                    UNSAFE.getInt(header + CD_VERSION_OFFSET));
+        }
+        return new Data(UNSAFE.getInt(header + TYPE_OFFSET), bytes, cd, UNSAFE.getInt(header + PARTITION_HASH_OFFSET));
+    }
+}
@@ -39,6 +39,15 @@ public class OffHeapRecordFactory implements RecordFactory<Data> {
         this.statisticsEnabled = config.isStatisticsEnabled();
     }
 
+    /**
+     * Creates a factory for maps backed by an {@link OffHeapRecordTable}. Its records only carry the
+     * entry until it is copied into the table, so they are plain heap records.
+     */
+    public OffHeapRecordFactory(MapConfig config, SerializationService serializationService,
+                                PartitioningStrategy partitionStrategy) {
+        this(config, null, serializationService, partitionStrategy);
+    }
+
     @Override
     public InMemoryFormat getStorageFormat() {
         return InMemoryFormat.OFFHEAP;
@@ -47,6 +56,9 @@ public class OffHeapRecordFactory implements RecordFactory<Data> {
     @Override
     public Record<Data> newRecord(Data key, Object value) {
         Data v = serializationService.toData(value, partitionStrategy);
+        if (storage == null) {
+            return statisticsEnabled ? new DataRecordWithStats(key, v) : new DataRecord(key, v);
+        }
         return statisticsEnabled ? new OffHeapRecordWithStats(storage, key, v) : new OffHeapRecord(storage, key, v);
     }
 
@@ -0,0 +1,677 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.PortableContext;
+import com.hazelcast.storage.OffHeapStorage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.hazelcast.map.record.OffHeapEntryBlocks.CREATION_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.EVICTION_CRITERIA_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.EXPIRATION_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.HITS_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_ACCESS_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_STORED_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_UPDATE_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.TTL_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.VERSION_OFFSET;
+import static com.hazelcast.nio.UnsafeHelper.UNSAFE;
+
+/**
+ * Record map of a partition which keeps its hash index, keys, values and record metadata in native memory.
+ * <p/>
+ * The index is an open-addressing table with linear probing, every slot holds the address of an entry
+ * block and the hash of its key. Entry blocks never move, so a {@link Record} returned from this map is
+ * only a small view on its block; changes made through it are written directly to native memory.
+ * Records put into the map are copied, later changes to them are not reflected.
+ * <p/>
+ * The index and the entry blocks are allocated from an {@link OffHeapStorage} and count against its capacity,
+ * a put which does not fit fails with an {@link com.hazelcast.storage.OffHeapOutOfMemoryException}.
+ * <p/>
+ * Mutations are expected from the partition thread, readers from other threads (queries, statistics)
+ * are guarded by a read-write lock. Views re-resolve their block once an entry has been removed from the
+ * table in the meantime, a view of a removed entry behaves like an invalidated record.
+ */
+public final class OffHeapRecordTable extends AbstractMap<Data, Record> implements ConcurrentMap<Data, Record> {
+
+    private static final int SLOT_SIZE = 16;
+    private static final int HASH_OFFSET = 8;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6F;
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private final OffHeapStorage storage;
+    private final OffHeapEntryBlocks blocks;
+    private final boolean statisticsEnabled;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    private long slots;
+    private int capacity;
+    private int size;
+    private long removals;
+    private long allocatedBytes;
+
+    private Set<Entry<Data, Record>> entrySet;
+
+    public OffHeapRecordTable(PortableContext portableContext, OffHeapStorage storage, boolean statisticsEnabled) {
+        this.storage = storage;
+        this.blocks = new OffHeapEntryBlocks(portableContext, storage);
+        this.statisticsEnabled = statisticsEnabled;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    @Override
+    public Record get(Object key) {
+        if (!(key instanceof Data)) {
+            return null;
+        }
+        final Data dataKey = (Data) key;
+        readLock.lock();
+        try {
+            final long address = addressOf(dataKey);
+            return address == 0L ? null : new OffHeapTableRecord(this, dataKey, address, removals);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Data)) {
+            return false;
+        }
+        readLock.lock();
+        try {
+            return addressOf((Data) key) != 0L;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Record put(Data key, Record record) {
+        writeLock.lock();
+        try {
+            return put0(key, record, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Record putIfAbsent(Data key, Record record) {
+        writeLock.lock();
+        try {
+            return put0(key, record, true);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Record replace(Data key, Record record) {
+        writeLock.lock();
+        try {
+            if (addressOf(key) == 0L) {
+                return null;
+            }
+            return put0(key, record, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(Data key, Record oldRecord, Record newRecord) {
+        writeLock.lock();
+        try {
+            final long address = addressOf(key);
+            if (address == 0L || !oldRecord.equals(new OffHeapTableRecord(this, key, address, removals))) {
+                return false;
+            }
+            put0(key, newRecord, false);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Record remove(Object key) {
+        if (!(key instanceof Data)) {
+            return null;
+        }
+        writeLock.lock();
+        try {
+            final int slot = slotOf((Data) key);
+            return slot < 0 ? null : removeSlot(slot, (Data) key);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object record) {
+        if (!(key instanceof Data) || record == null) {
+            return false;
+        }
+        writeLock.lock();
+        try {
+            final Data dataKey = (Data) key;
+            final int slot = slotOf(dataKey);
+            if (slot < 0 || !record.equals(new OffHeapTableRecord(this, dataKey, addressAt(slot), removals))) {
+                return false;
+            }
+            removeSlot(slot, dataKey);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Frees all entries and the index itself. The table can still be used afterwards.
+     */
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            for (int i = 0; i < capacity; i++) {
+                final long address = addressAt(i);
+                if (address != 0L) {
+                    allocatedBytes -= blocks.free(address);
+                }
+            }
+            if (slots != 0L) {
+                freeSlots(slots, capacity);
+            }
+            slots = 0L;
+            capacity = 0;
+            size = 0;
+            removals++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of native memory bytes held by this table.
+     */
+    public long getAllocatedBytes() {
+        readLock.lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<Entry<Data, Record>> entrySet() {
+        Set<Entry<Data, Record>> es = entrySet;
+        if (es == null) {
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    // ---------------------------------------------------------------- accessors used by OffHeapTableRecord
+
+    long getLong(OffHeapTableRecord record, int offset) {
+        readLock.lock();
+        try {
+            final long address = resolve(record);
+            return address == 0L ? 0L : blocks.getLong(address, offset);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    void putLong(OffHeapTableRecord record, int offset, long value) {
+        readLock.lock();
+        try {
+            final long address = resolve(record);
+            if (address != 0L) {
+                blocks.putLong(address, offset, value);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    int getInt(OffHeapTableRecord record, int offset) {
+        readLock.lock();
+        try {
+            final long address = resolve(record);
+            return address == 0L ? 0 : blocks.getInt(address, offset);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    void putInt(OffHeapTableRecord record, int offset, int value) {
+        readLock.lock();
+        try {
+            final long address = resolve(record);
+            if (address != 0L) {
+                blocks.putInt(address, offset, value);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    Data getValue(OffHeapTableRecord record) {
+        readLock.lock();
+        try {
+            final long address = resolve(record);
+            return address == 0L ? null : blocks.readValue(address);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    void setValue(OffHeapTableRecord record, Data value) {
+        writeLock.lock();
+        try {
+            final long address = resolve(record);
+            if (address != 0L) {
+                allocatedBytes += blocks.setValue(address, value);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Must be called holding the read or the write lock.
+     *
+     * @return the current address of the record's entry, or 0 if it is not in the table anymore.
+     */
+    private long resolve(OffHeapTableRecord record) {
+        if (record.stamp != removals) {
+            record.address = addressOf(record.getKey());
+            record.stamp = removals;
+        }
+        return record.address;
+    }
+
+    // ---------------------------------------------------------------- index
+
+    private Record put0(Data key, Record record, boolean onlyIfAbsent) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            final long address = addressAt(slot);
+            if (onlyIfAbsent) {
+                return new OffHeapTableRecord(this, key, address, removals);
+            }
+            if (record instanceof OffHeapTableRecord && ((OffHeapTableRecord) record).address == address) {
+                return record;
+            }
+            final Record previous = snapshot(key, address);
+            copyIn(address, record);
+            return previous;
+        }
+        ensureCapacity();
+        final long address = blocks.allocate(key);
+        try {
+            copyIn(address, record);
+        } catch (RuntimeException e) {
+            blocks.free(address);
+            throw e;
+        }
+        allocatedBytes += blocks.entrySize(address);
+        final int hash = key.hashCode();
+        slot = indexFor(hash);
+        while (addressAt(slot) != 0L) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        setSlot(slot, address, hash);
+        size++;
+        return null;
+    }
+
+    private void copyIn(long address, Record record) {
+        // the value first, it is the only part which can fail to be allocated.
+        allocatedBytes += blocks.setValue(address, (Data) record.getValue());
+        blocks.putLong(address, VERSION_OFFSET, record.getVersion());
+        blocks.putLong(address, EVICTION_CRITERIA_OFFSET, record.getEvictionCriteriaNumber());
+        blocks.putLong(address, TTL_OFFSET, record.getTtl());
+        blocks.putLong(address, CREATION_TIME_OFFSET, record.getCreationTime());
+        blocks.putLong(address, LAST_ACCESS_TIME_OFFSET, record.getLastAccessTime());
+        blocks.putLong(address, LAST_UPDATE_TIME_OFFSET, record.getLastUpdateTime());
+        final RecordStatistics statistics = record.getStatistics();
+        if (statistics != null) {
+            blocks.putInt(address, HITS_OFFSET, statistics.getHits());
+            blocks.putLong(address, LAST_STORED_TIME_OFFSET, statistics.getLastStoredTime());
+            blocks.putLong(address, EXPIRATION_TIME_OFFSET, statistics.getExpirationTime());
+        }
+    }
+
+    /**
+     * Copies an entry to a heap record, used for removed and replaced entries which are handed out
+     * after their native memory has been released.
+     */
+    private Record snapshot(Data key, long address) {
+        final Data value = blocks.readValue(address);
+        final Record<Data> record;
+        if (statisticsEnabled) {
+            record = new DataRecordWithStats(key, value);
+            final RecordStatistics statistics = record.getStatistics();
+            statistics.setHits(blocks.getInt(address, HITS_OFFSET));
+            statistics.setLastStoredTime(blocks.getLong(address, LAST_STORED_TIME_OFFSET));
+            statistics.setExpirationTime(blocks.getLong(address, EXPIRATION_TIME_OFFSET));
+        } else {
+            record = new DataRecord(key, value);
+        }
+        record.setVersion(blocks.getLong(address, VERSION_OFFSET));
+        record.setEvictionCriteriaNumber(blocks.getLong(address, EVICTION_CRITERIA_OFFSET));
+        record.setTtl(blocks.getLong(address, TTL_OFFSET));
+        record.setCreationTime(blocks.getLong(address, CREATION_TIME_OFFSET));
+        record.setLastAccessTime(blocks.getLong(address, LAST_ACCESS_TIME_OFFSET));
+        record.setLastUpdateTime(blocks.getLong(address, LAST_UPDATE_TIME_OFFSET));
+        return record;
+    }
+
+    private Record removeSlot(int slot, Data key) {
+        final Record previous = snapshot(key, addressAt(slot));
+        freeSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Frees the entry in the given slot and closes the gap it leaves.
+     *
+     * @return the slot the entry of a lower slot wrapped into, see {@link #shiftBack(int)}.
+     */
+    private int freeSlot(int slot) {
+        allocatedBytes -= blocks.free(addressAt(slot));
+        final int wrappedSlot = shiftBack(slot);
+        size--;
+        removals++;
+        return wrappedSlot;
+    }
+
+    /**
+     * Backward shift deletion, keeps probe sequences intact without tombstones.
+     * <p/>
+     * Entries only move to lower slots, except for at most one entry whose probe sequence wraps around the end
+     * of the table: it can move from the start of the table into a slot at or after the given one.
+     *
+     * @return the slot that entry moved into, -1 if there was none.
+     */
+    private int shiftBack(int slot) {
+        final int mask = capacity - 1;
+        int wrappedSlot = -1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            final long address = addressAt(next);
+            if (address == 0L) {
+                break;
+            }
+            final int hash = hashAt(next);
+            final int ideal = indexFor(hash);
+            final boolean movable = hole <= next
+                    ? (ideal <= hole || ideal > next)
+                    : (ideal <= hole && ideal > next);
+            if (movable) {
+                if (next < slot && hole >= slot) {
+                    wrappedSlot = hole;
+                }
+                setSlot(hole, address, hash);
+                hole = next;
+            }
+        }
+        setSlot(hole, 0L, 0);
+        return wrappedSlot;
+    }
+
+    private long addressOf(Data key) {
+        final int slot = slotOf(key);
+        return slot < 0 ? 0L : addressAt(slot);
+    }
+
+    private int slotOf(Data key) {
+        if (size == 0) {
+            return -1;
+        }
+        final int hash = key.hashCode();
+        int slot = indexFor(hash);
+        while (true) {
+            final long address = addressAt(slot);
+            if (address == 0L) {
+                return -1;
+            }
+            if (hashAt(slot) == hash && blocks.keyEquals(address, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (slots == 0L) {
+            slots = allocateSlots(INITIAL_CAPACITY);
+            capacity = INITIAL_CAPACITY;
+            return;
+        }
+        if (size + 1 <= capacity * LOAD_FACTOR) {
+            return;
+        }
+        final long oldSlots = slots;
+        final int oldCapacity = capacity;
+        slots = allocateSlots(oldCapacity << 1);
+        capacity = oldCapacity << 1;
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            final long address = UNSAFE.getLong(oldSlots + (long) i * SLOT_SIZE);
+            if (address != 0L) {
+                final int hash = UNSAFE.getInt(oldSlots + (long) i * SLOT_SIZE + HASH_OFFSET);
+                int slot = indexFor(hash);
+                while (addressAt(slot) != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                setSlot(slot, address, hash);
+            }
+        }
+        freeSlots(oldSlots, oldCapacity);
+    }
+
+    private long allocateSlots(int count) {
+        final long bytes = (long) count * SLOT_SIZE;
+        final long address = storage.allocate(bytes);
+        UNSAFE.setMemory(address, bytes, (byte) 0);
+        allocatedBytes += bytes;
+        return address;
+    }
+
+    private void freeSlots(long address, int count) {
+        final long bytes = (long) count * SLOT_SIZE;
+        storage.free(address, bytes);
+        allocatedBytes -= bytes;
+    }
+
+    private int indexFor(int hash) {
+        final int h = hash ^ (hash >>> HASH_SPREAD_SHIFT);
+        return h & (capacity - 1);
+    }
+
+    private long addressAt(int slot) {
+        return UNSAFE.getLong(slots + (long) slot * SLOT_SIZE);
+    }
+
+    private int hashAt(int slot) {
+        return UNSAFE.getInt(slots + (long) slot * SLOT_SIZE + HASH_OFFSET);
+    }
+
+    private void setSlot(int slot, long address, int hash) {
+        final long base = slots + (long) slot * SLOT_SIZE;
+        UNSAFE.putLong(base, address);
+        UNSAFE.putInt(base + HASH_OFFSET, hash);
+    }
+
+    // ---------------------------------------------------------------- iteration
+
+    private final class EntrySet extends AbstractSet<Entry<Data, Record>> {
+
+        @Override
+        public Iterator<Entry<Data, Record>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return OffHeapRecordTable.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Map.Entry && containsKey(((Map.Entry) o).getKey());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Map.Entry && OffHeapRecordTable.this.remove(((Map.Entry) o).getKey()) != null;
+        }
+
+        @Override
+        public void clear() {
+            OffHeapRecordTable.this.clear();
+        }
+    }
+
+    /**
+     * Weakly consistent iterator over the slots. Entries shifted back over the cursor by a concurrent
+     * removal may be skipped or seen twice, the same as with a resize during iteration.
+     * <p/>
+     * Removals through the iterator itself neither skip nor repeat entries: the freed slot is visited again,
+     * and an already returned entry which the backward shift wraps from the start of the table into the
+     * slots still to visit is remembered and passed over once it is reached.
+     */
+    private final class EntryIterator implements Iterator<Entry<Data, Record>> {
+
+        // keys of returned entries which were moved into the slots still to visit.
+        private final List<Data> returnedAhead = new ArrayList<Data>(1);
+        private int nextSlot;
+        private int slotOfNext;
+        private int slotOfLastReturned;
+        private Entry<Data, Record> next;
+        private Entry<Data, Record> lastReturned;
+
+        private EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<Data, Record> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            slotOfLastReturned = slotOfNext;
+            advance();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            writeLock.lock();
+            try {
+                final int slot = slotOf(lastReturned.getKey());
+                if (slot >= 0) {
+                    final int wrappedSlot = freeSlot(slot);
+                    if (wrappedSlot >= 0) {
+                        returnedAhead.add(blocks.readKey(addressAt(wrappedSlot)));
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            lastReturned = null;
+            nextSlot = slotOfLastReturned;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            readLock.lock();
+            try {
+                while (nextSlot < capacity) {
+                    final int slot = nextSlot++;
+                    final long address = addressAt(slot);
+                    if (address != 0L) {
+                        final Data key = blocks.readKey(address);
+                        if (!returnedAhead.isEmpty() && returnedAhead.remove(key)) {
+                            continue;
+                        }
+                        slotOfNext = slot;
+                        next = new SimpleImmutableEntry<Data, Record>(key,
+                                new OffHeapTableRecord(OffHeapRecordTable.this, key, address, removals));
+                        return;
+                    }
+                }
+            } finally {
+                readLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+
+import static com.hazelcast.map.record.OffHeapEntryBlocks.CREATION_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.EVICTION_CRITERIA_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.EXPIRATION_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.HITS_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_ACCESS_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_STORED_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.LAST_UPDATE_TIME_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.TTL_OFFSET;
+import static com.hazelcast.map.record.OffHeapEntryBlocks.VERSION_OFFSET;
+
+/**
+ * View of an {@link OffHeapRecordTable} entry. Only the key is kept on heap, all other fields are
+ * read from and written to the entry block.
+ */
+final class OffHeapTableRecord implements Record<Data> {
+
+    final Data key;
+    long address;
+    long stamp;
+
+    private final OffHeapRecordTable table;
+
+    OffHeapTableRecord(OffHeapRecordTable table, Data key, long address, long stamp) {
+        this.table = table;
+        this.key = key;
+        this.address = address;
+        this.stamp = stamp;
+    }
+
+    @Override
+    public Data getKey() {
+        return key;
+    }
+
+    @Override
+    public Data getValue() {
+        return table.getValue(this);
+    }
+
+    @Override
+    public void setValue(Data value) {
+        table.setValue(this, value);
+    }
+
+    @Override
+    public void invalidate() {
+        table.setValue(this, null);
+    }
+
+    @Override
+    public RecordStatistics getStatistics() {
+        return table.isStatisticsEnabled() ? new Statistics() : null;
+    }
+
+    @Override
+    public void setStatistics(RecordStatistics stats) {
+        if (stats != null && table.isStatisticsEnabled()) {
+            table.putInt(this, HITS_OFFSET, stats.getHits());
+            table.putLong(this, LAST_STORED_TIME_OFFSET, stats.getLastStoredTime());
+            table.putLong(this, EXPIRATION_TIME_OFFSET, stats.getExpirationTime());
+        }
+    }
+
+    @Override
+    public void onAccess() {
+        if (table.isStatisticsEnabled()) {
+            table.putInt(this, HITS_OFFSET, table.getInt(this, HITS_OFFSET) + 1);
+        }
+    }
+
+    @Override
+    public void onUpdate() {
+        setVersion(getVersion() + 1);
+    }
+
+    @Override
+    public void onStore() {
+        if (table.isStatisticsEnabled()) {
+            table.putLong(this, LAST_STORED_TIME_OFFSET, Clock.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Everything but the key lives in native memory.
+     */
+    @Override
+    public long getCost() {
+        return 0L;
+    }
+
+    @Override
+    public long getVersion() {
+        return table.getLong(this, VERSION_OFFSET);
+    }
+
+    @Override
+    public void setVersion(long version) {
+        table.putLong(this, VERSION_OFFSET, version);
+    }
+
+    @Override
+    public void setEvictionCriteriaNumber(long evictionCriteriaNumber) {
+        table.putLong(this, EVICTION_CRITERIA_OFFSET, evictionCriteriaNumber);
+    }
+
+    @Override
+    public long getEvictionCriteriaNumber() {
+        return table.getLong(this, EVICTION_CRITERIA_OFFSET);
+    }
+
+    @Override
+    public Object getCachedValue() {
+        return Record.NOT_CACHED;
+    }
+
+    @Override
+    public void setCachedValue(Object cachedValue) {
+    }
+
+    @Override
+    public long getTtl() {
+        return table.getLong(this, TTL_OFFSET);
+    }
+
+    @Override
+    public void setTtl(long ttl) {
+        table.putLong(this, TTL_OFFSET, ttl);
+    }
+
+    @Override
+    public long getLastAccessTime() {
+        return table.getLong(this, LAST_ACCESS_TIME_OFFSET);
+    }
+
+    @Override
+    public void setLastAccessTime(long lastAccessTime) {
+        table.putLong(this, LAST_ACCESS_TIME_OFFSET, lastAccessTime);
+    }
+
+    @Override
+    public long getLastUpdateTime() {
+        return table.getLong(this, LAST_UPDATE_TIME_OFFSET);
+    }
+
+    @Override
+    public void setLastUpdateTime(long lastUpdatedTime) {
+        table.putLong(this, LAST_UPDATE_TIME_OFFSET, lastUpdatedTime);
+    }
+
+    @Override
+    public long getCreationTime() {
+        return table.getLong(this, CREATION_TIME_OFFSET);
+    }
+
+    @Override
+    public void setCreationTime(long creationTime) {
+        table.putLong(this, CREATION_TIME_OFFSET, creationTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return key.equals(((OffHeapTableRecord) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Record{" + "key=" + key + '}';
+    }
+
+    /**
+     * Statistics writing through to the entry block.
+     */
+    private final class Statistics extends RecordStatistics {
+
+        @Override
+        public int getHits() {
+            return table.getInt(OffHeapTableRecord.this, HITS_OFFSET);
+        }
+
+        @Override
+        public void setHits(int hits) {
+            table.putInt(OffHeapTableRecord.this, HITS_OFFSET, hits);
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return table.getLong(OffHeapTableRecord.this, EXPIRATION_TIME_OFFSET);
+        }
+
+        @Override
+        public void setExpirationTime(long expirationTime) {
+            table.putLong(OffHeapTableRecord.this, EXPIRATION_TIME_OFFSET, expirationTime);
+        }
+
+        @Override
+        public void access() {
+            setHits(getHits() + 1);
+        }
+
+        @Override
+        public void store() {
+            setLastStoredTime(Clock.currentTimeMillis());
+        }
+
+        @Override
+        public long getLastStoredTime() {
+            return table.getLong(OffHeapTableRecord.this, LAST_STORED_TIME_OFFSET);
+        }
+
+        @Override
+        public void setLastStoredTime(long lastStoredTime) {
+            table.putLong(OffHeapTableRecord.this, LAST_STORED_TIME_OFFSET, lastStoredTime);
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeInt(getHits());
+            out.writeLong(getLastStoredTime());
+            out.writeLong(getExpirationTime());
+        }
+    }
+}
@@ -85,6 +85,18 @@ public interface IOService {
 
     boolean getSocketNoDelay();
 
+    boolean isSocketDirectBuffer();
+
+    int getSocketGatheringWriteThreshold();
+
+    int getSocketReadBufferPoolSize();
+
+    int getSocketSendQueueCapacity();
+
+    boolean isSocketCompressionEnabled();
+
+    int getSocketCompressionThreshold();
+
     int getSelectorThreadCount();
 
     long getConnectionMonitorInterval();
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.nio;
+
+import java.util.Arrays;
+
+/**
+ * A block codec writing the LZ4 block format, used to compress large packet values on member connections.
+ * <p/>
+ * A compressed block starts with the uncompressed length as a big endian int, followed by LZ4 sequences. The hash
+ * table and the output array are kept between calls, so an instance is not thread-safe; decompression is stateless.
+ */
+public final class Lz4Codec {
+
+    //CHECKSTYLE:OFF  suppressed because of the bit twiddling of the block format
+    private static final int MIN_MATCH = 4;
+    private static final int HASH_LOG = 12;
+    private static final int HASH_MULTIPLIER = -1640531535;
+    private static final int MF_LIMIT = 12;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int RUN_MASK = 0x0F;
+    private static final int ML_BITS = 4;
+    private static final int LENGTH_BYTE = 0xFF;
+    private static final int HEADER_SIZE = 4;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    private byte[] output = new byte[0];
+
+    /**
+     * Compresses the given bytes into {@link #getOutput()}.
+     *
+     * @param src the bytes to compress.
+     * @return the length of the compressed block, or -1 if it would not be smaller than the input.
+     */
+    public int compress(byte[] src) {
+        final int srcLength = src.length;
+        final int maxLength = HEADER_SIZE + srcLength + srcLength / LENGTH_BYTE + 16;
+        if (output.length < maxLength) {
+            output = new byte[maxLength];
+        }
+        final byte[] dest = output;
+        dest[0] = (byte) (srcLength >>> 24);
+        dest[1] = (byte) (srcLength >>> 16);
+        dest[2] = (byte) (srcLength >>> 8);
+        dest[3] = (byte) srcLength;
+        int op = HEADER_SIZE;
+        int anchor = 0;
+        if (srcLength > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            final int limit = srcLength - MF_LIMIT;
+            final int matchLimit = srcLength - LAST_LITERALS;
+            int ip = 0;
+            while (ip < limit) {
+                final int sequence = readInt(src, ip);
+                final int hash = (sequence * HASH_MULTIPLIER) >>> (32 - HASH_LOG);
+                int ref = hashTable[hash];
+                hashTable[hash] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                    matchLength++;
+                }
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dest, op);
+                ip += matchLength;
+                anchor = ip;
+                if (op >= srcLength) {
+                    return -1;
+                }
+            }
+        }
+        op = writeLiterals(src, anchor, srcLength - anchor, dest, op);
+        return op < srcLength ? op : -1;
+    }
+
+    /**
+     * Returns the array {@link #compress(byte[])} writes to. Its content is overwritten by the next call.
+     *
+     * @return the output array.
+     */
+    public byte[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Reads the uncompressed length of a block written by {@link #compress(byte[])}.
+     *
+     * @param block the compressed block.
+     * @return the number of bytes {@link #decompress(byte[], byte[])} writes.
+     */
+    public static int getDecompressedLength(byte[] block) {
+        return (block[0] & LENGTH_BYTE) << 24 | (block[1] & LENGTH_BYTE) << 16
+                | (block[2] & LENGTH_BYTE) << 8 | block[3] & LENGTH_BYTE;
+    }
+
+    /**
+     * Decompresses a block written by {@link #compress(byte[])}.
+     *
+     * @param block the compressed block.
+     * @param dest  the array to write to, of exactly {@link #getDecompressedLength(byte[])} bytes.
+     * @throws IllegalArgumentException if the block is malformed.
+     */
+    public static void decompress(byte[] block, byte[] dest) {
+        try {
+            int ip = HEADER_SIZE;
+            int op = 0;
+            while (true) {
+                final int token = block[ip++] & LENGTH_BYTE;
+                int literalLength = token >>> ML_BITS;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = block[ip++] & LENGTH_BYTE;
+                        literalLength += b;
+                    } while (b == LENGTH_BYTE);
+                }
+                System.arraycopy(block, ip, dest, op, literalLength);
+                ip += literalLength;
+                op += literalLength;
+                if (ip >= block.length) {
+                    break;
+                }
+                final int offset = (block[ip++] & LENGTH_BYTE) | (block[ip++] & LENGTH_BYTE) << 8;
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = block[ip++] & LENGTH_BYTE;
+                        matchLength += b;
+                    } while (b == LENGTH_BYTE);
+                }
+                matchLength += MIN_MATCH;
+                final int ref = op - offset;
+                if (offset == 0 || ref < 0) {
+                    throw new IllegalArgumentException("Malformed block, invalid offset " + offset + " at " + ip);
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dest, ref, dest, op, matchLength);
+                } else {
+                    for (int i = 0; i < matchLength; i++) {
+                        dest[op + i] = dest[ref + i];
+                    }
+                }
+                op += matchLength;
+            }
+            if (op != dest.length) {
+                throw new IllegalArgumentException("Malformed block, decompressed " + op + " of " + dest.length + " bytes");
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed block", e);
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength,
+                                     byte[] dest, int op) {
+        final int tokenPos = op++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << ML_BITS;
+            op = writeLength(literalLength - RUN_MASK, dest, op);
+        } else {
+            token = literalLength << ML_BITS;
+        }
+        System.arraycopy(src, literalStart, dest, op, literalLength);
+        op += literalLength;
+        dest[op++] = (byte) offset;
+        dest[op++] = (byte) (offset >>> 8);
+        final int matchCode = matchLength - MIN_MATCH;
+        if (matchCode >= RUN_MASK) {
+            token |= RUN_MASK;
+            op = writeLength(matchCode - RUN_MASK, dest, op);
+        } else {
+            token |= matchCode;
+        }
+        dest[tokenPos] = (byte) token;
+        return op;
+    }
+
+    private static int writeLiterals(byte[] src, int literalStart, int literalLength, byte[] dest, int op) {
+        if (literalLength >= RUN_MASK) {
+            dest[op++] = (byte) (RUN_MASK << ML_BITS);
+            op = writeLength(literalLength - RUN_MASK, dest, op);
+        } else {
+            dest[op++] = (byte) (literalLength << ML_BITS);
+        }
+        System.arraycopy(src, literalStart, dest, op, literalLength);
+        return op + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dest, int op) {
+        int remaining = length;
+        while (remaining >= LENGTH_BYTE) {
+            dest[op++] = (byte) LENGTH_BYTE;
+            remaining -= LENGTH_BYTE;
+        }
+        dest[op++] = (byte) remaining;
+        return op;
+    }
+
+    private static int readInt(byte[] src, int index) {
+        return (src[index] & LENGTH_BYTE) << 24 | (src[index + 1] & LENGTH_BYTE) << 16
+                | (src[index + 2] & LENGTH_BYTE) << 8 | src[index + 3] & LENGTH_BYTE;
+    }
+    //CHECKSTYLE:ON
+}
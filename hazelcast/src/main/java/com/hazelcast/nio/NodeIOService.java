@@ -199,6 +199,36 @@ public class NodeIOService implements IOService {
         return this.node.getGroupProperties().SOCKET_NO_DELAY.getBoolean();
     }
 
+    @Override
+    public boolean isSocketDirectBuffer() {
+        return this.node.getGroupProperties().SOCKET_DIRECT_BUFFER.getBoolean();
+    }
+
+    @Override
+    public int getSocketGatheringWriteThreshold() {
+        return this.node.getGroupProperties().SOCKET_GATHERING_WRITE_THRESHOLD.getInteger();
+    }
+
+    @Override
+    public int getSocketReadBufferPoolSize() {
+        return this.node.getGroupProperties().SOCKET_READ_BUFFER_POOL_SIZE.getInteger();
+    }
+
+    @Override
+    public int getSocketSendQueueCapacity() {
+        return this.node.getGroupProperties().SOCKET_SEND_QUEUE_CAPACITY.getInteger();
+    }
+
+    @Override
+    public boolean isSocketCompressionEnabled() {
+        return this.node.getGroupProperties().SOCKET_COMPRESSION_ENABLED.getBoolean();
+    }
+
+    @Override
+    public int getSocketCompressionThreshold() {
+        return this.node.getGroupProperties().SOCKET_COMPRESSION_THRESHOLD.getInteger();
+    }
+
     @Override
     public int getSelectorThreadCount() {
         return node.groupProperties.IO_THREAD_COUNT.getInteger();
@@ -18,6 +18,7 @@ package com.hazelcast.nio;
 
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.DataAdapter;
+import com.hazelcast.nio.serialization.DataBufferPool;
 import com.hazelcast.nio.serialization.PortableContext;
 
 import java.nio.ByteBuffer;
@@ -33,6 +34,8 @@ public final class Packet extends DataAdapter implements SocketWritable, SocketR
     public static final int HEADER_EVENT = 2;
     public static final int HEADER_WAN_REPLICATION = 3;
     public static final int HEADER_URGENT = 4;
+    public static final int HEADER_COMPRESSED = 5;
+    public static final int HEADER_BATCH = 6;
 
     private static final int ST_VERSION = 11;
     private static final int ST_HEADER = 12;
@@ -47,6 +50,10 @@ public final class Packet extends DataAdapter implements SocketWritable, SocketR
         super(context);
     }
 
+    public Packet(PortableContext context, DataBufferPool bufferPool) {
+        super(context, bufferPool);
+    }
+
     public Packet(Data value, PortableContext context) {
         this(value, -1, context);
     }
@@ -110,7 +117,7 @@ public final class Packet extends DataAdapter implements SocketWritable, SocketR
     }
 
     @Override
-    public boolean writeTo(ByteBuffer destination) {
+    public boolean writeTo(ByteBuffer destination, int valueThreshold) {
         if (!isStatusSet(ST_VERSION)) {
             if (!destination.hasRemaining()) {
                 return false;
@@ -132,7 +139,7 @@ public final class Packet extends DataAdapter implements SocketWritable, SocketR
             destination.putInt(partitionId);
             setStatus(ST_PARTITION);
         }
-        return super.writeTo(destination);
+        return super.writeTo(destination, valueThreshold);
     }
 
     @Override
@@ -162,7 +169,28 @@ public final class Packet extends DataAdapter implements SocketWritable, SocketR
             partitionId = source.getInt();
             setStatus(ST_PARTITION);
         }
-        return super.readFrom(source);
+        if (!super.readFrom(source)) {
+            return false;
+        }
+        if (isHeaderSet(HEADER_COMPRESSED)) {
+            decompressValue();
+        }
+        return true;
+    }
+
+    /**
+     * Compresses the value of this packet for writing, if that makes it smaller, and marks the packet compressed.
+     * Must be called before writing starts; the codec output must not be reused until the packet is written.
+     *
+     * @param codec the codec of the connection.
+     * @return the number of value bytes written, or -1 if the packet is written uncompressed.
+     */
+    public int compress(Lz4Codec codec) {
+        final int length = compressValue(codec);
+        if (length >= 0) {
+            setHeader(HEADER_COMPRESSED);
+        }
+        return length;
     }
 
     /**
@@ -26,6 +26,12 @@ public final class Protocols {
      */
     public static final String CLUSTER = "HZC";
 
+    /**
+     * Protocol that is used among nodes by a node that can read compressed packets; packets are only sent
+     * compressed when both sides of a connection use it
+     */
+    public static final String CLUSTER_COMPRESSION = "HZZ";
+
     /**
      * Protocol that is used for clients(java, c++ , c# client)
      */
@@ -19,6 +19,8 @@ package com.hazelcast.nio.serialization;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 
+import java.nio.ByteOrder;
+
 final class ByteArrayInputOutputFactory implements InputOutputFactory {
 
     @Override
@@ -35,4 +37,9 @@ final class ByteArrayInputOutputFactory implements InputOutputFactory {
     public BufferObjectDataOutput createOutput(int size, SerializationService service) {
         return new ByteArrayObjectDataOutput(size, service);
     }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return ByteOrder.BIG_ENDIAN;
+    }
 }
@@ -43,4 +43,9 @@ final class ByteBufferInputOutputFactory implements InputOutputFactory {
     public BufferObjectDataOutput createOutput(int size, SerializationService service) {
         return new ByteBufferObjectDataOutput(size, service, byteOrder);
     }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
 }
@@ -44,6 +44,18 @@ public final class Data implements IdentifiedDataSerializable {
         this.buffer = bytes;
     }
 
+    /**
+     * Re-creates a Data from its already resolved parts, e.g. when it is read back from a
+     * {@link com.hazelcast.storage.Storage}.
+     */
+    @edu.umd.cs.findbugs.annotations.SuppressWarnings("EI_EXPOSE_REP2")
+    public Data(int type, byte[] bytes, ClassDefinition classDefinition, int partitionHash) {
+        this.type = type;
+        this.buffer = bytes;
+        this.classDefinition = classDefinition;
+        this.partitionHash = partitionHash;
+    }
+
     public void postConstruct(PortableContext context) {
         if (classDefinition != null && classDefinition instanceof BinaryClassDefinitionProxy) {
             try {
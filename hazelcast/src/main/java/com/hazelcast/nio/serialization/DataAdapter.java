@@ -17,6 +17,7 @@
 package com.hazelcast.nio.serialization;
 
 import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.Lz4Codec;
 import com.hazelcast.nio.SocketReadable;
 import com.hazelcast.nio.SocketWritable;
 
@@ -43,6 +44,9 @@ public class DataAdapter implements SocketWritable, SocketReadable {
     private int version;
     private int classDefSize;
     private boolean skipClassDef;
+    private int valueOffset;
+    private DataBufferPool bufferPool;
+    private ByteBuffer compressedValue;
 
     private transient short status;
     private transient PortableContext context;
@@ -55,6 +59,17 @@ public class DataAdapter implements SocketWritable, SocketReadable {
         this.context = context;
     }
 
+    /**
+     * Creates an adapter for reading, taking the array of the value from the given pool.
+     *
+     * @param context    the portable context.
+     * @param bufferPool the pool to take the value array from, see {@link #release()}.
+     */
+    public DataAdapter(PortableContext context, DataBufferPool bufferPool) {
+        this.context = context;
+        this.bufferPool = bufferPool;
+    }
+
     public DataAdapter(Data data, PortableContext context) {
         this.data = data;
         this.context = context;
@@ -72,6 +87,18 @@ public class DataAdapter implements SocketWritable, SocketReadable {
      */
     @Override
     public boolean writeTo(ByteBuffer destination) {
+        return writeTo(destination, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes like {@link #writeTo(java.nio.ByteBuffer)}, but stops in front of a value of at least
+     * {@code valueThreshold} bytes instead of copying it, so the caller can write it with {@link #detachValue()}.
+     *
+     * @param destination    the buffer to write to.
+     * @param valueThreshold the value size from which the value is not copied to the destination.
+     * @return true if everything is written.
+     */
+    public boolean writeTo(ByteBuffer destination, int valueThreshold) {
         if (!isStatusSet(ST_TYPE)) {
             if (destination.remaining() < 4) {
                 return false;
@@ -124,7 +151,7 @@ public class DataAdapter implements SocketWritable, SocketReadable {
             }
         }
         if (!isStatusSet(ST_CLASS_DEF)) {
-            IOUtil.copyToHeapBuffer(buffer, destination);
+            copy(buffer, destination);
             if (buffer.hasRemaining()) {
                 return false;
             }
@@ -134,17 +161,20 @@ public class DataAdapter implements SocketWritable, SocketReadable {
             if (destination.remaining() < 4) {
                 return false;
             }
-            final int size = data.bufferSize();
+            final int size = compressedValue != null ? compressedValue.remaining() : data.bufferSize();
             destination.putInt(size);
             setStatus(ST_SIZE);
             if (size <= 0) {
                 setStatus(ST_VALUE);
             } else {
-                buffer = ByteBuffer.wrap(data.buffer);
+                buffer = compressedValue != null ? compressedValue : ByteBuffer.wrap(data.buffer);
             }
         }
         if (!isStatusSet(ST_VALUE)) {
-            IOUtil.copyToHeapBuffer(buffer, destination);
+            if (buffer.remaining() >= valueThreshold) {
+                return false;
+            }
+            copy(buffer, destination);
             if (buffer.hasRemaining()) {
                 return false;
             }
@@ -161,6 +191,60 @@ public class DataAdapter implements SocketWritable, SocketReadable {
         return true;
     }
 
+    /**
+     * Takes over the rest of the value when {@link #writeTo(java.nio.ByteBuffer, int)} stopped inside or in front of it.
+     * The value is then treated as written; the caller has to write the returned bytes before continuing.
+     *
+     * @return the value bytes still to be written, or null if writing did not stop at the value.
+     */
+    public final ByteBuffer detachValue() {
+        if (!isStatusSet(ST_SIZE) || isStatusSet(ST_VALUE)) {
+            return null;
+        }
+        setStatus(ST_VALUE);
+        return buffer;
+    }
+
+    /**
+     * Makes {@link #writeTo(java.nio.ByteBuffer, int)} write the value compressed by the given codec, if that makes
+     * it smaller. The reading side has to call {@link #decompressValue()}.
+     *
+     * @param codec the codec to compress with; its output is written, so it must not be reused until this is written.
+     * @return the length of the compressed value, or -1 if the value is written uncompressed.
+     */
+    protected final int compressValue(Lz4Codec codec) {
+        if (data == null || data.buffer == null) {
+            return -1;
+        }
+        final int length = codec.compress(data.buffer);
+        if (length >= 0) {
+            compressedValue = ByteBuffer.wrap(codec.getOutput(), 0, length);
+        }
+        return length;
+    }
+
+    /**
+     * Replaces the value read by its decompressed form, see {@link #compressValue(com.hazelcast.nio.Lz4Codec)}.
+     */
+    protected final void decompressValue() {
+        final byte[] compressed = data.buffer;
+        final int length = Lz4Codec.getDecompressedLength(compressed);
+        final byte[] value = bufferPool != null ? bufferPool.take(length) : new byte[length];
+        Lz4Codec.decompress(compressed, value);
+        data.buffer = value;
+        if (bufferPool != null) {
+            bufferPool.offer(compressed);
+        }
+    }
+
+    private static void copy(ByteBuffer src, ByteBuffer destination) {
+        if (destination.hasArray()) {
+            IOUtil.copyToHeapBuffer(src, destination);
+        } else {
+            IOUtil.copyToDirectBuffer(src, destination);
+        }
+    }
+
     /**
      * WARNING:
      * <p/>
@@ -237,16 +321,16 @@ public class DataAdapter implements SocketWritable, SocketReadable {
                 return false;
             }
             final int size = source.getInt();
-            buffer = ByteBuffer.allocate(size);
+            data.buffer = bufferPool != null ? bufferPool.take(size) : new byte[size];
             setStatus(ST_SIZE);
         }
         if (!isStatusSet(ST_VALUE)) {
-            IOUtil.copyToHeapBuffer(source, buffer);
-            if (buffer.hasRemaining()) {
+            final int n = Math.min(source.remaining(), data.buffer.length - valueOffset);
+            source.get(data.buffer, valueOffset, n);
+            valueOffset += n;
+            if (valueOffset < data.buffer.length) {
                 return false;
             }
-            buffer.flip();
-            data.buffer = buffer.array();
             setStatus(ST_VALUE);
         }
         if (!isStatusSet(ST_HASH)) {
@@ -277,6 +361,18 @@ public class DataAdapter implements SocketWritable, SocketReadable {
         this.data = data;
     }
 
+    /**
+     * Hands the value array back to the pool it was taken from when reading. Must only be called once the data is
+     * deserialized and nothing refers to it anymore; the data is empty afterwards.
+     */
+    public final void release() {
+        if (bufferPool != null && data != null && data.buffer != null) {
+            final byte[] array = data.buffer;
+            data.buffer = null;
+            bufferPool.offer(array);
+        }
+    }
+
     public boolean done() {
         return isStatusSet(ST_ALL);
     }
@@ -286,6 +382,8 @@ public class DataAdapter implements SocketWritable, SocketReadable {
         classId = 0;
         version = 0;
         classDefSize = 0;
+        valueOffset = 0;
+        compressedValue = null;
         data = null;
         status = 0;
     }
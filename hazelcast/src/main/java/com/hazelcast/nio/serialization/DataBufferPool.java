@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.nio.serialization;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Recycles the byte arrays backing the {@link Data} of packets read from the network.
+ * <p/>
+ * A Data needs an array of exactly its size, so arrays are kept per size. Packets of recurring sizes, e.g. responses,
+ * backups and values of the same size, then stop allocating a new array for every packet. An array is handed back with
+ * {@link DataAdapter#release()} once the packet is deserialized.
+ */
+public final class DataBufferPool {
+
+    private static final int BUFFERS_PER_SIZE = 64;
+
+    private final AtomicReferenceArray<Queue<byte[]>> buffers;
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    private final long capacity;
+
+    /**
+     * @param maxBufferSize the size of the largest array kept.
+     * @param capacity      the number of bytes kept at most.
+     */
+    public DataBufferPool(int maxBufferSize, long capacity) {
+        this.buffers = new AtomicReferenceArray<Queue<byte[]>>(maxBufferSize + 1);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes an array from the pool, or allocates one if there is none of this size.
+     *
+     * @param size the size of the array.
+     * @return an array of exactly the given size, with undefined content.
+     */
+    public byte[] take(int size) {
+        if (size > 0 && size < buffers.length()) {
+            final Queue<byte[]> queue = buffers.get(size);
+            final byte[] buffer = queue != null ? queue.poll() : null;
+            if (buffer != null) {
+                pooledBytes.addAndGet(-size);
+                return buffer;
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Returns an array to the pool. The caller must not use it afterwards.
+     *
+     * @param buffer the array to recycle.
+     */
+    public void offer(byte[] buffer) {
+        final int size = buffer.length;
+        if (size == 0 || size >= buffers.length()) {
+            return;
+        }
+        if (pooledBytes.addAndGet(size) > capacity) {
+            pooledBytes.addAndGet(-size);
+            return;
+        }
+        Queue<byte[]> queue = buffers.get(size);
+        if (queue == null) {
+            buffers.compareAndSet(size, null, new ArrayBlockingQueue<byte[]>(BUFFERS_PER_SIZE));
+            queue = buffers.get(size);
+        }
+        if (!queue.offer(buffer)) {
+            pooledBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently kept in the pool.
+     *
+     * @return the pooled bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+}
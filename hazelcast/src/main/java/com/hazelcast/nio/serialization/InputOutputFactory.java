@@ -19,6 +19,8 @@ package com.hazelcast.nio.serialization;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 
+import java.nio.ByteOrder;
+
 public interface InputOutputFactory {
 
     BufferObjectDataInput createInput(Data data, SerializationService service);
@@ -26,4 +28,6 @@ public interface InputOutputFactory {
     BufferObjectDataInput createInput(byte[] buffer, SerializationService service);
 
     BufferObjectDataOutput createOutput(int size, SerializationService service);
+
+    ByteOrder getByteOrder();
 }
@@ -61,6 +61,11 @@ public interface SerializationService {
 
     PortableReader createPortableReader(Data data);
 
+    /**
+     * @return byte order of the serialized data.
+     */
+    ByteOrder getByteOrder();
+
     ClassLoader getClassLoader();
 
     ManagedContext getManagedContext();
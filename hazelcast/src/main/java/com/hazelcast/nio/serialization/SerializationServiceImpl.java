@@ -552,6 +552,10 @@ public final class SerializationServiceImpl implements SerializationService {
         return new DefaultPortableReader(portableSerializer, createObjectDataInput(data), data.getClassDefinition());
     }
 
+    public ByteOrder getByteOrder() {
+        return inputOutputFactory.getByteOrder();
+    }
+
     public void destroy() {
         active = false;
         for (SerializerAdapter serializer : typeMap.values()) {
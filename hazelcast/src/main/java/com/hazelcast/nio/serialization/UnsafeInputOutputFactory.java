@@ -19,6 +19,8 @@ package com.hazelcast.nio.serialization;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 
+import java.nio.ByteOrder;
+
 /**
  * @author mdogan 6/15/13
  */
@@ -38,4 +40,9 @@ final class UnsafeInputOutputFactory implements InputOutputFactory {
     public BufferObjectDataOutput createOutput(int size, SerializationService service) {
         return new UnsafeObjectDataOutput(size, service);
     }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return ByteOrder.nativeOrder();
+    }
 }
@@ -181,8 +181,22 @@ public class SSLSocketChannelWrapper extends DefaultSocketChannelWrapper {
         return writeInternal(input);
     }
 
+    @Override
+    public long write(ByteBuffer[] inputs, int offset, int length) throws IOException {
+        if (!handshakeCompleted) {
+            handshake();
+        }
+        sslEngineResult = sslEngine.wrap(inputs, offset, length, netOutBuffer);
+        flushNetOutBuffer();
+        return sslEngineResult.bytesConsumed();
+    }
+
     private int writeInternal(ByteBuffer input) throws IOException {
         sslEngineResult = sslEngine.wrap(input, netOutBuffer);
+        return flushNetOutBuffer();
+    }
+
+    private int flushNetOutBuffer() throws IOException {
         netOutBuffer.flip();
         int written = socketChannel.write(netOutBuffer);
         if (netOutBuffer.hasRemaining()) {
@@ -54,6 +54,6 @@ public class DefaultPacketReader implements PacketReader {
 
     protected Packet obtainPacket() {
         PortableContext portableContext = ioService.getPortableContext();
-        return new Packet(portableContext);
+        return new Packet(portableContext, connection.getConnectionManager().getDataBufferPool());
     }
 }
@@ -64,6 +64,11 @@ public class DefaultSocketChannelWrapper implements SocketChannelWrapper {
         return socketChannel.write(byteBuffer);
     }
 
+    @Override
+    public long write(ByteBuffer[] byteBuffers, int offset, int length) throws IOException {
+        return socketChannel.write(byteBuffers, offset, length);
+    }
+
     @Override
     public SelectableChannel configureBlocking(boolean b) throws IOException {
         return socketChannel.configureBlocking(b);
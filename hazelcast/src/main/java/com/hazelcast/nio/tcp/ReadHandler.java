@@ -33,10 +33,10 @@ import static com.hazelcast.util.StringUtil.bytesToString;
  */
 final class ReadHandler extends AbstractSelectionHandler implements Runnable {
 
-    private final ByteBuffer buffer;
-
     private final IOSelector ioSelector;
 
+    private ByteBuffer buffer;
+
     private SocketReader socketReader;
 
     private volatile long lastHandle;
@@ -44,7 +44,6 @@ final class ReadHandler extends AbstractSelectionHandler implements Runnable {
     public ReadHandler(TcpIpConnection connection, IOSelector ioSelector) {
         super(connection);
         this.ioSelector = ioSelector;
-        buffer = ByteBuffer.allocate(connectionManager.socketReceiveBufferSize);
     }
 
     @Override
@@ -102,14 +101,21 @@ final class ReadHandler extends AbstractSelectionHandler implements Runnable {
             if (!protocolBuffer.hasRemaining()) {
                 String protocol = bytesToString(protocolBuffer.array());
                 WriteHandler writeHandler = connection.getWriteHandler();
-                if (Protocols.CLUSTER.equals(protocol)) {
+                if (Protocols.CLUSTER.equals(protocol) || Protocols.CLUSTER_COMPRESSION.equals(protocol)) {
+                    buffer = allocateBuffer(connectionManager.socketDirectBuffer);
                     connection.setType(ConnectionType.MEMBER);
+                    if (connectionManager.socketCompression && Protocols.CLUSTER_COMPRESSION.equals(protocol)) {
+                        writeHandler.enableCompression();
+                    }
                     writeHandler.setProtocol(Protocols.CLUSTER);
                     socketReader = new SocketPacketReader(connection);
                 } else if (Protocols.CLIENT_BINARY.equals(protocol)) {
+                    buffer = allocateBuffer(connectionManager.socketDirectBuffer);
                     writeHandler.setProtocol(Protocols.CLIENT_BINARY);
                     socketReader = new SocketClientDataReader(connection);
                 } else {
+                    // the text reader parses through the backing array
+                    buffer = allocateBuffer(false);
                     writeHandler.setProtocol(Protocols.TEXT);
                     buffer.put(protocolBuffer.array());
                     socketReader = new SocketTextReader(connection);
@@ -122,6 +128,11 @@ final class ReadHandler extends AbstractSelectionHandler implements Runnable {
         }
     }
 
+    private ByteBuffer allocateBuffer(boolean direct) {
+        final int size = connectionManager.socketReceiveBufferSize;
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
     @Override
     public void run() {
         registerOp(ioSelector.getSelector(), SelectionKey.OP_READ);
@@ -43,6 +43,8 @@ public interface SocketChannelWrapper extends Closeable {
 
     int write(ByteBuffer byteBuffer) throws IOException;
 
+    long write(ByteBuffer[] byteBuffers, int offset, int length) throws IOException;
+
     SelectableChannel configureBlocking(boolean b) throws IOException;
 
     boolean isOpen();
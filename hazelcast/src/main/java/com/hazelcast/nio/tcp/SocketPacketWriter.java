@@ -43,4 +43,14 @@ class SocketPacketWriter implements SocketWriter<Packet> {
         return packetWriter.writePacket(socketWritable, socketBuffer);
     }
 
+    /**
+     * Checks if packet values can be written next to the socket buffer instead of being copied into it. Only the
+     * default packet writer allows this; other writers get to see all bytes of a packet.
+     *
+     * @return true if {@link Packet#writeTo(ByteBuffer, int)} can be used instead of this writer.
+     */
+    boolean isGathering() {
+        return packetWriter.getClass() == DefaultPacketWriter.class;
+    }
+
 }
@@ -22,12 +22,15 @@ import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Connection;
 import com.hazelcast.nio.ConnectionType;
 import com.hazelcast.nio.SocketWritable;
+import com.hazelcast.util.Clock;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The Tcp/Ip implementation of the {@link com.hazelcast.nio.Connection}.
@@ -43,6 +46,8 @@ import java.net.SocketAddress;
  */
 public final class TcpIpConnection implements Connection {
 
+    private static final long CAPACITY_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     private final SocketChannelWrapper socketChannel;
 
     private final ReadHandler readHandler;
@@ -101,6 +106,33 @@ public final class TcpIpConnection implements Connection {
         return true;
     }
 
+    /**
+     * Checks if more packet bytes are queued on this connection than "hazelcast.socket.send.queue.capacity" allows.
+     *
+     * @return true if the queue is over its capacity.
+     */
+    public boolean isOverloaded() {
+        final long capacity = connectionManager.socketSendQueueCapacity;
+        return capacity > 0 && writeHandler.getQueuedBytes() > capacity;
+    }
+
+    /**
+     * Waits until the queue of this connection is no longer over its capacity, or the connection is closed.
+     *
+     * @param timeoutMillis the maximum time to wait.
+     * @return false if the timeout elapsed or the thread got interrupted.
+     */
+    public boolean awaitCapacity(long timeoutMillis) {
+        final long deadline = Clock.currentTimeMillis() + timeoutMillis;
+        while (live && isOverloaded()) {
+            if (Clock.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(CAPACITY_POLL_NANOS);
+        }
+        return true;
+    }
+
     @Override
     public boolean isClient() {
         final ConnectionType t = type;
@@ -29,6 +29,7 @@ import com.hazelcast.nio.IOUtil;
 import com.hazelcast.nio.MemberSocketInterceptor;
 import com.hazelcast.nio.Packet;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.DataBufferPool;
 import com.hazelcast.nio.serialization.PortableContext;
 import com.hazelcast.util.ConcurrencyUtil;
 import com.hazelcast.util.ConstructorFunction;
@@ -58,6 +59,16 @@ public class TcpIpConnectionManager implements ConnectionManager {
 
     final int socketSendBufferSize;
 
+    final boolean socketDirectBuffer;
+
+    final int socketGatheringWriteThreshold;
+
+    final long socketSendQueueCapacity;
+
+    final boolean socketCompression;
+
+    final int socketCompressionThreshold;
+
     private final ConstructorFunction<Address, TcpIpConnectionMonitor> monitorConstructor
             = new ConstructorFunction<Address, TcpIpConnectionMonitor>() {
         public TcpIpConnectionMonitor createNew(Address endpoint) {
@@ -114,6 +125,8 @@ public class TcpIpConnectionManager implements ConnectionManager {
 
     private final PortableContext portableContext;
 
+    private final DataBufferPool dataBufferPool;
+
     // accessed only in synchronized block
     private volatile Thread socketAcceptorThread;
 
@@ -129,6 +142,11 @@ public class TcpIpConnectionManager implements ConnectionManager {
         this.socketLingerSeconds = ioService.getSocketLingerSeconds();
         this.socketKeepAlive = ioService.getSocketKeepAlive();
         this.socketNoDelay = ioService.getSocketNoDelay();
+        this.socketDirectBuffer = ioService.isSocketDirectBuffer();
+        this.socketGatheringWriteThreshold = ioService.getSocketGatheringWriteThreshold();
+        this.socketSendQueueCapacity = (long) ioService.getSocketSendQueueCapacity() * IOService.KILO_BYTE;
+        this.socketCompression = ioService.isSocketCompressionEnabled();
+        this.socketCompressionThreshold = ioService.getSocketCompressionThreshold();
         selectorThreadCount = ioService.getSelectorThreadCount();
         inSelectors = new IOSelector[selectorThreadCount];
         outSelectors = new IOSelector[selectorThreadCount];
@@ -139,6 +157,8 @@ public class TcpIpConnectionManager implements ConnectionManager {
         }
         socketChannelWrapperFactory = initializer.getSocketChannelWrapperFactory();
         portableContext = ioService.getPortableContext();
+        dataBufferPool = new DataBufferPool(socketReceiveBufferSize,
+                (long) ioService.getSocketReadBufferPoolSize() * IOService.KILO_BYTE);
     }
 
     public void interceptSocket(Socket socket, boolean onAccept) throws IOException {
@@ -198,6 +218,10 @@ public class TcpIpConnectionManager implements ConnectionManager {
         return portableContext;
     }
 
+    public DataBufferPool getDataBufferPool() {
+        return dataBufferPool;
+    }
+
     public IOService getIOHandler() {
         return ioService;
     }
@@ -569,6 +593,16 @@ public class TcpIpConnectionManager implements ConnectionManager {
         for (Connection conn : connectionsMap.values()) {
             sb.append("\n");
             sb.append(conn);
+            if (conn instanceof TcpIpConnection) {
+                final WriteHandler writeHandler = ((TcpIpConnection) conn).getWriteHandler();
+                sb.append(", bytesWritten=").append(writeHandler.getBytesWritten());
+                sb.append(", packetsWritten=").append(writeHandler.getPacketsWritten());
+                sb.append(", writeCalls=").append(writeHandler.getWriteCalls());
+                sb.append(", queueSize=").append(writeHandler.getQueueSize());
+                sb.append(", queuedBytes=").append(writeHandler.getQueuedBytes());
+                sb.append(", compressedPackets=").append(writeHandler.getCompressedPackets());
+                sb.append(", compressionRatio=").append(writeHandler.getCompressionRatio());
+            }
         }
         sb.append("\nlive=");
         sb.append(live);
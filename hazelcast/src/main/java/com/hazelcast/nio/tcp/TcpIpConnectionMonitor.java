@@ -45,6 +45,26 @@ public class TcpIpConnectionMonitor {
         return endPoint;
     }
 
+    /**
+     * Returns the number of packets waiting to be written to the endpoint.
+     *
+     * @return the queue size, 0 if there is no connection.
+     */
+    public int getQueueSize() {
+        final TcpIpConnection connection = (TcpIpConnection) connectionManager.getConnection(endPoint);
+        return connection != null ? connection.getWriteHandler().getQueueSize() : 0;
+    }
+
+    /**
+     * Returns the number of value bytes of the packets waiting to be written to the endpoint.
+     *
+     * @return the queued bytes, 0 if there is no connection.
+     */
+    public long getQueuedBytes() {
+        final TcpIpConnection connection = (TcpIpConnection) connectionManager.getConnection(endPoint);
+        return connection != null ? connection.getWriteHandler().getQueuedBytes() : 0;
+    }
+
     public synchronized void onError(Throwable t) {
         String errorMessage = "An error occurred on connection to " + endPoint + getCauseDescription(t);
         logger.finest(errorMessage);
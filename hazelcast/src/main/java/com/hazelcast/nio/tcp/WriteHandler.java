@@ -17,6 +17,8 @@
 package com.hazelcast.nio.tcp;
 
 import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.Lz4Codec;
+import com.hazelcast.nio.Packet;
 import com.hazelcast.nio.Protocols;
 import com.hazelcast.nio.SocketWritable;
 import com.hazelcast.nio.ascii.SocketTextWriter;
@@ -29,6 +31,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import static com.hazelcast.util.StringUtil.stringToBytes;
@@ -40,28 +44,59 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
 
     private static final long TIMEOUT = 3;
 
+    private static final int MAX_SEGMENTS = 64;
+
     private final Queue<SocketWritable> writeQueue = new ConcurrentLinkedQueue<SocketWritable>();
 
     private final Queue<SocketWritable> urgencyWriteQueue = new ConcurrentLinkedQueue<SocketWritable>();
 
     private final AtomicBoolean informSelector = new AtomicBoolean(true);
 
-    private final ByteBuffer buffer;
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicLong queuedBytes = new AtomicLong();
 
     private final IOSelector ioSelector;
 
+    // the data handed to the socket in a single gathering write: slices of the buffer, with large packet values in between
+    private final ByteBuffer[] segments = new ByteBuffer[MAX_SEGMENTS];
+
+    private ByteBuffer buffer;
+
+    private int segmentIndex;
+
+    private int segmentCount;
+
+    private boolean gathering;
+
     private boolean ready;
 
     private SocketWritable lastWritable;
 
     private SocketWriter socketWriter;
 
+    // compresses packet values; its output holds the value of the packet being written, if compressed
+    private Lz4Codec codec;
+
+    private volatile boolean compression;
+
     private volatile long lastHandle;
 
+    private volatile long bytesWritten;
+
+    private volatile long packetsWritten;
+
+    private volatile long writeCalls;
+
+    private volatile long compressedPackets;
+
+    private volatile long bytesBeforeCompression;
+
+    private volatile long bytesAfterCompression;
+
     WriteHandler(TcpIpConnection connection, IOSelector ioSelector) {
         super(connection);
         this.ioSelector = ioSelector;
-        buffer = ByteBuffer.allocate(connectionManager.socketSendBufferSize);
     }
 
     // accessed from ReadHandler and SocketConnector
@@ -84,22 +119,38 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
     private void createWriter(String protocol) {
         if (socketWriter == null) {
             if (Protocols.CLUSTER.equals(protocol)) {
-                socketWriter = new SocketPacketWriter(connection);
-                buffer.put(stringToBytes(Protocols.CLUSTER));
+                // text and client writers copy through the backing array, so only packets are written from a direct buffer
+                buffer = connectionManager.socketDirectBuffer
+                        ? ByteBuffer.allocateDirect(connectionManager.socketSendBufferSize)
+                        : ByteBuffer.allocate(connectionManager.socketSendBufferSize);
+                SocketPacketWriter packetWriter = new SocketPacketWriter(connection);
+                gathering = packetWriter.isGathering();
+                socketWriter = packetWriter;
+                buffer.put(stringToBytes(connectionManager.socketCompression
+                        ? Protocols.CLUSTER_COMPRESSION : Protocols.CLUSTER));
                 registerWrite();
             } else if (Protocols.CLIENT_BINARY.equals(protocol)) {
+                buffer = ByteBuffer.allocate(connectionManager.socketSendBufferSize);
                 socketWriter = new SocketClientDataWriter();
             } else {
+                buffer = ByteBuffer.allocate(connectionManager.socketSendBufferSize);
                 socketWriter = new SocketTextWriter(connection);
             }
         }
     }
 
+    // accessed from ReadHandler, once the other side announced it reads compressed packets
+    void enableCompression() {
+        compression = true;
+    }
+
     public SocketWriter getSocketWriter() {
         return socketWriter;
     }
 
     public void enqueueSocketWritable(SocketWritable socketWritable) {
+        queueSize.incrementAndGet();
+        queuedBytes.addAndGet(sizeOf(socketWritable));
         if (socketWritable.isUrgent()) {
             urgencyWriteQueue.offer(socketWritable);
         } else {
@@ -120,10 +171,38 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         if (writable == null) {
             writable = writeQueue.poll();
         }
+        if (writable != null) {
+            queueSize.decrementAndGet();
+            queuedBytes.addAndGet(-sizeOf(writable));
+        }
+        return writable;
+    }
 
+    // polls the next writable to write, compressing its value if possible
+    private SocketWritable next() {
+        final SocketWritable writable = poll();
+        if (compression && writable instanceof Packet) {
+            final Packet packet = (Packet) writable;
+            final int size = packet.getData().bufferSize();
+            if (size >= connectionManager.socketCompressionThreshold) {
+                if (codec == null) {
+                    codec = new Lz4Codec();
+                }
+                final int compressedSize = packet.compress(codec);
+                if (compressedSize >= 0) {
+                    compressedPackets++;
+                    bytesBeforeCompression += size;
+                    bytesAfterCompression += compressedSize;
+                }
+            }
+        }
         return writable;
     }
 
+    private static int sizeOf(SocketWritable writable) {
+        return writable instanceof Packet ? ((Packet) writable).getData().bufferSize() : 0;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void handle() {
@@ -136,8 +215,8 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
             createWriter(Protocols.CLUSTER);
         }
         if (lastWritable == null) {
-            lastWritable = poll();
-            if (lastWritable == null && buffer.position() == 0) {
+            lastWritable = next();
+            if (lastWritable == null && segmentCount == 0 && buffer.position() == 0) {
                 ready = true;
                 return;
             }
@@ -155,28 +234,68 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
     }
 
     private void writeBuffer() throws Exception {
-        while (buffer.hasRemaining() && lastWritable != null) {
-            boolean complete = socketWriter.write(lastWritable, buffer);
-            if (complete) {
-                lastWritable = poll();
-            } else {
-                break;
-            }
-        }
-        if (buffer.position() > 0) {
-            buffer.flip();
-            try {
-                socketChannel.write(buffer);
-            } catch (Exception e) {
-                lastWritable = null;
-                handleSocketException(e);
+        if (segmentCount == 0) {
+            fillSegments();
+            if (segmentCount == 0) {
                 return;
             }
-            if (buffer.hasRemaining()) {
-                buffer.compact();
-            } else {
-                buffer.clear();
+        }
+        final long written;
+        try {
+            written = socketChannel.write(segments, segmentIndex, segmentCount - segmentIndex);
+        } catch (Exception e) {
+            lastWritable = null;
+            handleSocketException(e);
+            return;
+        }
+        writeCalls++;
+        bytesWritten += written;
+        while (segmentIndex < segmentCount && !segments[segmentIndex].hasRemaining()) {
+            segments[segmentIndex++] = null;
+        }
+        // the slices share the buffer, so it is only reused once everything in it is written
+        if (segmentIndex == segmentCount) {
+            segmentIndex = 0;
+            segmentCount = 0;
+            buffer.clear();
+        }
+    }
+
+    private void fillSegments() throws Exception {
+        int sliceStart = 0;
+        int packets = 0;
+        while (lastWritable != null && segmentCount < MAX_SEGMENTS - 2) {
+            if (gathering) {
+                final Packet packet = (Packet) lastWritable;
+                // a compressed value lives in the codec, which the next packet reuses, so it is always copied
+                final int threshold = packet.isHeaderSet(Packet.HEADER_COMPRESSED)
+                        ? Integer.MAX_VALUE : connectionManager.socketGatheringWriteThreshold;
+                if (!packet.writeTo(buffer, threshold)) {
+                    final ByteBuffer value = packet.detachValue();
+                    if (value == null) {
+                        break;
+                    }
+                    addSlice(sliceStart);
+                    sliceStart = buffer.position();
+                    segments[segmentCount++] = value;
+                    continue;
+                }
+            } else if (!socketWriter.write(lastWritable, buffer)) {
+                break;
             }
+            packets++;
+            lastWritable = next();
+        }
+        addSlice(sliceStart);
+        packetsWritten += packets;
+    }
+
+    private void addSlice(int sliceStart) {
+        if (buffer.position() > sliceStart) {
+            final ByteBuffer slice = buffer.duplicate();
+            slice.limit(buffer.position());
+            slice.position(sliceStart);
+            segments[segmentCount++] = slice;
         }
     }
 
@@ -204,4 +323,70 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
     long getLastHandle() {
         return lastHandle;
     }
+
+    /**
+     * Returns the number of bytes written to the socket of this connection.
+     *
+     * @return the number of bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of packets handed to the socket of this connection.
+     *
+     * @return the number of packets written.
+     */
+    public long getPacketsWritten() {
+        return packetsWritten;
+    }
+
+    /**
+     * Returns the number of socket writes of this connection. Packets and bytes per write show how well small
+     * packets are coalesced.
+     *
+     * @return the number of socket writes.
+     */
+    public long getWriteCalls() {
+        return writeCalls;
+    }
+
+    /**
+     * Returns the number of packets written with a compressed value.
+     *
+     * @return the number of compressed packets.
+     */
+    public long getCompressedPackets() {
+        return compressedPackets;
+    }
+
+    /**
+     * Returns the compression ratio of the compressed packets: their compressed value bytes divided by their
+     * uncompressed value bytes.
+     *
+     * @return the compression ratio, or 1 if no packet was compressed.
+     */
+    public double getCompressionRatio() {
+        final long before = bytesBeforeCompression;
+        return before == 0 ? 1d : (double) bytesAfterCompression / before;
+    }
+
+    /**
+     * Returns the number of packets waiting to be written.
+     *
+     * @return the queue size.
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * Returns the number of value bytes of the packets waiting to be written.
+     *
+     * @return the queued bytes.
+     */
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
 }
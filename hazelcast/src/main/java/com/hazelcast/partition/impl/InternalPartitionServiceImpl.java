@@ -137,6 +137,9 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     // both reads and updates will be done under lock!
     private final LinkedList<MigrationInfo> completedMigrations = new LinkedList<MigrationInfo>();
 
+    // written by the migration thread of the master, read by MigrationProgressOperations.
+    private volatile MigrateTask ongoingMigrateTask;
+
     public InternalPartitionServiceImpl(Node node) {
         this.partitionCount = node.groupProperties.PARTITION_COUNT.getInteger();
         this.node = node;
@@ -967,6 +970,16 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
         return false;
     }
 
+    /**
+     * Re-arms the timeout of the ongoing migration on the master, see {@link MigrationProgressOperation}.
+     */
+    void onMigrationProgress(MigrationInfo migrationInfo) {
+        final MigrateTask task = ongoingMigrateTask;
+        if (task != null && task.migrationInfo.equals(migrationInfo)) {
+            task.progressTime = Clock.currentTimeMillis();
+        }
+    }
+
     boolean hasOnGoingMigrationLocal() {
         return !activeMigrations.isEmpty() || !migrationQueue.isEmpty()
                 || !migrationActive.get()
@@ -1539,6 +1552,7 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
     private class MigrateTask implements Runnable {
         final MigrationInfo migrationInfo;
         final BackupMigrationTask backupTask;
+        volatile long progressTime;
 
         MigrateTask(MigrationInfo migrationInfo, BackupMigrationTask backupTask) {
             this.migrationInfo = migrationInfo;
@@ -1612,16 +1626,41 @@ public class InternalPartitionServiceImpl implements InternalPartitionService, M
             Future future = nodeEngine.getOperationService().createInvocationBuilder(SERVICE_NAME,
                     migrationRequestOp, migrationInfo.getSource()).setTryPauseMillis(DEFAULT_PAUSE_MILLIS).invoke();
 
+            ongoingMigrateTask = this;
             try {
-                Object response = future.get(partitionMigrationTimeout, TimeUnit.SECONDS);
+                Object response = awaitMigrateResponse(future);
                 return (Boolean) nodeEngine.toObject(response);
             } catch (Throwable e) {
                 final Level level = node.isActive() && migrationInfo.isValid() ? Level.WARNING : Level.FINEST;
                 logger.log(level, "Failed migration from " + fromMember, e);
+            } finally {
+                ongoingMigrateTask = null;
             }
             return Boolean.FALSE;
         }
 
+        /**
+         * Waits until the migration has made no progress for the migration timeout. A chunked migration
+         * reports its progress after each chunk, so its total duration is not bounded by the timeout.
+         */
+        private Object awaitMigrateResponse(Future future) throws Exception {
+            final long timeoutMillis = TimeUnit.SECONDS.toMillis(partitionMigrationTimeout);
+            progressTime = Clock.currentTimeMillis();
+            while (true) {
+                final long remaining = progressTime + timeoutMillis - Clock.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new TimeoutException("Migration made no progress for " + partitionMigrationTimeout
+                            + " seconds -> " + migrationInfo);
+                }
+                try {
+                    return future.get(remaining, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // the deadline is checked again, it may have been re-armed meanwhile
+                    continue;
+                }
+            }
+        }
+
         private void migrationTaskFailed() {
             systemLogService.logPartition("Migration failed: " + migrationInfo);
             lock.lock();
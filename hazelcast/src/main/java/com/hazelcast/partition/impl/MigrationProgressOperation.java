@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.partition.impl;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.partition.MigrationInfo;
+import com.hazelcast.spi.AbstractOperation;
+
+import java.io.IOException;
+
+/**
+ * Sent by the source of a chunked migration to the master after each chunk applied by the destination,
+ * the master keeps waiting for the migration as long as it makes progress.
+ */
+public final class MigrationProgressOperation extends AbstractOperation {
+
+    private MigrationInfo migrationInfo;
+
+    public MigrationProgressOperation() {
+    }
+
+    public MigrationProgressOperation(MigrationInfo migrationInfo) {
+        this.migrationInfo = migrationInfo;
+    }
+
+    @Override
+    public void run() throws Exception {
+        InternalPartitionServiceImpl service = getService();
+        service.onMigrationProgress(migrationInfo);
+    }
+
+    @Override
+    public boolean returnsResponse() {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        migrationInfo.writeData(out);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        migrationInfo = new MigrationInfo();
+        migrationInfo.readData(in);
+    }
+}
@@ -28,14 +28,17 @@ import com.hazelcast.partition.InternalPartition;
 import com.hazelcast.partition.InternalPartitionService;
 import com.hazelcast.partition.MigrationEndpoint;
 import com.hazelcast.partition.MigrationInfo;
+import com.hazelcast.spi.AbstractOperation;
 import com.hazelcast.spi.ExceptionAction;
 import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.MigrationAwareService;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.NonThreadSafe;
 import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.PartitionAwareOperation;
 import com.hazelcast.spi.PartitionMigrationEvent;
 import com.hazelcast.spi.PartitionReplicationEvent;
+import com.hazelcast.spi.PreCopyMigrationAwareService;
 import com.hazelcast.spi.ResponseHandler;
 import com.hazelcast.spi.ServiceInfo;
 import com.hazelcast.spi.exception.RetryableHazelcastException;
@@ -45,6 +48,7 @@ import com.hazelcast.util.executor.ManagedExecutorService;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.concurrent.ExecutionException;
@@ -60,6 +64,7 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
     private static final int DEFAULT_DATA_OUTPUT_BUFFER_SIZE = 1024 * 32;
 
     private boolean returnResponse = true;
+    private boolean preCopied;
 
     public MigrationRequestOperation() {
     }
@@ -97,14 +102,12 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
 
         try {
             verifyOwner(source, partition, owner);
-            partitionService.addActiveMigration(migrationInfo);
-            long[] replicaVersions = partitionService.getPartitionReplicaVersions(migrationInfo.getPartitionId());
-            Collection<Operation> tasks = prepareMigrationTasks();
-            if (tasks.size() > 0) {
-                returnResponse = false;
-                spawnMigrationRequestTask(destination, replicaVersions, tasks);
+            Collection<ServiceInfo> preCopyServices = getPreCopyServices();
+            if (preCopyServices.isEmpty()) {
+                migrate(destination);
             } else {
-                success = true;
+                returnResponse = false;
+                beginPreCopy(destination, preCopyServices);
             }
         } catch (Throwable e) {
             getLogger().warning(e);
@@ -114,6 +117,86 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
         }
     }
 
+    /**
+     * Blocks the partition and sends its data to the destination.
+     *
+     * @return true if the response is sent later by a {@link MigrationRequestTask}.
+     */
+    private boolean migrate(Address destination) throws IOException {
+        InternalPartitionServiceImpl partitionService = getService();
+        partitionService.addActiveMigration(migrationInfo);
+        long[] replicaVersions = partitionService.getPartitionReplicaVersions(migrationInfo.getPartitionId());
+        Collection<Operation> tasks = prepareMigrationTasks();
+        if (tasks.size() > 0) {
+            returnResponse = false;
+            spawnMigrationRequestTask(destination, replicaVersions, tasks);
+            return true;
+        }
+        success = true;
+        return false;
+    }
+
+    private Collection<ServiceInfo> getPreCopyServices() {
+        NodeEngineImpl nodeEngine = (NodeEngineImpl) getNodeEngine();
+        if (!nodeEngine.getGroupProperties().PARTITION_MIGRATION_CHUNKED_ENABLED.getBoolean()) {
+            return Collections.emptyList();
+        }
+        return nodeEngine.getServiceInfos(PreCopyMigrationAwareService.class);
+    }
+
+    private void beginPreCopy(Address destination, Collection<ServiceInfo> preCopyServices) {
+        PartitionMigrationEvent migrationEvent = createSourceMigrationEvent();
+        for (ServiceInfo serviceInfo : preCopyServices) {
+            PreCopyMigrationAwareService service = (PreCopyMigrationAwareService) serviceInfo.getService();
+            service.beginPreCopy(migrationEvent);
+        }
+        preCopied = true;
+        ManagedExecutorService executor = getNodeEngine().getExecutionService().getExecutor(ExecutionService.ASYNC_EXECUTOR);
+        executor.execute(new PreCopyTask(destination, preCopyServices));
+    }
+
+    /**
+     * Runs on the partition thread once all chunks of the pre-copy are applied by the destination.
+     */
+    private void finishPreCopy(Address destination) throws IOException {
+        if (!migrationInfo.startProcessing()) {
+            throw new HazelcastException("Migration is cancelled -> " + migrationInfo);
+        }
+        try {
+            InternalPartitionServiceImpl partitionService = getService();
+            InternalPartition partition = partitionService.getPartition(migrationInfo.getPartitionId());
+            verifyOwner(migrationInfo.getSource(), partition, partition.getOwnerOrNull());
+            if (!migrate(destination)) {
+                getResponseHandler().sendResponse(success);
+            }
+        } finally {
+            migrationInfo.doneProcessing();
+        }
+    }
+
+    /**
+     * Runs on the partition thread if the pre-copy failed.
+     *
+     * @return operations discarding the copied data on the destination.
+     */
+    private Collection<Operation> cancelPreCopy(Collection<ServiceInfo> preCopyServices) {
+        PartitionMigrationEvent migrationEvent = createSourceMigrationEvent();
+        Collection<Operation> operations = new LinkedList<Operation>();
+        for (ServiceInfo serviceInfo : preCopyServices) {
+            PreCopyMigrationAwareService service = (PreCopyMigrationAwareService) serviceInfo.getService();
+            Operation op = service.cancelPreCopy(migrationEvent);
+            if (op != null) {
+                op.setServiceName(serviceInfo.getName());
+                operations.add(op);
+            }
+        }
+        return operations;
+    }
+
+    private PartitionMigrationEvent createSourceMigrationEvent() {
+        return new PartitionMigrationEvent(MigrationEndpoint.SOURCE, migrationInfo.getPartitionId());
+    }
+
     private void verifyNotThisNode(NodeEngine nodeEngine, Address source) {
         if (source == null || !source.equals(nodeEngine.getThisAddress())) {
             throw new RetryableHazelcastException("Source of migration is not this node! => " + toString());
@@ -218,7 +301,12 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
         for (ServiceInfo serviceInfo : nodeEngine.getServiceInfos(MigrationAwareService.class)) {
             MigrationAwareService service = (MigrationAwareService) serviceInfo.getService();
             service.beforeMigration(migrationEvent);
-            Operation op = service.prepareReplicationOperation(replicationEvent);
+            Operation op;
+            if (preCopied && service instanceof PreCopyMigrationAwareService) {
+                op = ((PreCopyMigrationAwareService) service).finishPreCopy(replicationEvent);
+            } else {
+                op = service.prepareReplicationOperation(replicationEvent);
+            }
             if (op != null) {
                 op.setServiceName(serviceInfo.getName());
                 tasks.add(op);
@@ -227,6 +315,153 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
         return tasks;
     }
 
+    private void logThrowable(Throwable t) {
+        Throwable throwableToLog = t;
+        if (throwableToLog instanceof ExecutionException) {
+            throwableToLog = throwableToLog.getCause() != null ? throwableToLog.getCause() : throwableToLog;
+        }
+        Level level = getLogLevel(throwableToLog);
+        getLogger().log(level, throwableToLog.getMessage(), throwableToLog);
+    }
+
+    private Level getLogLevel(Throwable e) {
+        return (e instanceof MemberLeftException || e instanceof InterruptedException)
+                || !getNodeEngine().isActive() ? Level.INFO : Level.WARNING;
+    }
+
+    /**
+     * Sends the chunks of the pre-copy, each one once the destination has applied the previous one, then
+     * blocks the partition on its partition thread to send the changes made meanwhile.
+     */
+    private class PreCopyTask implements Runnable {
+        private final Address destination;
+        private final Collection<ServiceInfo> preCopyServices;
+        private final ResponseHandler responseHandler;
+        private final long timeout;
+        private final int chunkSize;
+
+        PreCopyTask(Address destination, Collection<ServiceInfo> preCopyServices) {
+            this.destination = destination;
+            this.preCopyServices = preCopyServices;
+            this.responseHandler = getResponseHandler();
+            NodeEngine nodeEngine = getNodeEngine();
+            this.timeout = nodeEngine.getGroupProperties().PARTITION_MIGRATION_TIMEOUT.getLong();
+            this.chunkSize = nodeEngine.getGroupProperties().PARTITION_MIGRATION_CHUNK_SIZE.getInteger();
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (ServiceInfo serviceInfo : preCopyServices) {
+                    copy(serviceInfo);
+                }
+                runOnPartitionThread(new PreCopyStep() {
+                    @Override
+                    Object call() throws Exception {
+                        finishPreCopy(destination);
+                        return null;
+                    }
+                });
+            } catch (Throwable e) {
+                logThrowable(e);
+                cancel();
+                responseHandler.sendResponse(Boolean.FALSE);
+            }
+        }
+
+        private void copy(ServiceInfo serviceInfo) throws Exception {
+            final PreCopyMigrationAwareService service = (PreCopyMigrationAwareService) serviceInfo.getService();
+            final PartitionMigrationEvent migrationEvent = createSourceMigrationEvent();
+            while (true) {
+                Operation chunk = runOnPartitionThread(new PreCopyStep() {
+                    @Override
+                    Object call() {
+                        return service.preparePreCopyChunk(migrationEvent, chunkSize);
+                    }
+                });
+                if (chunk == null) {
+                    return;
+                }
+                chunk.setServiceName(serviceInfo.getName());
+                Object response = send(serviceInfo.getName(), chunk);
+                if (!Boolean.TRUE.equals(response)) {
+                    throw new HazelcastException("Migration chunk was not applied by " + destination + " -> " + migrationInfo);
+                }
+                reportProgress();
+            }
+        }
+
+        /**
+         * Lets the master re-arm its migration timeout, the pre-copy of a large partition may take longer.
+         */
+        private void reportProgress() {
+            NodeEngine nodeEngine = getNodeEngine();
+            Address master = migrationInfo.getMaster();
+            if (master == null) {
+                return;
+            }
+            if (nodeEngine.getThisAddress().equals(master)) {
+                InternalPartitionServiceImpl partitionService = getService();
+                partitionService.onMigrationProgress(migrationInfo);
+                return;
+            }
+            MigrationProgressOperation op = new MigrationProgressOperation(migrationInfo);
+            op.setServiceName(InternalPartitionService.SERVICE_NAME);
+            nodeEngine.getOperationService().send(op, master);
+        }
+
+        private void cancel() {
+            try {
+                Collection<Operation> operations = runOnPartitionThread(new PreCopyStep() {
+                    @Override
+                    Object call() {
+                        return cancelPreCopy(preCopyServices);
+                    }
+                });
+                for (Operation op : operations) {
+                    send(op.getServiceName(), op);
+                }
+            } catch (Throwable e) {
+                getLogger().finest("Could not cancel pre-copy of " + migrationInfo, e);
+            }
+        }
+
+        private Object send(String serviceName, Operation op) throws Exception {
+            NodeEngine nodeEngine = getNodeEngine();
+            Future future = nodeEngine.getOperationService()
+                    .createInvocationBuilder(serviceName, op, destination)
+                    .setTryPauseMillis(TRY_PAUSE_MILLIS)
+                    .invoke();
+            return nodeEngine.toObject(future.get(timeout, TimeUnit.SECONDS));
+        }
+
+        private <T> T runOnPartitionThread(PreCopyStep step) throws Exception {
+            step.setPartitionId(getPartitionId());
+            Future<T> future = getNodeEngine().getOperationService()
+                    .invokeOnPartition(InternalPartitionService.SERVICE_NAME, step, getPartitionId());
+            return future.get(timeout, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A step of the pre-copy which has to run on the partition thread of this member, it is never sent.
+     */
+    private abstract static class PreCopyStep extends AbstractOperation implements PartitionAwareOperation {
+        private Object response;
+
+        abstract Object call() throws Exception;
+
+        @Override
+        public void run() throws Exception {
+            response = call();
+        }
+
+        @Override
+        public Object getResponse() {
+            return response;
+        }
+    }
+
     private class MigrationRequestTask implements Runnable {
         private final SerializationService serializationService;
         private final Collection<Operation> tasks;
@@ -272,20 +507,6 @@ public final class MigrationRequestOperation extends BaseMigrationOperation {
             }
         }
 
-        private void logThrowable(Throwable t) {
-            Throwable throwableToLog = t;
-            if (throwableToLog instanceof ExecutionException) {
-                throwableToLog = throwableToLog.getCause() != null ? throwableToLog.getCause() : throwableToLog;
-            }
-            Level level = getLogLevel(throwableToLog);
-            getLogger().log(level, throwableToLog.getMessage(), throwableToLog);
-        }
-
-        private Level getLogLevel(Throwable e) {
-            return (e instanceof MemberLeftException || e instanceof InterruptedException)
-                    || !getNodeEngine().isActive() ? Level.INFO : Level.WARNING;
-        }
-
         private byte[] getTaskData() throws IOException {
             try {
                 for (Operation task : tasks) {
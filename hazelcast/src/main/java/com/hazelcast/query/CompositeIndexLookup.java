@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.query.Predicates.AbstractPredicate;
+import com.hazelcast.query.Predicates.BetweenPredicate;
+import com.hazelcast.query.Predicates.EqualPredicate;
+import com.hazelcast.query.Predicates.GreaterLessPredicate;
+import com.hazelcast.query.impl.CompositeIndex;
+import com.hazelcast.query.impl.IndexImpl;
+import com.hazelcast.query.impl.QueryContext;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lookup of the entries matching some conjuncts of an {@link Predicates.AndPredicate} in a {@link CompositeIndex}:
+ * equalities of a prefix of the indexed attributes, in an ordered index optionally followed by a range of the next
+ * attribute. Of several composite indexes the one matching the most conjuncts is used.
+ */
+final class CompositeIndexLookup {
+
+    private final CompositeIndex index;
+    private final boolean[] matched;
+    private final List<Comparable> prefix = new ArrayList<Comparable>();
+    private int matchCount;
+    private Comparable from;
+    private boolean fromInclusive;
+    private Comparable to;
+    private boolean toInclusive;
+
+    private CompositeIndexLookup(CompositeIndex index, int predicateCount) {
+        this.index = index;
+        this.matched = new boolean[predicateCount];
+    }
+
+    /**
+     * @return the lookup of the composite index matching the most conjuncts, null if no composite index is
+     * worth using, e.g. it matches only a conjunct which has an index of its own.
+     */
+    static CompositeIndexLookup find(Predicate[] predicates, QueryContext queryContext) {
+        CompositeIndexLookup best = null;
+        for (CompositeIndex index : queryContext.getCompositeIndexes()) {
+            CompositeIndexLookup lookup = match(index, predicates);
+            if (lookup != null && (best == null || lookup.matchCount > best.matchCount)) {
+                best = lookup;
+            }
+        }
+        if (best != null && best.matchCount == 1) {
+            for (int i = 0; i < predicates.length; i++) {
+                if (best.matched[i] && ((AbstractPredicate) predicates[i]).getIndex(queryContext) != null) {
+                    return null;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static CompositeIndexLookup match(CompositeIndex index, Predicate[] predicates) {
+        String[] attributes = index.getAttributes();
+        CompositeIndexLookup lookup = new CompositeIndexLookup(index, predicates.length);
+        int length = 0;
+        while (length < attributes.length && lookup.matchEqual(predicates, attributes[length])) {
+            length++;
+        }
+        if (length < attributes.length) {
+            if (!index.isOrdered()) {
+                return null;
+            }
+            lookup.matchRange(predicates, attributes[length]);
+        }
+        return lookup.matchCount > 0 ? lookup : null;
+    }
+
+    private boolean matchEqual(Predicate[] predicates, String attribute) {
+        for (int i = 0; i < predicates.length; i++) {
+            Predicate predicate = predicates[i];
+            if (matched[i] || predicate.getClass() != EqualPredicate.class) {
+                continue;
+            }
+            EqualPredicate equalPredicate = (EqualPredicate) predicate;
+            Comparable value = equalPredicate.value;
+            if (attribute.equals(equalPredicate.attribute) && value != null && !(value instanceof IndexImpl.NullObject)) {
+                prefix.add(value);
+                matched[i] = true;
+                matchCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void matchRange(Predicate[] predicates, String attribute) {
+        for (int i = 0; i < predicates.length; i++) {
+            Predicate predicate = predicates[i];
+            if (matched[i]) {
+                continue;
+            }
+            if (predicate.getClass() == GreaterLessPredicate.class) {
+                matchGreaterLess((GreaterLessPredicate) predicate, attribute, i);
+            } else if (predicate.getClass() == BetweenPredicate.class) {
+                BetweenPredicate betweenPredicate = (BetweenPredicate) predicate;
+                if (attribute.equals(betweenPredicate.attribute) && from == null && to == null) {
+                    from = betweenPredicate.from;
+                    fromInclusive = true;
+                    to = betweenPredicate.to;
+                    toInclusive = true;
+                    matched[i] = true;
+                    matchCount++;
+                }
+            }
+        }
+    }
+
+    private void matchGreaterLess(GreaterLessPredicate predicate, String attribute, int predicateIndex) {
+        if (!attribute.equals(predicate.attribute)) {
+            return;
+        }
+        if (predicate.less && to == null) {
+            to = predicate.value;
+            toInclusive = predicate.equal;
+        } else if (!predicate.less && from == null) {
+            from = predicate.value;
+            fromInclusive = predicate.equal;
+        } else {
+            return;
+        }
+        matched[predicateIndex] = true;
+        matchCount++;
+    }
+
+    /**
+     * @return true if the conjunct at the given index is answered by the lookup.
+     */
+    boolean isMatched(int predicateIndex) {
+        return matched[predicateIndex];
+    }
+
+    Set<QueryableEntry> filter() {
+        return index.getRecords(prefix.toArray(new Comparable[prefix.size()]), from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * @return estimated number of entries found by {@link #filter()}.
+     */
+    int estimate() {
+        return index.estimateRecords(prefix.toArray(new Comparable[prefix.size()]), from, fromInclusive, to, toInclusive);
+    }
+
+    @Override
+    public String toString() {
+        return "composite index " + index.getAttributeName();
+    }
+}
@@ -23,15 +23,14 @@ import com.hazelcast.query.impl.QueryContext;
 import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.util.IterationType;
 import com.hazelcast.util.SortingUtil;
+import com.hazelcast.util.TopEntryCollector;
+import com.hazelcast.util.UuidUtil;
 
 import java.io.IOException;
 import java.util.AbstractMap;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -55,6 +54,7 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
 
     private IterationType iterationType;
 
+    private String cursorId;
 
     /**
      * Used for serialization internally
@@ -143,20 +143,12 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
             if (set == null) {
                 return null;
             }
-            List<QueryableEntry> list = new LinkedList<QueryableEntry>();
-            Map.Entry anchor = getAnchor();
+            TopEntryCollector<QueryableEntry> collector
+                    = new TopEntryCollector<QueryableEntry>(this, SortingUtil.getFetchSize(this));
             for (QueryableEntry entry : set) {
-                if (anchor != null && SortingUtil.compare(comparator, iterationType, anchor, entry) >= 0) {
-                    continue;
-                }
-                list.add(entry);
+                collector.add(entry);
             }
-
-            Collections.sort(list, SortingUtil.newComparator(this));
-            if (list.size() > pageSize) {
-                list = list.subList(0, pageSize);
-            }
-            return new LinkedHashSet<QueryableEntry>(list);
+            return new LinkedHashSet<QueryableEntry>(collector.toSortedList());
         }
         return null;
     }
@@ -204,6 +196,47 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
         anchorMap.put(page + 1, anchor);
     }
 
+    /**
+     * Sets the anchor of a page, the last entry of the page before it
+     *
+     * @param page
+     * @param anchor
+     */
+    void setAnchor(int page, Map.Entry anchor) {
+        anchorMap.put(page, anchor);
+    }
+
+    /**
+     * The anchor of the current page or, if that is not known yet, of the nearest page before it
+     * page 0 has no anchor, so a query can always start from the returned page
+     *
+     * @return page and its anchor, the anchor is null for page 0
+     */
+    Map.Entry<Integer, Map.Entry> getNearestAnchorEntry() {
+        int nearestPage = 0;
+        Map.Entry nearestAnchor = null;
+        for (Map.Entry<Integer, Map.Entry> entry : anchorMap.entrySet()) {
+            final int anchorPage = entry.getKey();
+            if (anchorPage <= page && anchorPage > nearestPage) {
+                nearestPage = anchorPage;
+                nearestAnchor = entry.getValue();
+            }
+        }
+        return new AbstractMap.SimpleImmutableEntry<Integer, Map.Entry>(nearestPage, nearestAnchor);
+    }
+
+    /**
+     * Identifies the paging of this predicate, members keep the sorted state of it between page requests
+     *
+     * @return cursor id, regenerated after {@link #reset()}
+     */
+    String getCursorId() {
+        if (cursorId == null) {
+            cursorId = UuidUtil.buildRandomUuidString();
+        }
+        return cursorId;
+    }
+
     /**
      * resets for reuse
      */
@@ -211,6 +244,7 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
         iterationType = null;
         anchorMap.clear();
         page = 0;
+        cursorId = null;
     }
 
     /**
@@ -271,6 +305,7 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
             out.writeObject(anchorEntry.getKey());
             out.writeObject(anchorEntry.getValue());
         }
+        out.writeUTF(getCursorId());
     }
 
     @Override
@@ -287,5 +322,6 @@ public class PagingPredicate implements IndexAwarePredicate, DataSerializable {
             final Object anchorValue = in.readObject();
             anchorMap.put(key, new AbstractMap.SimpleImmutableEntry(anchorKey, anchorValue));
         }
+        cursorId = in.readUTF();
     }
 }
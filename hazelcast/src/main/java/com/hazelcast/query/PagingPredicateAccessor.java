@@ -29,4 +29,16 @@ public final class PagingPredicateAccessor {
     public static void setPagingPredicateAnchor(PagingPredicate predicate, Map.Entry anchor) {
         predicate.setAnchor(anchor);
     }
+
+    public static void setPagingPredicateAnchor(PagingPredicate predicate, int page, Map.Entry anchor) {
+        predicate.setAnchor(page, anchor);
+    }
+
+    public static Map.Entry<Integer, Map.Entry> getNearestAnchorEntry(PagingPredicate predicate) {
+        return predicate.getNearestAnchorEntry();
+    }
+
+    public static String getCursorId(PagingPredicate predicate) {
+        return predicate.getCursorId();
+    }
 }
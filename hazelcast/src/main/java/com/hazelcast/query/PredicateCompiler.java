@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicates.AbstractPredicate;
+import com.hazelcast.query.Predicates.AndPredicate;
+import com.hazelcast.query.Predicates.BetweenPredicate;
+import com.hazelcast.query.Predicates.EqualPredicate;
+import com.hazelcast.query.Predicates.GreaterLessPredicate;
+import com.hazelcast.query.Predicates.ILikePredicate;
+import com.hazelcast.query.Predicates.InPredicate;
+import com.hazelcast.query.Predicates.LikePredicate;
+import com.hazelcast.query.Predicates.NotEqualPredicate;
+import com.hazelcast.query.Predicates.NotPredicate;
+import com.hazelcast.query.Predicates.OrPredicate;
+import com.hazelcast.query.Predicates.RegexPredicate;
+import com.hazelcast.query.impl.AttributeType;
+import com.hazelcast.query.impl.IndexImpl;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles a predicate into an evaluator used to scan the entries of a partition, see
+ * {@link com.hazelcast.instance.GroupProperties#PROP_QUERY_PREDICATE_COMPILE_ENABLED}.
+ * <p/>
+ * The evaluator extracts each attribute at most once per entry, converts the values of the comparisons to the
+ * type of the attribute once instead of for every entry and flattens nested AND and OR predicates. The conjuncts
+ * of an AND are evaluated in the order of their estimated selectivity, e.g. an equality before a range, the
+ * disjuncts of an OR in the reverse order. The estimate only depends on the kind of the predicate. Predicates
+ * the compiler does not know are applied as they are, after the known ones of the same AND or OR.
+ * <p/>
+ * Unlike other predicates the evaluator keeps state per entry, it must only be used by a single thread.
+ */
+public final class PredicateCompiler {
+
+    private static final int RANK_EQUAL = 0;
+    private static final int RANK_IN = 1;
+    private static final int RANK_RANGE = 2;
+    private static final int RANK_NOT_EQUAL = 3;
+    private static final int RANK_PATTERN = 4;
+    private static final int RANK_UNKNOWN = 5;
+
+    private static final Comparator<Node> AND_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node node1, Node node2) {
+            return node1.rank - node2.rank;
+        }
+    };
+
+    private static final Comparator<Node> OR_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node node1, Node node2) {
+            return orRank(node1) - orRank(node2);
+        }
+    };
+
+    private PredicateCompiler() {
+    }
+
+    /**
+     * @param predicate the predicate to compile.
+     * @return an evaluator matching the same entries as the predicate, to be used by a single thread.
+     */
+    public static Predicate compile(Predicate predicate) {
+        if (predicate instanceof CompiledPredicate) {
+            return predicate;
+        }
+        final AttributeCache cache = new AttributeCache();
+        final Node root = compile(predicate, cache);
+        cache.init();
+        return new CompiledPredicate(predicate, root, cache);
+    }
+
+    private static int orRank(Node node) {
+        // the least selective comparison is the most likely to match.
+        return node.rank < RANK_PATTERN ? RANK_NOT_EQUAL - node.rank : node.rank;
+    }
+
+    private static Node compile(Predicate predicate, AttributeCache cache) {
+        final Predicate unwrapped = unwrap(predicate);
+        final Class type = unwrapped.getClass();
+        if (type == AndPredicate.class) {
+            return new AndNode(compileOperands(unwrapped, AndPredicate.class, cache));
+        } else if (type == OrPredicate.class) {
+            return new OrNode(compileOperands(unwrapped, OrPredicate.class, cache));
+        } else if (type == NotPredicate.class) {
+            return new NotNode(compile(((NotPredicate) unwrapped).predicate, cache));
+        } else if (type == LikePredicate.class || type == ILikePredicate.class) {
+            cache.slot(((LikePredicate) unwrapped).attribute);
+            return new PredicateNode(unwrapped, true, RANK_PATTERN);
+        } else if (type == RegexPredicate.class) {
+            cache.slot(((RegexPredicate) unwrapped).attribute);
+            return new PredicateNode(unwrapped, true, RANK_PATTERN);
+        }
+        final Node comparison = compileComparison(unwrapped, cache);
+        return comparison != null ? comparison : new PredicateNode(unwrapped, false, RANK_UNKNOWN);
+    }
+
+    private static Node compileComparison(Predicate predicate, AttributeCache cache) {
+        final Class type = predicate.getClass();
+        if (type == EqualPredicate.class || type == NotEqualPredicate.class) {
+            final EqualPredicate equalPredicate = (EqualPredicate) predicate;
+            return new EqualNode(equalPredicate, cache.slot(equalPredicate.attribute), type == NotEqualPredicate.class);
+        } else if (type == GreaterLessPredicate.class) {
+            final GreaterLessPredicate greaterLessPredicate = (GreaterLessPredicate) predicate;
+            return new GreaterLessNode(greaterLessPredicate, cache.slot(greaterLessPredicate.attribute));
+        } else if (type == BetweenPredicate.class) {
+            final BetweenPredicate betweenPredicate = (BetweenPredicate) predicate;
+            return new BetweenNode(betweenPredicate, cache.slot(betweenPredicate.attribute));
+        } else if (type == InPredicate.class) {
+            final InPredicate inPredicate = (InPredicate) predicate;
+            return new InNode(inPredicate, cache.slot(inPredicate.attribute));
+        }
+        return null;
+    }
+
+    private static Predicate unwrap(Predicate predicate) {
+        if (predicate instanceof SqlPredicate) {
+            return unwrap(((SqlPredicate) predicate).getPredicate());
+        } else if (predicate instanceof PagingPredicate) {
+            final Predicate inner = ((PagingPredicate) predicate).getPredicate();
+            return inner == null ? TruePredicate.INSTANCE : unwrap(inner);
+        }
+        return predicate;
+    }
+
+    private static Node[] compileOperands(Predicate predicate, Class type, AttributeCache cache) {
+        final List<Node> nodes = new ArrayList<Node>();
+        addOperands(predicate, type, cache, nodes);
+        Collections.sort(nodes, type == AndPredicate.class ? AND_ORDER : OR_ORDER);
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    private static void addOperands(Predicate predicate, Class type, AttributeCache cache, List<Node> nodes) {
+        final Predicate[] operands = type == AndPredicate.class
+                ? ((AndPredicate) predicate).predicates : ((OrPredicate) predicate).predicates;
+        for (Predicate operand : operands) {
+            final Predicate unwrapped = unwrap(operand);
+            if (unwrapped.getClass() == type) {
+                addOperands(unwrapped, type, cache, nodes);
+            } else {
+                nodes.add(compile(unwrapped, cache));
+            }
+        }
+    }
+
+    /**
+     * The compiled predicate, applies the original predicate to entries which are not {@link QueryableEntry}.
+     */
+    private static final class CompiledPredicate implements Predicate {
+
+        private final transient Predicate predicate;
+        private final transient Node root;
+        private final transient AttributeCache cache;
+
+        CompiledPredicate(Predicate predicate, Node root, AttributeCache cache) {
+            this.predicate = predicate;
+            this.root = root;
+            this.cache = cache;
+        }
+
+        @Override
+        public boolean apply(Map.Entry mapEntry) {
+            if (!(mapEntry instanceof QueryableEntry)) {
+                return predicate.apply(mapEntry);
+            }
+            cache.reset((QueryableEntry) mapEntry);
+            return root.eval(cache);
+        }
+
+        @Override
+        public String toString() {
+            return predicate.toString();
+        }
+    }
+
+    /**
+     * The entry being evaluated, keeps the attributes extracted from it.
+     */
+    private static final class AttributeCache implements QueryableEntry {
+
+        private final List<String> names = new ArrayList<String>();
+        private Comparable[] values;
+        private boolean[] extracted;
+        private QueryableEntry entry;
+
+        int slot(String name) {
+            final int index = names.indexOf(name);
+            if (index != -1) {
+                return index;
+            }
+            names.add(name);
+            return names.size() - 1;
+        }
+
+        void init() {
+            values = new Comparable[names.size()];
+            extracted = new boolean[names.size()];
+        }
+
+        void reset(QueryableEntry entry) {
+            this.entry = entry;
+            Arrays.fill(extracted, false);
+        }
+
+        Comparable getAttribute(int slot) {
+            if (!extracted[slot]) {
+                values[slot] = entry.getAttribute(names.get(slot));
+                extracted[slot] = true;
+            }
+            return values[slot];
+        }
+
+        @Override
+        public Comparable getAttribute(String attributeName) throws QueryException {
+            final int slot = names.indexOf(attributeName);
+            return slot != -1 ? getAttribute(slot) : entry.getAttribute(attributeName);
+        }
+
+        @Override
+        public AttributeType getAttributeType(String attributeName) {
+            return entry.getAttributeType(attributeName);
+        }
+
+        @Override
+        public Object getValue() {
+            return entry.getValue();
+        }
+
+        @Override
+        public Object getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public Data getKeyData() {
+            return entry.getKeyData();
+        }
+
+        @Override
+        public Data getValueData() {
+            return entry.getValueData();
+        }
+
+        @Override
+        public Data getIndexKey() {
+            return entry.getIndexKey();
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A value compared to an attribute, converted to the type of the attribute once per type of attribute value.
+     */
+    private static final class Literal {
+
+        private final Comparable value;
+        private Class convertedFor;
+        private Comparable converted;
+
+        Literal(Comparable value) {
+            this.value = value;
+        }
+
+        Comparable convert(AbstractPredicate predicate, AttributeCache cache, Comparable entryValue) {
+            final Class entryType = entryValue.getClass();
+            if (convertedFor != entryType) {
+                converted = predicate.convert(cache, entryValue, value);
+                convertedFor = entryType;
+            }
+            return converted;
+        }
+    }
+
+    private abstract static class Node {
+
+        final int rank;
+
+        Node(int rank) {
+            this.rank = rank;
+        }
+
+        abstract boolean eval(AttributeCache cache);
+    }
+
+    private static final class AndNode extends Node {
+
+        private final Node[] nodes;
+
+        AndNode(Node[] nodes) {
+            super(nodes.length == 0 ? RANK_UNKNOWN : nodes[0].rank);
+            this.nodes = nodes;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            for (Node node : nodes) {
+                if (!node.eval(cache)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class OrNode extends Node {
+
+        private final Node[] nodes;
+
+        OrNode(Node[] nodes) {
+            super(maxRank(nodes));
+            this.nodes = nodes;
+        }
+
+        private static int maxRank(Node[] nodes) {
+            int rank = RANK_EQUAL;
+            for (Node node : nodes) {
+                rank = Math.max(rank, node.rank);
+            }
+            return rank;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            for (Node node : nodes) {
+                if (node.eval(cache)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class NotNode extends Node {
+
+        private final Node node;
+
+        NotNode(Node node) {
+            super(node.rank < RANK_PATTERN ? RANK_NOT_EQUAL : node.rank);
+            this.node = node;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            return !node.eval(cache);
+        }
+    }
+
+    /**
+     * Applies a predicate, to the cached entry if the predicate only reads attributes.
+     */
+    private static final class PredicateNode extends Node {
+
+        private final Predicate predicate;
+        private final boolean cached;
+
+        PredicateNode(Predicate predicate, boolean cached, int rank) {
+            super(rank);
+            this.predicate = predicate;
+            this.cached = cached;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            return predicate.apply(cached ? cache : cache.entry);
+        }
+    }
+
+    /**
+     * Compares an attribute like the {@link AbstractPredicate} it was compiled from.
+     */
+    private abstract static class ComparisonNode extends Node {
+
+        final AbstractPredicate predicate;
+        private final int slot;
+
+        ComparisonNode(AbstractPredicate predicate, int slot, int rank) {
+            super(rank);
+            this.predicate = predicate;
+            this.slot = slot;
+        }
+
+        Comparable readAttribute(AttributeCache cache) {
+            final Comparable value = cache.getAttribute(slot);
+            if (value != null && value.getClass().isEnum()) {
+                return value.toString();
+            }
+            return value;
+        }
+    }
+
+    private static final class EqualNode extends ComparisonNode {
+
+        private final Literal value;
+        private final boolean not;
+
+        EqualNode(EqualPredicate predicate, int slot, boolean not) {
+            super(predicate, slot, not ? RANK_NOT_EQUAL : RANK_EQUAL);
+            this.value = new Literal(predicate.value);
+            this.not = not;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            final Comparable entryValue = readAttribute(cache);
+            final boolean equal;
+            if (entryValue == null) {
+                equal = value.value == null || value.value == IndexImpl.NULL;
+            } else {
+                equal = entryValue.equals(value.convert(predicate, cache, entryValue));
+            }
+            return equal != not;
+        }
+    }
+
+    private static final class GreaterLessNode extends ComparisonNode {
+
+        private final Literal value;
+        private final boolean equal;
+        private final boolean less;
+
+        GreaterLessNode(GreaterLessPredicate predicate, int slot) {
+            super(predicate, slot, RANK_RANGE);
+            this.value = new Literal(predicate.value);
+            this.equal = predicate.equal;
+            this.less = predicate.less;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            final Comparable entryValue = readAttribute(cache);
+            if (entryValue == null) {
+                return false;
+            }
+            final int result = entryValue.compareTo(value.convert(predicate, cache, entryValue));
+            return equal && result == 0 || (less ? (result < 0) : (result > 0));
+        }
+    }
+
+    private static final class BetweenNode extends ComparisonNode {
+
+        private final Literal from;
+        private final Literal to;
+
+        BetweenNode(BetweenPredicate predicate, int slot) {
+            super(predicate, slot, RANK_RANGE);
+            this.from = new Literal(predicate.from);
+            this.to = new Literal(predicate.to);
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            final Comparable entryValue = readAttribute(cache);
+            if (entryValue == null) {
+                return false;
+            }
+            final Comparable fromValue = from.convert(predicate, cache, entryValue);
+            final Comparable toValue = to.convert(predicate, cache, entryValue);
+            if (fromValue == null || toValue == null) {
+                return false;
+            }
+            return entryValue.compareTo(fromValue) >= 0 && entryValue.compareTo(toValue) <= 0;
+        }
+    }
+
+    private static final class InNode extends ComparisonNode {
+
+        private final Comparable[] values;
+        private Class convertedFor;
+        private Set<Comparable> converted;
+
+        InNode(InPredicate predicate, int slot) {
+            super(predicate, slot, RANK_IN);
+            this.values = predicate.values;
+        }
+
+        @Override
+        boolean eval(AttributeCache cache) {
+            final Comparable entryValue = readAttribute(cache);
+            if (entryValue == null) {
+                return false;
+            }
+            final Class entryType = entryValue.getClass();
+            if (convertedFor != entryType) {
+                converted = new HashSet<Comparable>(values.length);
+                for (Comparable value : values) {
+                    converted.add(predicate.convert(cache, entryValue, value));
+                }
+                convertedFor = entryType;
+            }
+            return converted.contains(entryValue);
+        }
+    }
+}
@@ -20,19 +20,16 @@ import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.DataSerializable;
 import com.hazelcast.nio.serialization.HazelcastSerializationException;
-import com.hazelcast.query.impl.AndResultSet;
 import com.hazelcast.query.impl.AttributeType;
 import com.hazelcast.query.impl.ComparisonType;
 import com.hazelcast.query.impl.Index;
 import com.hazelcast.query.impl.IndexImpl;
-import com.hazelcast.query.impl.OrResultSet;
 import com.hazelcast.query.impl.QueryContext;
 import com.hazelcast.query.impl.QueryableEntry;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -126,8 +123,8 @@ public final class Predicates {
      * Between Predicate
      */
     public static class BetweenPredicate extends AbstractPredicate {
-        private Comparable to;
-        private Comparable from;
+        Comparable to;
+        Comparable from;
 
         public BetweenPredicate() {
         }
@@ -158,9 +155,21 @@ public final class Predicates {
         @Override
         public Set<QueryableEntry> filter(QueryContext queryContext) {
             Index index = getIndex(queryContext);
+            if (index == null) {
+                return filterByCompositeIndex(queryContext);
+            }
             return index.getSubRecordsBetween(from, to);
         }
 
+        @Override
+        int estimateSize(QueryContext queryContext) {
+            Index index = getIndex(queryContext);
+            if (index == null) {
+                return estimateByCompositeIndex(queryContext);
+            }
+            return index.estimateSubRecords(from, true, to, true);
+        }
+
         @Override
         public void writeData(ObjectDataOutput out) throws IOException {
             super.writeData(out);
@@ -185,7 +194,7 @@ public final class Predicates {
      * Not Predicate
      */
     public static class NotPredicate implements Predicate, DataSerializable {
-        private Predicate predicate;
+        Predicate predicate;
 
         public NotPredicate(Predicate predicate) {
             this.predicate = predicate;
@@ -219,7 +228,7 @@ public final class Predicates {
      * In Predicate
      */
     public static class InPredicate extends AbstractPredicate {
-        private Comparable[] values;
+        Comparable[] values;
         private volatile Set<Comparable> convertedInValues;
 
         public InPredicate() {
@@ -261,6 +270,19 @@ public final class Predicates {
             }
         }
 
+        @Override
+        int estimateSize(QueryContext queryContext) {
+            Index index = getIndex(queryContext);
+            if (index == null) {
+                return QueryPlanner.UNKNOWN_SIZE;
+            }
+            long size = 0;
+            for (Comparable value : new HashSet<Comparable>(Arrays.asList(values))) {
+                size += index.countRecords(value);
+            }
+            return (int) Math.min(size, QueryPlanner.UNKNOWN_SIZE);
+        }
+
         @Override
         public void writeData(ObjectDataOutput out) throws IOException {
             super.writeData(out);
@@ -300,7 +322,7 @@ public final class Predicates {
      * Regex Predicate
      */
     public static class RegexPredicate implements Predicate, DataSerializable {
-        private String attribute;
+        String attribute;
         private String regex;
         private volatile Pattern pattern;
 
@@ -463,39 +485,12 @@ public final class Predicates {
             this.predicates = predicates;
         }
 
+        /**
+         * Looks up the entries by the most selective index, see {@link QueryPlanner}.
+         */
         @Override
         public Set<QueryableEntry> filter(QueryContext queryContext) {
-            Set<QueryableEntry> smallestIndexedResult = null;
-            List<Set<QueryableEntry>> otherIndexedResults = new LinkedList<Set<QueryableEntry>>();
-            List<Predicate> lsNoIndexPredicates = null;
-            for (Predicate predicate : predicates) {
-                boolean indexed = false;
-                if (predicate instanceof IndexAwarePredicate) {
-                    IndexAwarePredicate iap = (IndexAwarePredicate) predicate;
-                    if (iap.isIndexed(queryContext)) {
-                        indexed = true;
-                        Set<QueryableEntry> s = iap.filter(queryContext);
-                        if (smallestIndexedResult == null) {
-                            smallestIndexedResult = s;
-                        } else if (s.size() < smallestIndexedResult.size()) {
-                            otherIndexedResults.add(smallestIndexedResult);
-                            smallestIndexedResult = s;
-                        } else {
-                            otherIndexedResults.add(s);
-                        }
-                    }
-                }
-                if (!indexed) {
-                    if (lsNoIndexPredicates == null) {
-                        lsNoIndexPredicates = new LinkedList<Predicate>();
-                    }
-                    lsNoIndexPredicates.add(predicate);
-                }
-            }
-            if (smallestIndexedResult == null) {
-                return null;
-            }
-            return new AndResultSet(smallestIndexedResult, otherIndexedResults, lsNoIndexPredicates);
+            return QueryPlanner.AndPlan.create(predicates, queryContext).filter(queryContext);
         }
 
         @Override
@@ -508,7 +503,7 @@ public final class Predicates {
                     }
                 }
             }
-            return false;
+            return CompositeIndexLookup.find(predicates, queryContext) != null;
         }
 
         @Override
@@ -559,7 +554,7 @@ public final class Predicates {
      */
     public static class OrPredicate implements IndexAwarePredicate, DataSerializable {
 
-        private Predicate[] predicates;
+        Predicate[] predicates;
 
         public OrPredicate() {
         }
@@ -568,23 +563,13 @@ public final class Predicates {
             this.predicates = predicates;
         }
 
+        /**
+         * Unites the entries looked up for the disjuncts, see {@link QueryPlanner}.
+         */
         @Override
         public Set<QueryableEntry> filter(QueryContext queryContext) {
-            List<Set<QueryableEntry>> indexedResults = new LinkedList<Set<QueryableEntry>>();
-            for (Predicate predicate : predicates) {
-                if (predicate instanceof IndexAwarePredicate) {
-                    IndexAwarePredicate iap = (IndexAwarePredicate) predicate;
-                    if (iap.isIndexed(queryContext)) {
-                        Set<QueryableEntry> s = iap.filter(queryContext);
-                        if (s != null) {
-                            indexedResults.add(s);
-                        }
-                    } else {
-                        return null;
-                    }
-                }
-            }
-            return indexedResults.isEmpty() ? null : new OrResultSet(indexedResults);
+            QueryPlanner.OrPlan plan = QueryPlanner.OrPlan.create(predicates, queryContext);
+            return plan == null ? null : plan.filter(queryContext);
         }
 
         @Override
@@ -682,6 +667,9 @@ public final class Predicates {
         @Override
         public Set<QueryableEntry> filter(QueryContext queryContext) {
             Index index = getIndex(queryContext);
+            if (index == null) {
+                return filterByCompositeIndex(queryContext);
+            }
             final ComparisonType comparisonType;
             if (less) {
                 comparisonType = equal ? ComparisonType.LESSER_EQUAL : ComparisonType.LESSER;
@@ -691,6 +679,18 @@ public final class Predicates {
             return index.getSubRecords(comparisonType, value);
         }
 
+        @Override
+        int estimateSize(QueryContext queryContext) {
+            Index index = getIndex(queryContext);
+            if (index == null) {
+                return estimateByCompositeIndex(queryContext);
+            }
+            if (less) {
+                return index.estimateSubRecords(null, false, value, equal);
+            }
+            return index.estimateSubRecords(value, equal, null, false);
+        }
+
         @Override
         public void readData(ObjectDataInput in) throws IOException {
             super.readData(in);
@@ -744,6 +744,15 @@ public final class Predicates {
             }
         }
 
+        @Override
+        int estimateSize(QueryContext queryContext) {
+            Index index = getIndex(queryContext);
+            if (index == null) {
+                return QueryPlanner.UNKNOWN_SIZE;
+            }
+            return index.getEntryCount() - index.countRecords(value);
+        }
+
         @Override
         public String toString() {
             return attribute + " != " + value;
@@ -771,9 +780,21 @@ public final class Predicates {
         @Override
         public Set<QueryableEntry> filter(QueryContext queryContext) {
             Index index = getIndex(queryContext);
+            if (index == null) {
+                return filterByCompositeIndex(queryContext);
+            }
             return index.getRecords(value);
         }
 
+        @Override
+        int estimateSize(QueryContext queryContext) {
+            Index index = getIndex(queryContext);
+            if (index == null) {
+                return estimateByCompositeIndex(queryContext);
+            }
+            return index.countRecords(value);
+        }
+
         @Override
         public boolean apply(Map.Entry mapEntry) {
             Comparable entryValue = readAttribute(mapEntry);
@@ -848,13 +869,34 @@ public final class Predicates {
 
         @Override
         public boolean isIndexed(QueryContext queryContext) {
-            return getIndex(queryContext) != null;
+            return getIndex(queryContext) != null || CompositeIndexLookup.find(new Predicate[]{this}, queryContext) != null;
         }
 
         protected Index getIndex(QueryContext queryContext) {
             return queryContext.getIndex(attribute);
         }
 
+        /**
+         * @return the entries found by a composite index starting with the attribute, null if there is none.
+         */
+        Set<QueryableEntry> filterByCompositeIndex(QueryContext queryContext) {
+            CompositeIndexLookup compositeIndexLookup = CompositeIndexLookup.find(new Predicate[]{this}, queryContext);
+            return compositeIndexLookup == null ? null : compositeIndexLookup.filter();
+        }
+
+        /**
+         * @return estimated number of entries found by {@link #filter(QueryContext)}, only called if the
+         * predicate is indexed.
+         */
+        int estimateSize(QueryContext queryContext) {
+            return QueryPlanner.UNKNOWN_SIZE;
+        }
+
+        int estimateByCompositeIndex(QueryContext queryContext) {
+            CompositeIndexLookup compositeIndexLookup = CompositeIndexLookup.find(new Predicate[]{this}, queryContext);
+            return compositeIndexLookup == null ? QueryPlanner.UNKNOWN_SIZE : compositeIndexLookup.estimate();
+        }
+
         protected Comparable readAttribute(Map.Entry entry) {
             QueryableEntry queryableEntry = (QueryableEntry) entry;
             Comparable val = queryableEntry.getAttribute(attribute);
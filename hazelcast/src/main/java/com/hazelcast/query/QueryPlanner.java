@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.query.Predicates.AbstractPredicate;
+import com.hazelcast.query.Predicates.AndPredicate;
+import com.hazelcast.query.Predicates.EqualPredicate;
+import com.hazelcast.query.Predicates.InPredicate;
+import com.hazelcast.query.Predicates.OrPredicate;
+import com.hazelcast.query.impl.AndResultSet;
+import com.hazelcast.query.impl.Index;
+import com.hazelcast.query.impl.OrResultSet;
+import com.hazelcast.query.impl.QueryContext;
+import com.hazelcast.query.impl.QueryableEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans the index lookups of {@link AndPredicate}s and {@link OrPredicate}s by the estimated number of entries
+ * each lookup finds, see {@link Index#countRecords(Comparable)} and
+ * {@link Index#estimateSubRecords(Comparable, boolean, Comparable, boolean)}.
+ * <p/>
+ * An AND iterates the entries of its most selective lookup. Another indexed conjunct is looked up and
+ * intersected if it finds at most {@link #INTERSECT_RATIO} times as many entries, otherwise it is applied to the
+ * iterated entries like the conjuncts without index. An OR unites the lookups of its disjuncts, equalities and
+ * IN-lists of the same attribute become a single multi-point lookup. An OR with a disjunct without index cannot
+ * use indexes.
+ */
+public final class QueryPlanner {
+
+    /**
+     * Estimate of a lookup which cannot estimate its size.
+     */
+    static final int UNKNOWN_SIZE = Integer.MAX_VALUE;
+
+    private static final int INTERSECT_RATIO = 8;
+    private static final String INDENT = "  ";
+
+    private QueryPlanner() {
+    }
+
+    /**
+     * Describes how an index based query evaluates the predicate, one step per line: <tt>INDEX</tt> lookups
+     * whose entries are iterated, <tt>INTERSECT</tt> lookups whose entries are intersected with them,
+     * <tt>FILTER</tt> predicates applied to each iterated entry, and <tt>SCAN</tt> if no index can be used.
+     *
+     * @param predicate    the queried predicate.
+     * @param queryContext the indexes.
+     * @return the plan.
+     */
+    public static String explain(Predicate predicate, QueryContext queryContext) {
+        Predicate unwrapped = unwrap(predicate);
+        if (!isIndexed(unwrapped, queryContext)) {
+            return "SCAN " + predicate;
+        }
+        StringBuilder sb = new StringBuilder();
+        boolean compound = unwrapped instanceof AndPredicate || unwrapped instanceof OrPredicate;
+        new PredicateLookup(unwrapped, queryContext).describe(sb, compound ? null : "INDEX", 0, queryContext);
+        return sb.toString().trim();
+    }
+
+    /**
+     * @return estimated number of entries found by the index lookup of the predicate, which has to be indexed.
+     */
+    static int estimate(Predicate predicate, QueryContext queryContext) {
+        Predicate unwrapped = unwrap(predicate);
+        if (unwrapped instanceof AndPredicate) {
+            return AndPlan.create(((AndPredicate) unwrapped).predicates, queryContext).estimate;
+        } else if (unwrapped instanceof OrPredicate) {
+            OrPlan plan = OrPlan.create(((OrPredicate) unwrapped).predicates, queryContext);
+            return plan == null ? UNKNOWN_SIZE : plan.estimate;
+        } else if (unwrapped instanceof AbstractPredicate) {
+            return ((AbstractPredicate) unwrapped).estimateSize(queryContext);
+        }
+        return UNKNOWN_SIZE;
+    }
+
+    private static boolean isIndexed(Predicate predicate, QueryContext queryContext) {
+        return predicate instanceof IndexAwarePredicate && ((IndexAwarePredicate) predicate).isIndexed(queryContext);
+    }
+
+    private static Predicate unwrap(Predicate predicate) {
+        Predicate unwrapped = predicate;
+        while (true) {
+            if (unwrapped instanceof SqlPredicate) {
+                unwrapped = ((SqlPredicate) unwrapped).getPredicate();
+            } else if (unwrapped instanceof PagingPredicate && ((PagingPredicate) unwrapped).getPredicate() != null) {
+                unwrapped = ((PagingPredicate) unwrapped).getPredicate();
+            } else {
+                return unwrapped;
+            }
+        }
+    }
+
+    private static long cap(long size) {
+        return Math.min(size, UNKNOWN_SIZE);
+    }
+
+    private static void describeLine(StringBuilder sb, String step, int depth, Object what, int estimate) {
+        for (int i = 0; i < depth; i++) {
+            sb.append(INDENT);
+        }
+        if (step != null) {
+            sb.append(step).append(' ');
+        }
+        sb.append(what);
+        if (estimate >= 0) {
+            sb.append(", estimated ").append(estimate == UNKNOWN_SIZE ? "?" : String.valueOf(estimate)).append(" entries");
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Plan of an AND: the lookup whose entries are iterated, the lookups intersected with them and the
+     * predicates applied to them.
+     */
+    static final class AndPlan {
+        final int estimate;
+        private final Lookup driving;
+        private final List<Lookup> intersected = new ArrayList<Lookup>();
+        private final List<Predicate> filtered = new ArrayList<Predicate>();
+
+        private AndPlan(Predicate[] predicates, QueryContext queryContext) {
+            List<Lookup> lookups = new ArrayList<Lookup>();
+            CompositeIndexLookup compositeIndexLookup = CompositeIndexLookup.find(predicates, queryContext);
+            if (compositeIndexLookup != null) {
+                lookups.add(new CompositeLookup(compositeIndexLookup, predicates));
+            }
+            for (int i = 0; i < predicates.length; i++) {
+                if (compositeIndexLookup != null && compositeIndexLookup.isMatched(i)) {
+                    continue;
+                }
+                if (isIndexed(predicates[i], queryContext)) {
+                    lookups.add(new PredicateLookup(predicates[i], queryContext));
+                } else {
+                    filtered.add(predicates[i]);
+                }
+            }
+            Lookup smallest = null;
+            for (Lookup lookup : lookups) {
+                if (smallest == null || lookup.estimate < smallest.estimate) {
+                    smallest = lookup;
+                }
+            }
+            for (Lookup lookup : lookups) {
+                if (lookup == smallest) {
+                    continue;
+                }
+                if (lookup.estimate <= (long) smallest.estimate * INTERSECT_RATIO) {
+                    intersected.add(lookup);
+                } else {
+                    filtered.addAll(lookup.predicates);
+                }
+            }
+            this.driving = smallest;
+            this.estimate = smallest == null ? UNKNOWN_SIZE : smallest.estimate;
+        }
+
+        static AndPlan create(Predicate[] predicates, QueryContext queryContext) {
+            return new AndPlan(predicates, queryContext);
+        }
+
+        /**
+         * @return the matching entries, null if no index can be used.
+         */
+        Set<QueryableEntry> filter(QueryContext queryContext) {
+            if (driving == null) {
+                return null;
+            }
+            Set<QueryableEntry> entries = driving.filter(queryContext);
+            if (entries == null) {
+                return null;
+            }
+            List<Set<QueryableEntry>> otherIndexedResults = new ArrayList<Set<QueryableEntry>>(intersected.size());
+            List<Predicate> noIndexPredicates = new ArrayList<Predicate>(filtered);
+            for (Lookup lookup : intersected) {
+                Set<QueryableEntry> result = lookup.filter(queryContext);
+                if (result == null) {
+                    noIndexPredicates.addAll(lookup.predicates);
+                } else {
+                    otherIndexedResults.add(result);
+                }
+            }
+            return new AndResultSet(entries, otherIndexedResults, noIndexPredicates.isEmpty() ? null : noIndexPredicates);
+        }
+
+        void describe(StringBuilder sb, int depth, QueryContext queryContext) {
+            driving.describe(sb, "INDEX", depth, queryContext);
+            for (Lookup lookup : intersected) {
+                lookup.describe(sb, "INTERSECT", depth, queryContext);
+            }
+            for (Predicate predicate : filtered) {
+                describeLine(sb, "FILTER", depth, predicate, -1);
+            }
+        }
+    }
+
+    /**
+     * Plan of an OR: the lookups whose entries are united.
+     */
+    static final class OrPlan {
+        final int estimate;
+        private final List<Lookup> lookups = new ArrayList<Lookup>();
+
+        private OrPlan(List<Lookup> lookups) {
+            this.lookups.addAll(lookups);
+            long size = 0;
+            for (Lookup lookup : lookups) {
+                size += lookup.estimate;
+            }
+            this.estimate = (int) cap(size);
+        }
+
+        /**
+         * @return the plan, null if a disjunct has no index.
+         */
+        static OrPlan create(Predicate[] predicates, QueryContext queryContext) {
+            List<Lookup> lookups = new ArrayList<Lookup>();
+            Map<String, MultiPointLookup> multiPointLookups = new LinkedHashMap<String, MultiPointLookup>();
+            for (Predicate predicate : predicates) {
+                if (!isIndexed(predicate, queryContext)) {
+                    return null;
+                }
+                Index index = getMultiPointIndex(predicate, queryContext);
+                if (index == null) {
+                    lookups.add(new PredicateLookup(predicate, queryContext));
+                    continue;
+                }
+                MultiPointLookup lookup = multiPointLookups.get(index.getAttributeName());
+                if (lookup == null) {
+                    lookup = new MultiPointLookup(index);
+                    multiPointLookups.put(index.getAttributeName(), lookup);
+                }
+                lookup.add(predicate);
+            }
+            for (MultiPointLookup lookup : multiPointLookups.values()) {
+                if (lookup.predicates.size() == 1) {
+                    lookups.add(new PredicateLookup(lookup.predicates.get(0), queryContext));
+                } else {
+                    lookups.add(lookup.estimate());
+                }
+            }
+            return new OrPlan(lookups);
+        }
+
+        /**
+         * @return the index of an equality or IN-list which can be combined with others of the same attribute.
+         */
+        private static Index getMultiPointIndex(Predicate predicate, QueryContext queryContext) {
+            if (predicate.getClass() == EqualPredicate.class) {
+                EqualPredicate equalPredicate = (EqualPredicate) predicate;
+                return equalPredicate.value == null ? null : equalPredicate.getIndex(queryContext);
+            } else if (predicate.getClass() == InPredicate.class) {
+                return ((InPredicate) predicate).getIndex(queryContext);
+            }
+            return null;
+        }
+
+        /**
+         * @return the matching entries, null if a lookup cannot use its index.
+         */
+        Set<QueryableEntry> filter(QueryContext queryContext) {
+            if (lookups.size() == 1) {
+                return lookups.get(0).filter(queryContext);
+            }
+            List<Set<QueryableEntry>> indexedResults = new ArrayList<Set<QueryableEntry>>(lookups.size());
+            for (Lookup lookup : lookups) {
+                Set<QueryableEntry> result = lookup.filter(queryContext);
+                if (result == null) {
+                    return null;
+                }
+                indexedResults.add(result);
+            }
+            return new OrResultSet(indexedResults);
+        }
+
+        void describe(StringBuilder sb, int depth, QueryContext queryContext) {
+            for (Lookup lookup : lookups) {
+                lookup.describe(sb, "INDEX", depth, queryContext);
+            }
+        }
+    }
+
+    /**
+     * Index lookup answering some predicates.
+     */
+    private abstract static class Lookup {
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+        int estimate;
+
+        abstract Set<QueryableEntry> filter(QueryContext queryContext);
+
+        void describe(StringBuilder sb, String step, int depth, QueryContext queryContext) {
+            describeLine(sb, step, depth, this, estimate);
+        }
+    }
+
+    /**
+     * Lookup by the filter of an index aware predicate.
+     */
+    private static final class PredicateLookup extends Lookup {
+
+        PredicateLookup(Predicate predicate, QueryContext queryContext) {
+            predicates.add(predicate);
+            estimate = QueryPlanner.estimate(predicate, queryContext);
+        }
+
+        @Override
+        Set<QueryableEntry> filter(QueryContext queryContext) {
+            return ((IndexAwarePredicate) predicates.get(0)).filter(queryContext);
+        }
+
+        @Override
+        void describe(StringBuilder sb, String step, int depth, QueryContext queryContext) {
+            Predicate predicate = unwrap(predicates.get(0));
+            if (predicate instanceof AndPredicate) {
+                describeLine(sb, step, depth, "AND", estimate);
+                AndPlan.create(((AndPredicate) predicate).predicates, queryContext).describe(sb, depth + 1, queryContext);
+            } else if (predicate instanceof OrPredicate) {
+                describeLine(sb, step, depth, "OR", estimate);
+                OrPlan.create(((OrPredicate) predicate).predicates, queryContext).describe(sb, depth + 1, queryContext);
+            } else {
+                super.describe(sb, step, depth, queryContext);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(predicates.get(0));
+        }
+    }
+
+    /**
+     * Lookup of the conjuncts matched by a composite index.
+     */
+    private static final class CompositeLookup extends Lookup {
+        private final CompositeIndexLookup compositeIndexLookup;
+
+        CompositeLookup(CompositeIndexLookup compositeIndexLookup, Predicate[] conjuncts) {
+            this.compositeIndexLookup = compositeIndexLookup;
+            for (int i = 0; i < conjuncts.length; i++) {
+                if (compositeIndexLookup.isMatched(i)) {
+                    predicates.add(conjuncts[i]);
+                }
+            }
+            estimate = compositeIndexLookup.estimate();
+        }
+
+        @Override
+        Set<QueryableEntry> filter(QueryContext queryContext) {
+            return compositeIndexLookup.filter();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Predicate predicate : predicates) {
+                if (sb.length() > 0) {
+                    sb.append(" AND ");
+                }
+                sb.append(predicate);
+            }
+            return sb.append(" by ").append(compositeIndexLookup).toString();
+        }
+    }
+
+    /**
+     * Lookup of all values of the equalities and IN-lists of an attribute at once.
+     */
+    private static final class MultiPointLookup extends Lookup {
+        private final Index index;
+        private final Set<Comparable> values = new LinkedHashSet<Comparable>();
+
+        MultiPointLookup(Index index) {
+            this.index = index;
+        }
+
+        void add(Predicate predicate) {
+            predicates.add(predicate);
+            if (predicate instanceof InPredicate) {
+                values.addAll(Arrays.asList(((InPredicate) predicate).values));
+            } else {
+                values.add(((EqualPredicate) predicate).value);
+            }
+        }
+
+        MultiPointLookup estimate() {
+            long size = 0;
+            for (Comparable value : values) {
+                size += index.countRecords(value);
+            }
+            estimate = (int) cap(size);
+            return this;
+        }
+
+        @Override
+        Set<QueryableEntry> filter(QueryContext queryContext) {
+            return index.getRecords(values.toArray(new Comparable[values.size()]));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(index.getAttributeName()).append(" IN (");
+            int i = 0;
+            for (Comparable value : values) {
+                if (i++ > 0) {
+                    sb.append(",");
+                }
+                sb.append(value);
+            }
+            return sb.append(")").toString();
+        }
+    }
+}
@@ -298,6 +298,13 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
         predicate = createPredicate(sql);
     }
 
+    /**
+     * @return the predicate parsed from the sql.
+     */
+    Predicate getPredicate() {
+        return predicate;
+    }
+
     @Override
     public String toString() {
         return predicate.toString();
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates {@link AttributeAccessor} classes reading a public method or field of a public class, so that
+ * extracting an attribute does not go through {@link Method#invoke(Object, Object...)} or
+ * {@link Field#get(Object)}. The generated method casts its argument, calls the method or reads the field and
+ * boxes a primitive result; it has no branches, so the class file needs no stack map frames.
+ * <p/>
+ * Accessors are generated only for classes loaded by the class loader of Hazelcast, the class loader of the
+ * generated classes is its child. These are the classes whose getters {@link ReflectionHelper} caches,
+ * so the generated classes are never created again for the same attribute.
+ */
+final class AccessorGenerator {
+
+    private static final ClassLoader THIS_CL = AccessorGenerator.class.getClassLoader();
+    private static final String ACCESSOR_INTERFACE = AttributeAccessor.class.getName().replace('.', '/');
+    private static final String CLASS_NAME_PREFIX = "com/hazelcast/query/impl/generated/Accessor";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int CLASS_VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int ARETURN = 0xB0;
+    private static final int RETURN = 0xB1;
+    private static final int GETFIELD = 0xB4;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int CHECKCAST = 0xC0;
+
+    private static final int MAX_STACK = 2;
+    private static final int MAX_LOCALS = 2;
+
+    private static final Map<Class, Class> WRAPPERS = new HashMap<Class, Class>();
+
+    private static AccessorClassLoader classLoader;
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private AccessorGenerator() {
+    }
+
+    /**
+     * @param owner  the class of the objects passed to the accessor.
+     * @param member a public method without parameters or a public field of the owner.
+     * @return the accessor, null if it cannot be generated.
+     */
+    static AttributeAccessor generate(Class owner, Member member) {
+        final Class type = member instanceof Method ? ((Method) member).getReturnType() : ((Field) member).getType();
+        if (!isAccessible(owner) || !Modifier.isPublic(member.getModifiers()) || Modifier.isStatic(member.getModifiers())
+                || type == void.class || owner.getClassLoader() != THIS_CL) {
+            return null;
+        }
+        try {
+            final String className = CLASS_NAME_PREFIX + CLASS_COUNTER.incrementAndGet();
+            final byte[] bytes = new ClassWriter(className).write(owner, member, type);
+            final Class accessorClass = getClassLoader().define(className.replace('/', '.'), bytes);
+            return (AttributeAccessor) accessorClass.newInstance();
+        } catch (Throwable t) {
+            // e.g. prohibited by a security manager, reflection still works.
+            return null;
+        }
+    }
+
+    private static synchronized AccessorClassLoader getClassLoader() {
+        if (classLoader == null) {
+            classLoader = new AccessorClassLoader();
+        }
+        return classLoader;
+    }
+
+    private static boolean isAccessible(Class owner) {
+        for (Class c = owner; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return !owner.isArray() && !owner.isPrimitive();
+    }
+
+    private static String internalName(Class c) {
+        return c.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class c) {
+        if (c.isPrimitive()) {
+            if (c == boolean.class) {
+                return "Z";
+            } else if (c == long.class) {
+                return "J";
+            }
+            return String.valueOf(Character.toUpperCase(c.getName().charAt(0)));
+        }
+        if (c.isArray()) {
+            return internalName(c);
+        }
+        return "L" + internalName(c) + ";";
+    }
+
+    /**
+     * Writes the class file of an accessor.
+     */
+    private static final class ClassWriter {
+
+        private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+        private final Map<String, Integer> constants = new HashMap<String, Integer>();
+        private final String className;
+        private int constantCount = 1;
+
+        ClassWriter(String className) {
+            this.className = className;
+        }
+
+        byte[] write(Class owner, Member member, Class type) throws IOException {
+            final int thisClass = classConstant(className);
+            final int superClass = classConstant("java/lang/Object");
+            final int accessorInterface = classConstant(ACCESSOR_INTERFACE);
+            final byte[] constructor = constructorCode(superClass);
+            final byte[] get = getCode(owner, member, type);
+            final int code = utf8("Code");
+            final int constructorName = utf8("<init>");
+            final int constructorDescriptor = utf8("()V");
+            final int getName = utf8("get");
+            final int getDescriptor = utf8("(Ljava/lang/Object;)Ljava/lang/Object;");
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(constantCount);
+            constantPool.flush();
+            constantPoolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(accessorInterface);
+            // fields
+            out.writeShort(0);
+            out.writeShort(2);
+            writeMethod(out, constructorName, constructorDescriptor, code, 1, constructor);
+            writeMethod(out, getName, getDescriptor, code, MAX_LOCALS, get);
+            // attributes
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] constructorCode(int superClass) throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(ALOAD_0);
+            code.writeByte(INVOKESPECIAL);
+            code.writeShort(memberConstant(CONSTANT_METHODREF, superClass, "<init>", "()V"));
+            code.writeByte(RETURN);
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] getCode(Class owner, Member member, Class type) throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream code = new DataOutputStream(bytes);
+            final int ownerClass = classConstant(internalName(owner));
+            code.writeByte(ALOAD_1);
+            code.writeByte(CHECKCAST);
+            code.writeShort(ownerClass);
+            if (member instanceof Field) {
+                code.writeByte(GETFIELD);
+                code.writeShort(memberConstant(CONSTANT_FIELDREF, ownerClass, member.getName(), descriptor(type)));
+            } else if (owner.isInterface()) {
+                code.writeByte(INVOKEINTERFACE);
+                code.writeShort(memberConstant(CONSTANT_INTERFACE_METHODREF, ownerClass, member.getName(),
+                        "()" + descriptor(type)));
+                // argument slots including the receiver, then a zero byte.
+                code.writeByte(1);
+                code.writeByte(0);
+            } else {
+                code.writeByte(INVOKEVIRTUAL);
+                code.writeShort(memberConstant(CONSTANT_METHODREF, ownerClass, member.getName(), "()" + descriptor(type)));
+            }
+            if (type.isPrimitive()) {
+                final Class wrapper = WRAPPERS.get(type);
+                code.writeByte(INVOKESTATIC);
+                code.writeShort(memberConstant(CONSTANT_METHODREF, classConstant(internalName(wrapper)), "valueOf",
+                        "(" + descriptor(type) + ")" + descriptor(wrapper)));
+            }
+            code.writeByte(ARETURN);
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private void writeMethod(DataOutputStream out, int name, int descriptor, int codeName, int maxLocals, byte[] code)
+                throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            // max stack, max locals, code length, code, exception table length, attributes count.
+            out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+            out.writeShort(MAX_STACK);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private int utf8(String value) throws IOException {
+            final String key = "U" + value;
+            Integer index = constants.get(key);
+            if (index == null) {
+                constantPool.writeByte(CONSTANT_UTF8);
+                constantPool.writeUTF(value);
+                index = add(key);
+            }
+            return index;
+        }
+
+        private int classConstant(String internalName) throws IOException {
+            final String key = "C" + internalName;
+            Integer index = constants.get(key);
+            if (index == null) {
+                final int name = utf8(internalName);
+                constantPool.writeByte(CONSTANT_CLASS);
+                constantPool.writeShort(name);
+                index = add(key);
+            }
+            return index;
+        }
+
+        private int memberConstant(int tag, int ownerClass, String name, String descriptor) throws IOException {
+            final int nameIndex = utf8(name);
+            final int descriptorIndex = utf8(descriptor);
+            constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+            constantPool.writeShort(nameIndex);
+            constantPool.writeShort(descriptorIndex);
+            final int nameAndType = constantCount++;
+            constantPool.writeByte(tag);
+            constantPool.writeShort(ownerClass);
+            constantPool.writeShort(nameAndType);
+            return constantCount++;
+        }
+
+        private int add(String key) {
+            final int index = constantCount++;
+            constants.put(key, index);
+            return index;
+        }
+    }
+
+    /**
+     * Defines the accessor classes, a child of the class loader of Hazelcast.
+     */
+    private static final class AccessorClassLoader extends ClassLoader {
+
+        AccessorClassLoader() {
+            super(THIS_CL);
+        }
+
+        Class define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query.impl;
+
+/**
+ * Reads an attribute of an object with a plain method call or field access, see {@link AccessorGenerator}.
+ * Public only because the classes generated at runtime have to implement it.
+ */
+public interface AttributeAccessor {
+
+    /**
+     * @param object the object to read the attribute of, not null.
+     * @return the attribute value, primitives boxed.
+     */
+    Object get(Object object);
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.query.QueryException;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Index over several attributes, see {@link com.hazelcast.core.IMap#addIndex(String, boolean)}. Its attribute
+ * name lists the indexed attributes separated by commas, e.g. <tt>"tenant, status"</tt>, and an entry is indexed
+ * by the {@link CompositeValue} of their values.
+ * <p/>
+ * Entries are looked up by the values of a prefix of the attributes, an ordered index also by the values of a
+ * prefix followed by a range of the next attribute, see {@link #getRecords(Comparable[], Comparable, boolean,
+ * Comparable, boolean)}. An unordered index can only be used when all attributes are known.
+ */
+public class CompositeIndex extends IndexImpl {
+
+    /**
+     * Separates the attributes in the name of a composite index.
+     */
+    public static final String SEPARATOR = ",";
+
+    private final String[] attributes;
+    private volatile AttributeType[] attributeTypes;
+
+    public CompositeIndex(String attribute, boolean ordered) {
+        super(normalize(attribute), ordered);
+        this.attributes = getAttributeName().split(SEPARATOR);
+        if (attributes.length < 2) {
+            throw new IllegalArgumentException("Composite index needs at least two attributes: " + attribute);
+        }
+    }
+
+    /**
+     * @return true if the attribute name of an index lists several attributes.
+     */
+    public static boolean isComposite(String attribute) {
+        return attribute.contains(SEPARATOR);
+    }
+
+    /**
+     * @return the attribute name of a composite index without whitespace around the attributes.
+     */
+    public static String normalize(String attribute) {
+        String[] attributes = attribute.split(SEPARATOR);
+        StringBuilder sb = new StringBuilder();
+        for (String name : attributes) {
+            if (sb.length() > 0) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(name.trim());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the indexed attributes in the order of the index.
+     */
+    public String[] getAttributes() {
+        return Arrays.copyOf(attributes, attributes.length);
+    }
+
+    @Override
+    protected Comparable extractValue(QueryableEntry e) {
+        Comparable[] values = new Comparable[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            values[i] = toIndexValue(e.getAttribute(attributes[i]));
+        }
+        return new CompositeValue(values);
+    }
+
+    @Override
+    protected void initAttributeType(QueryableEntry e) {
+        if (attributeTypes == null) {
+            AttributeType[] types = new AttributeType[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                types[i] = e.getAttributeType(attributes[i]);
+            }
+            attributeTypes = types;
+        }
+    }
+
+    @Override
+    protected Comparable convert(Comparable value) {
+        // composite values are built from converted attribute values.
+        return value;
+    }
+
+    /**
+     * Finds the records whose first attributes have the given values and, if a bound is given, whose next
+     * attribute is in the range of the bounds.
+     *
+     * @param prefix        values of the first attributes.
+     * @param from          lower bound of the attribute following the prefix, null if there is none.
+     * @param fromInclusive true if the lower bound is included.
+     * @param to            upper bound of the attribute following the prefix, null if there is none.
+     * @param toInclusive   true if the upper bound is included.
+     * @return the matching records.
+     * @throws QueryException if the index cannot look up the given prefix and range.
+     */
+    public Set<QueryableEntry> getRecords(Comparable[] prefix, Comparable from, boolean fromInclusive,
+                                          Comparable to, boolean toInclusive) {
+        Range range = toRange(prefix, from, fromInclusive, to, toInclusive);
+        if (range.upper == null) {
+            return getRecords(range.lower);
+        }
+        return getSubRecords(range.lower, range.lowerInclusive, range.upper, range.upperInclusive);
+    }
+
+    /**
+     * @return estimated number of records found by {@link #getRecords(Comparable[], Comparable, boolean, Comparable,
+     * boolean)} for the same arguments.
+     */
+    public int estimateRecords(Comparable[] prefix, Comparable from, boolean fromInclusive,
+                               Comparable to, boolean toInclusive) {
+        Range range = toRange(prefix, from, fromInclusive, to, toInclusive);
+        if (range.upper == null) {
+            return countRecords(range.lower);
+        }
+        return estimateSubRecords(range.lower, range.lowerInclusive, range.upper, range.upperInclusive);
+    }
+
+    private Range toRange(Comparable[] prefix, Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        boolean ranged = from != null || to != null;
+        int length = prefix.length;
+        if (length == attributes.length && !ranged) {
+            return new Range(new CompositeValue(convert(prefix, attributes.length)), true, null, true);
+        }
+        if (!isOrdered() || length >= attributes.length) {
+            throw new QueryException("Cannot look up " + length + " attributes of index " + getAttributeName());
+        }
+        Comparable[] lower = convert(prefix, attributes.length);
+        Comparable[] upper = convert(prefix, attributes.length);
+        boolean lowerInclusive = true;
+        boolean upperInclusive = true;
+        if (ranged) {
+            // a missing lower bound still excludes null values, as a single attribute index does.
+            lower[length] = from == null ? NULL : convert(length, from);
+            lowerInclusive = from != null && fromInclusive;
+            upper[length] = to == null ? CompositeValue.POSITIVE_INFINITY : convert(length, to);
+            upperInclusive = to == null || toInclusive;
+            length++;
+        }
+        Arrays.fill(lower, length, attributes.length,
+                lowerInclusive ? CompositeValue.NEGATIVE_INFINITY : CompositeValue.POSITIVE_INFINITY);
+        Arrays.fill(upper, length, attributes.length,
+                upperInclusive ? CompositeValue.POSITIVE_INFINITY : CompositeValue.NEGATIVE_INFINITY);
+        return new Range(new CompositeValue(lower), lowerInclusive, new CompositeValue(upper), upperInclusive);
+    }
+
+    private Comparable[] convert(Comparable[] prefix, int length) {
+        Comparable[] values = new Comparable[length];
+        for (int i = 0; i < prefix.length; i++) {
+            values[i] = convert(i, prefix[i]);
+        }
+        return values;
+    }
+
+    private Comparable convert(int attributeIndex, Comparable value) {
+        if (value instanceof NullObject) {
+            return NULL;
+        }
+        AttributeType[] types = attributeTypes;
+        if (types == null || types[attributeIndex] == null) {
+            return value;
+        }
+        return types[attributeIndex].getConverter().convert(value);
+    }
+
+    /**
+     * Bounds of a lookup, a lookup of a single value has no upper bound.
+     */
+    private static final class Range {
+        final CompositeValue lower;
+        final boolean lowerInclusive;
+        final CompositeValue upper;
+        final boolean upperInclusive;
+
+        Range(CompositeValue lower, boolean lowerInclusive, CompositeValue upper, boolean upperInclusive) {
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import java.util.Arrays;
+
+/**
+ * Value of a {@link CompositeIndex}, the values of the indexed attributes in the order of the index.
+ * <p/>
+ * Values are compared attribute by attribute. A null attribute is represented by {@link IndexImpl#NULL}, which is
+ * lower than any other value. {@link #NEGATIVE_INFINITY} and {@link #POSITIVE_INFINITY} are lower and greater than
+ * any value, they are only used in the bounds of range lookups and never indexed.
+ */
+public final class CompositeValue implements Comparable {
+
+    static final Comparable NEGATIVE_INFINITY = new Infinity("-INF");
+    static final Comparable POSITIVE_INFINITY = new Infinity("+INF");
+
+    private final Comparable[] values;
+
+    public CompositeValue(Comparable[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int compareTo(Object o) {
+        CompositeValue other = (CompositeValue) o;
+        int length = Math.min(values.length, other.values.length);
+        for (int i = 0; i < length; i++) {
+            int result = compare(values[i], other.values[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return values.length - other.values.length;
+    }
+
+    private static int compare(Comparable value, Comparable other) {
+        if (value == other) {
+            return 0;
+        } else if (value == NEGATIVE_INFINITY || other == POSITIVE_INFINITY) {
+            return -1;
+        } else if (value == POSITIVE_INFINITY || other == NEGATIVE_INFINITY) {
+            return 1;
+        } else if (value instanceof IndexImpl.NullObject) {
+            return other instanceof IndexImpl.NullObject ? 0 : -1;
+        } else if (other instanceof IndexImpl.NullObject) {
+            return 1;
+        }
+        return value.compareTo(other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(values, ((CompositeValue) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    /**
+     * Bound of a range lookup, only compared by identity.
+     */
+    private static final class Infinity implements Comparable {
+
+        private final String name;
+
+        private Infinity(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Object o) {
+            throw new UnsupportedOperationException("Bound of a composite value: " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -42,4 +42,19 @@ public interface Index {
     String getAttributeName();
 
     boolean isOrdered();
+
+    /**
+     * @return number of indexed entries.
+     */
+    int getEntryCount();
+
+    /**
+     * @return number of entries with the given value.
+     */
+    int countRecords(Comparable value);
+
+    /**
+     * @return estimated number of entries with values between the bounds, a null bound is unbounded.
+     */
+    int estimateSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive);
 }
@@ -33,6 +33,11 @@ public class IndexImpl implements Index {
      */
     public static final NullObject NULL = new NullObject();
 
+    /**
+     * Part of the entries assumed to be in a range if the index store cannot estimate ranges.
+     */
+    private static final int RANGE_SELECTIVITY_DIVISOR = 3;
+
     // indexKey -- indexValue
     private final ConcurrentMap<Data, Comparable> recordValues = new ConcurrentHashMap<Data, Comparable>(1000);
     private final IndexStore indexStore;
@@ -69,12 +74,7 @@ public class IndexImpl implements Index {
     public void saveEntryIndex(QueryableEntry e) throws QueryException {
         Data key = e.getIndexKey();
         Comparable oldValue = recordValues.remove(key);
-        Comparable newValue = e.getAttribute(attribute);
-        if (newValue == null) {
-            newValue = NULL;
-        } else if (newValue.getClass().isEnum()) {
-            newValue = TypeConverters.ENUM_CONVERTER.convert(newValue);
-        }
+        Comparable newValue = extractValue(e);
         recordValues.put(key, newValue);
         if (oldValue == null) {
             // new
@@ -84,11 +84,34 @@ public class IndexImpl implements Index {
             indexStore.removeIndex(oldValue, key);
             indexStore.newIndex(newValue, e);
         }
+        initAttributeType(e);
+    }
+
+    /**
+     * @return the indexed value of the entry.
+     */
+    protected Comparable extractValue(QueryableEntry e) {
+        return toIndexValue(e.getAttribute(attribute));
+    }
+
+    /**
+     * Takes the type of the indexed attribute from the first indexed entry, values searched for are converted to it.
+     */
+    protected void initAttributeType(QueryableEntry e) {
         if (attributeType == null) {
             attributeType = e.getAttributeType(attribute);
         }
     }
 
+    static Comparable toIndexValue(Comparable value) {
+        if (value == null) {
+            return NULL;
+        } else if (value.getClass().isEnum()) {
+            return TypeConverters.ENUM_CONVERTER.convert(value);
+        }
+        return value;
+    }
+
     @Override
     public Set<QueryableEntry> getRecords(Comparable[] values) {
         if (values.length == 1) {
@@ -123,7 +146,33 @@ public class IndexImpl implements Index {
         return results;
     }
 
-    private Comparable convert(Comparable value) {
+    /**
+     * @return records with an indexed value between from and to.
+     */
+    public Set<QueryableEntry> getSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        MultiResultSet results = new MultiResultSet();
+        indexStore.getSubRecords(results, convert(from), fromInclusive, convert(to), toInclusive);
+        return results;
+    }
+
+    @Override
+    public int getEntryCount() {
+        return recordValues.size();
+    }
+
+    @Override
+    public int countRecords(Comparable value) {
+        return indexStore.countRecords(convert(value));
+    }
+
+    @Override
+    public int estimateSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        int estimate = indexStore.estimateSubRecords(from == null ? null : convert(from), fromInclusive,
+                to == null ? null : convert(to), toInclusive);
+        return estimate < 0 ? getEntryCount() / RANGE_SELECTIVITY_DIVISOR : estimate;
+    }
+
+    protected Comparable convert(Comparable value) {
         if (attributeType == null) {
             return value;
         }
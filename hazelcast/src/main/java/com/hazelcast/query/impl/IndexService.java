@@ -20,7 +20,10 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.IndexAwarePredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.QueryException;
+import com.hazelcast.query.QueryPlanner;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -32,25 +35,39 @@ import java.util.concurrent.atomic.AtomicReference;
 public class IndexService {
     private final ConcurrentMap<String, Index> mapIndexes = new ConcurrentHashMap<String, Index>(3);
     private final AtomicReference<Index[]> indexes = new AtomicReference<Index[]>();
+    private final AtomicReference<CompositeIndex[]> compositeIndexes
+            = new AtomicReference<CompositeIndex[]>(new CompositeIndex[0]);
     private volatile boolean hasIndex;
 
     public synchronized Index destroyIndex(String attribute) {
         return mapIndexes.remove(attribute);
     }
 
+    /**
+     * @param attribute the attribute to index, several comma separated attributes for a {@link CompositeIndex}.
+     * @param ordered   true if the index supports range lookups.
+     * @return the index of the attribute.
+     */
     public synchronized Index addOrGetIndex(String attribute, boolean ordered) {
-        Index index = mapIndexes.get(attribute);
+        boolean composite = CompositeIndex.isComposite(attribute);
+        String name = composite ? CompositeIndex.normalize(attribute) : attribute;
+        Index index = mapIndexes.get(name);
         if (index != null) {
             return index;
         }
-        index = new IndexImpl(attribute, ordered);
-        mapIndexes.put(attribute, index);
+        index = composite ? new CompositeIndex(name, ordered) : new IndexImpl(name, ordered);
+        mapIndexes.put(name, index);
         Object[] indexObjects = mapIndexes.values().toArray();
         Index[] newIndexes = new Index[indexObjects.length];
+        List<CompositeIndex> newCompositeIndexes = new ArrayList<CompositeIndex>();
         for (int i = 0; i < indexObjects.length; i++) {
             newIndexes[i] = (Index) indexObjects[i];
+            if (newIndexes[i] instanceof CompositeIndex) {
+                newCompositeIndexes.add((CompositeIndex) newIndexes[i]);
+            }
         }
         indexes.set(newIndexes);
+        compositeIndexes.set(newCompositeIndexes.toArray(new CompositeIndex[newCompositeIndexes.size()]));
         hasIndex = true;
         return index;
     }
@@ -79,6 +96,17 @@ public class IndexService {
         return mapIndexes.get(attribute);
     }
 
+    CompositeIndex[] getCompositeIndexes() {
+        return compositeIndexes.get();
+    }
+
+    /**
+     * @return description of how {@link #query(Predicate)} evaluates the predicate, see {@link QueryPlanner}.
+     */
+    public String explain(Predicate predicate) {
+        return QueryPlanner.explain(predicate, new QueryContext(this));
+    }
+
     public Set<QueryableEntry> query(Predicate predicate) {
         if (hasIndex) {
             QueryContext queryContext = new QueryContext(this);
@@ -29,6 +29,8 @@ public interface IndexStore {
 
     void getSubRecords(MultiResultSet results, ComparisonType comparisonType, Comparable searchedValue);
 
+    void getSubRecords(MultiResultSet results, Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive);
+
     Set<QueryableEntry> getRecords(Comparable value);
 
     void getRecords(MultiResultSet results, Set<Comparable> values);
@@ -40,4 +42,15 @@ public interface IndexStore {
     void newIndex(Comparable newValue, QueryableEntry entry);
 
     ConcurrentMap<Data, QueryableEntry> getRecordMap(Comparable indexValue);
+
+    /**
+     * @return number of records with the given value.
+     */
+    int countRecords(Comparable value);
+
+    /**
+     * @return estimated number of records between the bounds, a null bound is unbounded;
+     * -1 if the store cannot estimate ranges.
+     */
+    int estimateSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive);
 }
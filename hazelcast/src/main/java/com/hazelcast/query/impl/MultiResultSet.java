@@ -33,6 +33,7 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
     private Set<Object> index;
     private final List<ConcurrentMap<Data, QueryableEntry>> resultSets
             = new ArrayList<ConcurrentMap<Data, QueryableEntry>>();
+    private List<QueryableEntry> entries;
 
     public MultiResultSet() {
     }
@@ -41,6 +42,17 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
         resultSets.add(resultSet);
     }
 
+    /**
+     * Adds entries which are not held in a map, e.g. a range of a {@link SortedIndexStore}.
+     */
+    public void addEntries(List<QueryableEntry> entries) {
+        if (this.entries == null) {
+            this.entries = entries;
+        } else {
+            this.entries.addAll(entries);
+        }
+    }
+
     @Override
     public boolean contains(Object o) {
         QueryableEntry entry = (QueryableEntry) o;
@@ -48,12 +60,10 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
             return checkFromIndex(entry);
         } else {
             //todo: what is the point of this condition? Is it some kind of optimization?
-            if (resultSets.size() > 3) {
+            if (resultSets.size() > 3 || entries != null) {
                 index = new HashSet<Object>();
-                for (ConcurrentMap<Data, QueryableEntry> result : resultSets) {
-                    for (QueryableEntry queryableEntry : result.values()) {
-                        index.add(queryableEntry.getIndexKey());
-                    }
+                for (QueryableEntry queryableEntry : this) {
+                    index.add(queryableEntry.getIndexKey());
                 }
                 return checkFromIndex(entry);
             } else {
@@ -82,7 +92,7 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
 
         @Override
         public boolean hasNext() {
-            if (resultSets.size() == 0) {
+            if (resultSets.size() == 0 && entries == null) {
                 return false;
             }
             if (currentIterator != null && currentIterator.hasNext()) {
@@ -94,12 +104,17 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
                     return true;
                 }
             }
+            if (currentIndex == resultSets.size() && entries != null) {
+                currentIndex++;
+                currentIterator = entries.iterator();
+                return currentIterator.hasNext();
+            }
             return false;
         }
 
         @Override
         public QueryableEntry next() {
-            if (resultSets.size() == 0) {
+            if (resultSets.size() == 0 && entries == null) {
                 return null;
             }
             return currentIterator.next();
@@ -122,6 +137,9 @@ public class MultiResultSet extends AbstractSet<QueryableEntry> {
         for (ConcurrentMap<Data, QueryableEntry> resultSet : resultSets) {
             size += resultSet.size();
         }
+        if (entries != null) {
+            size += entries.size();
+        }
         return size;
     }
 }
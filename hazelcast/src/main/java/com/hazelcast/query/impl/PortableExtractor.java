@@ -16,25 +16,57 @@
 
 package com.hazelcast.query.impl;
 
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.IOUtil;
 import com.hazelcast.nio.serialization.ClassDefinition;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.FieldDefinition;
 import com.hazelcast.nio.serialization.FieldType;
 import com.hazelcast.nio.serialization.PortableContext;
-import com.hazelcast.nio.serialization.PortableReader;
 import com.hazelcast.nio.serialization.SerializationService;
 import com.hazelcast.query.QueryException;
+import com.hazelcast.util.ConcurrencyUtil;
+import com.hazelcast.util.ConstructorFunction;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 /**
  * Utility class to extract a single field from a {@link com.hazelcast.nio.serialization.Portable} binary.
+ * <p/>
+ * A Portable is written as the position of its end, the positions of its fields by field index and the fields,
+ * a nested Portable field as a null flag followed by the nested Portable. Fields are read straight from the
+ * buffer of the {@link Data} by following these positions, without creating a
+ * {@link com.hazelcast.nio.serialization.PortableReader} or an input; only UTF fields are decoded through an
+ * input. The field indexes along the path of an attribute are resolved once per class definition.
  */
 final class PortableExtractor {
 
+    private static final int INT_SIZE = 4;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BYTE_SHIFT = 8;
+    private static final int INT_BITS = 32;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    private static final Pattern NESTED_FIELD_PATTERN = Pattern.compile("\\.");
+
     private static final PortableFieldExtractor[] FIELD_EXTRACTORS =
             new PortableFieldExtractor[FieldType.values().length];
 
+    private static final ConcurrentMap<ClassDefinition, ConcurrentMap<String, FieldPath>> FIELD_PATHS
+            = new ConcurrentHashMap<ClassDefinition, ConcurrentMap<String, FieldPath>>();
+
+    private static final ConstructorFunction<ClassDefinition, ConcurrentMap<String, FieldPath>> FIELD_PATHS_CONSTRUCTOR
+            = new ConstructorFunction<ClassDefinition, ConcurrentMap<String, FieldPath>>() {
+        @Override
+        public ConcurrentMap<String, FieldPath> createNew(ClassDefinition classDefinition) {
+            return new ConcurrentHashMap<String, FieldPath>();
+        }
+    };
+
     static {
         FIELD_EXTRACTORS[FieldType.PORTABLE.getId()] = new PortableUnsupportedFieldExtractor();
 
@@ -65,15 +97,77 @@ final class PortableExtractor {
             throws IOException {
 
         PortableContext portableContext = serializationService.getPortableContext();
-        PortableFieldExtractor fieldExtractor = getFieldExtractor(data, fieldName, portableContext);
-        PortableReader reader = serializationService.createPortableReader(data);
-        return fieldExtractor.extract(reader, fieldName);
+        FieldPath fieldPath = getFieldPath(data, fieldName, portableContext);
+        byte[] buffer = data.getBuffer();
+        boolean bigEndian = serializationService.getByteOrder() == ByteOrder.BIG_ENDIAN;
+        int[] indexes = fieldPath.indexes;
+        int last = indexes.length - 1;
+        // a Portable starts with the position of its end, followed by the positions of its fields.
+        int position = 0;
+        for (int i = 0; i < last; i++) {
+            position = readInt(buffer, position + INT_SIZE + indexes[i] * INT_SIZE, bigEndian);
+            if (buffer[position] != 0) {
+                throw new NullPointerException("Parent field is null: " + fieldPath.names[i]);
+            }
+            position++;
+        }
+        position = readInt(buffer, position + INT_SIZE + indexes[last] * INT_SIZE, bigEndian);
+        return fieldPath.extractor.extract(serializationService, data, position, bigEndian);
+    }
+
+    static AttributeType getAttributeType(PortableContext portableContext, Data data, String fieldName) {
+        return getFieldPath(data, fieldName, portableContext).extractor.getAttributeType();
+    }
+
+    private static FieldPath getFieldPath(Data data, String fieldName, PortableContext portableContext) {
+        ClassDefinition classDefinition = data.getClassDefinition();
+        ConcurrentMap<String, FieldPath> fieldPaths = ConcurrencyUtil.getOrPutIfAbsent(FIELD_PATHS, classDefinition,
+                FIELD_PATHS_CONSTRUCTOR);
+        FieldPath fieldPath = fieldPaths.get(fieldName);
+        if (fieldPath == null) {
+            fieldPath = createFieldPath(classDefinition, fieldName, portableContext);
+            fieldPaths.putIfAbsent(fieldName, fieldPath);
+        }
+        return fieldPath;
+    }
+
+    private static FieldPath createFieldPath(ClassDefinition classDefinition, String fieldName,
+            PortableContext portableContext) {
+
+        String[] names = classDefinition.hasField(fieldName)
+                ? new String[]{fieldName} : NESTED_FIELD_PATTERN.split(fieldName);
+        int[] indexes = new int[names.length];
+        ClassDefinition currentClassDefinition = classDefinition;
+        FieldDefinition fieldDefinition = null;
+        for (int i = 0; i < names.length; i++) {
+            fieldDefinition = currentClassDefinition.getField(names[i]);
+            if (fieldDefinition == null) {
+                throw new QueryException("Unknown Portable field: " + fieldName);
+            }
+            indexes[i] = fieldDefinition.getIndex();
+            if (i < names.length - 1) {
+                currentClassDefinition = getNestedClassDefinition(fieldDefinition, portableContext);
+            }
+        }
+        return new FieldPath(names, indexes, getFieldExtractor(fieldDefinition));
     }
 
-    private static PortableFieldExtractor getFieldExtractor(Data data, String fieldName,
+    private static ClassDefinition getNestedClassDefinition(FieldDefinition fieldDefinition,
             PortableContext portableContext) {
 
-        FieldDefinition fieldDefinition = getFieldDefinition(data, fieldName, portableContext);
+        if (fieldDefinition.getType() != FieldType.PORTABLE) {
+            throw new QueryException("Not a Portable field: " + fieldDefinition.getName());
+        }
+        int version = fieldDefinition.getVersion() < 0 ? portableContext.getVersion() : fieldDefinition.getVersion();
+        ClassDefinition classDefinition = portableContext.lookup(fieldDefinition.getFactoryId(),
+                fieldDefinition.getClassId(), version);
+        if (classDefinition == null) {
+            throw new QueryException("Not a registered Portable field: " + fieldDefinition);
+        }
+        return classDefinition;
+    }
+
+    private static PortableFieldExtractor getFieldExtractor(FieldDefinition fieldDefinition) {
         int fieldType = fieldDefinition.getType().getId();
         if (fieldType < 0 || fieldType >= FIELD_EXTRACTORS.length) {
             throw new ArrayIndexOutOfBoundsException("Invalid fieldType: " + fieldType);
@@ -86,24 +180,46 @@ final class PortableExtractor {
         return fieldExtractor;
     }
 
-    private static FieldDefinition getFieldDefinition(Data data, String fieldName, PortableContext portableContext) {
-        ClassDefinition classDefinition = data.getClassDefinition();
-        FieldDefinition fieldDefinition = portableContext.getFieldDefinition(classDefinition, fieldName);
-        if (fieldDefinition == null) {
-            throw new QueryException("Unknown Portable field: " + fieldName);
+    private static short readShort(byte[] buffer, int position, boolean bigEndian) {
+        int byte0 = buffer[position] & BYTE_MASK;
+        int byte1 = buffer[position + 1] & BYTE_MASK;
+        return (short) (bigEndian ? byte0 << BYTE_SHIFT | byte1 : byte1 << BYTE_SHIFT | byte0);
+    }
+
+    private static int readInt(byte[] buffer, int position, boolean bigEndian) {
+        int value = 0;
+        for (int i = 0; i < INT_SIZE; i++) {
+            int b = buffer[position + (bigEndian ? i : INT_SIZE - 1 - i)] & BYTE_MASK;
+            value = value << BYTE_SHIFT | b;
         }
-        return fieldDefinition;
+        return value;
     }
 
-    static AttributeType getAttributeType(PortableContext portableContext, Data data, String fieldName) {
-        PortableFieldExtractor fieldExtractor = getFieldExtractor(data, fieldName, portableContext);
-        return fieldExtractor.getAttributeType();
+    private static long readLong(byte[] buffer, int position, boolean bigEndian) {
+        long high = readInt(buffer, bigEndian ? position : position + INT_SIZE, bigEndian) & INT_MASK;
+        long low = readInt(buffer, bigEndian ? position + INT_SIZE : position, bigEndian) & INT_MASK;
+        return high << INT_BITS | low;
+    }
+
+    /**
+     * Field indexes along the path of an attribute, the extractor of the type of its last field.
+     */
+    private static final class FieldPath {
+        final String[] names;
+        final int[] indexes;
+        final PortableFieldExtractor extractor;
+
+        FieldPath(String[] names, int[] indexes, PortableFieldExtractor extractor) {
+            this.names = names;
+            this.indexes = indexes;
+            this.extractor = extractor;
+        }
     }
 
     private static class PortableIntegerFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readInt(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return readInt(data.getBuffer(), position, bigEndian);
         }
 
         @Override
@@ -114,8 +230,8 @@ final class PortableExtractor {
 
     private static class PortableByteFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readByte(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return data.getBuffer()[position];
         }
 
         @Override
@@ -126,8 +242,8 @@ final class PortableExtractor {
 
     private static class PortableLongFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readLong(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return readLong(data.getBuffer(), position, bigEndian);
         }
 
         @Override
@@ -138,8 +254,8 @@ final class PortableExtractor {
 
     private static class PortableDoubleFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readDouble(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return Double.longBitsToDouble(readLong(data.getBuffer(), position, bigEndian));
         }
 
         @Override
@@ -150,8 +266,8 @@ final class PortableExtractor {
 
     private static class PortableFloatFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readFloat(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return Float.intBitsToFloat(readInt(data.getBuffer(), position, bigEndian));
         }
 
         @Override
@@ -162,8 +278,8 @@ final class PortableExtractor {
 
     private static class PortableShortFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readShort(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return readShort(data.getBuffer(), position, bigEndian);
         }
 
         @Override
@@ -174,8 +290,15 @@ final class PortableExtractor {
 
     private static class PortableUtfFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readUTF(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian)
+                throws IOException {
+            BufferObjectDataInput in = service.createObjectDataInput(data);
+            try {
+                in.position(position);
+                return in.readUTF();
+            } finally {
+                IOUtil.closeResource(in);
+            }
         }
 
         @Override
@@ -186,8 +309,8 @@ final class PortableExtractor {
 
     private static class PortableCharFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readChar(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return (char) readShort(data.getBuffer(), position, bigEndian);
         }
 
         @Override
@@ -198,8 +321,8 @@ final class PortableExtractor {
 
     private static class PortableBooleanFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            return reader.readBoolean(fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            return data.getBuffer()[position] != 0;
         }
 
         @Override
@@ -210,8 +333,8 @@ final class PortableExtractor {
 
     private static class PortableUnsupportedFieldExtractor implements PortableFieldExtractor {
         @Override
-        public Comparable extract(PortableReader reader, String fieldName) throws IOException {
-            throw new UnsupportedOperationException("Unsupported Portable field in query: " + fieldName);
+        public Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) {
+            throw new UnsupportedOperationException("Unsupported Portable field in query at position: " + position);
         }
 
         @Override
@@ -221,7 +344,7 @@ final class PortableExtractor {
     }
 
     private interface PortableFieldExtractor {
-        Comparable extract(PortableReader reader, String fieldName) throws IOException;
+        Comparable extract(SerializationService service, Data data, int position, boolean bigEndian) throws IOException;
         AttributeType getAttributeType();
     }
 }
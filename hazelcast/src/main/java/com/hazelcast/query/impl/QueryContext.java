@@ -33,4 +33,15 @@ public class QueryContext {
             return indexService.getIndex(attributeName);
         }
     }
+
+    /**
+     * @return the indexes over several attributes.
+     */
+    public CompositeIndex[] getCompositeIndexes() {
+        if (indexService == null) {
+            return new CompositeIndex[0];
+        } else {
+            return indexService.getCompositeIndexes();
+        }
+    }
 }
@@ -38,7 +38,11 @@ import static com.hazelcast.query.QueryConstants.THIS_ATTRIBUTE_NAME;
 public final class ReflectionHelper {
 
     private static final ClassLoader THIS_CL = ReflectionHelper.class.getClassLoader();
-    private static final ConcurrentMap<String, Getter> GETTER_CACHE = new ConcurrentHashMap<String, Getter>(1000);
+    /**
+     * Getters per class name and attribute, looked up without building a key per extraction.
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, Getter>> GETTER_CACHE
+            = new ConcurrentHashMap<String, ConcurrentMap<String, Getter>>(1000);
     private static final int INITIAL_CAPACITY = 3;
 
     private ReflectionHelper() {
@@ -87,8 +91,8 @@ public final class ReflectionHelper {
 
     private static Getter createGetter(Object obj, String attribute) {
         Class clazz = obj.getClass();
-        final String cacheKey = clazz.getName() + ":" + attribute;
-        Getter getter = GETTER_CACHE.get(cacheKey);
+        ConcurrentMap<String, Getter> classGetters = GETTER_CACHE.get(clazz.getName());
+        Getter getter = classGetters != null ? classGetters.get(attribute) : null;
         if (getter != null) {
             return getter;
         }
@@ -110,7 +114,7 @@ public final class ReflectionHelper {
                         try {
                             final Method method = clazz.getMethod(methodName);
                             method.setAccessible(true);
-                            localGetter = new MethodGetter(parent, method);
+                            localGetter = new MethodGetter(parent, clazz, method);
                             clazz = method.getReturnType();
                             break;
                         } catch (NoSuchMethodException ignored) {
@@ -120,7 +124,7 @@ public final class ReflectionHelper {
                     if (localGetter == null) {
                         try {
                             final Field field = clazz.getField(name);
-                            localGetter = new FieldGetter(parent, field);
+                            localGetter = new FieldGetter(parent, clazz, field);
                             clazz = field.getType();
                         } catch (NoSuchFieldException ignored) {
                             EmptyStatement.ignore(ignored);
@@ -132,7 +136,7 @@ public final class ReflectionHelper {
                             try {
                                 final Field field = c.getDeclaredField(name);
                                 field.setAccessible(true);
-                                localGetter = new FieldGetter(parent, field);
+                                localGetter = new FieldGetter(parent, clazz, field);
                                 clazz = field.getType();
                                 break;
                             } catch (NoSuchFieldException ignored) {
@@ -149,9 +153,21 @@ public final class ReflectionHelper {
             }
             getter = parent;
             if (getter.isCacheable()) {
-                Getter foundGetter = GETTER_CACHE.putIfAbsent(cacheKey, getter);
+                if (classGetters == null) {
+                    classGetters = new ConcurrentHashMap<String, Getter>(INITIAL_CAPACITY);
+                    final ConcurrentMap<String, Getter> foundClassGetters
+                            = GETTER_CACHE.putIfAbsent(obj.getClass().getName(), classGetters);
+                    if (foundClassGetters != null) {
+                        classGetters = foundClassGetters;
+                    }
+                }
+                Getter foundGetter = classGetters.putIfAbsent(attribute, getter);
                 if (foundGetter != null) {
                     getter = foundGetter;
+                } else {
+                    // only the cached getter gets generated accessors, so racing threads don't define them twice.
+                    // until they are set, the getter falls back to reflection.
+                    getter.generateAccessors();
                 }
             }
             return getter;
@@ -176,20 +192,41 @@ public final class ReflectionHelper {
         abstract Class getReturnType();
 
         abstract boolean isCacheable();
+
+        /**
+         * Replaces reflection with accessors generated by {@link AccessorGenerator} where possible.
+         */
+        void generateAccessors() {
+            if (parent != null) {
+                parent.generateAccessors();
+            }
+        }
     }
 
     static class MethodGetter extends Getter {
+        final Class owner;
         final Method method;
+        volatile AttributeAccessor accessor;
 
-        MethodGetter(Getter parent, Method method) {
+        MethodGetter(Getter parent, Class owner, Method method) {
             super(parent);
+            this.owner = owner;
             this.method = method;
         }
 
         Object getValue(Object obj) throws Exception {
             Object paramObj = obj;
             paramObj = parent != null ? parent.getValue(paramObj) : paramObj;
-            return paramObj != null ? method.invoke(paramObj) : null;
+            if (paramObj == null) {
+                return null;
+            }
+            return accessor != null ? accessor.get(paramObj) : method.invoke(paramObj);
+        }
+
+        @Override
+        void generateAccessors() {
+            super.generateAccessors();
+            accessor = AccessorGenerator.generate(owner, method);
         }
 
         Class getReturnType() {
@@ -208,10 +245,13 @@ public final class ReflectionHelper {
     }
 
     static class FieldGetter extends Getter {
+        final Class owner;
         final Field field;
+        volatile AttributeAccessor accessor;
 
-        FieldGetter(Getter parent, Field field) {
+        FieldGetter(Getter parent, Class owner, Field field) {
             super(parent);
+            this.owner = owner;
             this.field = field;
         }
 
@@ -219,7 +259,16 @@ public final class ReflectionHelper {
         Object getValue(Object obj) throws Exception {
             Object paramObj = obj;
             paramObj = parent != null ? parent.getValue(paramObj) : paramObj;
-            return paramObj != null ? field.get(paramObj) : null;
+            if (paramObj == null) {
+                return null;
+            }
+            return accessor != null ? accessor.get(paramObj) : field.get(paramObj);
+        }
+
+        @Override
+        void generateAccessors() {
+            super.generateAccessors();
+            accessor = AccessorGenerator.generate(owner, field);
         }
 
         @Override
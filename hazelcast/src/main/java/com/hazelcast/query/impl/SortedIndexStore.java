@@ -18,130 +18,719 @@ package com.hazelcast.query.impl;
 
 import com.hazelcast.nio.serialization.Data;
 
-import java.util.NavigableSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Store indexes rankly.
+ * <p/>
+ * Most entries are kept in sorted arrays: the indexed values, the hashes of the index keys and the entries.
+ * Integral values are kept as <tt>long</tt>s and floating point values as <tt>long</tt>s with the same order,
+ * other values, e.g. strings, as they are. The type is taken from the first indexed value. A range is looked up
+ * by two binary searches and copied by a sequential scan.
+ * <p/>
+ * New entries go to a small sorted delta which is merged into new arrays once it grows beyond an eighth of
+ * the arrays. Removed entries are cleared in the arrays and dropped by the next merge.
+ * <p/>
+ * Changes do not exclude each other: they write to the concurrent delta and clear array slots atomically,
+ * holding only the read side of {@link #lock}. A merge freezes the delta under the write side, builds the new
+ * arrays without holding the lock while changes go to a fresh delta, and publishes the arrays under the write
+ * side again after replaying the removals made in the meantime. Lookups do not lock: they read the arrays and
+ * the deltas published last.
  */
 public class SortedIndexStore implements IndexStore {
     private static final float LOAD_FACTOR = 0.75f;
-    private final ConcurrentMap<Comparable, ConcurrentMap<Data, QueryableEntry>> mapRecords
-            = new ConcurrentHashMap<Comparable, ConcurrentMap<Data, QueryableEntry>>(1000);
-    private final NavigableSet<Comparable> sortedSet = new ConcurrentSkipListSet<Comparable>();
+    private static final int MIN_MERGE_SIZE = 1 << 10;
+    private static final int MERGE_RATIO_SHIFT = 3;
 
+    private final ConcurrentMap<Data, QueryableEntry> nullRecords = new ConcurrentHashMap<Data, QueryableEntry>();
+    // read side held by changes, write side by the segment swaps of merge and clear
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean merging = new AtomicBoolean();
+    private volatile Segment segment = new Segment(null, 0);
 
     @Override
     public void getSubRecordsBetween(MultiResultSet results, Comparable from, Comparable to) {
-        Set<Comparable> values = sortedSet.subSet(from, to);
-        for (Comparable value : values) {
-            ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(value);
-            if (records != null) {
-                results.addResultSet(records);
-            }
-        }
-        // to wasn't included so include now
-        ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(to);
-        if (records != null) {
-            results.addResultSet(records);
-        }
+        getSubRecords(results, from, true, to, true);
     }
 
     @Override
     public void getSubRecords(MultiResultSet results, ComparisonType comparisonType, Comparable searchedValue) {
-        Set<Comparable> values;
-        boolean notEqual = false;
+        final Segment segment = this.segment;
+        if (segment.keys == null) {
+            return;
+        }
+        final Comparable key = segment.keys.encode(searchedValue);
         switch (comparisonType) {
             case LESSER:
-                values = sortedSet.headSet(searchedValue, false);
+                segment.getRecords(results, null, false, key, false);
                 break;
             case LESSER_EQUAL:
-                values = sortedSet.headSet(searchedValue, true);
+                segment.getRecords(results, null, false, key, true);
                 break;
             case GREATER:
-                values = sortedSet.tailSet(searchedValue, false);
+                segment.getRecords(results, key, false, null, false);
                 break;
             case GREATER_EQUAL:
-                values = sortedSet.tailSet(searchedValue, true);
+                segment.getRecords(results, key, true, null, false);
                 break;
             case NOT_EQUAL:
-                values = sortedSet;
-                notEqual = true;
+                segment.getRecords(results, null, false, key, false);
+                segment.getRecords(results, key, false, null, false);
                 break;
             default:
                 throw new IllegalArgumentException("Unrecognized comparisonType:" + comparisonType);
         }
+    }
 
-        for (Comparable value : values) {
-            if (notEqual && searchedValue.equals(value)) {
-                // skip this value if predicateType is NOT_EQUAL
-                continue;
-            }
-            ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(value);
-            if (records != null) {
-                results.addResultSet(records);
-            }
+    @Override
+    public void getSubRecords(MultiResultSet results, Comparable from, boolean fromInclusive, Comparable to,
+                              boolean toInclusive) {
+        final Segment segment = this.segment;
+        if (segment.keys == null) {
+            return;
+        }
+        final Comparable fromKey = segment.keys.encode(from);
+        final Comparable toKey = segment.keys.encode(to);
+        if (fromKey.compareTo(toKey) <= 0) {
+            segment.getRecords(results, fromKey, fromInclusive, toKey, toInclusive);
         }
     }
 
     @Override
     public void newIndex(Comparable newValue, QueryableEntry record) {
-        ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(newValue);
-        if (records == null) {
-            records = new ConcurrentHashMap<Data, QueryableEntry>(1, LOAD_FACTOR, 1);
-            mapRecords.put(newValue, records);
-            if (!(newValue instanceof IndexImpl.NullObject)) {
-                sortedSet.add(newValue);
+        if (newValue instanceof IndexImpl.NullObject) {
+            nullRecords.put(record.getIndexKey(), record);
+            return;
+        }
+        final Segment segment = lockSegment(newValue);
+        try {
+            final Comparable key = segment.keys.encode(newValue);
+            ConcurrentMap<Data, QueryableEntry> records = segment.delta.get(key);
+            if (records == null) {
+                records = new ConcurrentHashMap<Data, QueryableEntry>(1, LOAD_FACTOR, 1);
+                final ConcurrentMap<Data, QueryableEntry> existing = segment.delta.putIfAbsent(key, records);
+                if (existing != null) {
+                    records = existing;
+                }
             }
+            if (records.put(record.getIndexKey(), record) == null) {
+                segment.deltaSize.incrementAndGet();
+            }
+        } finally {
+            lock.readLock().unlock();
         }
-        records.put(record.getIndexKey(), record);
+        mergeIfNeeded(segment);
     }
 
     @Override
     public ConcurrentMap<Data, QueryableEntry> getRecordMap(Comparable indexValue) {
-        return mapRecords.get(indexValue);
+        final Set<QueryableEntry> entries = getRecords(indexValue);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        final ConcurrentMap<Data, QueryableEntry> records = new ConcurrentHashMap<Data, QueryableEntry>(entries.size());
+        for (QueryableEntry entry : entries) {
+            records.put(entry.getIndexKey(), entry);
+        }
+        return records;
     }
 
     @Override
     public void clear() {
-        mapRecords.clear();
-        sortedSet.clear();
+        lock.writeLock().lock();
+        try {
+            nullRecords.clear();
+            segment = new Segment(null, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
+    /**
+     * Empty record maps are left in the delta, a concurrent change may be adding to them. They are dropped
+     * by the next merge.
+     */
     @Override
     public void removeIndex(Comparable oldValue, Data indexKey) {
-        ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(oldValue);
-        if (records != null) {
-            records.remove(indexKey);
-            if (records.size() == 0) {
-                mapRecords.remove(oldValue);
-                sortedSet.remove(oldValue);
+        if (oldValue instanceof IndexImpl.NullObject) {
+            nullRecords.remove(indexKey);
+            return;
+        }
+        final Segment segment = lockSegment(null);
+        try {
+            if (segment.keys == null) {
+                return;
+            }
+            final Comparable key = segment.keys.encode(oldValue);
+            final ConcurrentMap<Data, QueryableEntry> records = segment.delta.get(key);
+            if (records != null && records.remove(indexKey) != null) {
+                segment.deltaSize.decrementAndGet();
+                return;
+            }
+            final ConcurrentMap<Data, QueryableEntry> frozenRecords
+                    = segment.frozenDelta == null ? null : segment.frozenDelta.get(key);
+            QueryableEntry removed = frozenRecords == null ? null : frozenRecords.remove(indexKey);
+            if (removed == null) {
+                removed = segment.remove(key, indexKey);
+            }
+            if (removed != null) {
+                segment.removedCount.incrementAndGet();
+                if (segment.removals != null) {
+                    segment.removals.add(new DeltaEntry(key, removed));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        mergeIfNeeded(segment);
+    }
+
+    /**
+     * Takes the read side of the lock and creates the keys from the given value if there are none yet.
+     *
+     * @return the current segment, stable until the lock is released.
+     */
+    private Segment lockSegment(Comparable value) {
+        for (;;) {
+            lock.readLock().lock();
+            final Segment segment = this.segment;
+            if (segment.keys != null || value == null) {
+                return segment;
+            }
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (this.segment.keys == null) {
+                    this.segment = new Segment(Keys.create(value), 0);
+                }
+            } finally {
+                lock.writeLock().unlock();
             }
         }
     }
 
     @Override
     public Set<QueryableEntry> getRecords(Comparable value) {
-        return new SingleResultSet(mapRecords.get(value));
+        if (value instanceof IndexImpl.NullObject) {
+            return new SingleResultSet(nullRecords);
+        }
+        final MultiResultSet results = new MultiResultSet();
+        getRecords(results, value);
+        return results;
     }
 
     @Override
     public void getRecords(MultiResultSet results, Set<Comparable> values) {
         for (Comparable value : values) {
-            ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(value);
-            if (records != null) {
-                results.addResultSet(records);
+            if (value instanceof IndexImpl.NullObject) {
+                results.addResultSet(nullRecords);
+            } else {
+                getRecords(results, value);
             }
         }
     }
 
+    private void getRecords(MultiResultSet results, Comparable value) {
+        final Segment segment = this.segment;
+        if (segment.keys != null) {
+            final Comparable key = segment.keys.encode(value);
+            segment.getRecords(results, key, true, key, true);
+        }
+    }
+
+    @Override
+    public int countRecords(Comparable value) {
+        if (value instanceof IndexImpl.NullObject) {
+            return nullRecords.size();
+        }
+        final Segment segment = this.segment;
+        if (segment.keys == null) {
+            return 0;
+        }
+        final Comparable key = segment.keys.encode(value);
+        int count = segment.count(key, true, key, true);
+        for (ConcurrentMap<Data, QueryableEntry> records : segment.deltaRange(key, true, key, true)) {
+            count += records.size();
+        }
+        return count;
+    }
+
+    /**
+     * Counts the entries of the range in the arrays, including removed ones, and assumes the deltas to be
+     * distributed like the arrays. The deltas are only counted when there are no arrays yet, they are small then.
+     */
+    @Override
+    public int estimateSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        final Segment segment = this.segment;
+        if (segment.keys == null) {
+            return 0;
+        }
+        final Comparable fromKey = from == null ? null : segment.keys.encode(from);
+        final Comparable toKey = to == null ? null : segment.keys.encode(to);
+        if (fromKey != null && toKey != null && fromKey.compareTo(toKey) > 0) {
+            return 0;
+        }
+        if (segment.size == 0) {
+            int count = 0;
+            for (ConcurrentMap<Data, QueryableEntry> records : segment.deltaRange(fromKey, fromInclusive, toKey, toInclusive)) {
+                count += records.size();
+            }
+            return count;
+        }
+        final long count = segment.count(fromKey, fromInclusive, toKey, toInclusive);
+        return (int) (count + count * (segment.frozenSize + segment.deltaSize.get()) / segment.size);
+    }
+
+    /**
+     * Merges in the calling thread once the delta or the removed entries outgrow an eighth of the arrays,
+     * unless a merge is running already.
+     */
+    private void mergeIfNeeded(Segment segment) {
+        final int limit = Math.max(MIN_MERGE_SIZE, segment.size >> MERGE_RATIO_SHIFT);
+        if (segment.frozenDelta == null && (segment.deltaSize.get() > limit || segment.removedCount.get() > limit)
+                && merging.compareAndSet(false, true)) {
+            try {
+                merge();
+            } finally {
+                merging.set(false);
+            }
+        }
+    }
+
+    /**
+     * Merges the delta into new arrays and drops the removed entries. Only the freeze of the delta and the
+     * publication of the new arrays hold the write side of the lock, the arrays are built without it.
+     */
+    private void merge() {
+        final Segment segment;
+        // entries are only removed from the arrays and the frozen delta meanwhile, so this is an upper bound
+        final int capacity;
+        lock.writeLock().lock();
+        try {
+            if (this.segment.keys == null) {
+                return;
+            }
+            segment = new Segment(this.segment);
+            capacity = segment.size - segment.removedCount.get() + segment.frozenSize;
+            this.segment = segment;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final List<DeltaEntry> deltaEntries = new ArrayList<DeltaEntry>(segment.frozenSize);
+        for (Map.Entry<Comparable, ConcurrentMap<Data, QueryableEntry>> entry : segment.frozenDelta.entrySet()) {
+            for (QueryableEntry record : entry.getValue().values()) {
+                deltaEntries.add(new DeltaEntry(entry.getKey(), record));
+            }
+        }
+        Collections.sort(deltaEntries, segment.keys.deltaComparator());
+        final Keys keys = segment.keys.newKeys(capacity);
+        final int[] hashes = new int[capacity];
+        final AtomicReferenceArray<QueryableEntry> entries = new AtomicReferenceArray<QueryableEntry>(capacity);
+        int k = 0;
+        int j = 0;
+        for (int i = 0; i < segment.size; i++) {
+            final QueryableEntry entry = segment.entries.get(i);
+            if (entry == null) {
+                continue;
+            }
+            for (; j < deltaEntries.size() && segment.compare(i, deltaEntries.get(j)) > 0; j++, k++) {
+                setDeltaEntry(keys, hashes, entries, k, deltaEntries.get(j));
+            }
+            segment.keys.copy(i, keys, k);
+            hashes[k] = segment.hashes[i];
+            entries.set(k, entry);
+            k++;
+        }
+        for (; j < deltaEntries.size(); j++, k++) {
+            setDeltaEntry(keys, hashes, entries, k, deltaEntries.get(j));
+        }
+
+        lock.writeLock().lock();
+        try {
+            // cleared meanwhile
+            if (this.segment != segment) {
+                return;
+            }
+            final Segment merged = new Segment(keys, k, hashes, entries, segment);
+            for (DeltaEntry removal : segment.removals) {
+                if (merged.remove(removal.key, removal.entry.getIndexKey()) != null) {
+                    merged.removedCount.incrementAndGet();
+                }
+            }
+            this.segment = merged;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void setDeltaEntry(Keys keys, int[] hashes, AtomicReferenceArray<QueryableEntry> entries, int index,
+                                      DeltaEntry deltaEntry) {
+        keys.set(index, deltaEntry.key);
+        hashes[index] = deltaEntry.hash;
+        entries.set(index, deltaEntry.entry);
+    }
+
     @Override
     public String toString() {
+        final Segment segment = this.segment;
         return "SortedIndexStore{"
-                + "mapRecords=" + mapRecords.size()
+                + "size=" + (segment.size - segment.removedCount.get() + segment.frozenSize + segment.deltaSize.get()
+                + nullRecords.size())
                 + '}';
     }
+
+    /**
+     * Sorted arrays of entries and the delta of entries added since the arrays were built.
+     * The entries are sorted by their keys and then by the hashes of their index keys,
+     * removed entries are null. While a merge is running, the delta being merged is frozen
+     * and new entries go to a fresh delta.
+     */
+    private static final class Segment {
+        final Keys keys;
+        final int size;
+        final int[] hashes;
+        final AtomicReferenceArray<QueryableEntry> entries;
+        final NavigableMap<Comparable, ConcurrentMap<Data, QueryableEntry>> delta;
+        final AtomicInteger deltaSize;
+        // removed entries still counted by size or frozenSize
+        final AtomicInteger removedCount;
+        // null unless a merge is running
+        final NavigableMap<Comparable, ConcurrentMap<Data, QueryableEntry>> frozenDelta;
+        final int frozenSize;
+        // entries removed from the arrays or the frozen delta while a merge is running, null otherwise
+        final Queue<DeltaEntry> removals;
+
+        Segment(Keys keys, int size) {
+            this(keys, size, new int[size], new AtomicReferenceArray<QueryableEntry>(size),
+                    new ConcurrentSkipListMap<Comparable, ConcurrentMap<Data, QueryableEntry>>(), new AtomicInteger());
+        }
+
+        /**
+         * Freezes the delta of the given segment, new entries go to a fresh delta.
+         */
+        Segment(Segment segment) {
+            this.keys = segment.keys;
+            this.size = segment.size;
+            this.hashes = segment.hashes;
+            this.entries = segment.entries;
+            this.delta = new ConcurrentSkipListMap<Comparable, ConcurrentMap<Data, QueryableEntry>>();
+            this.deltaSize = new AtomicInteger();
+            this.removedCount = new AtomicInteger(segment.removedCount.get());
+            this.frozenDelta = segment.delta;
+            this.frozenSize = segment.deltaSize.get();
+            this.removals = new ConcurrentLinkedQueue<DeltaEntry>();
+        }
+
+        /**
+         * Merged arrays taking over the delta of the given frozen segment.
+         */
+        Segment(Keys keys, int size, int[] hashes, AtomicReferenceArray<QueryableEntry> entries, Segment frozen) {
+            this(keys, size, hashes, entries, frozen.delta, frozen.deltaSize);
+        }
+
+        private Segment(Keys keys, int size, int[] hashes, AtomicReferenceArray<QueryableEntry> entries,
+                        NavigableMap<Comparable, ConcurrentMap<Data, QueryableEntry>> delta, AtomicInteger deltaSize) {
+            this.keys = keys;
+            this.size = size;
+            this.hashes = hashes;
+            this.entries = entries;
+            this.delta = delta;
+            this.deltaSize = deltaSize;
+            this.removedCount = new AtomicInteger();
+            this.frozenDelta = null;
+            this.frozenSize = 0;
+            this.removals = null;
+        }
+
+        /**
+         * Adds the entries with keys between from and to, a null bound is unbounded.
+         */
+        void getRecords(MultiResultSet results, Comparable from, boolean fromInclusive, Comparable to,
+                        boolean toInclusive) {
+            final int start = start(from, fromInclusive);
+            final int end = end(start, to, toInclusive);
+            if (start < end) {
+                final List<QueryableEntry> records = new ArrayList<QueryableEntry>(end - start);
+                for (int i = start; i < end; i++) {
+                    final QueryableEntry entry = entries.get(i);
+                    if (entry != null) {
+                        records.add(entry);
+                    }
+                }
+                results.addEntries(records);
+            }
+            for (ConcurrentMap<Data, QueryableEntry> records : deltaRange(from, fromInclusive, to, toInclusive)) {
+                results.addResultSet(records);
+            }
+        }
+
+        /**
+         * @return number of array slots with keys between from and to, a null bound is unbounded.
+         */
+        int count(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+            final int start = start(from, fromInclusive);
+            return Math.max(end(start, to, toInclusive) - start, 0);
+        }
+
+        /**
+         * @return record maps of the deltas with keys between from and to, a null bound is unbounded.
+         */
+        List<ConcurrentMap<Data, QueryableEntry>> deltaRange(Comparable from, boolean fromInclusive,
+                                                             Comparable to, boolean toInclusive) {
+            final List<ConcurrentMap<Data, QueryableEntry>> records = new ArrayList<ConcurrentMap<Data, QueryableEntry>>(
+                    range(delta, from, fromInclusive, to, toInclusive).values());
+            if (frozenDelta != null) {
+                records.addAll(range(frozenDelta, from, fromInclusive, to, toInclusive).values());
+            }
+            return records;
+        }
+
+        private static Map<Comparable, ConcurrentMap<Data, QueryableEntry>> range(
+                NavigableMap<Comparable, ConcurrentMap<Data, QueryableEntry>> delta, Comparable from, boolean fromInclusive,
+                Comparable to, boolean toInclusive) {
+            if (from == null) {
+                return to == null ? delta : delta.headMap(to, toInclusive);
+            }
+            return to == null ? delta.tailMap(from, fromInclusive) : delta.subMap(from, fromInclusive, to, toInclusive);
+        }
+
+        private int start(Comparable from, boolean fromInclusive) {
+            if (from == null) {
+                return 0;
+            }
+            return fromInclusive ? lowerBound(from, 0, size) : upperBound(from, 0, size);
+        }
+
+        private int end(int start, Comparable to, boolean toInclusive) {
+            if (to == null) {
+                return size;
+            }
+            return toInclusive ? upperBound(to, start, size) : lowerBound(to, start, size);
+        }
+
+        /**
+         * Clears the entry with the given key and index key.
+         *
+         * @return the cleared entry, null if it was not found.
+         */
+        QueryableEntry remove(Comparable key, Data indexKey) {
+            final int hash = indexKey.hashCode();
+            final int end = upperBound(key, 0, size);
+            int i = lowerBound(key, 0, end);
+            int high = end;
+            while (i < high) {
+                final int mid = (i + high) >>> 1;
+                if (hashes[mid] < hash) {
+                    i = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (; i < end && hashes[i] == hash; i++) {
+                final QueryableEntry entry = entries.get(i);
+                if (entry != null && indexKey.equals(entry.getIndexKey()) && entries.compareAndSet(i, entry, null)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        int compare(int index, DeltaEntry deltaEntry) {
+            final int result = keys.compare(index, deltaEntry.key);
+            return result != 0 ? result : compareHashes(hashes[index], deltaEntry.hash);
+        }
+
+        /**
+         * @return index of the first key not less than the given key.
+         */
+        private int lowerBound(Comparable key, int from, int to) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (keys.compare(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return index of the first key greater than the given key.
+         */
+        private int upperBound(Comparable key, int from, int to) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (keys.compare(mid, key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static int compareHashes(int hash1, int hash2) {
+        return hash1 < hash2 ? -1 : (hash1 == hash2 ? 0 : 1);
+    }
+
+    /**
+     * An entry of the delta with its key.
+     */
+    private static final class DeltaEntry {
+        final Comparable key;
+        final int hash;
+        final QueryableEntry entry;
+
+        DeltaEntry(Comparable key, QueryableEntry entry) {
+            this.key = key;
+            this.hash = entry.getIndexKey().hashCode();
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Sorted array of keys. Values are encoded to keys before they are stored or searched for.
+     */
+    private abstract static class Keys {
+
+        static Keys create(Comparable value) {
+            if (LongKeys.isIntegral(value)) {
+                return new LongKeys(false, 0);
+            } else if (value instanceof Double || value instanceof Float) {
+                return new LongKeys(true, 0);
+            }
+            return new ObjectKeys(0);
+        }
+
+        abstract Comparable encode(Comparable value);
+
+        abstract Keys newKeys(int size);
+
+        abstract int compare(int index, Comparable key);
+
+        abstract void set(int index, Comparable key);
+
+        abstract void copy(int index, Keys target, int targetIndex);
+
+        Comparator<DeltaEntry> deltaComparator() {
+            return new Comparator<DeltaEntry>() {
+                @Override
+                public int compare(DeltaEntry entry1, DeltaEntry entry2) {
+                    final int result = entry1.key.compareTo(entry2.key);
+                    return result != 0 ? result : compareHashes(entry1.hash, entry2.hash);
+                }
+            };
+        }
+    }
+
+    /**
+     * Keys of integral or floating point values. A floating point value is encoded to a <tt>long</tt>
+     * ordered like {@link Double#compareTo(Double)}.
+     */
+    private static final class LongKeys extends Keys {
+        private final boolean floatingPoint;
+        private final long[] keys;
+
+        LongKeys(boolean floatingPoint, int size) {
+            this.floatingPoint = floatingPoint;
+            this.keys = new long[size];
+        }
+
+        static boolean isIntegral(Object value) {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        @Override
+        Comparable encode(Comparable value) {
+            if (!floatingPoint && isIntegral(value)) {
+                return ((Number) value).longValue();
+            } else if (floatingPoint && (value instanceof Double || value instanceof Float)) {
+                final long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+                return bits ^ ((bits >> (Long.SIZE - 1)) & Long.MAX_VALUE);
+            }
+            throw new ClassCastException(value.getClass().getName() + " cannot be compared to the indexed "
+                    + (floatingPoint ? "floating point" : "integral") + " values");
+        }
+
+        @Override
+        Keys newKeys(int size) {
+            return new LongKeys(floatingPoint, size);
+        }
+
+        @Override
+        int compare(int index, Comparable key) {
+            final long value = keys[index];
+            final long other = (Long) key;
+            return value < other ? -1 : (value == other ? 0 : 1);
+        }
+
+        @Override
+        void set(int index, Comparable key) {
+            keys[index] = (Long) key;
+        }
+
+        @Override
+        void copy(int index, Keys target, int targetIndex) {
+            ((LongKeys) target).keys[targetIndex] = keys[index];
+        }
+    }
+
+    /**
+     * Keys of any other values, compared by their natural order.
+     */
+    private static final class ObjectKeys extends Keys {
+        private final Comparable[] keys;
+
+        ObjectKeys(int size) {
+            this.keys = new Comparable[size];
+        }
+
+        @Override
+        Comparable encode(Comparable value) {
+            return value;
+        }
+
+        @Override
+        Keys newKeys(int size) {
+            return new ObjectKeys(size);
+        }
+
+        @Override
+        int compare(int index, Comparable key) {
+            return keys[index].compareTo(key);
+        }
+
+        @Override
+        void set(int index, Comparable key) {
+            keys[index] = key;
+        }
+
+        @Override
+        void copy(int index, Keys target, int targetIndex) {
+            ((ObjectKeys) target).keys[targetIndex] = keys[index];
+        }
+    }
 }
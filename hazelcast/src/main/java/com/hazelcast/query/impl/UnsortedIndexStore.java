@@ -91,6 +91,22 @@ public class UnsortedIndexStore implements IndexStore {
         }
     }
 
+    @Override
+    public void getSubRecords(MultiResultSet results, Comparable from, boolean fromInclusive, Comparable to,
+                              boolean toInclusive) {
+        Set<Comparable> values = mapRecords.keySet();
+        for (Comparable value : values) {
+            int fromResult = value.compareTo(from);
+            int toResult = value.compareTo(to);
+            if ((fromInclusive ? fromResult >= 0 : fromResult > 0) && (toInclusive ? toResult <= 0 : toResult < 0)) {
+                ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(value);
+                if (records != null) {
+                    results.addResultSet(records);
+                }
+            }
+        }
+    }
+
     @Override
     public void newIndex(Comparable newValue, QueryableEntry record) {
         Data indexKey = record.getIndexKey();
@@ -141,6 +157,17 @@ public class UnsortedIndexStore implements IndexStore {
         mapRecords.clear();
     }
 
+    @Override
+    public int countRecords(Comparable value) {
+        ConcurrentMap<Data, QueryableEntry> records = mapRecords.get(value);
+        return records == null ? 0 : records.size();
+    }
+
+    @Override
+    public int estimateSubRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        return -1;
+    }
+
     @Override
     public String toString() {
         return "UnsortedIndexStore{"
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi;
+
+/**
+ * A {@link MigrationAwareService} which can copy the data of a migrating partition to the destination
+ * in bounded chunks while the partition is still writable, see
+ * {@link com.hazelcast.instance.GroupProperties#PROP_PARTITION_MIGRATION_CHUNKED_ENABLED}.
+ * <p/>
+ * On the source the migration calls {@link #beginPreCopy(PartitionMigrationEvent)}, then
+ * {@link #preparePreCopyChunk(PartitionMigrationEvent, int)} until it returns null and sends each chunk to
+ * the destination once the previous one has been applied. After that the partition is blocked for the
+ * migration and {@link #finishPreCopy(PartitionReplicationEvent)} replaces
+ * {@link #prepareReplicationOperation(PartitionReplicationEvent)}: it only has to carry the changes made
+ * since the copy began. The destination keeps the chunks aside until that operation runs, so the copy
+ * never changes the data the destination already holds as a backup of the partition.
+ * All methods are called on the partition thread of the source.
+ */
+public interface PreCopyMigrationAwareService extends MigrationAwareService {
+
+    /**
+     * Starts copying the partition, changes made from now on have to be part of
+     * {@link #finishPreCopy(PartitionReplicationEvent)}.
+     *
+     * @param event the migration, the migration endpoint is the source.
+     */
+    void beginPreCopy(PartitionMigrationEvent event);
+
+    /**
+     * Prepares the next chunk of the partition data.
+     *
+     * @param event        the migration, the migration endpoint is the source.
+     * @param maxChunkSize approximate maximum number of bytes of data in the chunk.
+     * @return operation applying the chunk on the destination, null if all data has been copied.
+     */
+    Operation preparePreCopyChunk(PartitionMigrationEvent event, int maxChunkSize);
+
+    /**
+     * Ends copying the partition, the partition is blocked for the migration.
+     *
+     * @param event the replication of the partition to the destination.
+     * @return operation bringing the destination up to date, null if there is nothing to replicate.
+     */
+    Operation finishPreCopy(PartitionReplicationEvent event);
+
+    /**
+     * Ends copying the partition without a migration, e.g. because a chunk could not be sent.
+     *
+     * @param event the migration, the migration endpoint is the source.
+     * @return operation discarding the copied data on the destination, null if there is nothing to discard.
+     */
+    Operation cancelPreCopy(PartitionMigrationEvent event);
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.spi.impl;
+
+/**
+ * What happens to invocations and async backups sent to a member whose connection already queues more than
+ * "hazelcast.socket.send.queue.capacity". Sync backups, responses and urgent system operations are always sent.
+ * <p/>
+ * The policy only applies to invocations from user threads. Operation threads are never blocked, since that would
+ * stall all partitions they execute, and their invocations, mostly internal ones like replica version checks, are
+ * always sent. Async backups, which are sent from partition threads, are sent as sync backups instead, so the
+ * caller waits for their acknowledgement. They are only dropped, with a warning, under {@link #REJECT} or when the
+ * operation sends no response to wait for; a replica missing a backup syncs itself once it notices the gap.
+ * <p/>
+ * Configured with "hazelcast.backpressure.policy".
+ */
+public enum BackpressurePolicy {
+    /**
+     * (default) Blocks the caller until the queue has drained below its capacity. When that takes longer than
+     * "hazelcast.backpressure.max.wait.millis", the invocation fails with a
+     * {@link com.hazelcast.core.HazelcastOverloadException}. Async backups are sent as sync backups.
+     */
+    BLOCK,
+    /**
+     * Sends async backups as sync backups, so the caller waits for their acknowledgement, but sends invocations
+     * without waiting for the queue to drain.
+     */
+    SYNC,
+    /**
+     * Fails the invocation with a {@link com.hazelcast.core.HazelcastOverloadException} and drops the async
+     * backup right away.
+     */
+    REJECT
+}
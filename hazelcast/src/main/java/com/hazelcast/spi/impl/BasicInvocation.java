@@ -17,6 +17,7 @@
 package com.hazelcast.spi.impl;
 
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import com.hazelcast.core.HazelcastOverloadException;
 import com.hazelcast.instance.MemberImpl;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
@@ -27,6 +28,7 @@ import com.hazelcast.spi.ExceptionAction;
 import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.ResponseHandler;
+import com.hazelcast.spi.UrgentSystemOperation;
 import com.hazelcast.spi.WaitSupport;
 import com.hazelcast.spi.exception.CallTimeoutException;
 import com.hazelcast.spi.exception.ResponseAlreadySentException;
@@ -290,6 +292,10 @@ abstract class BasicInvocation implements ResponseHandler, Runnable {
     }
 
     private void doInvokeRemote() {
+        if (!(op instanceof UrgentSystemOperation) && !operationService.acquireSendCapacity(invTarget)) {
+            notify(new HazelcastOverloadException("Send queue to " + invTarget + " is over its capacity, rejected " + op));
+            return;
+        }
         operationService.registerInvocation(this);
         boolean sent = operationService.send(op, invTarget);
         if (!sent) {
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl;
+
+import com.hazelcast.instance.Node;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.exception.RetryableIOException;
+import com.hazelcast.util.ConstructorFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.instance.OutOfMemoryErrorDispatcher.onOutOfMemory;
+import static com.hazelcast.util.ConcurrencyUtil.getOrPutIfAbsent;
+
+/**
+ * Sends the partition operations and responses for the same member in a single packet holding an
+ * {@link com.hazelcast.spi.impl.OperationBatch}, so concurrent callers share a socket write and a packet header.
+ * <p/>
+ * Callers only queue their item. The first item of a batch hands the batch to a single sender thread, which waits
+ * for the batch window and then sends everything queued for the member, so callers, including partition threads
+ * sending backups and responses, never wait and the packets for a member are sent in the order the items were queued.
+ * On the receiving side the batch is split into a packet per item, so the items are executed and answered as if
+ * they were sent one by one.
+ */
+final class BasicOperationBatcher {
+
+    private final BasicOperationService operationService;
+    private final NodeEngineImpl nodeEngine;
+    private final Node node;
+    private final ILogger logger;
+    private final long windowNanos;
+    private final int maxSize;
+    private final SenderThread senderThread;
+    private final BlockingQueue<Batch> scheduledBatches = new LinkedBlockingQueue<Batch>();
+    private volatile boolean shutdown;
+
+    private final ConcurrentMap<Address, Batch> operationBatches = new ConcurrentHashMap<Address, Batch>();
+    private final ConcurrentMap<Address, Batch> responseBatches = new ConcurrentHashMap<Address, Batch>();
+
+    private final ConstructorFunction<Address, Batch> operationBatchConstructor = new ConstructorFunction<Address, Batch>() {
+        public Batch createNew(Address target) {
+            return new Batch(target, false);
+        }
+    };
+
+    private final ConstructorFunction<Address, Batch> responseBatchConstructor = new ConstructorFunction<Address, Batch>() {
+        public Batch createNew(Address target) {
+            return new Batch(target, true);
+        }
+    };
+
+    /**
+     * @param sending whether this member batches what it sends; batches are received either way.
+     */
+    BasicOperationBatcher(BasicOperationService operationService, NodeEngineImpl nodeEngine, boolean sending) {
+        this.operationService = operationService;
+        this.nodeEngine = nodeEngine;
+        this.node = nodeEngine.getNode();
+        this.logger = node.getLogger(BasicOperationBatcher.class);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(node.getGroupProperties().OPERATION_BATCH_WINDOW_MICROS.getLong());
+        this.maxSize = node.getGroupProperties().OPERATION_BATCH_MAX_SIZE.getInteger();
+        this.senderThread = sending ? new SenderThread() : null;
+        if (senderThread != null) {
+            senderThread.start();
+        }
+    }
+
+    /**
+     * Sends a partition operation as part of a batch.
+     *
+     * @param data        the serialized operation.
+     * @param partitionId the partition to execute the operation on.
+     * @param callId      the call id of the invocation, notified if the batch could not be sent.
+     * @param target      the member to send the operation to.
+     */
+    void sendOperation(Data data, int partitionId, long callId, Address target) {
+        send(getOrPutIfAbsent(operationBatches, target, operationBatchConstructor), new Item(data, partitionId, callId));
+    }
+
+    /**
+     * Sends a response as part of a batch.
+     *
+     * @param data   the serialized response.
+     * @param target the member to send the response to.
+     */
+    void sendResponse(Data data, Address target) {
+        send(getOrPutIfAbsent(responseBatches, target, responseBatchConstructor), new Item(data, -1, 0));
+    }
+
+    /**
+     * Executes the items of a received batch packet.
+     *
+     * @param packet the packet holding an {@link com.hazelcast.spi.impl.OperationBatch}.
+     */
+    void execute(Packet packet) {
+        final OperationBatch batch = (OperationBatch) nodeEngine.toObject(packet.getData());
+        packet.release();
+        final boolean response = packet.isHeaderSet(Packet.HEADER_RESPONSE);
+        for (int i = 0; i < batch.size(); i++) {
+            final Packet itemPacket = new Packet(batch.getItem(i), batch.getPartitionId(i), nodeEngine.getPortableContext());
+            itemPacket.setHeader(Packet.HEADER_OP);
+            if (response) {
+                itemPacket.setHeader(Packet.HEADER_RESPONSE);
+            }
+            itemPacket.setConn(packet.getConn());
+            operationService.scheduler.execute(itemPacket);
+        }
+    }
+
+    void onMemberLeft(Address address) {
+        operationBatches.remove(address);
+        responseBatches.remove(address);
+    }
+
+    void shutdown() {
+        shutdown = true;
+        if (senderThread != null) {
+            senderThread.interrupt();
+        }
+    }
+
+    private void send(Batch batch, Item item) {
+        batch.queue.offer(item);
+        if (batch.scheduled.compareAndSet(false, true)) {
+            // published to the sender thread by the queue
+            batch.deadlineNanos = System.nanoTime() + windowNanos;
+            scheduledBatches.offer(batch);
+        }
+    }
+
+    // only called by the sender thread
+    private void flush(Batch batch) {
+        for (;;) {
+            drain(batch);
+            // items queued from now on schedule the batch again; the ones queued before are sent by this loop
+            batch.scheduled.set(false);
+            if (batch.queue.isEmpty() || !batch.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void drain(Batch batch) {
+        final List<Item> items = new ArrayList<Item>();
+        for (;;) {
+            final Item item = batch.queue.poll();
+            if (item != null) {
+                items.add(item);
+                if (items.size() < maxSize) {
+                    continue;
+                }
+            }
+            if (!items.isEmpty()) {
+                sendItems(batch, items);
+                items.clear();
+            }
+            if (item == null) {
+                return;
+            }
+        }
+    }
+
+    private void sendItems(Batch batch, List<Item> items) {
+        final Packet packet;
+        if (items.size() == 1) {
+            final Item item = items.get(0);
+            packet = new Packet(item.data, item.partitionId, nodeEngine.getPortableContext());
+        } else {
+            final int[] partitionIds = new int[items.size()];
+            final Data[] datas = new Data[items.size()];
+            for (int i = 0; i < datas.length; i++) {
+                partitionIds[i] = items.get(i).partitionId;
+                datas[i] = items.get(i).data;
+            }
+            packet = new Packet(nodeEngine.toData(new OperationBatch(partitionIds, datas)), nodeEngine.getPortableContext());
+            packet.setHeader(Packet.HEADER_BATCH);
+        }
+        packet.setHeader(Packet.HEADER_OP);
+        if (batch.response) {
+            packet.setHeader(Packet.HEADER_RESPONSE);
+        }
+        final Connection connection = node.getConnectionManager().getOrConnect(batch.target);
+        if (!nodeEngine.send(packet, connection) && !batch.response) {
+            for (Item item : items) {
+                final BasicInvocation invocation = item.callId == 0 ? null : operationService.invocations.remove(item.callId);
+                if (invocation != null) {
+                    invocation.notify(new RetryableIOException("Packet not send to -> " + batch.target));
+                }
+            }
+        } else if (logger.isFinestEnabled()) {
+            logger.finest("Sent a batch of " + items.size() + (batch.response ? " responses" : " operations")
+                    + " to " + batch.target);
+        }
+    }
+
+    /**
+     * Sends the scheduled batches once their window passed. Batches are scheduled in about the order of their deadlines,
+     * so waiting for the deadline of the next one never delays another.
+     */
+    private final class SenderThread extends Thread {
+
+        private SenderThread() {
+            super(node.threadGroup, node.getThreadNamePrefix("operation-batcher"));
+            setContextClassLoader(node.getConfigClassLoader());
+        }
+
+        @Override
+        public void run() {
+            try {
+                doRun();
+            } catch (OutOfMemoryError e) {
+                onOutOfMemory(e);
+            } catch (Throwable t) {
+                logger.severe(t);
+            }
+        }
+
+        private void doRun() {
+            for (;;) {
+                final Batch batch;
+                try {
+                    batch = scheduledBatches.take();
+                } catch (InterruptedException e) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+                final long waitNanos = batch.deadlineNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                if (shutdown) {
+                    return;
+                }
+                try {
+                    flush(batch);
+                } catch (Exception e) {
+                    logger.severe("Failed to send a batch to " + batch.target, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The items queued for a member.
+     */
+    private static final class Batch {
+        private final Address target;
+        private final boolean response;
+        private final Queue<Item> queue = new ConcurrentLinkedQueue<Item>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long deadlineNanos;
+
+        private Batch(Address target, boolean response) {
+            this.target = target;
+            this.response = response;
+        }
+    }
+
+    private static final class Item {
+        private final Data data;
+        private final int partitionId;
+        private final long callId;
+
+        private Item(Data data, int partitionId, long callId) {
+            this.data = data;
+            this.partitionId = partitionId;
+            this.callId = callId;
+        }
+    }
+}
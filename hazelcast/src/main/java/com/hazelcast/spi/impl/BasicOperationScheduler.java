@@ -194,6 +194,15 @@ public final class BasicOperationScheduler {
         return toPartitionThreadIndex(partitionId) == threadId;
     }
 
+    /**
+     * Checks if the current thread executes operations, so it must not block without stalling them.
+     *
+     * @return true if the current thread is a partition or generic operation thread.
+     */
+    boolean isOperationThread() {
+        return Thread.currentThread() instanceof OperationThread;
+    }
+
     boolean isInvocationAllowedFromCurrentThread(int partitionId) {
         Thread currentThread = Thread.currentThread();
 
@@ -27,6 +27,7 @@ import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Connection;
 import com.hazelcast.nio.Packet;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.tcp.TcpIpConnection;
 import com.hazelcast.partition.InternalPartition;
 import com.hazelcast.partition.InternalPartitionService;
 import com.hazelcast.partition.ReplicaErrorLogger;
@@ -113,6 +114,9 @@ final class BasicOperationService implements InternalOperationService {
     final ConcurrentMap<Long, BasicInvocation> invocations;
     final BasicOperationScheduler scheduler;
     private final AtomicLong executedOperationsCount = new AtomicLong();
+    // async backups for overloaded members which were sent as sync backups or dropped, see BackpressurePolicy
+    final AtomicLong syncedAsyncBackups = new AtomicLong();
+    final AtomicLong droppedAsyncBackups = new AtomicLong();
 
     private final NodeEngineImpl nodeEngine;
     private final Node node;
@@ -127,6 +131,10 @@ final class BasicOperationService implements InternalOperationService {
     private final OperationBackupHandler operationBackupHandler;
     private final OperationPacketHandler operationPacketHandler;
     private final ResponsePacketHandler responsePacketHandler;
+    private final BackpressurePolicy backpressurePolicy;
+    private final long backpressureMaxWaitMillis;
+    private final BasicOperationBatcher batcher;
+    private final boolean operationBatching;
 
     BasicOperationService(NodeEngineImpl nodeEngine) {
         this.nodeEngine = nodeEngine;
@@ -134,6 +142,8 @@ final class BasicOperationService implements InternalOperationService {
         this.logger = node.getLogger(OperationService.class);
         this.defaultCallTimeout = node.getGroupProperties().OPERATION_CALL_TIMEOUT_MILLIS.getLong();
         this.executionService = nodeEngine.getExecutionService();
+        this.backpressurePolicy = BackpressurePolicy.valueOf(node.getGroupProperties().BACKPRESSURE_POLICY.getString());
+        this.backpressureMaxWaitMillis = node.getGroupProperties().BACKPRESSURE_MAX_WAIT_MILLIS.getLong();
 
         int coreSize = Runtime.getRuntime().availableProcessors();
         boolean reallyMultiCore = coreSize >= CORE_SIZE_CHECK;
@@ -146,6 +156,8 @@ final class BasicOperationService implements InternalOperationService {
         this.operationBackupHandler = new OperationBackupHandler();
         this.operationPacketHandler = new OperationPacketHandler();
         this.responsePacketHandler = new ResponsePacketHandler();
+        this.operationBatching = node.getGroupProperties().OPERATION_BATCH_ENABLED.getBoolean();
+        this.batcher = new BasicOperationBatcher(this, nodeEngine, operationBatching);
     }
 
     @Override
@@ -212,7 +224,12 @@ final class BasicOperationService implements InternalOperationService {
     @PrivateApi
     @Override
     public void executeOperation(final Packet packet) {
-        scheduler.execute(packet);
+        // batches are accepted even if this member does not send them
+        if (packet.isHeaderSet(Packet.HEADER_BATCH)) {
+            batcher.execute(packet);
+        } else {
+            scheduler.execute(packet);
+        }
     }
 
     /**
@@ -315,7 +332,11 @@ final class BasicOperationService implements InternalOperationService {
         if (nodeEngine.getThisAddress().equals(target)) {
             throw new IllegalArgumentException("Target is this node! -> " + target + ", op: " + op);
         }
-
+        int partitionId = scheduler.getPartitionIdForExecution(op);
+        if (operationBatching && partitionId >= 0 && !(op instanceof UrgentSystemOperation)) {
+            batcher.sendOperation(nodeEngine.toData(op), partitionId, op.getCallId(), target);
+            return true;
+        }
         return send(op, node.getConnectionManager().getOrConnect(target));
     }
 
@@ -328,6 +349,10 @@ final class BasicOperationService implements InternalOperationService {
             throw new IllegalArgumentException("Target is this node! -> " + target + ", response: " + response);
         }
         Data data = nodeEngine.toData(response);
+        if (operationBatching && !response.isUrgent()) {
+            batcher.sendResponse(data, target);
+            return true;
+        }
         Packet packet = new Packet(data, nodeEngine.getPortableContext());
         packet.setHeader(Packet.HEADER_OP);
         packet.setHeader(Packet.HEADER_RESPONSE);
@@ -337,6 +362,38 @@ final class BasicOperationService implements InternalOperationService {
         return nodeEngine.send(packet, node.getConnectionManager().getOrConnect(target));
     }
 
+    /**
+     * Applies the {@link BackpressurePolicy} to an invocation about to be sent to a member whose connection queues more
+     * than its capacity.
+     *
+     * Invocations from operation threads are always sent: blocking would stall every partition the thread executes,
+     * and rejecting would fail internal invocations, like replica version checks, that are never retried by a user.
+     *
+     * @param target the member the invocation is sent to.
+     * @return false if the invocation has to be rejected.
+     */
+    boolean acquireSendCapacity(Address target) {
+        TcpIpConnection connection = getOverloadedConnection(target);
+        if (connection == null || scheduler.isOperationThread()) {
+            return true;
+        }
+        if (backpressurePolicy == BackpressurePolicy.SYNC) {
+            return true;
+        }
+        if (backpressurePolicy == BackpressurePolicy.REJECT) {
+            return false;
+        }
+        return connection.awaitCapacity(backpressureMaxWaitMillis);
+    }
+
+    private TcpIpConnection getOverloadedConnection(Address target) {
+        Connection connection = node.getConnectionManager().getConnection(target);
+        if (connection instanceof TcpIpConnection && ((TcpIpConnection) connection).isOverloaded()) {
+            return (TcpIpConnection) connection;
+        }
+        return null;
+    }
+
     private boolean send(Operation op, Connection connection) {
         Data data = nodeEngine.toData(op);
 
@@ -392,6 +449,7 @@ final class BasicOperationService implements InternalOperationService {
 
     @Override
     public void onMemberLeft(final MemberImpl member) {
+        batcher.onMemberLeft(member.getAddress());
         // postpone notifying calls since real response may arrive in the mean time.
         nodeEngine.getExecutionService().schedule(new Runnable() {
             public void run() {
@@ -415,6 +473,7 @@ final class BasicOperationService implements InternalOperationService {
             invocation.notify(response);
         }
         invocations.clear();
+        batcher.shutdown();
         scheduler.shutdown();
     }
 
@@ -552,6 +611,7 @@ final class BasicOperationService implements InternalOperationService {
             try {
                 final Data data = packet.getData();
                 final Response response = (Response) nodeEngine.toObject(data);
+                packet.release();
 
                 if (response instanceof NormalResponse) {
                     notifyRemoteCall((NormalResponse) response);
@@ -603,6 +663,7 @@ final class BasicOperationService implements InternalOperationService {
             Address caller = conn.getEndPoint();
             Data data = packet.getData();
             Object object = nodeEngine.toObject(data);
+            packet.release();
             Operation op = (Operation) object;
             op.setNodeEngine(nodeEngine);
             setCallerAddress(op, caller);
@@ -882,6 +943,19 @@ final class BasicOperationService implements InternalOperationService {
                 assertNoBackupOnPrimaryMember(partition, target);
 
                 boolean isSyncBackup = replicaIndex <= syncBackupCount;
+                if (!isSyncBackup && getOverloadedConnection(target) != null) {
+                    // backups are sent from the partition thread, which must not block, so the caller waits instead
+                    if (backpressurePolicy != BackpressurePolicy.REJECT && ((Operation) backupAwareOp).returnsResponse()) {
+                        isSyncBackup = true;
+                        syncedAsyncBackups.incrementAndGet();
+                    } else {
+                        // the replica notices the version gap on its next backup and syncs itself
+                        long dropped = droppedAsyncBackups.incrementAndGet();
+                        logger.warning("Dropped async backup of partition " + partitionId + " for overloaded " + target
+                                + ", " + dropped + " dropped so far");
+                        continue;
+                    }
+                }
                 Backup backup = newBackup(backupAwareOp, replicaVersions, replicaIndex, isSyncBackup);
                 send(backup, target);
 
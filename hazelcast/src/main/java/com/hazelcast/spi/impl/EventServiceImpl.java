@@ -622,6 +622,7 @@ public class EventServiceImpl implements EventService {
         public void run() {
             Data data = packet.getData();
             EventPacket eventPacket = (EventPacket) nodeEngine.toObject(data);
+            packet.release();
             process(eventPacket);
         }
     }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl;
+
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+
+/**
+ * The serialized operations or responses sent to a member in a single packet, together with the partitions
+ * they are executed on, see {@link com.hazelcast.spi.impl.BasicOperationBatcher}.
+ */
+public final class OperationBatch implements IdentifiedDataSerializable {
+
+    private int[] partitionIds;
+
+    private Data[] items;
+
+    public OperationBatch() {
+    }
+
+    public OperationBatch(int[] partitionIds, Data[] items) {
+        this.partitionIds = partitionIds;
+        this.items = items;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public int getPartitionId(int index) {
+        return partitionIds[index];
+    }
+
+    public Data getItem(int index) {
+        return items[index];
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(items.length);
+        for (int i = 0; i < items.length; i++) {
+            out.writeInt(partitionIds[i]);
+            items[i].writeData(out);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        partitionIds = new int[size];
+        items = new Data[size];
+        for (int i = 0; i < size; i++) {
+            partitionIds[i] = in.readInt();
+            items[i] = IOUtil.readData(in);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return SpiDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getId() {
+        return SpiDataSerializerHook.OPERATION_BATCH;
+    }
+}
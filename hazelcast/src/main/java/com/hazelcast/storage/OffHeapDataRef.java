@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.storage;
+
+import com.hazelcast.nio.serialization.ClassDefinition;
+
+/**
+ * On-heap handle of a value kept in {@link OffHeapStorage}.
+ * <p/>
+ * Only the handle itself lives on the heap; the value bytes are in a slab block.
+ * The class definition of portable values is kept as a reference, since it is shared
+ * by all values of the same class.
+ */
+final class OffHeapDataRef implements DataRef {
+
+    /**
+     * object header (12) + slab ref (4) + offset (4) + size (4) + type (4) + class-definition ref (4)
+     * + partition-hash (4), aligned to 8 bytes.
+     */
+    static final int HEAP_COST = 40;
+
+    private final Slab slab;
+    private final int offset;
+    private final int size;
+    private final int type;
+    private final ClassDefinition classDefinition;
+    private final int partitionHash;
+
+    OffHeapDataRef(Slab slab, int offset, int size, int type, ClassDefinition classDefinition, int partitionHash) {
+        this.slab = slab;
+        this.offset = offset;
+        this.size = size;
+        this.type = type;
+        this.classDefinition = classDefinition;
+        this.partitionHash = partitionHash;
+    }
+
+    Slab getSlab() {
+        return slab;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    ClassDefinition getClassDefinition() {
+        return classDefinition;
+    }
+
+    int getPartitionHash() {
+        return partitionHash;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int heapCost() {
+        return HEAP_COST;
+    }
+}
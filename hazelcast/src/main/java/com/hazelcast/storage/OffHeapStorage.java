@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.storage;
+
+import com.hazelcast.nio.UnsafeHelper;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.QuickMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.hazelcast.util.ValidationUtil.shouldBePositive;
+
+/**
+ * {@link Storage} implementation keeping values outside of the java heap.
+ * <p/>
+ * Memory is reserved in fixed size slabs, each slab is split into blocks of a single size class.
+ * Size classes grow geometrically from {@link #MIN_BLOCK_SIZE} up to an eighth of the slab size,
+ * values larger than the biggest size class get a dedicated slab which is released on removal.
+ * <p/>
+ * To keep contention low, storage is split into stripes selected by the partition hash; every stripe
+ * has its own slab pools and lock. Since all values of a partition live in the same stripe, operations
+ * running on different partition threads rarely compete for the same lock.
+ * <p/>
+ * Only the {@link DataRef} handle stays on the heap, see {@link DataRef#heapCost()}.
+ * <p/>
+ * Structures which manage their own native memory, like the index of an off-heap record table, allocate it
+ * through {@link #allocate(long)} so that it counts against the same capacity.
+ */
+public class OffHeapStorage implements Storage<DataRef> {
+
+    /**
+     * Default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPE_COUNT = 16;
+
+    /**
+     * Size of the smallest size class.
+     */
+    public static final int MIN_BLOCK_SIZE = 16;
+
+    private static final float SIZE_CLASS_GROWTH_FACTOR = 1.25f;
+    private static final int BLOCK_ALIGNMENT = 8;
+    private static final int MIN_BLOCKS_PER_SLAB = 8;
+
+    private final long capacity;
+    private final int slabSize;
+    private final boolean useUnsafe;
+    private final int[] sizeClasses;
+    private final Stripe[] stripes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong unpooledBytes = new AtomicLong();
+
+    public OffHeapStorage(long capacity, int slabSize) {
+        this(capacity, slabSize, DEFAULT_STRIPE_COUNT, true);
+    }
+
+    /**
+     * @param capacity    maximum number of bytes which can be reserved.
+     * @param slabSize    number of bytes reserved at once for small values.
+     * @param stripeCount number of lock stripes, should be a power of two.
+     * @param useUnsafe   <tt>true</tt> to allocate memory via <tt>sun.misc.Unsafe</tt> when available,
+     *                    otherwise direct byte buffers are used.
+     */
+    public OffHeapStorage(long capacity, int slabSize, int stripeCount, boolean useUnsafe) {
+        shouldBePositive(capacity, "capacity");
+        shouldBePositive(stripeCount, "stripeCount");
+        if (slabSize < MIN_BLOCK_SIZE * MIN_BLOCKS_PER_SLAB) {
+            throw new IllegalArgumentException("Slab size should be at least " + (MIN_BLOCK_SIZE * MIN_BLOCKS_PER_SLAB)
+                    + " bytes! -> " + slabSize);
+        }
+        if (!QuickMath.isPowerOfTwo(stripeCount)) {
+            throw new IllegalArgumentException("Stripe count should be a power of two! -> " + stripeCount);
+        }
+        this.capacity = capacity;
+        this.slabSize = slabSize;
+        this.useUnsafe = useUnsafe;
+        this.sizeClasses = createSizeClasses(slabSize / MIN_BLOCKS_PER_SLAB);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(sizeClasses.length);
+        }
+    }
+
+    static int[] createSizeClasses(int maxBlockSize) {
+        final List<Integer> sizes = new ArrayList<Integer>();
+        int size = MIN_BLOCK_SIZE;
+        while (size < maxBlockSize) {
+            sizes.add(size);
+            final int next = align((int) (size * SIZE_CLASS_GROWTH_FACTOR));
+            size = next > size ? next : size + BLOCK_ALIGNMENT;
+        }
+        sizes.add(maxBlockSize);
+        final int[] classes = new int[sizes.size()];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = sizes.get(i);
+        }
+        return classes;
+    }
+
+    private static int align(int size) {
+        return (size + BLOCK_ALIGNMENT - 1) & -BLOCK_ALIGNMENT;
+    }
+
+    @Override
+    public DataRef put(int hash, Data data) {
+        final byte[] bytes = data.getBuffer();
+        final Stripe stripe = stripeOf(hash);
+        if (bytes == null || bytes.length == 0) {
+            return new OffHeapDataRef(null, 0, 0, data.getType(), data.getClassDefinition(), data.getPartitionHash());
+        }
+        final int sizeClass = sizeClassOf(bytes.length);
+        if (sizeClass < 0) {
+            return putLarge(stripe, bytes, data);
+        }
+        final ReentrantLock lock = stripe.lock;
+        lock.lock();
+        try {
+            final SlabPool pool = stripe.getOrCreatePool(this, sizeClass);
+            final OffHeapDataRef ref = pool.allocate(bytes, data.getType(), data.getClassDefinition(),
+                    data.getPartitionHash());
+            stripe.onAllocate(bytes.length, pool.getBlockSize());
+            return ref;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DataRef putLarge(Stripe stripe, byte[] bytes, Data data) {
+        final int blockSize = align(bytes.length);
+        final Slab slab = reserveAndAllocate(null, 0, blockSize, blockSize);
+        slab.write(0, bytes);
+        final ReentrantLock lock = stripe.lock;
+        lock.lock();
+        try {
+            stripe.largeSlabs.add(slab);
+            stripe.onAllocate(bytes.length, blockSize);
+        } finally {
+            lock.unlock();
+        }
+        return new OffHeapDataRef(slab, 0, bytes.length, data.getType(), data.getClassDefinition(),
+                data.getPartitionHash());
+    }
+
+    @Override
+    public Data get(int hash, DataRef dataRef) {
+        final OffHeapDataRef ref = (OffHeapDataRef) dataRef;
+        final Slab slab = ref.getSlab();
+        byte[] bytes = null;
+        if (slab != null) {
+            bytes = new byte[ref.size()];
+            final ReentrantLock lock = stripeOf(hash).lock;
+            lock.lock();
+            try {
+                slab.read(ref.getOffset(), bytes);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return new Data(ref.getType(), bytes, ref.getClassDefinition(), ref.getPartitionHash());
+    }
+
+    @Override
+    public void remove(int hash, DataRef dataRef) {
+        final OffHeapDataRef ref = (OffHeapDataRef) dataRef;
+        final Slab slab = ref.getSlab();
+        if (slab == null) {
+            return;
+        }
+        final Stripe stripe = stripeOf(hash);
+        final SlabPool pool = slab.getPool();
+        final ReentrantLock lock = stripe.lock;
+        lock.lock();
+        try {
+            if (pool != null) {
+                pool.free(ref);
+            } else if (stripe.largeSlabs.remove(slab)) {
+                slab.free();
+                reservedBytes.addAndGet(-slab.getCapacity());
+            } else {
+                return;
+            }
+            stripe.onFree(ref.size(), slab.getBlockSize());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Stripe stripe : stripes) {
+            final ReentrantLock lock = stripe.lock;
+            lock.lock();
+            try {
+                reservedBytes.addAndGet(-stripe.destroy());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Allocates native memory outside of the slabs, counted against the capacity of this storage.
+     * Requires <tt>sun.misc.Unsafe</tt>.
+     *
+     * @param size number of bytes to allocate.
+     * @return address of the allocated memory, its content is undefined.
+     * @throws OffHeapOutOfMemoryException if the capacity would be exceeded.
+     */
+    public long allocate(long size) {
+        reserve(size);
+        try {
+            final long address = UnsafeHelper.UNSAFE.allocateMemory(size);
+            unpooledBytes.addAndGet(size);
+            return address;
+        } catch (OutOfMemoryError e) {
+            reservedBytes.addAndGet(-size);
+            throw new OffHeapOutOfMemoryException("Cannot allocate " + size + " bytes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Frees memory allocated by {@link #allocate(long)}.
+     *
+     * @param address address of the memory.
+     * @param size    number of bytes it was allocated with.
+     */
+    public void free(long address, long size) {
+        UnsafeHelper.UNSAFE.freeMemory(address);
+        unpooledBytes.addAndGet(-size);
+        reservedBytes.addAndGet(-size);
+    }
+
+    Slab newSlab(SlabPool pool, int index) {
+        return reserveAndAllocate(pool, index, pool.getBlockSize(), slabSize);
+    }
+
+    private Slab reserveAndAllocate(SlabPool pool, int index, int blockSize, int size) {
+        reserve(size);
+        try {
+            return Slab.allocate(pool, index, blockSize, size, useUnsafe);
+        } catch (OutOfMemoryError e) {
+            reservedBytes.addAndGet(-size);
+            throw new OffHeapOutOfMemoryException("Cannot allocate " + size + " bytes: " + e.getMessage());
+        }
+    }
+
+    private void reserve(long size) {
+        for (;;) {
+            final long reserved = reservedBytes.get();
+            if (reserved + size > capacity) {
+                throw new OffHeapOutOfMemoryException("Cannot reserve " + size + " bytes! Capacity: " + capacity
+                        + ", reserved: " + reserved + ", used: " + getUsedBytes());
+            }
+            if (reservedBytes.compareAndSet(reserved, reserved + size)) {
+                return;
+            }
+        }
+    }
+
+    private Stripe stripeOf(int hash) {
+        return stripes[QuickMath.mod(hash & Integer.MAX_VALUE, stripes.length)];
+    }
+
+    private int sizeClassOf(int size) {
+        final int index = Arrays.binarySearch(sizeClasses, size);
+        if (index >= 0) {
+            return index;
+        }
+        final int insertionPoint = -index - 1;
+        return insertionPoint < sizeClasses.length ? insertionPoint : -1;
+    }
+
+    /**
+     * @return maximum number of bytes this storage can reserve.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of bytes reserved from the operating system, including free blocks and unpooled memory.
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * @return number of bytes allocated through {@link #allocate(long)}.
+     */
+    public long getUnpooledBytes() {
+        return unpooledBytes.get();
+    }
+
+    /**
+     * @return number of bytes occupied by allocated blocks.
+     */
+    public long getAllocatedBytes() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.allocatedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * @return number of value bytes actually stored.
+     */
+    public long getUsedBytes() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.usedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * @return number of values currently stored.
+     */
+    public long getEntryCount() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.entryCount;
+        }
+        return total;
+    }
+
+    /**
+     * Internal fragmentation is the space lost by rounding values up to their size class.
+     *
+     * @return allocated minus used bytes.
+     */
+    public long getInternalFragmentation() {
+        return getAllocatedBytes() - getUsedBytes();
+    }
+
+    /**
+     * External fragmentation is the reserved space which is not allocated to any value,
+     * i.e. free blocks which can only be reused by values of the same size class and stripe.
+     *
+     * @return reserved minus unpooled and allocated bytes.
+     */
+    public long getExternalFragmentation() {
+        return getReservedBytes() - getUnpooledBytes() - getAllocatedBytes();
+    }
+
+    /**
+     * @return ratio of bytes reserved for values which do not hold value data, between 0 and 1.
+     */
+    public double getFragmentationRatio() {
+        final long reserved = getReservedBytes() - getUnpooledBytes();
+        if (reserved <= 0) {
+            return 0d;
+        }
+        return (double) (reserved - getUsedBytes()) / reserved;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStorage{"
+                + "capacity=" + capacity
+                + ", slabSize=" + slabSize
+                + ", stripes=" + stripes.length
+                + ", sizeClasses=" + sizeClasses.length
+                + ", reserved=" + getReservedBytes()
+                + ", unpooled=" + getUnpooledBytes()
+                + ", allocated=" + getAllocatedBytes()
+                + ", used=" + getUsedBytes()
+                + ", entries=" + getEntryCount()
+                + '}';
+    }
+
+    /**
+     * Slab pools and accounting of a single lock stripe.
+     */
+    private static final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final SlabPool[] pools;
+        final Set<Slab> largeSlabs = Collections.newSetFromMap(new IdentityHashMap<Slab, Boolean>());
+
+        // written under lock, read without it for statistics
+        volatile long usedBytes;
+        volatile long allocatedBytes;
+        volatile long entryCount;
+
+        Stripe(int sizeClassCount) {
+            this.pools = new SlabPool[sizeClassCount];
+        }
+
+        SlabPool getOrCreatePool(OffHeapStorage storage, int sizeClass) {
+            SlabPool pool = pools[sizeClass];
+            if (pool == null) {
+                pool = new SlabPool(storage, storage.sizeClasses[sizeClass]);
+                pools[sizeClass] = pool;
+            }
+            return pool;
+        }
+
+        void onAllocate(int size, int blockSize) {
+            usedBytes += size;
+            allocatedBytes += blockSize;
+            entryCount++;
+        }
+
+        void onFree(int size, int blockSize) {
+            usedBytes -= size;
+            allocatedBytes -= blockSize;
+            entryCount--;
+        }
+
+        long destroy() {
+            long released = 0;
+            for (int i = 0; i < pools.length; i++) {
+                if (pools[i] != null) {
+                    released += pools[i].destroy();
+                    pools[i] = null;
+                }
+            }
+            for (Slab slab : largeSlabs) {
+                slab.free();
+                released += slab.getCapacity();
+            }
+            largeSlabs.clear();
+            usedBytes = 0;
+            allocatedBytes = 0;
+            entryCount = 0;
+            return released;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.storage;
+
+import com.hazelcast.nio.UnsafeHelper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A contiguous region of memory outside of the java heap, split into equally sized blocks.
+ * <p/>
+ * A slab is either owned by a {@link SlabPool} (small values, one block per value) or is a dedicated
+ * slab holding a single large value; in the latter case {@link #getPool()} returns <tt>null</tt>.
+ */
+abstract class Slab {
+
+    private final SlabPool pool;
+    private final int index;
+    private final int blockSize;
+    private final int capacity;
+
+    Slab(SlabPool pool, int index, int blockSize, int capacity) {
+        this.pool = pool;
+        this.index = index;
+        this.blockSize = blockSize;
+        this.capacity = capacity;
+    }
+
+    static Slab allocate(SlabPool pool, int index, int blockSize, int capacity, boolean useUnsafe) {
+        if (useUnsafe && UnsafeHelper.UNSAFE_AVAILABLE) {
+            return new UnsafeSlab(pool, index, blockSize, capacity);
+        }
+        return new DirectBufferSlab(pool, index, blockSize, capacity);
+    }
+
+    final SlabPool getPool() {
+        return pool;
+    }
+
+    final int getIndex() {
+        return index;
+    }
+
+    final int getBlockSize() {
+        return blockSize;
+    }
+
+    final int getCapacity() {
+        return capacity;
+    }
+
+    abstract void write(int offset, byte[] src);
+
+    abstract void read(int offset, byte[] dst);
+
+    abstract void free();
+
+    /**
+     * Slab backed by memory allocated through <tt>sun.misc.Unsafe</tt>.
+     */
+    private static final class UnsafeSlab extends Slab {
+
+        private volatile long address;
+
+        UnsafeSlab(SlabPool pool, int index, int blockSize, int capacity) {
+            super(pool, index, blockSize, capacity);
+            this.address = UnsafeHelper.UNSAFE.allocateMemory(capacity);
+        }
+
+        @Override
+        void write(int offset, byte[] src) {
+            UnsafeHelper.UNSAFE.copyMemory(src, UnsafeHelper.BYTE_ARRAY_BASE_OFFSET, null, address + offset, src.length);
+        }
+
+        @Override
+        void read(int offset, byte[] dst) {
+            UnsafeHelper.UNSAFE.copyMemory(null, address + offset, dst, UnsafeHelper.BYTE_ARRAY_BASE_OFFSET, dst.length);
+        }
+
+        @Override
+        void free() {
+            final long a = address;
+            if (a != 0L) {
+                address = 0L;
+                UnsafeHelper.UNSAFE.freeMemory(a);
+            }
+        }
+    }
+
+    /**
+     * Fallback slab backed by a direct {@link ByteBuffer}, used when <tt>sun.misc.Unsafe</tt> is not
+     * available or disabled. Memory is released when the buffer is garbage collected.
+     */
+    private static final class DirectBufferSlab extends Slab {
+
+        private ByteBuffer buffer;
+
+        DirectBufferSlab(SlabPool pool, int index, int blockSize, int capacity) {
+            super(pool, index, blockSize, capacity);
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        @Override
+        void write(int offset, byte[] src) {
+            final ByteBuffer b = buffer.duplicate();
+            b.position(offset);
+            b.put(src);
+        }
+
+        @Override
+        void read(int offset, byte[] dst) {
+            final ByteBuffer b = buffer.duplicate();
+            b.position(offset);
+            b.get(dst);
+        }
+
+        @Override
+        void free() {
+            buffer = null;
+        }
+    }
+}
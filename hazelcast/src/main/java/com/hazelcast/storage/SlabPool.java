@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.storage;
+
+import com.hazelcast.nio.serialization.ClassDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Blocks of a single size class, carved out of one or more slabs.
+ * <p/>
+ * Free blocks are kept on a stack of encoded <tt>(slab index, offset)</tt> longs, so that freeing and
+ * re-allocating a block does not create garbage. Not thread-safe, guarded by the owning stripe lock.
+ */
+final class SlabPool {
+
+    private static final int INITIAL_FREE_LIST_SIZE = 64;
+    private static final int INT_BITS = 32;
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    private final OffHeapStorage storage;
+    private final int blockSize;
+    private final List<Slab> slabs = new ArrayList<Slab>();
+
+    private long[] freeBlocks = new long[INITIAL_FREE_LIST_SIZE];
+    private int freeBlockCount;
+    private Slab current;
+    private int currentOffset;
+    private int usedBlocks;
+
+    SlabPool(OffHeapStorage storage, int blockSize) {
+        this.storage = storage;
+        this.blockSize = blockSize;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    int getUsedBlocks() {
+        return usedBlocks;
+    }
+
+    int getFreeBlocks() {
+        int free = freeBlockCount;
+        if (current != null) {
+            free += (current.getCapacity() - currentOffset) / blockSize;
+        }
+        return free;
+    }
+
+    /**
+     * Allocates a block and writes the given bytes into it.
+     *
+     * @return reference to the written block.
+     * @throws OffHeapOutOfMemoryException if a new slab is needed but storage capacity is exhausted.
+     */
+    OffHeapDataRef allocate(byte[] bytes, int type, ClassDefinition cd, int partitionHash) {
+        final Slab slab;
+        final int offset;
+        if (freeBlockCount > 0) {
+            final long block = freeBlocks[--freeBlockCount];
+            slab = slabs.get((int) (block >>> INT_BITS));
+            offset = (int) (block & OFFSET_MASK);
+        } else {
+            if (current == null || currentOffset + blockSize > current.getCapacity()) {
+                current = storage.newSlab(this, slabs.size());
+                slabs.add(current);
+                currentOffset = 0;
+            }
+            slab = current;
+            offset = currentOffset;
+            currentOffset += blockSize;
+        }
+        slab.write(offset, bytes);
+        usedBlocks++;
+        return new OffHeapDataRef(slab, offset, bytes.length, type, cd, partitionHash);
+    }
+
+    void free(OffHeapDataRef ref) {
+        if (freeBlockCount == freeBlocks.length) {
+            freeBlocks = Arrays.copyOf(freeBlocks, freeBlocks.length << 1);
+        }
+        freeBlocks[freeBlockCount++] = ((long) ref.getSlab().getIndex() << INT_BITS) | (ref.getOffset() & OFFSET_MASK);
+        usedBlocks--;
+    }
+
+    /**
+     * Releases all slabs of this pool.
+     *
+     * @return number of bytes released.
+     */
+    long destroy() {
+        long released = 0;
+        for (Slab slab : slabs) {
+            slab.free();
+            released += slab.getCapacity();
+        }
+        slabs.clear();
+        current = null;
+        currentOffset = 0;
+        freeBlockCount = 0;
+        usedBlocks = 0;
+        return released;
+    }
+}
@@ -1,9 +1,15 @@
 package com.hazelcast.util;
 
 import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.PagingPredicateAccessor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  *  Utility class for generating Comparators to be used in sort methods specific to hazelcast classes.
@@ -70,4 +76,43 @@ public final class SortingUtil {
         };
     }
 
+    /**
+     * Number of entries following the nearest anchor of the paging predicate which fill the pages up to and
+     * including its current page, see {@link PagingPredicateAccessor#getNearestAnchorEntry(PagingPredicate)}.
+     */
+    public static int getFetchSize(PagingPredicate pagingPredicate) {
+        final int anchorPage = PagingPredicateAccessor.getNearestAnchorEntry(pagingPredicate).getKey();
+        return (pagingPredicate.getPage() - anchorPage + 1) * pagingPredicate.getPageSize();
+    }
+
+    /**
+     * Merges the entries queried after the nearest anchor of the paging predicate, sets the anchors of the
+     * pages up to the current page and returns the entries of the current page. Moves to the previous page
+     * if the current page is empty.
+     *
+     * @param entries sorted runs of the queried members, an entry may be reported more than once.
+     * @return entries of the current page, sorted.
+     */
+    public static List<Map.Entry> getSortedPage(Collection<? extends Map.Entry> entries, PagingPredicate pagingPredicate) {
+        final TreeSet<Map.Entry> merged = new TreeSet<Map.Entry>(newComparator(pagingPredicate));
+        merged.addAll(entries);
+        final List<Map.Entry> sorted = new ArrayList<Map.Entry>(merged);
+        final int pageSize = pagingPredicate.getPageSize();
+        final int page = pagingPredicate.getPage();
+        final int anchorPage = PagingPredicateAccessor.getNearestAnchorEntry(pagingPredicate).getKey();
+        for (int i = anchorPage + 1; i <= page; i++) {
+            final int end = Math.min((i - anchorPage) * pageSize, sorted.size());
+            if (end > (i - anchorPage - 1) * pageSize) {
+                PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, i, sorted.get(end - 1));
+            }
+        }
+        final int from = (page - anchorPage) * pageSize;
+        if (from >= sorted.size()) {
+            PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, null);
+            return Collections.emptyList();
+        }
+        final List<Map.Entry> pageEntries = sorted.subList(from, Math.min(from + pageSize, sorted.size()));
+        PagingPredicateAccessor.setPagingPredicateAnchor(pagingPredicate, pageEntries.get(pageEntries.size() - 1));
+        return pageEntries;
+    }
 }
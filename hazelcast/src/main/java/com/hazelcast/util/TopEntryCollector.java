@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.util;
+
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.PagingPredicateAccessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the first entries following the nearest anchor of a {@link PagingPredicate} in its sort order,
+ * at most a given number of them. Backed by a bounded heap whose head is the last collected entry, so an
+ * entry which does not fit any more is rejected with a single comparison.
+ *
+ * @param <E> entry type
+ */
+public class TopEntryCollector<E extends Map.Entry> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Comparator<Map.Entry> comparator;
+    private final Map.Entry anchor;
+    private final int limit;
+    private final PriorityQueue<E> heap;
+
+    public TopEntryCollector(PagingPredicate pagingPredicate, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit should be greater than 0");
+        }
+        this.comparator = SortingUtil.newComparator(pagingPredicate);
+        this.anchor = PagingPredicateAccessor.getNearestAnchorEntry(pagingPredicate).getValue();
+        this.limit = limit;
+        this.heap = new PriorityQueue<E>(Math.min(limit, INITIAL_CAPACITY), Collections.reverseOrder(comparator));
+    }
+
+    /**
+     * Collects the entry if it follows the anchor and belongs to the first entries offered so far.
+     */
+    public void add(E entry) {
+        if (anchor != null && comparator.compare(anchor, entry) >= 0) {
+            return;
+        }
+        if (heap.size() < limit) {
+            heap.offer(entry);
+        } else if (comparator.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.offer(entry);
+        }
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public List<E> toSortedList() {
+        final List<E> list = new ArrayList<E>(heap);
+        Collections.sort(list, comparator);
+        return list;
+    }
+}
@@ -33,4 +33,14 @@ public class NearCacheConfigTest {
     public void testReadOnlyNearCacheConfigSetCacheLocalEntries() {
         new NearCacheConfigReadOnly(new NearCacheConfig()).setCacheLocalEntries(true);
     }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnlyNearCacheConfigSetPreloaderEnabled() {
+        new NearCacheConfigReadOnly(new NearCacheConfig()).setPreloaderEnabled(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNearCacheConfigPreloaderStoreIntervalMustBePositive() {
+        new NearCacheConfig().setPreloaderStoreIntervalSeconds(0);
+    }
 }
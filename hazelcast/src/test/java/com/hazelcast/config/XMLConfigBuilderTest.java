@@ -429,6 +429,51 @@ public class XMLConfigBuilderTest {
         assertEquals(MapConfig.DEFAULT_MIN_EVICTION_CHECK_MILLIS, mapConfig.getMinEvictionCheckMillis());
     }
 
+    @Test
+    public void testMapConfig_evictionSampleCount() {
+        String xml =
+                "<hazelcast>\n" +
+                        "<map name=\"mymap\">" +
+                        "<eviction-sample-count>5</eviction-sample-count>" +
+                        "</map>" +
+                        "</hazelcast>";
+        final Config config = buildConfig(xml);
+        assertEquals(5, config.getMapConfig("mymap").getEvictionSampleCount());
+        assertEquals(MapConfig.DEFAULT_EVICTION_SAMPLE_COUNT, config.getMapConfig("default").getEvictionSampleCount());
+    }
+
+    @Test
+    public void testMapConfig_compactRecordLayout() {
+        String xml =
+                "<hazelcast>\n" +
+                        "<map name=\"mymap\">" +
+                        "<compact-record-layout>true</compact-record-layout>" +
+                        "</map>" +
+                        "</hazelcast>";
+        final Config config = buildConfig(xml);
+        assertTrue(config.getMapConfig("mymap").isCompactRecordLayout());
+        assertFalse(config.getMapConfig("default").isCompactRecordLayout());
+    }
+
+    @Test
+    public void testNearCacheConfig_preloader() {
+        String xml =
+                "<hazelcast>\n" +
+                        "<map name=\"mymap\">" +
+                        "<near-cache>" +
+                        "<preloader-enabled>true</preloader-enabled>" +
+                        "<preloader-directory>/tmp/nearcache</preloader-directory>" +
+                        "<preloader-store-interval-seconds>60</preloader-store-interval-seconds>" +
+                        "</near-cache>" +
+                        "</map>" +
+                        "</hazelcast>";
+        final Config config = buildConfig(xml);
+        final NearCacheConfig nearCacheConfig = config.getMapConfig("mymap").getNearCacheConfig();
+        assertTrue(nearCacheConfig.isPreloaderEnabled());
+        assertEquals("/tmp/nearcache", nearCacheConfig.getPreloaderDirectory());
+        assertEquals(60, nearCacheConfig.getPreloaderStoreIntervalSeconds());
+    }
+
     @Test
     public void testMapStoreInitialModeEager() {
         String xml =
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
+import org.junit.Ignore;
+
+import java.util.Random;
+
+/**
+ * Compares put latencies of sorting eviction with sampling eviction on a single large partition.
+ * Run with a large enough heap, e.g. -Xmx2g.
+ */
+@Ignore("not a JUnit test")
+public class EvictionPerformanceTest {
+
+    private static final int MAX_SIZE = 500000;
+    private static final int OPERATION_COUNT = 2000000;
+
+    public static void main(String[] args) {
+        final HazelcastInstance instance = Hazelcast.newHazelcastInstance(createConfig());
+        try {
+            for (int round = 0; round < 3; round++) {
+                run(instance, "sorting", round);
+                run(instance, "sampling", round);
+            }
+        } finally {
+            Hazelcast.shutdownAll();
+        }
+    }
+
+    private static Config createConfig() {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_PARTITION_COUNT, "1");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getMapConfig("sorting*").setEvictionSampleCount(0);
+        config.getMapConfig("sampling*").setEvictionSampleCount(5);
+        for (MapConfig mapConfig : config.getMapConfigs().values()) {
+            mapConfig.setEvictionPolicy(MapConfig.EvictionPolicy.LRU);
+            mapConfig.setEvictionPercentage(1);
+            mapConfig.setMinEvictionCheckMillis(0L);
+            mapConfig.setMaxSizeConfig(new MaxSizeConfig(MAX_SIZE, MaxSizeConfig.MaxSizePolicy.PER_PARTITION));
+        }
+        return config;
+    }
+
+    private static void run(HazelcastInstance instance, String prefix, int round) {
+        final IMap<Integer, Integer> map = instance.getMap(prefix + round);
+        final Random random = new Random(round);
+        long maxLatency = 0L;
+        final long start = System.nanoTime();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            final int key = random.nextInt(2 * MAX_SIZE);
+            final long operationStart = System.nanoTime();
+            if ((i & 1) == 0) {
+                map.put(key, i);
+            } else {
+                map.get(key);
+            }
+            maxLatency = Math.max(maxLatency, System.nanoTime() - operationStart);
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.println(prefix + " round " + round + ": " + (OPERATION_COUNT * 1000000000L / elapsed) + " ops/s, max latency "
+                + (maxLatency / 1000000) + " ms, size " + map.size());
+        map.destroy();
+    }
+}
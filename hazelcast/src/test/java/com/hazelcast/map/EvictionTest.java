@@ -398,6 +398,84 @@ public class EvictionTest extends HazelcastTestSupport {
     }
 
 
+    @Test
+    public void testEvictionLRU_sampling() {
+        final int size = 10000;
+        final String mapName = randomMapName("_testEvictionLRU_sampling_");
+
+        Config cfg = new Config();
+        cfg.setProperty(GroupProperties.PROP_PARTITION_COUNT, "1");
+        MapConfig mc = cfg.getMapConfig(mapName);
+        mc.setEvictionPolicy(MapConfig.EvictionPolicy.LRU);
+        mc.setEvictionPercentage(10);
+        mc.setEvictionSampleCount(10);
+        mc.setMinEvictionCheckMillis(0L);
+        MaxSizeConfig msc = new MaxSizeConfig();
+        msc.setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy.PER_PARTITION);
+        msc.setSize(size);
+        mc.setMaxSizeConfig(msc);
+
+        HazelcastInstance instance = createHazelcastInstance(cfg);
+        IMap<Object, Object> map = instance.getMap(mapName);
+        for (int i = size / 2; i < size; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < size / 2; i++) {
+            map.put(i, i);
+        }
+
+        assertTrue(map.size() < size);
+        int recentlyUsedEvicted = 0;
+        for (int i = 0; i < size / 2; i++) {
+            if (map.get(i) == null) {
+                recentlyUsedEvicted++;
+            }
+        }
+        // sampling is approximate, still almost all victims should come from the older half.
+        final int evicted = size - map.size();
+        assertTrue("recently used evicted: " + recentlyUsedEvicted + " of " + evicted,
+                recentlyUsedEvicted < evicted / 10 + 1);
+    }
+
+    @Test
+    public void testEvictionLFU_sampling() {
+        final int size = 10000;
+        final String mapName = randomMapName("_testEvictionLFU_sampling_");
+
+        Config cfg = new Config();
+        cfg.setProperty(GroupProperties.PROP_PARTITION_COUNT, "1");
+        MapConfig mc = cfg.getMapConfig(mapName);
+        mc.setEvictionPolicy(MapConfig.EvictionPolicy.LFU);
+        mc.setEvictionPercentage(10);
+        mc.setEvictionSampleCount(10);
+        mc.setMinEvictionCheckMillis(0L);
+        MaxSizeConfig msc = new MaxSizeConfig();
+        msc.setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy.PER_PARTITION);
+        msc.setSize(size);
+        mc.setMaxSizeConfig(msc);
+
+        HazelcastInstance instance = createHazelcastInstance(cfg);
+        IMap<Object, Object> map = instance.getMap(mapName);
+        final int frequentlyUsedCount = size / 2;
+        for (int i = 0; i < frequentlyUsedCount; i++) {
+            map.put(i, i);
+            map.get(i);
+            map.get(i);
+        }
+        for (int i = frequentlyUsedCount; i < 2 * size; i++) {
+            map.put(i, i);
+        }
+
+        int frequentlyUsedEvicted = 0;
+        for (int i = 0; i < frequentlyUsedCount; i++) {
+            if (!map.containsKey(i)) {
+                frequentlyUsedEvicted++;
+            }
+        }
+        assertTrue("frequently used evicted: " + frequentlyUsedEvicted,
+                frequentlyUsedEvicted < frequentlyUsedCount / 10);
+    }
+
     @Test
     public void testEvictionLRU_statisticsDisabled() {
         final int nodeCount = 2;
@@ -878,6 +956,47 @@ public class EvictionTest extends HazelcastTestSupport {
         assertTrue(expirationTime > now);
     }
 
+    @Test
+    public void testRemovedKeysAreUnscheduledFromExpirationWheel() throws Exception {
+        final String mapName = randomMapName();
+        HazelcastInstance instance = createHazelcastInstance();
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i, 1, TimeUnit.HOURS);
+        }
+        assertEquals(100, getExpirationWheelSize(instance, mapName));
+
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 == 0) {
+                map.remove(i);
+            } else if (i % 3 == 1) {
+                map.delete(i);
+            } else {
+                map.evict(i);
+            }
+        }
+        assertEquals(0, getExpirationWheelSize(instance, mapName));
+
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i, 1, TimeUnit.HOURS);
+        }
+        map.clear();
+        assertEquals(0, getExpirationWheelSize(instance, mapName));
+    }
+
+    private int getExpirationWheelSize(HazelcastInstance instance, String mapName) {
+        final MapService mapService = getNode(instance).nodeEngine.getService(MapService.SERVICE_NAME);
+        final MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+        int size = 0;
+        for (int i = 0; i < instance.getPartitionService().getPartitions().size(); i++) {
+            final RecordStore recordStore = mapServiceContext.getExistingRecordStore(i, mapName);
+            if (recordStore != null) {
+                size += ((AbstractEvictableRecordStore) recordStore).expirationWheel.size();
+            }
+        }
+        return size;
+    }
+
     private IMap<Integer, Integer> getMapWithExpiredKeys() {
         final String mapName = randomMapName();
         HazelcastInstance instance = createHazelcastInstance();
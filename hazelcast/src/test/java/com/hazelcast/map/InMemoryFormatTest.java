@@ -21,6 +21,7 @@ import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.DataSerializable;
@@ -128,6 +129,65 @@ public class InMemoryFormatTest extends HazelcastTestSupport {
         assertTrue(objectMap2.containsValue(v1));
     }
 
+    @Test
+    public void offHeap() {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_TOTAL_SIZE, "16M");
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_SLAB_SIZE, "64K");
+        config.addMapConfig(new MapConfig("offHeapMap").setInMemoryFormat(InMemoryFormat.OFFHEAP));
+
+        HazelcastInstance hz = createHazelcastInstance(config);
+        IMap<Integer, Pair> map = hz.getMap("offHeapMap");
+
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, new Pair("a" + i, "b" + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(i);
+        }
+        map.put(1, new Pair("c", "d"));
+
+        assertEquals(500, map.size());
+        assertEquals(new Pair("c", "d"), map.get(1));
+        assertEquals(new Pair("a3", "b3"), map.get(3));
+        assertTrue(map.containsValue(new Pair("a999", "b999")));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void offHeapRecordTable() {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_RECORD_TABLE_ENABLED, "true");
+        config.addMapConfig(new MapConfig("offHeapMap").setInMemoryFormat(InMemoryFormat.OFFHEAP)
+                .setStatisticsEnabled(true));
+
+        HazelcastInstance hz = createHazelcastInstance(config);
+        IMap<Integer, Pair> map = hz.getMap("offHeapMap");
+
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, new Pair("a" + i, "b" + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(i);
+        }
+        map.put(1, new Pair("c", "d"));
+        map.get(3);
+
+        assertEquals(500, map.size());
+        assertEquals(new Pair("c", "d"), map.get(1));
+        assertEquals(new Pair("a3", "b3"), map.get(3));
+        assertTrue(map.getEntryView(3).getHits() > 0);
+        assertTrue(map.containsValue(new Pair("a999", "b999")));
+        assertFalse(map.containsKey(0));
+        assertEquals(500, map.keySet().size());
+        assertEquals(0, map.getLocalMapStats().getHeapCost());
+
+        map.clear();
+        assertEquals(0, map.size());
+    }
+
     public static final class Pair implements Serializable {
         private final String significant;
         private final String insignificant;
@@ -0,0 +1,121 @@
+package com.hazelcast.map;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class MapFetchIteratorTest extends HazelcastTestSupport {
+
+    @Test
+    public void testKeyIterator_returnsAllKeys() {
+        TestHazelcastInstanceFactory instanceFactory = createHazelcastInstanceFactory(2);
+        HazelcastInstance node = instanceFactory.newHazelcastInstance();
+        instanceFactory.newHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+        int numberOfEntries = 5000;
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, i);
+        }
+
+        Set<Integer> keys = new HashSet<Integer>();
+        Iterator<Integer> iterator = map.keyIterator(7);
+        while (iterator.hasNext()) {
+            assertTrue(keys.add(iterator.next()));
+        }
+
+        assertEquals(numberOfEntries, keys.size());
+    }
+
+    @Test
+    public void testEntryIterator_returnsAllEntries() {
+        HazelcastInstance node = createHazelcastInstance();
+        IMap<Integer, String> map = node.getMap(randomMapName());
+        int numberOfEntries = 1000;
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, "value" + i);
+        }
+
+        int count = 0;
+        Iterator<Map.Entry<Integer, String>> iterator = map.entryIterator(100);
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            assertEquals("value" + entry.getKey(), entry.getValue());
+            count++;
+        }
+
+        assertEquals(numberOfEntries, count);
+    }
+
+    @Test
+    public void testKeyIterator_whileMapIsUpdated() {
+        HazelcastInstance node = createHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+        int numberOfEntries = 2000;
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, i);
+        }
+
+        Set<Integer> keys = new HashSet<Integer>();
+        Iterator<Integer> iterator = map.keyIterator(10);
+        int next = numberOfEntries;
+        while (iterator.hasNext()) {
+            int key = iterator.next();
+            assertTrue(keys.add(key));
+            if (key % 2 == 0) {
+                map.put(next++, 0);
+                map.remove(key + 1);
+            }
+        }
+
+        for (int i = 0; i < numberOfEntries; i += 2) {
+            assertTrue("missing key " + i, keys.contains(i));
+        }
+    }
+
+    @Test
+    public void testKeyIterator_onEmptyMap() {
+        HazelcastInstance node = createHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+
+        Iterator<Integer> iterator = map.keyIterator(10);
+
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testKeyIterator_nextAfterLastKey() {
+        HazelcastInstance node = createHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+        map.put(1, 1);
+
+        Iterator<Integer> iterator = map.keyIterator(10);
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyIterator_withNonPositiveFetchSize() {
+        HazelcastInstance node = createHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+
+        map.keyIterator(0);
+    }
+}
@@ -0,0 +1,149 @@
+package com.hazelcast.map;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.mapreduce.aggregation.Aggregations;
+import com.hazelcast.mapreduce.aggregation.PropertyExtractor;
+import com.hazelcast.mapreduce.aggregation.Supplier;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.query.TruePredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class MapQueryAggregationTest extends HazelcastTestSupport {
+
+    @Test
+    public void testAggregate_sumOfMatchingEntries() {
+        IMap<Integer, Order> map = newOrderMap(1000);
+
+        long expected = 0;
+        for (int i = 0; i < 1000; i += 3) {
+            expected += i;
+        }
+        Long sum = map.aggregate(new SqlPredicate("region = 'EU'"), Supplier.all(new AmountExtractor()),
+                Aggregations.<Integer, Order>longSum());
+
+        assertEquals(expected, (long) sum);
+    }
+
+    @Test
+    public void testAggregate_withIndex() {
+        IMap<Integer, Order> map = newOrderMap(1000);
+        map.addIndex("region", false);
+
+        Long count = map.aggregate(new SqlPredicate("region = 'EU'"), Supplier.<Integer, Order, Object>all(),
+                Aggregations.<Integer>count());
+
+        assertEquals(334L, (long) count);
+    }
+
+    @Test
+    public void testAggregate_avgAndMax() {
+        IMap<Integer, Order> map = newOrderMap(100);
+
+        Long avg = map.aggregate(TruePredicate.INSTANCE, Supplier.all(new AmountExtractor()),
+                Aggregations.<Integer, Order>longAvg());
+        Long max = map.aggregate(new SqlPredicate("amount < 50"), Supplier.all(new AmountExtractor()),
+                Aggregations.<Integer, Order>longMax());
+
+        assertEquals(49L, (long) avg);
+        assertEquals(49L, (long) max);
+    }
+
+    @Test
+    public void testAggregate_noMatchingEntries() {
+        IMap<Integer, Order> map = newOrderMap(100);
+
+        Long sum = map.aggregate(new SqlPredicate("region = 'ASIA'"), Supplier.all(new AmountExtractor()),
+                Aggregations.<Integer, Order>longSum());
+
+        assertEquals(0L, (long) sum);
+    }
+
+    @Test
+    public void testProject_returnsSuppliedValues() {
+        IMap<Integer, Order> map = newOrderMap(30);
+
+        Collection<Long> amounts = map.project(new SqlPredicate("amount >= 25"), Supplier.all(new AmountExtractor()));
+
+        assertEquals(new HashSet<Long>(Arrays.asList(25L, 26L, 27L, 28L, 29L)), new HashSet<Long>(amounts));
+    }
+
+    @Test
+    public void testProject_skipsNullValues() {
+        IMap<Integer, Order> map = newOrderMap(30);
+
+        Collection<Long> amounts = map.project(TruePredicate.INSTANCE,
+                Supplier.fromPredicate(new SqlPredicate("region = 'EU'"), Supplier.all(new AmountExtractor())));
+
+        assertEquals(10, amounts.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAggregate_pagingPredicate() {
+        IMap<Integer, Order> map = newOrderMap(10);
+
+        map.aggregate(new PagingPredicate(5), Supplier.all(new AmountExtractor()), Aggregations.<Integer, Order>longSum());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testProject_nullPredicate() {
+        IMap<Integer, Order> map = newOrderMap(10);
+
+        map.project(null, Supplier.all(new AmountExtractor()));
+    }
+
+    private IMap<Integer, Order> newOrderMap(int numberOfEntries) {
+        TestHazelcastInstanceFactory instanceFactory = createHazelcastInstanceFactory(2);
+        HazelcastInstance node = instanceFactory.newHazelcastInstance();
+        instanceFactory.newHazelcastInstance();
+        IMap<Integer, Order> map = node.getMap(randomMapName());
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, new Order(i % 3 == 0 ? "EU" : "US", i));
+        }
+        return map;
+    }
+
+    static class AmountExtractor implements PropertyExtractor<Order, Long> {
+
+        @Override
+        public Long extract(Order value) {
+            return value.getAmount();
+        }
+    }
+
+    static class Order implements Serializable {
+
+        private final String region;
+        private final long amount;
+
+        Order(String region, long amount) {
+            this.region = region;
+            this.amount = amount;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+    }
+}
@@ -20,17 +20,27 @@ import com.hazelcast.config.Config;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.core.PartitionService;
+import com.hazelcast.instance.GroupProperties;
+import com.hazelcast.map.operation.DiscardStagedRecordsOperation;
+import com.hazelcast.test.AssertTask;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import com.hazelcast.test.HazelcastTestSupport;
 import com.hazelcast.test.TestHazelcastInstanceFactory;
 import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.util.Clock;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastSerialClassRunner.class)
 @Category(QuickTest.class)
@@ -63,6 +73,90 @@ public class MigrationTest extends HazelcastTestSupport {
     }
 
 
+    @Test
+    public void testChunkedMigration_whileMapIsUpdated() throws Exception {
+        TestHazelcastInstanceFactory nodeFactory = createHazelcastInstanceFactory(3);
+        Config cfg = new Config();
+        cfg.setProperty(GroupProperties.PROP_PARTITION_MIGRATION_CHUNKED_ENABLED, "true");
+        cfg.setProperty(GroupProperties.PROP_PARTITION_MIGRATION_CHUNK_SIZE, "1024");
+        HazelcastInstance instance1 = nodeFactory.newHazelcastInstance(cfg);
+        final int size = 10000;
+        final IMap<Integer, Integer> map = instance1.getMap("testChunkedMigration");
+        final Map<Integer, Integer> expected = new ConcurrentHashMap<Integer, Integer>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+            expected.put(i, i);
+        }
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread updater = new Thread() {
+            public void run() {
+                Random random = new Random();
+                while (!stop.get()) {
+                    int key = random.nextInt(size);
+                    if (random.nextInt(4) == 0) {
+                        map.remove(key);
+                        expected.remove(key);
+                    } else {
+                        int value = random.nextInt();
+                        map.put(key, value);
+                        expected.put(key, value);
+                    }
+                }
+            }
+        };
+        updater.start();
+        HazelcastInstance instance2 = nodeFactory.newHazelcastInstance(cfg);
+        HazelcastInstance instance3 = nodeFactory.newHazelcastInstance(cfg);
+        final PartitionService partitionService = instance1.getPartitionService();
+        assertTrueEventually(new AssertTask() {
+            public void run() throws Exception {
+                assertTrue(partitionService.isClusterSafe());
+            }
+        });
+        stop.set(true);
+        assertJoinable(updater);
+
+        IMap<Integer, Integer> map3 = instance3.getMap("testChunkedMigration");
+        assertEquals(expected.size(), map3.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map3.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testStagedRecords_discarded_whenSourceLeaves() {
+        TestHazelcastInstanceFactory nodeFactory = createHazelcastInstanceFactory(2);
+        HazelcastInstance instance1 = nodeFactory.newHazelcastInstance();
+        HazelcastInstance instance2 = nodeFactory.newHazelcastInstance();
+        MapService mapService = getNode(instance1).nodeEngine.getService(MapService.SERVICE_NAME);
+        final PartitionContainer container = mapService.getMapServiceContext().getPartitionContainer(0);
+        container.onChunkStaged(getNode(instance2).getThisAddress(), Long.MAX_VALUE);
+
+        instance2.shutdown();
+
+        assertTrueEventually(new AssertTask() {
+            public void run() throws Exception {
+                assertNull(container.getStagingSource());
+            }
+        });
+    }
+
+    @Test
+    public void testStagedRecords_discarded_whenNoChunkArrives() {
+        TestHazelcastInstanceFactory nodeFactory = createHazelcastInstanceFactory(1);
+        HazelcastInstance instance = nodeFactory.newHazelcastInstance();
+        MapService mapService = getNode(instance).nodeEngine.getService(MapService.SERVICE_NAME);
+        final PartitionContainer container = mapService.getMapServiceContext().getPartitionContainer(0);
+        container.onChunkStaged(getNode(instance).getThisAddress(), Clock.currentTimeMillis() + 100);
+        DiscardStagedRecordsOperation.scheduleExpiry(mapService, 0, 100);
+
+        assertTrueEventually(new AssertTask() {
+            public void run() throws Exception {
+                assertNull(container.getStagingSource());
+            }
+        });
+    }
+
     @Test
     public void testMigration_failure_when_statistics_disabled() {
         final int noOfRecords = 100;
@@ -0,0 +1,150 @@
+package com.hazelcast.map;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.QueryCache;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class QueryCacheTest extends HazelcastTestSupport {
+
+    @Test
+    public void testQueryCache_containsMatchingEntries() {
+        IMap<Integer, Integer> map = newMap(100);
+
+        QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        assertEquals(50, cache.size());
+        assertEquals(10, (int) cache.get(10));
+        assertNull(cache.get(60));
+        assertTrue(cache.containsValue(49));
+        assertFalse(cache.containsKey(50));
+    }
+
+    @Test
+    public void testQueryCache_followsChanges() {
+        final IMap<Integer, Integer> map = newMap(100);
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        map.put(100, 1);
+        map.put(10, 60);
+        map.remove(20);
+        map.put(70, 7);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(50, cache.size());
+                assertEquals(Integer.valueOf(1), cache.get(100));
+                assertEquals(Integer.valueOf(7), cache.get(70));
+                assertFalse(cache.containsKey(10));
+                assertFalse(cache.containsKey(20));
+            }
+        });
+    }
+
+    @Test
+    public void testQueryCache_followsChanges_whilePartitionsMigrate() {
+        TestHazelcastInstanceFactory instanceFactory = createHazelcastInstanceFactory(3);
+        HazelcastInstance node = instanceFactory.newHazelcastInstance();
+        final IMap<Integer, Integer> map = node.getMap(randomMapName());
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        instanceFactory.newHazelcastInstance();
+        for (int i = 0; i < 50; i++) {
+            map.put(i, i + 100);
+        }
+        instanceFactory.newHazelcastInstance();
+        for (int i = 50; i < 100; i++) {
+            map.put(i, i - 50);
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(50, cache.size());
+                for (int i = 50; i < 100; i++) {
+                    assertEquals(Integer.valueOf(i - 50), cache.get(i));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testQueryCache_queryWithIndex() {
+        IMap<Integer, Integer> map = newMap(100);
+        QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        cache.addIndex("this", true);
+
+        assertEquals(new HashSet<Integer>(Arrays.asList(45, 46, 47, 48, 49)), cache.keySet(new SqlPredicate("this >= 45")));
+        assertEquals(5, cache.values(new SqlPredicate("this between 10 and 14")).size());
+    }
+
+    @Test
+    public void testQueryCache_mapCleared() {
+        final IMap<Integer, Integer> map = newMap(100);
+        final QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        map.clear();
+        map.put(1, 1);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(1, cache.size());
+                assertEquals(Integer.valueOf(1), cache.get(1));
+            }
+        });
+    }
+
+    @Test
+    public void testQueryCache_destroy() {
+        IMap<Integer, Integer> map = newMap(100);
+        QueryCache<Integer, Integer> cache = map.getQueryCache(new SqlPredicate("this < 50"));
+
+        cache.destroy();
+        map.put(100, 1);
+
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryCache_pagingPredicate() {
+        IMap<Integer, Integer> map = newMap(10);
+
+        map.getQueryCache(new PagingPredicate(5));
+    }
+
+    private IMap<Integer, Integer> newMap(int numberOfEntries) {
+        TestHazelcastInstanceFactory instanceFactory = createHazelcastInstanceFactory(2);
+        HazelcastInstance node = instanceFactory.newHazelcastInstance();
+        instanceFactory.newHazelcastInstance();
+        IMap<Integer, Integer> map = node.getMap(randomMapName());
+        for (int i = 0; i < numberOfEntries; i++) {
+            map.put(i, i);
+        }
+        return map;
+    }
+}
@@ -16,8 +16,10 @@
 
 package com.hazelcast.map;
 
+import com.hazelcast.config.Config;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
 import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.Predicates;
@@ -241,6 +243,79 @@ public class SortLimitTest extends HazelcastTestSupport {
         assertEquals(0, values.size());
     }
 
+    @Test
+    public void testDeepPageWithoutAnchors() {
+        final IMap<Integer, Integer> map = initMap();
+
+        final PagingPredicate predicate = new PagingPredicate(pageSize);
+        for (int i = 0; i < 7; i++) {
+            predicate.nextPage();
+        }
+        Collection<Integer> values = map.values(predicate);
+        assertIterableEquals(values, 35, 36, 37, 38, 39);
+
+        predicate.previousPage();
+        assertEquals(29, predicate.getAnchor().getValue());
+        values = map.values(predicate);
+        assertIterableEquals(values, 30, 31, 32, 33, 34);
+    }
+
+    @Test
+    public void testNextPageAfterUpdate() {
+        final IMap<Integer, Integer> map = initMap();
+
+        final PagingPredicate predicate = new PagingPredicate(pageSize);
+        Collection<Integer> values = map.values(predicate);
+        assertIterableEquals(values, 0, 1, 2, 3, 4);
+
+        map.remove(5);
+        map.put(8, 100);
+        predicate.nextPage();
+        values = map.values(predicate);
+        assertIterableEquals(values, 6, 7, 9, 10, 11);
+    }
+
+    @Test
+    public void testPagingCursorsBoundedByEntries() {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_QUERY_PAGING_CURSOR_MAX_ENTRIES, "40");
+        HazelcastInstance instance = createHazelcastInstance(config);
+        IMap<Integer, Integer> map = instance.getMap(randomString());
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertIterableEquals(map.values(new PagingPredicate(pageSize)), 0, 1, 2, 3, 4);
+        }
+
+        long entryCount = getPagingCursorStore(instance, map.getName()).getEntryCount();
+        assertTrue("entries kept by cursors: " + entryCount, entryCount > 0 && entryCount <= 40);
+    }
+
+    @Test
+    public void testPagingCursorsDisabled() {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_QUERY_PAGING_CURSOR_ENABLED, "false");
+        HazelcastInstance instance = createHazelcastInstance(config);
+        IMap<Integer, Integer> map = instance.getMap(randomString());
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+        }
+
+        PagingPredicate predicate = new PagingPredicate(pageSize);
+        assertIterableEquals(map.values(predicate), 0, 1, 2, 3, 4);
+        predicate.nextPage();
+        assertIterableEquals(map.values(predicate), 5, 6, 7, 8, 9);
+
+        assertEquals(0, getPagingCursorStore(instance, map.getName()).getEntryCount());
+    }
+
+    private PagingCursorStore getPagingCursorStore(HazelcastInstance instance, String mapName) {
+        MapService mapService = getNode(instance).nodeEngine.getService(MapService.SERVICE_NAME);
+        return mapService.getMapServiceContext().getMapContainer(mapName).getPagingCursorStore();
+    }
+
     private IMap<Integer, Integer> initMap(){
         TestHazelcastInstanceFactory nodeFactory = createHazelcastInstanceFactory(2);
         final HazelcastInstance instance1 = nodeFactory.newHazelcastInstance();
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.eviction;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class ExpirationWheelTest {
+
+    private static final long START = 1400000000000L;
+
+    private SerializationService ss;
+    private ExpirationWheel wheel;
+
+    @Before
+    public void setUp() {
+        ss = new SerializationServiceBuilder().build();
+        wheel = new ExpirationWheel(START);
+    }
+
+    @Test
+    public void testDueAtDeadline() {
+        Data key = ss.toData(1);
+        wheel.schedule(key, START + 2500L);
+
+        assertTrue(wheel.advance(START + 2499L).isEmpty());
+        List<Data> due = wheel.advance(START + 3000L);
+        assertEquals(1, due.size());
+        assertEquals(key, due.get(0));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testPastDeadlineIsDueWithNextTick() {
+        Data key = ss.toData(1);
+        wheel.schedule(key, START - 10000L);
+        assertEquals(1, wheel.advance(START + ExpirationWheel.TICK_MILLIS).size());
+    }
+
+    @Test
+    public void testReschedule() {
+        Data key = ss.toData(1);
+        wheel.schedule(key, START + 5000L);
+        wheel.schedule(key, START + 100000L);
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(START + 99000L).isEmpty());
+        assertEquals(1, wheel.advance(START + 100000L).size());
+    }
+
+    @Test
+    public void testScheduleIfEarlier() {
+        Data key = ss.toData(1);
+        wheel.schedule(key, START + 5000L);
+        wheel.scheduleIfEarlier(key, START + 100000L);
+        assertEquals(1, wheel.advance(START + 5000L).size());
+
+        wheel.schedule(key, START + 100000L);
+        wheel.scheduleIfEarlier(key, START + 5000L);
+        assertEquals(1, wheel.advance(START + 10000L).size());
+    }
+
+    @Test
+    public void testUnschedule() {
+        Data key = ss.toData(1);
+        wheel.schedule(key, START + 5000L);
+        wheel.unschedule(key);
+        assertTrue(wheel.isEmpty());
+        assertTrue(wheel.advance(START + 10000L).isEmpty());
+    }
+
+    @Test
+    public void testRandomDeadlinesAcrossLevels() {
+        Random random = new Random(7);
+        Map<Data, Long> deadlines = new HashMap<Data, Long>();
+        long maxDelay = 400L * 24 * 60 * 60 * 1000;
+        for (int i = 0; i < 10000; i++) {
+            Data key = ss.toData(i);
+            long deadline = START + (long) (Math.pow(random.nextDouble(), 4) * maxDelay);
+            wheel.schedule(key, deadline);
+            deadlines.put(key, deadline);
+        }
+        long now = START;
+        while (!wheel.isEmpty()) {
+            now += 1 + random.nextInt(60000);
+            for (Data key : wheel.advance(now)) {
+                long deadline = deadlines.remove(key);
+                assertTrue("due too early", deadline <= now);
+                assertTrue("due too late", now - deadline < 60000 + ExpirationWheel.TICK_MILLIS);
+            }
+        }
+        assertTrue(deadlines.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(ss.toData(i), START + i * 1000L);
+        }
+        wheel.clear();
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(START + 200000L).isEmpty());
+    }
+}
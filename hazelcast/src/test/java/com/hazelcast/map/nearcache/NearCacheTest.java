@@ -24,10 +24,15 @@ import com.hazelcast.core.EntryAdapter;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
+import com.hazelcast.instance.Node;
 import com.hazelcast.instance.TestUtil;
 import com.hazelcast.map.MapService;
 import com.hazelcast.map.NearCache;
+import com.hazelcast.map.SizeEstimators;
 import com.hazelcast.monitor.NearCacheStats;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.test.AssertTask;
 import com.hazelcast.test.HazelcastParallelClassRunner;
@@ -39,12 +44,16 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -344,6 +353,192 @@ public class NearCacheTest extends HazelcastTestSupport {
         assertEquals(noOfEntries, nearCache.size());
     }
 
+    @Test
+    public void testNearCacheBoundedWithClockEviction() {
+        String mapName = randomMapName();
+        Config config = new Config();
+        final NearCacheConfig nearCacheConfig = new NearCacheConfig();
+        nearCacheConfig.setCacheLocalEntries(true);
+        nearCacheConfig.setMaxSize(1000);
+        nearCacheConfig.setEvictionPolicy("LRU");
+        config.getMapConfig(mapName).setNearCacheConfig(nearCacheConfig);
+        HazelcastInstance instance = createHazelcastInstance(config);
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+
+        final int hotKeyCount = 100;
+        for (int i = 0; i < 5000; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            // keep the hot keys referenced between the cold reads.
+            map.get(i % hotKeyCount);
+            map.get(hotKeyCount + i);
+        }
+
+        NearCache nearCache = getNearCache(mapName, instance);
+        assertTrue("near cache size: " + nearCache.size(), nearCache.size() <= 1000);
+        int cachedHotKeys = 0;
+        for (int i = 0; i < hotKeyCount; i++) {
+            if (nearCache.getReadonlyMap().containsKey(getNode(instance).getSerializationService().toData(i))) {
+                cachedHotKeys++;
+            }
+        }
+        assertTrue("cached hot keys: " + cachedHotKeys, cachedHotKeys > hotKeyCount * 9 / 10);
+    }
+
+    @Test
+    public void testNearCacheBoundedWithConcurrentPuts() throws Exception {
+        String mapName = randomMapName();
+        Config config = new Config();
+        config.getMapConfig(mapName).setNearCacheConfig(new NearCacheConfig().setMaxSize(100).setEvictionPolicy("LFU"));
+        HazelcastInstance instance = createHazelcastInstance(config);
+        final NearCache nearCache = new NearCache(mapName, getNode(instance).nodeEngine);
+        nearCache.setNearCacheSizeEstimator(SizeEstimators.createNearCacheSizeEstimator());
+        final SerializationService serializationService = getNode(instance).getSerializationService();
+        final AtomicInteger maxObservedSize = new AtomicInteger();
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 10000;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 5000; i++) {
+                        Data key = serializationService.toData(offset + i);
+                        nearCache.put(key, key);
+                        int size = nearCache.size();
+                        if (size > maxObservedSize.get()) {
+                            maxObservedSize.set(size);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            assertJoinable(thread);
+        }
+
+        assertTrue("max observed size: " + maxObservedSize.get(), maxObservedSize.get() <= 100);
+        assertEquals(100, nearCache.size());
+    }
+
+    @Test
+    public void testNearCacheInvalidationBatched() {
+        String mapName = randomMapName();
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_MAP_INVALIDATION_BATCH_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_MAP_INVALIDATION_BATCH_SIZE, "10");
+        config.getMapConfig(mapName).setNearCacheConfig(new NearCacheConfig().setInvalidateOnChange(true));
+        HazelcastInstance[] instances = createHazelcastInstanceFactory(2).newInstances(config);
+        IMap<Integer, Integer> map = instances[0].getMap(mapName);
+
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < count; i++) {
+            map.get(i);
+        }
+        final NearCache nearCache = getNearCache(mapName, instances[0]);
+        assertTrue(nearCache.size() > 0);
+
+        IMap<Integer, Integer> other = instances[1].getMap(mapName);
+        for (int i = 0; i < count; i++) {
+            other.put(i, -i);
+        }
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(0, nearCache.size());
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            assertEquals(-i, (int) map.get(i));
+        }
+    }
+
+    @Test
+    public void testNearCacheRepairsPartitionOnMissedInvalidation() {
+        String mapName = randomMapName();
+        Config config = new Config();
+        config.getMapConfig(mapName).setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true));
+        HazelcastInstance instance = createHazelcastInstance(config);
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            map.put(i, i);
+            map.get(i);
+        }
+        NearCache nearCache = getNearCache(mapName, instance);
+        assertEquals(count, nearCache.size());
+
+        Node node = getNode(instance);
+        Data key = node.getSerializationService().toData(0);
+        int partitionId = node.getPartitionService().getPartitionId(key);
+        int keysOfPartition = 0;
+        for (int i = 0; i < count; i++) {
+            if (node.getPartitionService().getPartitionId(i) == partitionId) {
+                keysOfPartition++;
+            }
+        }
+
+        List<Data> keys = Collections.singletonList(key);
+        nearCache.invalidate(partitionId, "owner", 1, keys);
+        nearCache.invalidate(partitionId, "owner", 2, keys);
+        assertEquals(count - 1, nearCache.size());
+
+        // sequence 3 is lost
+        nearCache.invalidate(partitionId, "owner", 4, keys);
+        for (int i = 1; i < count; i++) {
+            Data cached = node.getSerializationService().toData(i);
+            boolean ofPartition = node.getPartitionService().getPartitionId(cached) == partitionId;
+            assertEquals(ofPartition, nearCache.get(cached) == null);
+        }
+        assertEquals(count - keysOfPartition, nearCache.size());
+        for (Data cached : nearCache.getReadonlyMap().keySet()) {
+            assertTrue(partitionId != node.getPartitionService().getPartitionId(cached));
+        }
+    }
+
+    @Test
+    public void testNearCachePreloadedAfterRestart() {
+        String mapName = randomMapName();
+        File directory = new File(System.getProperty("java.io.tmpdir"), randomString());
+        Config config = new Config();
+        config.getMapConfig(mapName).setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true)
+                .setPreloaderEnabled(true).setPreloaderDirectory(directory.getPath()));
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(3);
+        factory.newHazelcastInstance(config);
+        HazelcastInstance instance = factory.newHazelcastInstance(config);
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            map.put(i, i);
+            map.get(i);
+        }
+        assertEquals(count, getNearCache(mapName, instance).size());
+
+        // keys are stored on shutdown
+        instance.shutdown();
+        try {
+            HazelcastInstance restarted = factory.newHazelcastInstance(config);
+            restarted.getMap(mapName);
+            final NearCache nearCache = getNearCache(mapName, restarted);
+            assertTrueEventually(new AssertTask() {
+                @Override
+                public void run() {
+                    assertEquals(count, nearCache.size());
+                }
+            });
+        } finally {
+            factory.shutdownAll();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
     // issue 1570
     @Test
     public void testNullValueNearCache() {
@@ -6,6 +6,7 @@ import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MapIndexConfig;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
 import com.hazelcast.query.EntryObject;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.PredicateBuilder;
@@ -28,6 +29,7 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -1010,4 +1012,33 @@ public class QueryBasicTest extends HazelcastTestSupport {
         values = map.values(new SqlPredicate("child.child.timestamp > 0"));
         assertEquals(1, values.size());
     }
+
+    @Test(timeout = 1000 * 60)
+    public void testQueryOnQueryExecutor_sameResultAsOnPartitionThreads() {
+        TestHazelcastInstanceFactory nodeFactory = createHazelcastInstanceFactory(4);
+        Config partitionThreadsConfig = new Config();
+        Config queryExecutorConfig = new Config();
+        queryExecutorConfig.setProperty(GroupProperties.PROP_QUERY_PARTITION_THREADS_ENABLED, "false");
+        HazelcastInstance instance1 = nodeFactory.newHazelcastInstance(partitionThreadsConfig);
+        HazelcastInstance instance2 = nodeFactory.newHazelcastInstance(partitionThreadsConfig);
+        IMap<Integer, Employee> map1 = instance1.getMap("employees");
+        for (int i = 0; i < 1000; i++) {
+            map1.put(i, new Employee(i, "name" + i, i % 60, i % 2 == 0, i));
+        }
+        HazelcastInstance instance3 = nodeFactory.newHazelcastInstance(queryExecutorConfig);
+        HazelcastInstance instance4 = nodeFactory.newHazelcastInstance(queryExecutorConfig);
+        IMap<Integer, Employee> map3 = instance3.getMap("employees");
+
+        SqlPredicate predicate = new SqlPredicate("active and age < 30");
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0 && i % 60 < 30) {
+                expected.add(i);
+            }
+        }
+        assertEquals(expected, map1.keySet(predicate));
+        assertEquals(expected, map3.keySet(predicate));
+        assertEquals(expected, instance2.getMap("employees").keySet(predicate));
+        assertEquals(expected, instance4.getMap("employees").keySet(predicate));
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class CompactRecordTest {
+
+    private SerializationService ss;
+
+    @Before
+    public void setUp() {
+        ss = new SerializationServiceBuilder().build();
+    }
+
+    @Test
+    public void testFactoriesChooseCompactRecords() {
+        MapConfig mapConfig = new MapConfig("default").setCompactRecordLayout(true);
+        Data key = ss.toData("key");
+
+        assertTrue(new DataRecordFactory(mapConfig, ss, null).newRecord(key, "value") instanceof CompactDataRecord);
+        assertTrue(new ObjectRecordFactory(mapConfig, ss).newRecord(key, "value") instanceof CompactObjectRecord);
+
+        mapConfig.setOptimizeQueries(true);
+        assertTrue(new DataRecordFactory(mapConfig, ss, null).newRecord(key, "value") instanceof CompactCachedDataRecord);
+    }
+
+    @Test
+    public void testTimestampsHaveMillisecondPrecision() {
+        Record record = newRecord(true);
+        long now = System.currentTimeMillis();
+        record.setCreationTime(now);
+        record.setLastAccessTime(now + 1500L);
+        record.setLastUpdateTime(0L);
+        record.getStatistics().setExpirationTime(now + 500L);
+
+        assertEquals(now, record.getCreationTime());
+        assertEquals(now + 1500L, record.getLastAccessTime());
+        assertEquals(0L, record.getLastUpdateTime());
+        assertEquals(now + 500L, record.getStatistics().getExpirationTime());
+    }
+
+    @Test
+    public void testTimestampsFarFromCreationTime_roundedUpToSeconds() {
+        Record record = newRecord(true);
+        long now = System.currentTimeMillis();
+        long days = 30L * 24 * 60 * 60 * 1000;
+        record.setCreationTime(now);
+        record.setLastAccessTime(now + days + 1L);
+        record.getStatistics().setExpirationTime(now + days + 999L);
+
+        assertEquals(now + days + 1000L, record.getLastAccessTime());
+        assertEquals(now + days + 1000L, record.getStatistics().getExpirationTime());
+    }
+
+    @Test
+    public void testTtl() {
+        Record record = newRecord(true);
+        record.setTtl(1500L);
+        assertEquals(1500L, record.getTtl());
+
+        long days = 365L * 24 * 60 * 60 * 1000;
+        record.setTtl(days);
+        assertEquals(days, record.getTtl());
+
+        record.setTtl(0L);
+        assertEquals(0L, record.getTtl());
+    }
+
+    @Test
+    public void testStatisticsWriteThrough() {
+        Record record = newRecord(true);
+        record.onAccess();
+        record.onAccess();
+        RecordStatistics statistics = record.getStatistics();
+        assertNotNull(statistics);
+        assertSame(statistics, record.getStatistics());
+        assertEquals(2, statistics.getHits());
+
+        statistics.setExpirationTime(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, record.getStatistics().getExpirationTime());
+
+        record.onStore();
+        assertTrue(record.getStatistics().getLastStoredTime() > 0L);
+    }
+
+    @Test
+    public void testStatisticsDisabled() {
+        Record record = newRecord(false);
+        record.onAccess();
+        record.onStore();
+        assertNull(record.getStatistics());
+    }
+
+    @Test
+    public void testVersionAndValue() {
+        Record<Data> record = newRecord(false);
+        record.onUpdate();
+        record.onUpdate();
+        assertEquals(2L, record.getVersion());
+
+        Data value = ss.toData("other");
+        record.setValue(value);
+        assertSame(value, record.getValue());
+        assertTrue(record.getCost() > 0L);
+    }
+
+    @Test
+    public void testObjectFormatWithCompactLayout() {
+        MapConfig mapConfig = new MapConfig("default").setCompactRecordLayout(true)
+                .setInMemoryFormat(InMemoryFormat.OBJECT);
+        ObjectRecordFactory factory = new ObjectRecordFactory(mapConfig, ss);
+        Record<Object> record = factory.newRecord(ss.toData(1), 1);
+        factory.setValue(record, 2);
+        assertEquals(2, record.getValue());
+    }
+
+    private Record<Data> newRecord(boolean statisticsEnabled) {
+        MapConfig mapConfig = new MapConfig("default").setCompactRecordLayout(true)
+                .setStatisticsEnabled(statisticsEnabled);
+        return new DataRecordFactory(mapConfig, ss, null).newRecord(ss.toData("key"), "value");
+    }
+}
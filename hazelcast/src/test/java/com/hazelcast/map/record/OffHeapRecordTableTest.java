@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.record;
+
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import com.hazelcast.storage.OffHeapOutOfMemoryException;
+import com.hazelcast.storage.OffHeapStorage;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class OffHeapRecordTableTest {
+
+    private static final int SLAB_SIZE = 64 * 1024;
+
+    private SerializationService ss;
+    private OffHeapRecordFactory recordFactory;
+    private OffHeapStorage storage;
+    private OffHeapRecordTable table;
+
+    @Before
+    public void setUp() {
+        ss = new SerializationServiceBuilder().build();
+        MapConfig mapConfig = new MapConfig("default").setStatisticsEnabled(true);
+        recordFactory = new OffHeapRecordFactory(mapConfig, ss, null);
+        storage = new OffHeapStorage(64 * SLAB_SIZE, SLAB_SIZE);
+        table = new OffHeapRecordTable(ss.getPortableContext(), storage, true);
+    }
+
+    @After
+    public void tearDown() {
+        table.clear();
+        assertEquals(0, table.getAllocatedBytes());
+        assertEquals(0, storage.getReservedBytes());
+        storage.destroy();
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        Data key = ss.toData("key");
+        Record record = recordFactory.newRecord(key, "value");
+        record.setTtl(1000L);
+        record.setVersion(3L);
+        record.getStatistics().setHits(7);
+
+        assertNull(table.put(key, record));
+        Record stored = table.get(key);
+        assertEquals(key, stored.getKey());
+        assertEquals("value", ss.toObject(stored.getValue()));
+        assertEquals(1000L, stored.getTtl());
+        assertEquals(3L, stored.getVersion());
+        assertEquals(7, stored.getStatistics().getHits());
+
+        Record removed = table.remove(key);
+        assertEquals("value", ss.toObject(removed.getValue()));
+        assertEquals(3L, removed.getVersion());
+        assertNull(table.get(key));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testViewWritesThrough() {
+        Data key = ss.toData(1);
+        table.put(key, recordFactory.newRecord(key, "a"));
+
+        Record view = table.get(key);
+        view.setLastAccessTime(42L);
+        view.onUpdate();
+        view.onAccess();
+        recordFactory.setValue(view, "b");
+
+        Record other = table.get(key);
+        assertEquals(42L, other.getLastAccessTime());
+        assertEquals(1L, other.getVersion());
+        assertEquals(1, other.getStatistics().getHits());
+        assertEquals("b", ss.toObject(other.getValue()));
+    }
+
+    @Test
+    public void testViewOfRemovedEntry() {
+        Data key = ss.toData(1);
+        table.put(key, recordFactory.newRecord(key, "a"));
+        Record view = table.get(key);
+        for (int i = 2; i < 100; i++) {
+            Data k = ss.toData(i);
+            table.put(k, recordFactory.newRecord(k, i));
+        }
+        table.remove(key);
+
+        assertNull(view.getValue());
+        assertEquals(0L, view.getVersion());
+    }
+
+    @Test
+    public void testResizeAndIterate() {
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            Data key = ss.toData(i);
+            table.put(key, recordFactory.newRecord(key, i));
+        }
+        assertEquals(count, table.size());
+        for (int i = 0; i < count; i += 2) {
+            assertFalse(table.remove(ss.toData(i)) == null);
+        }
+        Set<Object> values = new HashSet<Object>();
+        for (Record record : table.values()) {
+            values.add(ss.toObject(record.getValue()));
+        }
+        assertEquals(count / 2, values.size());
+        for (int i = 1; i < count; i += 2) {
+            assertTrue(values.contains(i));
+            assertEquals(i, ss.toObject(table.get(ss.toData(i)).getValue()));
+        }
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        for (int i = 0; i < 1000; i++) {
+            Data key = ss.toData(i);
+            table.put(key, recordFactory.newRecord(key, i));
+        }
+        Iterator<Record> iterator = table.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testIteratorRemove_entryWrappingAroundIsNotReturnedTwice() {
+        // three keys probing from the last slot of the initial table: they land in the last, first and second slot.
+        List<Data> keys = new ArrayList<Data>();
+        for (int i = 0; keys.size() < 3; i++) {
+            Data key = ss.toData(i);
+            int hash = key.hashCode();
+            if (((hash ^ (hash >>> 16)) & 15) == 15) {
+                keys.add(key);
+                table.put(key, recordFactory.newRecord(key, i));
+            }
+        }
+
+        List<Data> returned = new ArrayList<Data>();
+        Iterator<Record> iterator = table.values().iterator();
+        while (iterator.hasNext()) {
+            Data key = iterator.next().getKey();
+            returned.add(key);
+            // the first key sits in the last slot, removing it shifts the wrapped entries back over the end.
+            if (key.equals(keys.get(0))) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(3, returned.size());
+        assertEquals(3, new HashSet<Data>(returned).size());
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testAllocationsCountAgainstStorageCapacity() {
+        assertEquals(0, storage.getReservedBytes());
+        Data key = ss.toData(1);
+        table.put(key, recordFactory.newRecord(key, 1));
+        assertEquals(table.getAllocatedBytes(), storage.getUnpooledBytes());
+        assertEquals(storage.getUnpooledBytes(), storage.getReservedBytes());
+
+        byte[] value = new byte[SLAB_SIZE];
+        int i = 2;
+        try {
+            for (; i < 1000; i++) {
+                Data k = ss.toData(i);
+                table.put(k, recordFactory.newRecord(k, value));
+            }
+            fail("storage capacity is not enforced");
+        } catch (OffHeapOutOfMemoryException expected) {
+        }
+        assertEquals(i - 1, table.size());
+        assertNull(table.get(ss.toData(i)));
+        assertEquals(table.getAllocatedBytes(), storage.getUnpooledBytes());
+    }
+}
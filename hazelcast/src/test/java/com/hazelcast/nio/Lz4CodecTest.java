@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.nio;
+
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class Lz4CodecTest {
+
+    private final Lz4Codec codec = new Lz4Codec();
+
+    @Test
+    public void testCompressibleBytesRoundTrip() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"customer-").append(i % 7).append("\",\"active\":true}");
+        }
+        byte[] bytes = sb.toString().getBytes();
+
+        int length = codec.compress(bytes);
+        assertTrue(length > 0 && length < bytes.length / 4);
+        assertRoundTrip(bytes, length);
+    }
+
+    @Test
+    public void testRandomBytesAreNotCompressed() {
+        byte[] bytes = new byte[4096];
+        new Random(1).nextBytes(bytes);
+        assertEquals(-1, codec.compress(bytes));
+    }
+
+    @Test
+    public void testRunsAndOverlappingMatches() {
+        Random random = new Random(2);
+        for (int k = 0; k < 500; k++) {
+            byte[] bytes = new byte[random.nextInt(5000)];
+            int i = 0;
+            while (i < bytes.length) {
+                int run = Math.min(bytes.length - i, 1 + random.nextInt(600));
+                byte value = (byte) random.nextInt(4);
+                boolean literal = random.nextBoolean();
+                for (int j = 0; j < run; j++) {
+                    bytes[i + j] = literal ? (byte) random.nextInt() : value;
+                }
+                i += run;
+            }
+            int length = codec.compress(bytes);
+            if (length > 0) {
+                assertRoundTrip(bytes, length);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedBlock() {
+        byte[] bytes = new byte[1000];
+        int length = codec.compress(bytes);
+        byte[] block = Arrays.copyOf(codec.getOutput(), length - 1);
+        Lz4Codec.decompress(block, new byte[bytes.length]);
+    }
+
+    private void assertRoundTrip(byte[] bytes, int length) {
+        byte[] block = Arrays.copyOf(codec.getOutput(), length);
+        assertEquals(bytes.length, Lz4Codec.getDecompressedLength(block));
+        byte[] decompressed = new byte[bytes.length];
+        Lz4Codec.decompress(block, decompressed);
+        assertTrue(Arrays.equals(bytes, decompressed));
+    }
+}
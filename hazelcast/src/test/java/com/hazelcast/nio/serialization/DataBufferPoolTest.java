@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.nio.serialization;
+
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class DataBufferPoolTest {
+
+    @Test
+    public void testTakeReturnsOfferedArrayOfSameSize() {
+        DataBufferPool pool = new DataBufferPool(1024, 4096);
+        byte[] array = pool.take(100);
+        pool.offer(array);
+        assertEquals(100, pool.getPooledBytes());
+
+        assertNotSame(array, pool.take(99));
+        assertSame(array, pool.take(100));
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testCapacityIsNotExceeded() {
+        DataBufferPool pool = new DataBufferPool(1024, 150);
+        pool.offer(new byte[100]);
+        pool.offer(new byte[100]);
+        pool.offer(new byte[2048]);
+        assertEquals(100, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testReleasedPacketValueIsReused() {
+        SerializationService ss = new SerializationServiceBuilder().build();
+        Data data = ss.toData("value");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        new DataAdapter(data, ss.getPortableContext()).writeTo(buffer);
+        buffer.flip();
+
+        DataBufferPool pool = new DataBufferPool(1024, 4096);
+        DataAdapter adapter = new DataAdapter(ss.getPortableContext(), pool);
+        adapter.readFrom(buffer);
+        Data read = adapter.getData();
+        assertEquals(data, read);
+        byte[] array = read.getBuffer();
+
+        adapter.release();
+        assertEquals(0, read.bufferSize());
+        assertSame(array, pool.take(array.length));
+    }
+}
@@ -34,6 +34,9 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -76,6 +79,44 @@ public class ObjectDataTest {
         assertEquals(data1, data2);
     }
 
+    @Test
+    public void testDataWriterWithDetachedValue() throws IOException {
+        SerializationService ss = new SerializationServiceBuilder().
+                setUseNativeByteOrder(false).setByteOrder(ByteOrder.BIG_ENDIAN).build();
+
+        final Person person = new Person(111, 123L, 89.56d, "test-person",
+                new Address("street", 987));
+
+        final Data data1 = ss.toData(person);
+
+        ObjectDataOutput out = ss.createObjectDataOutput(1024);
+        data1.writeData(out);
+        byte[] bytes1 = out.toByteArray();
+
+        ByteBuffer header = ByteBuffer.allocateDirect(1024);
+        DataAdapter dataAdapter = new DataAdapter(data1, ss.getPortableContext());
+        assertFalse(dataAdapter.writeTo(header, 16));
+        ByteBuffer value = dataAdapter.detachValue();
+        assertNotNull(value);
+        assertNull(dataAdapter.detachValue());
+        ByteBuffer hash = ByteBuffer.allocateDirect(1024);
+        assertTrue(dataAdapter.writeTo(hash, 16));
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        header.flip();
+        hash.flip();
+        buffer.put(header).put(value).put(hash);
+        byte[] bytes2 = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes2);
+        assertTrue(Arrays.equals(bytes1, bytes2));
+
+        buffer.flip();
+        dataAdapter.reset();
+        dataAdapter.readFrom(buffer);
+        assertEquals(data1, dataAdapter.getData());
+    }
+
     @Test
     public void testDataStreamsBigEndian() throws IOException {
         testDataStreams(ByteOrder.BIG_ENDIAN, false);
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.query.impl.QueryEntry;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static com.hazelcast.query.SampleObjects.Employee;
+import static com.hazelcast.query.SampleObjects.State;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class PredicateCompilerTest {
+
+    private static final String[] SQL = {
+            "age = 20",
+            "age != 20",
+            "age > 20 and age <= 40",
+            "age between 20 and 40 and active",
+            "name = 'name3' or name = 'name5'",
+            "name like 'name1%' and age < 30",
+            "name ilike 'NAME2%' or salary >= 300.5",
+            "name regex 'name[0-4]' and not(age = 12)",
+            "age in (10, 20, 30) or (active and salary < 100)",
+            "state = STATE2 and age > 10",
+            "city = 'london' or city = null",
+            "(age > 10 and (salary < 500 and active)) and name != 'name7'",
+    };
+
+    @Test
+    public void testCompiledPredicate_matchesSameEntries() {
+        final List<QueryEntry> entries = createEntries();
+        for (String sql : SQL) {
+            final Predicate predicate = new SqlPredicate(sql);
+            final Predicate compiled = PredicateCompiler.compile(predicate);
+            for (QueryEntry entry : entries) {
+                assertEquals(sql + " " + entry.getValue(), predicate.apply(entry), compiled.apply(entry));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledPredicate_ofPredicates() {
+        final Predicate predicate = Predicates.and(Predicates.greaterEqual("age", "20"),
+                Predicates.or(Predicates.equal("name", "name4"), Predicates.in("age", 21, 22)),
+                Predicates.instanceOf(Employee.class));
+        final Predicate compiled = PredicateCompiler.compile(predicate);
+        for (QueryEntry entry : createEntries()) {
+            assertEquals(predicate.apply(entry), compiled.apply(entry));
+        }
+    }
+
+    @Test
+    public void testCompiledPredicate_extractsAttributeOnce() {
+        final Predicate compiled = PredicateCompiler.compile(new SqlPredicate("age > 10 and age < 30 and age != 15"));
+        final CountingEntry entry = new CountingEntry(new Employee("name", 20, true, 10));
+
+        assertTrue(compiled.apply(entry));
+        assertEquals(1, (int) entry.counts.get("age"));
+    }
+
+    @Test
+    public void testCompiledPredicate_evaluatesEqualityFirst() {
+        final Predicate compiled = PredicateCompiler.compile(new SqlPredicate("name like 'x%' and age = 30"));
+        final CountingEntry entry = new CountingEntry(new Employee("name", 20, true, 10));
+
+        assertFalse(compiled.apply(entry));
+        assertFalse(entry.counts.containsKey("name"));
+    }
+
+    @Test(expected = QueryException.class)
+    public void testCompiledPredicate_unknownAttribute() {
+        final Predicate compiled = PredicateCompiler.compile(new SqlPredicate("unknown = 1"));
+        compiled.apply(createEntry(1, new Employee("name", 20, true, 10)));
+    }
+
+    private static List<QueryEntry> createEntries() {
+        final List<QueryEntry> entries = new ArrayList<QueryEntry>();
+        for (int i = 0; i < 100; i++) {
+            final Employee employee = new Employee(i, "name" + i, i % 2 == 0 ? "london" : null, i % 50, i % 3 == 0, i * 5.5);
+            employee.setState(i % 4 == 0 ? State.STATE1 : State.STATE2);
+            entries.add(createEntry(i, employee));
+        }
+        return entries;
+    }
+
+    private static QueryEntry createEntry(Object key, Object value) {
+        return new QueryEntry(null, toData(key), key, value);
+    }
+
+    private static class CountingEntry extends QueryEntry {
+
+        final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+        CountingEntry(Object value) {
+            super(null, toData(1), 1, value);
+        }
+
+        @Override
+        public Comparable getAttribute(String attributeName) throws QueryException {
+            final Integer count = counts.get(attributeName);
+            counts.put(attributeName, count == null ? 1 : count + 1);
+            return super.getAttribute(attributeName);
+        }
+    }
+}
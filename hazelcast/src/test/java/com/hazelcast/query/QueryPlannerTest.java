@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.query.impl.IndexService;
+import com.hazelcast.query.impl.QueryEntry;
+import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static com.hazelcast.query.Predicates.equal;
+import static com.hazelcast.query.Predicates.in;
+import static com.hazelcast.query.Predicates.or;
+import static com.hazelcast.query.SampleObjects.Employee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class QueryPlannerTest {
+
+    private final Set<QueryEntry> entries = new HashSet<QueryEntry>();
+    private final IndexService indexService = new IndexService();
+
+    @Before
+    public void setUp() {
+        indexService.addOrGetIndex("name", false);
+        indexService.addOrGetIndex("age", true);
+        indexService.addOrGetIndex("active", false);
+        for (int i = 0; i < 1000; i++) {
+            Employee employee = new Employee(i, "name" + (i % 100), "city", i % 50, i % 2 == 0, i);
+            QueryEntry entry = new QueryEntry(null, toData(i), i, employee);
+            entries.add(entry);
+            indexService.saveEntryIndex(entry);
+        }
+    }
+
+    @Test
+    public void testAnd_filtersByUnselectiveIndex() {
+        Predicate predicate = new SqlPredicate("active = true and name = 'name4'");
+
+        assertEquals("AND, estimated 10 entries\n"
+                + "  INDEX name=name4, estimated 10 entries\n"
+                + "  FILTER active=true", indexService.explain(predicate));
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testAnd_intersectsSelectiveIndex() {
+        Predicate predicate = new SqlPredicate("age = 3 and name = 'name3'");
+
+        assertEquals("AND, estimated 10 entries\n"
+                + "  INDEX name=name3, estimated 10 entries\n"
+                + "  INTERSECT age=3, estimated 20 entries", indexService.explain(predicate));
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testAnd_estimatesRange() {
+        Predicate predicate = new SqlPredicate("active = false and age < 2");
+
+        assertEquals("AND, estimated 40 entries\n"
+                + "  INDEX age<2, estimated 40 entries\n"
+                + "  FILTER active=false", indexService.explain(predicate));
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testOr_multiPointLookup() {
+        Predicate predicate = or(equal("name", "name3"), equal("name", "name4"), in("name", "name5", "name3"),
+                equal("age", 7));
+
+        assertEquals("OR, estimated 50 entries\n"
+                + "  INDEX name IN (name3,name4,name5), estimated 30 entries\n"
+                + "  INDEX age=7, estimated 20 entries", indexService.explain(predicate));
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testOr_withoutIndex() {
+        Predicate predicate = new SqlPredicate("name = 'name3' or salary > 10");
+
+        assertTrue(indexService.explain(predicate).startsWith("SCAN "));
+        assertNull(indexService.query(predicate));
+    }
+
+    @Test
+    public void testExplain_singlePredicate() {
+        assertEquals("INDEX age>=45, estimated 100 entries", indexService.explain(new SqlPredicate("age >= 45")));
+        assertEquals("SCAN city=city", indexService.explain(new SqlPredicate("city = 'city'")));
+    }
+
+    private void assertQuery(Predicate predicate) {
+        Set<QueryEntry> expected = new HashSet<QueryEntry>();
+        for (QueryEntry entry : entries) {
+            if (predicate.apply(entry)) {
+                expected.add(entry);
+            }
+        }
+        Set<QueryableEntry> result = indexService.query(predicate);
+        assertEquals(expected, new HashSet<QueryableEntry>(result));
+    }
+}
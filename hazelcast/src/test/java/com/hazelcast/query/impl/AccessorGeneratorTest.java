@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class AccessorGeneratorTest {
+
+    @Test
+    public void testGenerate_primitiveGetters() throws Exception {
+        SampleObject object = new SampleObject();
+
+        assertEquals(42, generate(SampleObject.class, "getAge").get(object));
+        assertEquals(5L, generate(SampleObject.class, "getId").get(object));
+        assertEquals(1.5, generate(SampleObject.class, "getSalary").get(object));
+        assertEquals(true, generate(SampleObject.class, "isActive").get(object));
+        assertEquals('x', generate(SampleObject.class, "getGrade").get(object));
+    }
+
+    @Test
+    public void testGenerate_interfaceGetter() throws Exception {
+        AttributeAccessor accessor = AccessorGenerator.generate(Named.class, Named.class.getMethod("getName"));
+
+        assertNotNull(accessor);
+        assertEquals("sample", accessor.get(new SampleObject()));
+    }
+
+    @Test
+    public void testGenerate_publicField() throws Exception {
+        AttributeAccessor accessor = AccessorGenerator.generate(SampleObject.class,
+                SampleObject.class.getField("count"));
+
+        assertNotNull(accessor);
+        assertEquals(3, accessor.get(new SampleObject()));
+    }
+
+    @Test
+    public void testGenerate_notForPrivateClass() throws Exception {
+        assertNull(AccessorGenerator.generate(PrivateObject.class, PrivateObject.class.getMethod("getAge")));
+    }
+
+    @Test
+    public void testExtractValue_withGeneratedAccessors() throws Exception {
+        SampleObject object = new SampleObject();
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(42, ReflectionHelper.extractValue(object, "age"));
+            assertEquals("sample", ReflectionHelper.extractValue(object, "named.name"));
+            assertNull(ReflectionHelper.extractValue(object, "nothing.name"));
+        }
+    }
+
+    private static AttributeAccessor generate(Class owner, String methodName) throws Exception {
+        AttributeAccessor accessor = AccessorGenerator.generate(owner, owner.getMethod(methodName));
+        assertNotNull(accessor);
+        return accessor;
+    }
+
+    public interface Named {
+        String getName();
+    }
+
+    public static class SampleObject implements Named {
+
+        public int count = 3;
+
+        public int getAge() {
+            return 42;
+        }
+
+        public long getId() {
+            return 5L;
+        }
+
+        public double getSalary() {
+            return 1.5;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public char getGrade() {
+            return 'x';
+        }
+
+        public String getName() {
+            return "sample";
+        }
+
+        public Named getNamed() {
+            return this;
+        }
+
+        public Named getNothing() {
+            return null;
+        }
+    }
+
+    private static class PrivateObject {
+
+        public int getAge() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.SqlPredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static com.hazelcast.query.SampleObjects.Employee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class CompositeIndexTest {
+
+    private final Set<QueryEntry> entries = new HashSet<QueryEntry>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 1000; i++) {
+            Employee employee = new Employee(i, "name" + (i % 10), i % 3 == 0 ? null : "city" + (i % 7), i % 50,
+                    i % 2 == 0, i);
+            entries.add(new QueryEntry(null, toData(i), i, employee));
+        }
+    }
+
+    @Test
+    public void testNormalize() {
+        assertTrue(CompositeIndex.isComposite("name, age"));
+        assertFalse(CompositeIndex.isComposite("name"));
+        assertEquals("name,city,age", CompositeIndex.normalize(" name ,city,  age"));
+    }
+
+    @Test
+    public void testAddOrGetIndex_sameIndexForNormalizedName() {
+        IndexService indexService = new IndexService();
+        Index index = indexService.addOrGetIndex("name, city", true);
+
+        assertTrue(index instanceof CompositeIndex);
+        assertEquals(index, indexService.addOrGetIndex("name,city", true));
+    }
+
+    @Test
+    public void testOrderedIndex_prefixAndRange() {
+        IndexService indexService = createIndexService("name, city, age", true);
+
+        assertQuery(indexService, "name = 'name3' and city = 'city5' and age = 13");
+        assertQuery(indexService, "name = 'name3' and city = 'city5'");
+        assertQuery(indexService, "name = 'name3'");
+        assertQuery(indexService, "name = 'name3' and city = 'city5' and age > 13");
+        assertQuery(indexService, "name = 'name3' and city = 'city5' and age >= 13 and age < 40");
+        assertQuery(indexService, "name = 'name3' and city = 'city5' and age between 3 and 23");
+        assertQuery(indexService, "name = 'name3' and city < 'city3'");
+        assertQuery(indexService, "name = 'name3' and city <= 'city3' and active");
+        assertQuery(indexService, "name > 'name7'");
+    }
+
+    @Test
+    public void testUnorderedIndex_allAttributes() {
+        IndexService indexService = createIndexService("name, age", false);
+
+        assertQuery(indexService, "name = 'name3' and age = 13 and active = false");
+        assertNull(indexService.query(new SqlPredicate("name = 'name3' and age > 13")));
+    }
+
+    @Test
+    public void testCompositeIndex_withSingleAttributeIndex() {
+        IndexService indexService = createIndexService("name, city", true);
+        indexService.addOrGetIndex("age", true);
+        for (QueryEntry entry : entries) {
+            indexService.saveEntryIndex(entry);
+        }
+
+        assertQuery(indexService, "age < 10 and name = 'name4' and city = 'city1'");
+        assertQuery(indexService, "age = 14 and name = 'name4'");
+    }
+
+    @Test
+    public void testCompositeIndex_update() {
+        IndexService indexService = new IndexService();
+        indexService.addOrGetIndex("name, age", true);
+        QueryEntry entry = new QueryEntry(null, toData(1), 1, new Employee("name1", 1, true, 1));
+        indexService.saveEntryIndex(entry);
+        indexService.saveEntryIndex(new QueryEntry(null, toData(1), 1, new Employee("name1", 2, true, 1)));
+
+        assertEquals(0, indexService.query(new SqlPredicate("name = 'name1' and age = 1")).size());
+        assertEquals(1, indexService.query(new SqlPredicate("name = 'name1' and age = 2")).size());
+    }
+
+    private IndexService createIndexService(String attributes, boolean ordered) {
+        IndexService indexService = new IndexService();
+        indexService.addOrGetIndex(attributes, ordered);
+        for (QueryEntry entry : entries) {
+            indexService.saveEntryIndex(entry);
+        }
+        return indexService;
+    }
+
+    private void assertQuery(IndexService indexService, String sql) {
+        Predicate predicate = new SqlPredicate(sql);
+        Set<QueryEntry> expected = new HashSet<QueryEntry>();
+        for (QueryEntry entry : entries) {
+            if (predicate.apply(entry)) {
+                expected.add(entry);
+            }
+        }
+        Set<QueryableEntry> result = indexService.query(predicate);
+        assertEquals(sql, expected, new HashSet<QueryableEntry>(result));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableFactory;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import com.hazelcast.query.QueryException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class PortableExtractorTest {
+
+    private static final int FACTORY_ID = 1;
+
+    @Test
+    public void testExtractValue_bigEndian() throws IOException {
+        assertExtractsFields(createSerializationService(ByteOrder.BIG_ENDIAN, false));
+    }
+
+    @Test
+    public void testExtractValue_littleEndian() throws IOException {
+        assertExtractsFields(createSerializationService(ByteOrder.LITTLE_ENDIAN, false));
+    }
+
+    @Test
+    public void testExtractValue_nativeByteOrder() throws IOException {
+        assertExtractsFields(createSerializationService(ByteOrder.nativeOrder(), true));
+    }
+
+    @Test
+    public void testGetAttributeType() {
+        SerializationService ss = createSerializationService(ByteOrder.BIG_ENDIAN, false);
+        Data data = ss.toData(new Outer(-1, new Inner()));
+
+        assertEquals(AttributeType.INTEGER, PortableExtractor.getAttributeType(ss.getPortableContext(), data, "id"));
+        assertEquals(AttributeType.STRING,
+                PortableExtractor.getAttributeType(ss.getPortableContext(), data, "inner.s"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testExtractValue_nullParent() throws IOException {
+        SerializationService ss = createSerializationService(ByteOrder.BIG_ENDIAN, false);
+        // a null Portable can only be written once its class definition is registered.
+        ss.toData(new Outer(1, new Inner()));
+        Data data = ss.toData(new Outer(1, null));
+
+        PortableExtractor.extractValue(ss, data, "inner.i");
+    }
+
+    @Test(expected = QueryException.class)
+    public void testExtractValue_unknownField() throws IOException {
+        SerializationService ss = createSerializationService(ByteOrder.BIG_ENDIAN, false);
+        Data data = ss.toData(new Outer(1, new Inner()));
+
+        PortableExtractor.extractValue(ss, data, "inner.unknown");
+    }
+
+    private static void assertExtractsFields(SerializationService ss) throws IOException {
+        Data data = ss.toData(new Outer(-7, new Inner()));
+
+        assertEquals(-7, PortableExtractor.extractValue(ss, data, "id"));
+        assertEquals((byte) -2, PortableExtractor.extractValue(ss, data, "inner.b"));
+        assertEquals(true, PortableExtractor.extractValue(ss, data, "inner.z"));
+        assertEquals('\u00e9', PortableExtractor.extractValue(ss, data, "inner.c"));
+        assertEquals((short) -300, PortableExtractor.extractValue(ss, data, "inner.sh"));
+        assertEquals(-123456789, PortableExtractor.extractValue(ss, data, "inner.i"));
+        assertEquals(-1234567890123L, PortableExtractor.extractValue(ss, data, "inner.l"));
+        assertEquals(-1.5f, PortableExtractor.extractValue(ss, data, "inner.f"));
+        assertEquals(-2.25d, PortableExtractor.extractValue(ss, data, "inner.d"));
+        assertEquals("h\u00e9llo", PortableExtractor.extractValue(ss, data, "inner.s"));
+    }
+
+    private static SerializationService createSerializationService(ByteOrder byteOrder, boolean allowUnsafe) {
+        return new SerializationServiceBuilder()
+                .addPortableFactory(FACTORY_ID, new TestPortableFactory())
+                .setByteOrder(byteOrder)
+                .setAllowUnsafe(allowUnsafe)
+                .build();
+    }
+
+    private static class TestPortableFactory implements PortableFactory {
+        @Override
+        public Portable create(int classId) {
+            if (classId == Outer.CLASS_ID) {
+                return new Outer();
+            } else if (classId == Inner.CLASS_ID) {
+                return new Inner();
+            }
+            return null;
+        }
+    }
+
+    private static class Outer implements Portable {
+        static final int CLASS_ID = 1;
+
+        int id;
+        Inner inner;
+
+        Outer() {
+        }
+
+        Outer(int id, Inner inner) {
+            this.id = id;
+            this.inner = inner;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return FACTORY_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return CLASS_ID;
+        }
+
+        @Override
+        public void writePortable(PortableWriter writer) throws IOException {
+            writer.writeInt("id", id);
+            if (inner == null) {
+                writer.writeNullPortable("inner", FACTORY_ID, Inner.CLASS_ID);
+            } else {
+                writer.writePortable("inner", inner);
+            }
+        }
+
+        @Override
+        public void readPortable(PortableReader reader) throws IOException {
+            id = reader.readInt("id");
+            inner = reader.readPortable("inner");
+        }
+    }
+
+    private static class Inner implements Portable {
+        static final int CLASS_ID = 2;
+
+        @Override
+        public int getFactoryId() {
+            return FACTORY_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return CLASS_ID;
+        }
+
+        @Override
+        public void writePortable(PortableWriter writer) throws IOException {
+            writer.writeUTF("s", "h\u00e9llo");
+            writer.writeByte("b", (byte) -2);
+            writer.writeBoolean("z", true);
+            writer.writeChar("c", '\u00e9');
+            writer.writeShort("sh", (short) -300);
+            writer.writeInt("i", -123456789);
+            writer.writeLong("l", -1234567890123L);
+            writer.writeFloat("f", -1.5f);
+            writer.writeDouble("d", -2.25d);
+        }
+
+        @Override
+        public void readPortable(PortableReader reader) throws IOException {
+        }
+    }
+}
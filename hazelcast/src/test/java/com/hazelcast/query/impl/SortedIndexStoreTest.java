@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class SortedIndexStoreTest {
+
+    private final SortedIndexStore store = new SortedIndexStore();
+    private final Map<Data, QueryEntry> entries = new ConcurrentHashMap<Data, QueryEntry>();
+    private final Map<Data, Comparable> values = new ConcurrentHashMap<Data, Comparable>();
+
+    @Test
+    public void testLongValues() {
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            save(random.nextInt(2000), (long) random.nextInt(100) - 50);
+        }
+        for (int i = 0; i < 3000; i++) {
+            remove(random.nextInt(2000));
+        }
+
+        assertRanges(-60L, -50L, -1L, 0L, 3L, 49L, 60L);
+    }
+
+    @Test
+    public void testIntegerValues_queriedWithLong() {
+        for (int i = 0; i < 100; i++) {
+            save(i, i % 10);
+        }
+
+        assertEquals(10, store.getRecords(3L).size());
+        assertEquals(10, store.getRecords(3).size());
+    }
+
+    @Test
+    public void testDoubleValues() {
+        Random random = new Random(2);
+        for (int i = 0; i < 3000; i++) {
+            save(i, random.nextInt(20) == 0 ? -0.0d : random.nextGaussian() * 10);
+        }
+        save(3000, Double.NaN);
+        save(3001, Double.NEGATIVE_INFINITY);
+        save(3002, 0.0d);
+
+        assertRanges(Double.NEGATIVE_INFINITY, -10.5d, -0.0d, 0.0d, 0.25d, 7d, Double.NaN);
+    }
+
+    @Test
+    public void testStringValues() {
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            save(random.nextInt(2500), "value" + random.nextInt(300));
+        }
+
+        assertRanges("", "value1", "value150", "value2", "value99", "x");
+    }
+
+    @Test
+    public void testNullValues() {
+        for (int i = 0; i < 10; i++) {
+            save(i, i % 2 == 0 ? IndexImpl.NULL : (Comparable) (long) i);
+        }
+        remove(0);
+
+        assertEquals(4, store.getRecords(IndexImpl.NULL).size());
+        assertEquals(5, count(ComparisonType.GREATER_EQUAL, 0L));
+        assertEquals(5, count(ComparisonType.NOT_EQUAL, 0L));
+    }
+
+    @Test
+    public void testGetRecordMap() {
+        save(1, 10L);
+        save(2, 10L);
+        save(3, 20L);
+
+        assertEquals(2, store.getRecordMap(10L).size());
+        assertEquals(entries.get(toData(1)), store.getRecordMap(10L).get(toData(1)));
+        assertNull(store.getRecordMap(15L));
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 2000; i++) {
+            save(i, (long) i);
+        }
+        store.clear();
+
+        assertEquals(0, count(ComparisonType.NOT_EQUAL, 0L));
+        store.newIndex("value", new QueryEntry(null, toData(1), 1, "value"));
+        assertEquals(1, store.getRecords("value").size());
+    }
+
+    @Test
+    public void testConcurrentChanges_whileMerging() throws Exception {
+        final int threadCount = 4;
+        final int keysPerThread = 3000;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int firstKey = t * keysPerThread;
+            final Random random = new Random(t);
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 30000; i++) {
+                            int key = firstKey + random.nextInt(keysPerThread);
+                            if (random.nextInt(4) == 0) {
+                                remove(key);
+                            } else {
+                                save(key, (long) random.nextInt(200));
+                            }
+                            if (i % 1000 == 0) {
+                                count(ComparisonType.GREATER, 100L);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        error.set(t);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(error.get());
+        assertRanges(-1L, 0L, 50L, 100L, 199L, 200L);
+    }
+
+    private void save(int key, Comparable value) {
+        Data keyData = toData(key);
+        Comparable oldValue = values.put(keyData, value);
+        if (oldValue != null) {
+            store.removeIndex(oldValue, keyData);
+        }
+        QueryEntry entry = new QueryEntry(null, keyData, key, value);
+        entries.put(keyData, entry);
+        store.newIndex(value, entry);
+    }
+
+    private void remove(int key) {
+        Data keyData = toData(key);
+        Comparable oldValue = values.remove(keyData);
+        if (oldValue != null) {
+            entries.remove(keyData);
+            store.removeIndex(oldValue, keyData);
+        }
+    }
+
+    private void assertRanges(Comparable... bounds) {
+        for (Comparable from : bounds) {
+            assertEquals(expected(from, true, from, true), keys(store.getRecords(from)));
+            assertRange(ComparisonType.LESSER, from, null, false, from, false);
+            assertRange(ComparisonType.LESSER_EQUAL, from, null, false, from, true);
+            assertRange(ComparisonType.GREATER, from, from, false, null, false);
+            assertRange(ComparisonType.GREATER_EQUAL, from, from, true, null, false);
+            for (Comparable to : bounds) {
+                MultiResultSet results = new MultiResultSet();
+                store.getSubRecordsBetween(results, from, to);
+                assertEquals(expected(from, true, to, true), keys(results));
+                results = new MultiResultSet();
+                store.getSubRecords(results, from, false, to, true);
+                assertEquals(expected(from, false, to, true), keys(results));
+                results = new MultiResultSet();
+                store.getSubRecords(results, from, true, to, false);
+                assertEquals(expected(from, true, to, false), keys(results));
+            }
+        }
+    }
+
+    private void assertRange(ComparisonType comparisonType, Comparable value, Comparable from, boolean fromInclusive,
+                             Comparable to, boolean toInclusive) {
+        MultiResultSet results = new MultiResultSet();
+        store.getSubRecords(results, comparisonType, value);
+        assertEquals(comparisonType + " " + value, expected(from, fromInclusive, to, toInclusive), keys(results));
+    }
+
+    private int count(ComparisonType comparisonType, Comparable value) {
+        MultiResultSet results = new MultiResultSet();
+        store.getSubRecords(results, comparisonType, value);
+        return results.size();
+    }
+
+    private Set<Data> expected(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        Set<Data> expected = new HashSet<Data>();
+        for (Map.Entry<Data, Comparable> entry : values.entrySet()) {
+            Comparable value = entry.getValue();
+            if (value instanceof IndexImpl.NullObject) {
+                continue;
+            }
+            int fromResult = from == null ? 1 : value.compareTo(from);
+            int toResult = to == null ? -1 : value.compareTo(to);
+            if ((fromResult > 0 || fromInclusive && fromResult == 0) && (toResult < 0 || toInclusive && toResult == 0)) {
+                expected.add(entry.getKey());
+            }
+        }
+        return expected;
+    }
+
+    private Set<Data> keys(Set<QueryableEntry> results) {
+        Set<Data> keys = new HashSet<Data>();
+        for (QueryableEntry entry : results) {
+            assertEquals(entries.get(entry.getIndexKey()), entry);
+            keys.add(entry.getIndexKey());
+        }
+        assertEquals(keys.size(), results.size());
+        return keys;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastOverloadException;
+import com.hazelcast.core.IMap;
+import com.hazelcast.instance.GroupProperties;
+import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.tcp.TcpIpConnection;
+import com.hazelcast.nio.tcp.WriteHandler;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.SlowTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Floods a member connection with a send queue capacity of 1 KB to apply the {@link BackpressurePolicy}.
+ * Uses real connections, the mock network does not queue packets.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(SlowTest.class)
+public class BackpressureTest extends HazelcastTestSupport {
+
+    private static final int COUNT = 500;
+    private static final int VALUE_SIZE = 64 * 1024;
+
+    private HazelcastInstance hz1;
+    private HazelcastInstance hz2;
+    private int succeeded;
+    private int rejected;
+
+    @Before
+    @After
+    public void killAllHazelcastInstances() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testBlock_keepsAsyncBackups() throws Exception {
+        putAll(BackpressurePolicy.BLOCK);
+
+        assertEquals(COUNT, succeeded);
+        assertTrue("no async backup was sent as sync backup", syncedAsyncBackups() > 0);
+        assertEquals(0, droppedAsyncBackups());
+        assertBackupsComplete();
+    }
+
+    @Test
+    public void testSyncSendsAsyncBackupsAsSyncBackups() throws Exception {
+        putAll(BackpressurePolicy.SYNC);
+
+        assertEquals(COUNT, succeeded);
+        assertTrue("no async backup was sent as sync backup", syncedAsyncBackups() > 0);
+        assertEquals(0, droppedAsyncBackups());
+        assertBackupsComplete();
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        putAll(BackpressurePolicy.REJECT);
+
+        assertTrue("no invocation was rejected", rejected > 0);
+        assertEquals(COUNT, succeeded + rejected);
+        assertEquals(0, syncedAsyncBackups());
+    }
+
+    @Test
+    public void testQueuedBytesReturnToZero() throws Exception {
+        putAll(BackpressurePolicy.BLOCK);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertQueueDrained(hz1, hz2);
+                assertQueueDrained(hz2, hz1);
+            }
+        });
+    }
+
+    private void putAll(BackpressurePolicy policy) throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_SOCKET_SEND_QUEUE_CAPACITY, "1");
+        config.setProperty(GroupProperties.PROP_BACKPRESSURE_POLICY, policy.name());
+        config.getMapConfig("test").setBackupCount(0).setAsyncBackupCount(1);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        hz1 = Hazelcast.newHazelcastInstance(config);
+        hz2 = Hazelcast.newHazelcastInstance(config);
+        warmUpPartitions(hz1, hz2);
+
+        IMap<Integer, byte[]> map = hz1.getMap("test");
+        List<Future> futures = new ArrayList<Future>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            futures.add(map.putAsync(i, new byte[VALUE_SIZE]));
+        }
+        for (Future future : futures) {
+            try {
+                future.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof HazelcastOverloadException)) {
+                    throw e;
+                }
+                rejected++;
+            }
+        }
+    }
+
+    /**
+     * Terminates the first member, the second one has to own all entries from its backup replicas then.
+     */
+    private void assertBackupsComplete() {
+        hz1.getLifecycleService().terminate();
+        final IMap<Integer, byte[]> map = hz2.getMap("test");
+        assertSizeEventually(COUNT, map);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(VALUE_SIZE, map.get(i).length);
+        }
+    }
+
+    private long syncedAsyncBackups() {
+        return getOperationService(hz1).syncedAsyncBackups.get() + getOperationService(hz2).syncedAsyncBackups.get();
+    }
+
+    private long droppedAsyncBackups() {
+        return getOperationService(hz1).droppedAsyncBackups.get() + getOperationService(hz2).droppedAsyncBackups.get();
+    }
+
+    private static BasicOperationService getOperationService(HazelcastInstance hz) {
+        return (BasicOperationService) getNode(hz).nodeEngine.getOperationService();
+    }
+
+    private static void assertQueueDrained(HazelcastInstance hz, HazelcastInstance other) {
+        Address address = ((MemberImpl) other.getCluster().getLocalMember()).getAddress();
+        TcpIpConnection connection = (TcpIpConnection) getNode(hz).connectionManager.getConnection(address);
+        WriteHandler writeHandler = connection.getWriteHandler();
+        assertEquals(0, writeHandler.getQueueSize());
+        assertEquals(0, writeHandler.getQueuedBytes());
+    }
+}
@@ -16,16 +16,22 @@
 
 package com.hazelcast.spi.impl;
 
+import com.hazelcast.config.Config;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.IQueue;
 import com.hazelcast.executor.impl.DistributedExecutorService;
+import com.hazelcast.instance.GroupProperties;
 import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.instance.HazelcastInstanceProxy;
 import com.hazelcast.instance.MemberImpl;
+import com.hazelcast.map.MapService;
+import com.hazelcast.map.RecordStore;
+import com.hazelcast.map.record.Record;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.DataSerializable;
 import com.hazelcast.spi.InvocationBuilder;
 import com.hazelcast.spi.Operation;
@@ -41,8 +47,12 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
 
@@ -125,6 +135,99 @@ public class BasicOperationServiceTest extends HazelcastTestSupport {
         assertNoLitterInOpService(hz2);
     }
 
+    @Test
+    public void testAsyncOpsMultiMemberWithOperationBatching() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_OPERATION_BATCH_ENABLED, "true");
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        HazelcastInstance hz = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz2, hz);
+
+        final IMap<Object, Object> map = hz.getMap("test");
+
+        final int count = 2000;
+        List<Future> futures = new ArrayList<Future>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(map.putAsync(i, i));
+        }
+        for (Future future : futures) {
+            future.get();
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, map.get(i));
+        }
+        assertEquals(count, hz2.getMap("test").size());
+
+        assertNoLitterInOpService(hz);
+        assertNoLitterInOpService(hz2);
+    }
+
+    @Test
+    public void testSameKeyAsyncOpsKeepOrderWithOperationBatching() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_OPERATION_BATCH_ENABLED, "true");
+        config.getMapConfig("async").setBackupCount(0).setAsyncBackupCount(1);
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(2);
+        HazelcastInstance hz = factory.newHazelcastInstance(config);
+        HazelcastInstance hz2 = factory.newHazelcastInstance(config);
+        warmUpPartitions(hz2, hz);
+
+        final String key = generateKeyOwnedBy(hz2);
+        final int count = 2000;
+        // other threads sending to the same member compete for sending the batches
+        final IMap<Object, Object> otherMap = hz.getMap("other");
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int base = t * count;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; !stop.get(); i = (i + 1) % count) {
+                        otherMap.put(base + i, i);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        try {
+            for (String mapName : new String[]{"sync", "async"}) {
+                IMap<Object, Object> map = hz.getMap(mapName);
+                for (int round = 0; round < 3; round++) {
+                    List<Future> futures = new ArrayList<Future>(count);
+                    for (int i = 0; i < count; i++) {
+                        futures.add(map.putAsync(key, round * count + i));
+                    }
+                    for (Future future : futures) {
+                        future.get();
+                    }
+                    int last = round * count + count - 1;
+                    assertEquals(last, map.get(key));
+                    assertBackupValueEventually(hz, mapName, key, last);
+                }
+            }
+        } finally {
+            stop.set(true);
+            assertJoinable(threads);
+        }
+    }
+
+    private void assertBackupValueEventually(HazelcastInstance hz, final String mapName, Object key, final Object expected) {
+        final NodeEngineImpl nodeEngine = getNode(hz).nodeEngine;
+        final Data dataKey = nodeEngine.toData(key);
+        final int partitionId = nodeEngine.getPartitionService().getPartitionId(dataKey);
+        final MapService mapService = nodeEngine.getService(MapService.SERVICE_NAME);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                RecordStore recordStore = mapService.getMapServiceContext().getRecordStore(partitionId, mapName);
+                Record record = recordStore.getRecord(dataKey);
+                assertNotNull("no backup", record);
+                assertEquals(expected, nodeEngine.toObject(record.getValue()));
+            }
+        });
+    }
+
     @Test(expected = ExecutionException.class)
     public void testPropagateSerializationErrorOnResponseToCallerGithubIssue2559()
             throws Exception {
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2013, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.storage;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class OffHeapStorageTest {
+
+    private static final int SLAB_SIZE = 64 * 1024;
+
+    private OffHeapStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new OffHeapStorage(16 * SLAB_SIZE, SLAB_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        storage.destroy();
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        Data data = newData(100, (byte) 7);
+        DataRef ref = storage.put(1, data);
+
+        assertEquals(100, ref.size());
+        assertEquals(data, storage.get(1, ref));
+        assertEquals(data.getPartitionHash(), storage.get(1, ref).getPartitionHash());
+        assertEquals(1, storage.getEntryCount());
+        assertEquals(100, storage.getUsedBytes());
+
+        storage.remove(1, ref);
+        assertEquals(0, storage.getEntryCount());
+        assertEquals(0, storage.getUsedBytes());
+        assertEquals(0, storage.getAllocatedBytes());
+    }
+
+    @Test
+    public void testHeapCostIsOnlyHandle() {
+        DataRef small = storage.put(1, newData(10, (byte) 1));
+        DataRef big = storage.put(1, newData(SLAB_SIZE / 2, (byte) 2));
+        assertEquals(OffHeapDataRef.HEAP_COST, small.heapCost());
+        assertEquals(OffHeapDataRef.HEAP_COST, big.heapCost());
+    }
+
+    @Test
+    public void testFreedBlocksAreReused() {
+        DataRef[] refs = new DataRef[100];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = storage.put(i, newData(50, (byte) i));
+        }
+        long reserved = storage.getReservedBytes();
+        for (int i = 0; i < refs.length; i++) {
+            storage.remove(i, refs[i]);
+        }
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = storage.put(i, newData(49, (byte) i));
+        }
+        assertEquals(reserved, storage.getReservedBytes());
+        for (int i = 0; i < refs.length; i++) {
+            byte[] expected = new byte[49];
+            Arrays.fill(expected, (byte) i);
+            assertArrayEquals(expected, storage.get(i, refs[i]).getBuffer());
+        }
+    }
+
+    @Test
+    public void testLargeValueReleasedOnRemove() {
+        Data data = newData(SLAB_SIZE * 2, (byte) 3);
+        DataRef ref = storage.put(5, data);
+        assertEquals(SLAB_SIZE * 2, storage.getReservedBytes());
+        assertEquals(data, storage.get(5, ref));
+
+        storage.remove(5, ref);
+        assertEquals(0, storage.getReservedBytes());
+    }
+
+    @Test
+    public void testFragmentationAccounting() {
+        storage.put(1, newData(17, (byte) 1));
+        assertTrue(storage.getInternalFragmentation() > 0);
+        assertEquals(storage.getReservedBytes() - storage.getAllocatedBytes(), storage.getExternalFragmentation());
+        assertTrue(storage.getFragmentationRatio() > 0d && storage.getFragmentationRatio() < 1d);
+    }
+
+    @Test
+    public void testEmptyData() {
+        DataRef ref = storage.put(1, new Data());
+        assertEquals(0, ref.size());
+        assertEquals(0, storage.getReservedBytes());
+        assertEquals(new Data(), storage.get(1, ref));
+    }
+
+    @Test(expected = OffHeapOutOfMemoryException.class)
+    public void testCapacityExceeded() {
+        storage.put(1, newData(32 * SLAB_SIZE, (byte) 1));
+    }
+
+    @Test
+    public void testDirectBufferFallback() {
+        OffHeapStorage directStorage = new OffHeapStorage(4 * SLAB_SIZE, SLAB_SIZE, 4, false);
+        try {
+            Data data = newData(1000, (byte) 9);
+            DataRef ref = directStorage.put(3, data);
+            assertEquals(data, directStorage.get(3, ref));
+        } finally {
+            directStorage.destroy();
+        }
+    }
+
+    private static Data newData(int size, byte value) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, value);
+        return new Data(0, bytes);
+    }
+}